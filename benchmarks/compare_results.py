@@ -0,0 +1,58 @@
+"""
+Compare two JMH JSON result files, e.g. from two commits:
+
+    python benchmarks/compare_results.py before.json after.json
+
+Prints score and allocation per operation for every benchmark present in
+both files, with the relative change of each.
+"""
+
+import json
+import sys
+
+
+def load(path):
+    """Map 'Benchmark(params)' to (score, unit, alloc bytes/op or None)"""
+    with open(path) as f:
+        results = json.load(f)
+    rows = {}
+    for result in results:
+        params = result.get("params") or {}
+        key = result["benchmark"].rsplit(".", 2)[-2] + "." + result["benchmark"].rsplit(".", 1)[-1]
+        if params:
+            key += "(" + ",".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+        alloc = result.get("secondaryMetrics", {}).get("gc.alloc.rate.norm")
+        rows[key] = (
+            result["primaryMetric"]["score"],
+            result["primaryMetric"]["scoreUnit"],
+            alloc["score"] if alloc else None,
+        )
+    return rows
+
+
+def change(before, after):
+    if before is None or after is None or before == 0:
+        return ""
+    return f"{(after - before) / before * 100:+.1f}%"
+
+
+def main():
+    if len(sys.argv) != 3:
+        print(__doc__.strip())
+        sys.exit(2)
+    before = load(sys.argv[1])
+    after = load(sys.argv[2])
+
+    print(f"{'benchmark':<60} {'before':>12} {'after':>12} {'change':>8} {'B/op before':>12} {'B/op after':>11} {'change':>8}")
+    for key in sorted(before.keys() & after.keys()):
+        b_score, unit, b_alloc = before[key]
+        a_score, _, a_alloc = after[key]
+        print(f"{key:<60} {b_score:>12.2f} {a_score:>12.2f} {change(b_score, a_score):>8} "
+              f"{b_alloc if b_alloc is not None else float('nan'):>12.1f} "
+              f"{a_alloc if a_alloc is not None else float('nan'):>11.1f} {change(b_alloc, a_alloc):>8}  {unit}")
+    for key in sorted(before.keys() ^ after.keys()):
+        print(f"{key:<60} only in {'before' if key in before else 'after'}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,67 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic transactions shaped like those of
+ * {@code python-ml/transaction_generator.py}: 1000 users, 100 merchants,
+ * uniform amounts up to 5000 with 5% between 10k and 150k, spread over a
+ * week of timestamps.
+ */
+public final class BenchmarkData {
+
+    private static final TransactionType[] TYPES = {
+        TransactionType.DEPOSIT, TransactionType.WITHDRAWAL, TransactionType.TRANSFER,
+        TransactionType.PAYMENT, TransactionType.REFUND
+    };
+    private static final List<String> CURRENCIES = List.of("USD", "EUR", "INR", "GBP", "JPY");
+    private static final List<String> CATEGORIES = List.of(
+        "groceries", "entertainment", "utilities", "healthcare", "education", "shopping", "dining");
+    private static final String[] IP_PREFIXES = {"192.168.1", "10.0.0", "172.16.0", "203.0.113"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private BenchmarkData() {
+        // Utility class, prevent instantiation
+    }
+
+    public static Transaction transaction(Random random) {
+        TransactionType type = TYPES[random.nextInt(TYPES.length)];
+        double amount = random.nextDouble() < 0.05
+            ? 10_000 + random.nextDouble() * 140_000
+            : 0.01 + random.nextDouble() * 4_999.99;
+        Transaction transaction = Transaction.builder()
+            .userId("user_" + (1 + random.nextInt(1000)))
+            .amount(BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP))
+            .transactionType(type)
+            .currency(CURRENCIES.get(random.nextInt(CURRENCIES.size())))
+            .category(CATEGORIES.get(random.nextInt(CATEGORIES.size())))
+            .location((random.nextDouble() * 180 - 90) + "," + (random.nextDouble() * 360 - 180))
+            .ipAddress(IP_PREFIXES[random.nextInt(IP_PREFIXES.length)] + "." + (1 + random.nextInt(254)))
+            .deviceId("device_" + (1 + random.nextInt(500)))
+            .timestamp(START.plusSeconds(random.nextInt(7 * 86_400)))
+            .build();
+        if (type == TransactionType.TRANSFER) {
+            transaction.setTargetAccountId("account_" + (1 + random.nextInt(1000)));
+        }
+        if (type == TransactionType.PAYMENT || type == TransactionType.REFUND) {
+            transaction.setMerchantId("merchant_" + (1 + random.nextInt(100)));
+        }
+        return transaction;
+    }
+
+    public static Transaction[] transactions(int count, long seed) {
+        Random random = new Random(seed);
+        Transaction[] transactions = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            transactions[i] = transaction(random);
+        }
+        return transactions;
+    }
+}
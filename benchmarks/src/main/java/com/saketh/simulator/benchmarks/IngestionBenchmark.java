@@ -0,0 +1,92 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.id.TransactionIds;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.service.AdmissionControlService;
+import com.saketh.simulator.ingestion.service.IdempotencyService;
+import com.saketh.simulator.ingestion.service.KafkaPublisherService;
+import com.saketh.simulator.ingestion.service.SpoolService;
+import com.saketh.simulator.ingestion.service.TransactionIngestionService;
+import com.saketh.simulator.ingestion.service.VelocityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionIngestionService#ingestTransaction} end to end over a
+ * {@link MockKafka} producer in direct delivery mode. With {@code stages}
+ * set to {@code publish} the dedup and velocity stages are switched off,
+ * leaving enrichment, validation and publishing; {@code full} adds them
+ * back; {@link ValidationBenchmark} times validation on its own.
+ * Each call gets a fresh transaction ID, as a deserialised request would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IngestionBenchmark {
+
+    private static final int POOL = 1024;
+
+    @Param({"publish", "full"})
+    public String stages;
+
+    private MockKafka kafka;
+    private KeyOrderedExecutor batchWorkers;
+    private TransactionIngestionService ingestion;
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boolean full = "full".equals(stages);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestionMetrics metrics = new IngestionMetrics(registry);
+        AdmissionControlService admission = new AdmissionControlService(
+            true, 25_165_824L, 1000, 50, 20_000, 100, registry);
+        kafka = new MockKafka("json");
+        batchWorkers = new KeyOrderedExecutor(1, "benchmark-batch-worker-");
+        KafkaPublisherService publisher = new KafkaPublisherService(kafka.getTemplate(), admission, metrics);
+        // Velocity is tracked but not limited, so 1000 users never trip the daily cap mid-run
+        ingestion = new TransactionIngestionService(
+            publisher,
+            new IdempotencyService(full, 1 << 20, 600_000, registry),
+            admission,
+            new VelocityService(full, 100_000, 0, 0, 0, 0, 0, 0, registry),
+            new SpoolService(SpoolService.MODE_DIRECT, "spool", 0, 0, 0, publisher, admission, registry),
+            metrics,
+            batchWorkers);
+        transactions = BenchmarkData.transactions(POOL, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchWorkers.close();
+    }
+
+    @Benchmark
+    public String ingest() {
+        kafka.trim();
+        next = (next + 1) & (POOL - 1);
+        Transaction transaction = transactions[next];
+        transaction.setTransactionId(TransactionIds.nextId());
+        return ingestion.ingestTransaction(transaction);
+    }
+}
@@ -0,0 +1,146 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.ann.IvfIndex;
+import com.saketh.simulator.common.ann.TransactionEmbedding;
+import com.saketh.simulator.common.model.Transaction;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recall against latency of {@link IvfIndex} k-NN search over transaction
+ * embeddings, by the number of lists probed. Recall@10 against an exact
+ * scan is measured once per trial and reported as the {@code recall}
+ * secondary result of {@code search}; {@code nprobe} equal to
+ * {@code lists} is the exact scan itself, and the trial fails if its
+ * recall is not 1. The {@code mixed} group searches while another
+ * thread inserts, as the validation lanes do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IvfIndexBenchmark {
+
+    private static final int NEIGHBORS = 10;
+    private static final int QUERIES = 1024;
+    private static final int RECALL_QUERIES = 200;
+    private static final int TRAINING_SIZE = 20_000;
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"256"})
+    public int lists;
+
+    @Param({"1", "4", "8", "16", "32", "256"})
+    public int nprobe;
+
+    private IvfIndex index;
+    private float[][] queries;
+    private float[][] inserts;
+    private double recall;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int dimension = TransactionEmbedding.DIMENSION;
+        Transaction[] transactions = BenchmarkData.transactions(size + 2 * QUERIES, 42L);
+        float[] stored = new float[size * dimension];
+        float[] vector = new float[dimension];
+        for (int i = 0; i < size; i++) {
+            TransactionEmbedding.embed(transactions[i], vector);
+            System.arraycopy(vector, 0, stored, i * dimension, dimension);
+        }
+        index = IvfIndex.train(dimension, stored, Math.min(size, TRAINING_SIZE), lists, 10, Long.MAX_VALUE, 42L);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(stored, i * dimension, vector, 0, dimension);
+            index.add(vector);
+        }
+        queries = embed(transactions, size, QUERIES);
+        inserts = embed(transactions, size + QUERIES, QUERIES);
+
+        float[] exact = new float[NEIGHBORS];
+        float[] approximate = new float[NEIGHBORS];
+        long matched = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            index.searchExact(queries[q], NEIGHBORS, exact);
+            int found = index.search(queries[q], NEIGHBORS, nprobe, approximate);
+            for (int i = 0; i < found; i++) {
+                if (approximate[i] <= exact[NEIGHBORS - 1] * (1 + 1e-6f)) {
+                    matched++;
+                }
+            }
+        }
+        recall = (double) matched / (RECALL_QUERIES * NEIGHBORS);
+        if (nprobe >= lists && recall < 1.0) {
+            throw new IllegalStateException("Probing every list must be exact, recall was " + recall);
+        }
+    }
+
+    /**
+     * Recall@10 of the trial, reported alongside the search time
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recall {
+        public double recall;
+
+        // Set after the iteration, since JMH zeroes the counter as it starts. Event
+        // counts are summed over the measurement iterations, so each reports its share.
+        @TearDown(Level.Iteration)
+        public void report(IvfIndexBenchmark benchmark, BenchmarkParams params) {
+            recall = benchmark.recall / params.getMeasurement().getCount();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final float[] distances = new float[NEIGHBORS];
+        private int next;
+    }
+
+    @Benchmark
+    public int search(Cursor cursor, Recall recall) {
+        return index.search(queries[cursor.next++ & (QUERIES - 1)], NEIGHBORS, nprobe, cursor.distances);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public int mixedSearch(Cursor cursor) {
+        return index.search(queries[cursor.next++ & (QUERIES - 1)], NEIGHBORS, nprobe, cursor.distances);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedInsert(Cursor cursor) {
+        index.add(inserts[cursor.next++ & (QUERIES - 1)]);
+    }
+
+    private static float[][] embed(Transaction[] transactions, int from, int count) {
+        float[][] vectors = new float[count][TransactionEmbedding.DIMENSION];
+        for (int i = 0; i < count; i++) {
+            TransactionEmbedding.embed(transactions[from + i], vectors[i]);
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,64 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.service.AdmissionControlService;
+import com.saketh.simulator.ingestion.service.KafkaPublisherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KafkaPublisherService#publishTransaction} against a
+ * {@link MockKafka} producer: admission permits, value serialisation in
+ * the configured wire format and the completion callback, without a broker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KafkaPublishBenchmark {
+
+    private static final int POOL = 1024;
+
+    @Param({"json", "binary"})
+    public String wireFormat;
+
+    private MockKafka kafka;
+    private KafkaPublisherService publisher;
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestionMetrics metrics = new IngestionMetrics(registry);
+        AdmissionControlService admission = new AdmissionControlService(
+            true, 25_165_824L, 1000, 50, 20_000, 100, registry);
+        kafka = new MockKafka(wireFormat);
+        publisher = new KafkaPublisherService(kafka.getTemplate(), admission, metrics);
+        transactions = BenchmarkData.transactions(POOL, 42L);
+    }
+
+    @Benchmark
+    public CompletableFuture<?> publish() {
+        kafka.trim();
+        next = (next + 1) & (POOL - 1);
+        return publisher.publishTransaction(transactions[next]);
+    }
+}
@@ -0,0 +1,62 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionSerializer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+
+/**
+ * {@link KafkaTemplate} over an auto-completing {@link MockProducer}, so
+ * a send pays for key and value serialisation and the template's
+ * bookkeeping but never touches the network. The mock keeps every record
+ * it has sent; {@link #trim()} drops them so long runs stay in memory.
+ * The template closes its producer after every send, as it would a
+ * shared {@code DefaultKafkaProducerFactory} proxy, so closing is a no-op.
+ */
+public final class MockKafka {
+
+    private static final int TRIM_EVERY = 4096;
+
+    private final MockProducer<String, Transaction> producer;
+    private final KafkaTemplate<String, Transaction> template;
+    private int sinceTrim;
+
+    /**
+     * @param wireFormat {@code json} or {@code binary}, as {@code ingestion.kafka.wire-format}
+     */
+    public MockKafka(String wireFormat) {
+        Serializer<Transaction> valueSerializer = "binary".equalsIgnoreCase(wireFormat)
+            ? new TransactionSerializer()
+            : new JsonSerializer<>();
+        this.producer = new MockProducer<>(true, new StringSerializer(), valueSerializer) {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        this.template = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+    }
+
+    public KafkaTemplate<String, Transaction> getTemplate() {
+        return template;
+    }
+
+    /**
+     * Forget sent records every few thousand calls
+     */
+    public void trim() {
+        if (++sinceTrim == TRIM_EVERY) {
+            producer.clear();
+            sinceTrim = 0;
+        }
+    }
+}
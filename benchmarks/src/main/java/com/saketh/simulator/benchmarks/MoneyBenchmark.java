@@ -0,0 +1,108 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running balance of a stream of amounts kept as {@link BigDecimal}, as
+ * {@link Money} instances and as primitive minor units, plus the one-off
+ * {@link Money#toMinorUnits} conversion done at the edge. Run with the GC
+ * profiler to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MoneyBenchmark {
+
+    private static final int POOL = 1024;
+    private static final String CURRENCY = "USD";
+
+    private BigDecimal[] amounts;
+    private Money[] monies;
+    private long[] minorUnits;
+    private BigDecimal limit;
+    private long limitMinorUnits;
+    private int next;
+
+    private BigDecimal decimalBalance;
+    private Money moneyBalance;
+    private long minorBalance;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Transaction[] transactions = BenchmarkData.transactions(POOL, 42L);
+        amounts = new BigDecimal[POOL];
+        monies = new Money[POOL];
+        minorUnits = new long[POOL];
+        for (int i = 0; i < POOL; i++) {
+            amounts[i] = transactions[i].getAmount();
+            monies[i] = Money.of(amounts[i], CURRENCY);
+            minorUnits[i] = monies[i].getMinorUnits();
+        }
+        limit = BigDecimal.valueOf(1_000_000_000L);
+        limitMinorUnits = Money.majorToMinorUnits(1_000_000_000L, CURRENCY);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBalances() {
+        decimalBalance = BigDecimal.ZERO;
+        moneyBalance = Money.zero(CURRENCY);
+        minorBalance = 0;
+    }
+
+    @Benchmark
+    public boolean bigDecimalAdd() {
+        next = (next + 1) & (POOL - 1);
+        decimalBalance = decimalBalance.add(amounts[next]);
+        if (decimalBalance.compareTo(limit) > 0) {
+            decimalBalance = BigDecimal.ZERO;
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean moneyPlus() {
+        next = (next + 1) & (POOL - 1);
+        moneyBalance = moneyBalance.plus(monies[next]);
+        if (moneyBalance.getMinorUnits() > limitMinorUnits) {
+            moneyBalance = Money.zero(CURRENCY);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean minorUnitsAdd() {
+        next = (next + 1) & (POOL - 1);
+        minorBalance = Money.addMinorUnits(minorBalance, minorUnits[next]);
+        if (minorBalance > limitMinorUnits) {
+            minorBalance = 0;
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public long toMinorUnits() {
+        next = (next + 1) & (POOL - 1);
+        return Money.toMinorUnits(amounts[next], CURRENCY);
+    }
+}
@@ -0,0 +1,91 @@
+package com.saketh.simulator.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialisation of {@link Transaction} as the ingestion
+ * controller does it, with the mapper built the way Spring Boot builds it
+ * from the service's {@code spring.jackson.*} properties. The binary
+ * {@link TransactionCodec} runs on the same data for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransactionJsonBenchmark {
+
+    private static final int POOL = 1024;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Transaction[] transactions;
+    private byte[][] json;
+    private byte[][] binary;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonProcessingException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .timeZone(TimeZone.getTimeZone("UTC"))
+            .build();
+        writer = mapper.writerFor(Transaction.class);
+        reader = mapper.readerFor(Transaction.class);
+        transactions = BenchmarkData.transactions(POOL, 42L);
+        json = new byte[POOL][];
+        binary = new byte[POOL][];
+        for (int i = 0; i < POOL; i++) {
+            json[i] = writer.writeValueAsBytes(transactions[i]);
+            binary[i] = TransactionCodec.encode(transactions[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (POOL - 1);
+        return next;
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(transactions[nextIndex()]);
+    }
+
+    @Benchmark
+    public Transaction jsonDeserialize() throws IOException {
+        return reader.readValue(json[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return TransactionCodec.encode(transactions[nextIndex()]);
+    }
+
+    @Benchmark
+    public Transaction binaryDecode() {
+        return TransactionCodec.decode(binary[nextIndex()]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.validation.TransactionValidator;
+import com.saketh.simulator.common.validation.ValidationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionValidator} checks that
+ * {@code TransactionIngestionService.validateTransaction} runs per request
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidationBenchmark {
+
+    private static final int POOL = 1024;
+
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        transactions = BenchmarkData.transactions(POOL, 42L);
+    }
+
+    @Benchmark
+    public ValidationError validate() {
+        next = (next + 1) & (POOL - 1);
+        return TransactionValidator.validate(transactions[next]);
+    }
+
+    @Benchmark
+    public boolean highValue() {
+        next = (next + 1) & (POOL - 1);
+        return TransactionValidator.isHighValue(transactions[next]);
+    }
+}
@@ -0,0 +1,70 @@
+package com.saketh.simulator.benchmarks;
+
+import com.saketh.simulator.common.velocity.VelocityLimits;
+import com.saketh.simulator.common.velocity.VelocityStats;
+import com.saketh.simulator.common.velocity.VelocityTracker;
+import com.saketh.simulator.common.velocity.VelocityWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VelocityTracker} check-and-record per transaction, as done by
+ * {@code VelocityService.record}, with count and amount limits set. With
+ * more distinct users than {@code maxUsers} every record evicts the least
+ * recently seen user and allocates the state of a new one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VelocityBenchmark {
+
+    private static final int MAX_USERS = 100_000;
+
+    @Param({"1000", "200000"})
+    public int users;
+
+    private VelocityTracker tracker;
+    private VelocityLimits limits;
+    private final VelocityStats stats = new VelocityStats();
+    private String[] userIds;
+    private long[] amounts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tracker = new VelocityTracker(MAX_USERS);
+        // Limits high enough that records are never rejected, but still checked
+        limits = new VelocityLimits()
+            .maxCount(VelocityWindow.ONE_MINUTE, Integer.MAX_VALUE - 1)
+            .maxCount(VelocityWindow.ONE_DAY, Integer.MAX_VALUE - 1)
+            .maxAmount(VelocityWindow.ONE_DAY, Long.MAX_VALUE / 2);
+        userIds = new String[users];
+        amounts = new long[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user_" + (i + 1);
+            amounts[i] = 1 + (i * 7919L) % 500_000;
+        }
+    }
+
+    @Benchmark
+    public VelocityWindow tryRecord() {
+        int i = next;
+        next = i + 1 == users ? 0 : i + 1;
+        return tracker.tryRecord(userIds[i], amounts[i], System.currentTimeMillis(), limits, stats);
+    }
+}
@@ -0,0 +1,42 @@
+package com.saketh.simulator.common.aggregation;
+
+import com.saketh.simulator.common.model.Transaction;
+
+/**
+ * Transaction attributes windowed aggregates are grouped by.
+ */
+public enum AggregationDimension {
+
+    CATEGORY {
+        @Override
+        public String valueOf(Transaction transaction) {
+            return transaction.getCategory();
+        }
+    },
+
+    MERCHANT {
+        @Override
+        public String valueOf(Transaction transaction) {
+            return transaction.getMerchantId();
+        }
+    },
+
+    CURRENCY {
+        @Override
+        public String valueOf(Transaction transaction) {
+            return transaction.getCurrency();
+        }
+    },
+
+    TRANSACTION_TYPE {
+        @Override
+        public String valueOf(Transaction transaction) {
+            return transaction.getTransactionType() == null ? null : transaction.getTransactionType().name();
+        }
+    };
+
+    /**
+     * Group key of a transaction in this dimension, or null if it has none
+     */
+    public abstract String valueOf(Transaction transaction);
+}
@@ -0,0 +1,89 @@
+package com.saketh.simulator.common.aggregation;
+
+/**
+ * Log-linear bucketing of non-negative longs, HDR histogram style.
+ * <p>
+ * Values below {@value #LINEAR_LIMIT} get a bucket each; above that every
+ * power of two is split into {@value #SUB_BUCKETS} equal buckets, so a
+ * bucket's midpoint is within about 6% of any value in it. Values of
+ * 2^{@value #MAX_EXPONENT} and more share the last bucket. Bucket counts
+ * are plain {@code int} or {@code long} arrays owned by the caller, which
+ * makes histograms mergeable by adding arrays.
+ */
+public final class HistogramBuckets {
+
+    private HistogramBuckets() {
+        // Utility class, prevent instantiation
+    }
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int FIRST_EXPONENT = SUB_BITS + 1;
+    private static final int MAX_EXPONENT = 40;
+
+    /**
+     * Number of buckets a histogram needs
+     */
+    public static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+
+    /**
+     * Bucket of a value; negative values count as zero
+     */
+    public static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Smallest value in a bucket
+     */
+    public static long lowerBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = FIRST_EXPONENT + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+
+    /**
+     * Midpoint of a bucket, the value reported for anything counted in it
+     */
+    public static long midpoint(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = FIRST_EXPONENT + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        return lowerBound(bucket) + (1L << (exponent - SUB_BITS - 1));
+    }
+
+    /**
+     * Value at a quantile of {@code counts[offset, offset + BUCKET_COUNT)}
+     *
+     * @param total    sum of those counts
+     * @param quantile between 0 and 1
+     * @return the bucket midpoint, or 0 for an empty histogram
+     */
+    public static long valueAtQuantile(int[] counts, int offset, long total, double quantile) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[offset + i];
+            if (seen >= rank) {
+                return midpoint(i);
+            }
+        }
+        return midpoint(BUCKET_COUNT - 1);
+    }
+}
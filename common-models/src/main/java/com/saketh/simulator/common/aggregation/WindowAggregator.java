@@ -0,0 +1,454 @@
+package com.saketh.simulator.common.aggregation;
+
+import com.saketh.simulator.common.enums.WindowType;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.model.WindowMetric;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Incremental tumbling and sliding window aggregates of transaction
+ * amounts, grouped by each {@link AggregationDimension} and currency.
+ * <p>
+ * Time is cut into panes; a tumbling window is a fixed run of panes and a
+ * sliding window the latest run of panes, advancing one pane at a time.
+ * Each group has a slot, and each pane keeps count, sum, min, max and a
+ * {@link HistogramBuckets} histogram per slot in arrays allocated up
+ * front, held in a ring that is reused as panes close. Recording a
+ * transaction allocates nothing once its groups have slots.
+ * <p>
+ * Panes close when the watermark passes their end, emitting every window
+ * that ends there. Transactions for a closed pane are late and dropped; a
+ * transaction too far ahead of the watermark for the ring closes the
+ * oldest panes early. Groups beyond the slot capacity are folded into an
+ * "other" group per dimension and currency. A group's slot is freed once
+ * no window still to be emitted covers a pane it was recorded in.
+ * <p>
+ * Not thread-safe; callers serialise access.
+ */
+public class WindowAggregator {
+
+    /**
+     * Group key of transactions whose own group has no slot
+     */
+    public static final String OTHER_KEY = "other";
+
+    private static final String UNKNOWN_KEY = "unknown";
+    private static final AggregationDimension[] DIMENSIONS = AggregationDimension.values();
+    private static final int BUCKETS = HistogramBuckets.BUCKET_COUNT;
+
+    // Per-slot stats layout in a pane
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+    private static final int STATS = 4;
+
+    private final long paneMillis;
+    private final int tumblingPanes;
+    private final int slidingPanes;
+    private final int retainedPanes;
+    private final int ringSize;
+    private final int maxSlots;
+    private final int reservedSlots;
+    private final ZoneId zone;
+
+    // Pane ring, indexed by pane number modulo ringSize
+    private final long[] paneNumbers;
+    private final long[][] paneStats;
+    private final int[][] paneHistograms;
+    private final int[][] paneTouched;
+    private final int[] paneTouchedCount;
+
+    // Slot dictionary: dimension -> key -> slot + 1 per currency index
+    private final Map<String, Integer> currencyIndex = new HashMap<>();
+    private final Map<String, int[]>[] slotIndex;
+    private final int[] slotDimension;
+    private final String[] slotKey;
+    private final String[] slotCurrency;
+    private final int[] slotCurrencyId;
+    // Newest pane each slot was recorded in
+    private final long[] slotLastPane;
+    // Stack of unassigned slots, lowest on top
+    private final int[] freeSlots;
+    private int freeCount;
+    private long reclaimedCount;
+
+    // Scratch space for merging panes into a window
+    private final int[] windowSlots;
+    private final long[] windowStamp;
+    private final int[] windowHistogram = new int[BUCKETS];
+    private long emitStamp;
+
+    private long nextPaneToClose = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+    private long lateCount;
+    private long overflowCount;
+
+    /**
+     * @param paneMillis            pane length; windows are whole panes
+     * @param tumblingPanes         panes per tumbling window
+     * @param slidingPanes          panes per sliding window, 0 to disable
+     * @param allowedLatenessMillis how far the ring reaches behind the
+     *                              newest pane before closing old panes
+     * @param maxSlots              maximum number of groups
+     * @param zone                  zone of transaction timestamps
+     */
+    @SuppressWarnings("unchecked")
+    public WindowAggregator(long paneMillis, int tumblingPanes, int slidingPanes,
+                            long allowedLatenessMillis, int maxSlots, ZoneId zone) {
+        if (paneMillis <= 0 || tumblingPanes < 1 || slidingPanes < 0 || maxSlots < 1) {
+            throw new IllegalArgumentException("Invalid window configuration");
+        }
+        this.paneMillis = paneMillis;
+        this.tumblingPanes = tumblingPanes;
+        this.slidingPanes = slidingPanes;
+        this.retainedPanes = Math.max(tumblingPanes, slidingPanes);
+        // Closed panes still needed by a window, plus panes the watermark may trail by
+        this.ringSize = retainedPanes + (int) ((allowedLatenessMillis + paneMillis - 1) / paneMillis) + 1;
+        this.maxSlots = maxSlots;
+        this.reservedSlots = Math.min(maxSlots / 8, DIMENSIONS.length * 16);
+        this.zone = zone;
+
+        this.paneNumbers = new long[ringSize];
+        this.paneStats = new long[ringSize][maxSlots * STATS];
+        this.paneHistograms = new int[ringSize][maxSlots * BUCKETS];
+        this.paneTouched = new int[ringSize][maxSlots];
+        this.paneTouchedCount = new int[ringSize];
+        Arrays.fill(paneNumbers, Long.MIN_VALUE);
+
+        this.slotIndex = new Map[DIMENSIONS.length];
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            slotIndex[d] = new HashMap<>();
+        }
+        this.slotDimension = new int[maxSlots];
+        this.slotKey = new String[maxSlots];
+        this.slotCurrency = new String[maxSlots];
+        this.slotCurrencyId = new int[maxSlots];
+        this.slotLastPane = new long[maxSlots];
+        this.freeSlots = new int[maxSlots];
+        for (int slot = 0; slot < maxSlots; slot++) {
+            freeSlots[slot] = maxSlots - 1 - slot;
+        }
+        this.freeCount = maxSlots;
+        this.windowSlots = new int[maxSlots];
+        this.windowStamp = new long[maxSlots];
+    }
+
+    /**
+     * Record a transaction at its event time, closing panes through
+     * {@code out} if it is too far ahead for the ring
+     *
+     * @return false if it was dropped as late or its amount is unusable
+     */
+    public boolean add(Transaction transaction, long eventTimeMillis, Consumer<WindowMetric> out) {
+        if (transaction.getAmount() == null) {
+            return false;
+        }
+        long amount;
+        try {
+            amount = Money.toMinorUnits(transaction.getAmount(), transaction.getCurrency());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return false;
+        }
+
+        long pane = Math.floorDiv(eventTimeMillis, paneMillis);
+        if (nextPaneToClose == Long.MIN_VALUE) {
+            nextPaneToClose = pane - (ringSize - retainedPanes - 1);
+            if (watermark != Long.MIN_VALUE) {
+                nextPaneToClose = Math.max(nextPaneToClose, Math.floorDiv(watermark, paneMillis));
+            }
+        }
+        if (pane < nextPaneToClose) {
+            lateCount++;
+            return false;
+        }
+        // Open panes may use the ring except for the closed panes windows still need
+        int openPanes = ringSize - retainedPanes;
+        if (pane >= nextPaneToClose + openPanes) {
+            closePanesBefore(pane - openPanes + 1, out);
+        }
+
+        int ring = openPane(pane);
+        String currency = transaction.getCurrency();
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            int slot = slotOf(d, DIMENSIONS[d].valueOf(transaction), currency);
+            if (slot >= 0) {
+                record(ring, slot, amount);
+                slotLastPane[slot] = Math.max(slotLastPane[slot], pane);
+            } else {
+                overflowCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Close every pane ending at or before the watermark and emit the
+     * windows ending with them. The watermark never moves back.
+     */
+    public void advanceWatermark(long watermarkMillis, Consumer<WindowMetric> out) {
+        if (watermarkMillis <= watermark) {
+            return;
+        }
+        watermark = watermarkMillis;
+        if (nextPaneToClose != Long.MIN_VALUE) {
+            closePanesBefore(Math.floorDiv(watermarkMillis, paneMillis), out);
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * Groups currently holding a slot
+     */
+    public int getSlotCount() {
+        return maxSlots - freeCount;
+    }
+
+    /**
+     * Slots freed because their group's windows had all been emitted
+     */
+    public long getReclaimedCount() {
+        return reclaimedCount;
+    }
+
+    public long getPaneMillis() {
+        return paneMillis;
+    }
+
+    private void record(int ring, int slot, long amount) {
+        long[] stats = paneStats[ring];
+        int base = slot * STATS;
+        if (stats[base + COUNT] == 0) {
+            paneTouched[ring][paneTouchedCount[ring]++] = slot;
+            stats[base + MIN] = amount;
+            stats[base + MAX] = amount;
+        } else {
+            stats[base + MIN] = Math.min(stats[base + MIN], amount);
+            stats[base + MAX] = Math.max(stats[base + MAX], amount);
+        }
+        stats[base + COUNT]++;
+        stats[base + SUM] += amount;
+        paneHistograms[ring][slot * BUCKETS + HistogramBuckets.bucketOf(amount)]++;
+    }
+
+    /**
+     * Ring index of a pane, clearing the pane it replaces
+     */
+    private int openPane(long pane) {
+        int ring = (int) Math.floorMod(pane, (long) ringSize);
+        if (paneNumbers[ring] != pane) {
+            long[] stats = paneStats[ring];
+            int[] histogram = paneHistograms[ring];
+            int[] touched = paneTouched[ring];
+            for (int i = 0; i < paneTouchedCount[ring]; i++) {
+                int slot = touched[i];
+                Arrays.fill(stats, slot * STATS, (slot + 1) * STATS, 0L);
+                Arrays.fill(histogram, slot * BUCKETS, (slot + 1) * BUCKETS, 0);
+            }
+            paneTouchedCount[ring] = 0;
+            paneNumbers[ring] = pane;
+        }
+        return ring;
+    }
+
+    private void closePanesBefore(long firstOpenPane, Consumer<WindowMetric> out) {
+        // Windows ending a full ring past the oldest open pane hold no data
+        long lastWithData = nextPaneToClose + ringSize;
+        while (nextPaneToClose < firstOpenPane) {
+            if (nextPaneToClose >= lastWithData) {
+                nextPaneToClose = firstOpenPane;
+                break;
+            }
+            long pane = nextPaneToClose++;
+            if ((pane + 1) % tumblingPanes == 0) {
+                emit(WindowType.TUMBLING, pane - tumblingPanes + 1, pane, out);
+            }
+            if (slidingPanes > 0) {
+                emit(WindowType.SLIDING, pane - slidingPanes + 1, pane, out);
+            }
+        }
+        reclaimSlots(nextPaneToClose - retainedPanes + 1);
+    }
+
+    /**
+     * Free the slots of groups last recorded before {@code firstNeededPane},
+     * the oldest pane a window still to be emitted can cover. Their data
+     * left in older panes is never read again and is cleared when the
+     * ring reuses those panes.
+     */
+    private void reclaimSlots(long firstNeededPane) {
+        if (freeCount == maxSlots) {
+            return;
+        }
+        for (int slot = 0; slot < maxSlots; slot++) {
+            if (slotKey[slot] == null || slotLastPane[slot] >= firstNeededPane) {
+                continue;
+            }
+            Map<String, int[]> index = slotIndex[slotDimension[slot]];
+            int[] slots = index.get(slotKey[slot]);
+            slots[slotCurrencyId[slot]] = 0;
+            boolean inUse = false;
+            for (int currencySlot : slots) {
+                inUse |= currencySlot != 0;
+            }
+            if (!inUse) {
+                index.remove(slotKey[slot]);
+            }
+            slotKey[slot] = null;
+            slotCurrency[slot] = null;
+            freeSlots[freeCount++] = slot;
+            reclaimedCount++;
+        }
+    }
+
+    /**
+     * Merge panes {@code [first, last]} per slot and emit one metric per group seen
+     */
+    private void emit(WindowType type, long first, long last, Consumer<WindowMetric> out) {
+        long stamp = ++emitStamp;
+        int slots = 0;
+        for (long pane = first; pane <= last; pane++) {
+            int ring = (int) Math.floorMod(pane, (long) ringSize);
+            if (paneNumbers[ring] != pane) {
+                continue;
+            }
+            int[] touched = paneTouched[ring];
+            for (int i = 0; i < paneTouchedCount[ring]; i++) {
+                int slot = touched[i];
+                if (windowStamp[slot] != stamp) {
+                    windowStamp[slot] = stamp;
+                    windowSlots[slots++] = slot;
+                }
+            }
+        }
+        if (slots == 0) {
+            return;
+        }
+
+        LocalDateTime start = toLocalDateTime(first * paneMillis);
+        LocalDateTime end = toLocalDateTime((last + 1) * paneMillis);
+        for (int s = 0; s < slots; s++) {
+            int slot = windowSlots[s];
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            Arrays.fill(windowHistogram, 0);
+            for (long pane = first; pane <= last; pane++) {
+                int ring = (int) Math.floorMod(pane, (long) ringSize);
+                long[] stats = paneStats[ring];
+                int base = slot * STATS;
+                if (paneNumbers[ring] != pane || stats[base + COUNT] == 0) {
+                    continue;
+                }
+                count += stats[base + COUNT];
+                sum += stats[base + SUM];
+                min = Math.min(min, stats[base + MIN]);
+                max = Math.max(max, stats[base + MAX]);
+                int[] histogram = paneHistograms[ring];
+                int offset = slot * BUCKETS;
+                for (int b = 0; b < BUCKETS; b++) {
+                    windowHistogram[b] += histogram[offset + b];
+                }
+            }
+
+            int scale = Money.scaleOf(slotCurrency[slot]);
+            out.accept(WindowMetric.builder()
+                .windowType(type)
+                .windowStart(start)
+                .windowEnd(end)
+                .dimension(DIMENSIONS[slotDimension[slot]].name())
+                .key(slotKey[slot])
+                .currency(slotCurrency[slot])
+                .count(count)
+                .sum(BigDecimal.valueOf(sum, scale))
+                .min(BigDecimal.valueOf(min, scale))
+                .max(BigDecimal.valueOf(max, scale))
+                .p50(percentile(0.50, count, min, max, scale))
+                .p95(percentile(0.95, count, min, max, scale))
+                .p99(percentile(0.99, count, min, max, scale))
+                .build());
+        }
+    }
+
+    private BigDecimal percentile(double quantile, long count, long min, long max, int scale) {
+        long value = HistogramBuckets.valueAtQuantile(windowHistogram, 0, count, quantile);
+        // Bucket midpoints can fall outside the observed range
+        return BigDecimal.valueOf(Math.max(min, Math.min(max, value)), scale);
+    }
+
+    /**
+     * Slot of a group, assigned on first use
+     *
+     * @return the slot, or -1 if even the dimension's "other" group has none
+     */
+    private int slotOf(int dimension, String key, String currency) {
+        if (key == null) {
+            key = UNKNOWN_KEY;
+        }
+        Integer currencyId = currencyIndex.get(currency);
+        if (currencyId == null) {
+            currencyId = currencyIndex.size();
+            currencyIndex.put(currency, currencyId);
+        }
+
+        int slot = lookup(dimension, key, currencyId);
+        if (slot >= 0) {
+            return slot;
+        }
+        // The last reservedSlots are kept for "other" groups
+        if (freeCount > reservedSlots) {
+            return assign(dimension, key, currency, currencyId);
+        }
+        slot = lookup(dimension, OTHER_KEY, currencyId);
+        if (slot >= 0) {
+            return slot;
+        }
+        return freeCount > 0 ? assign(dimension, OTHER_KEY, currency, currencyId) : -1;
+    }
+
+    private int lookup(int dimension, String key, int currencyId) {
+        int[] slots = slotIndex[dimension].get(key);
+        return slots != null && currencyId < slots.length ? slots[currencyId] - 1 : -1;
+    }
+
+    private int assign(int dimension, String key, String currency, int currencyId) {
+        int[] slots = slotIndex[dimension].get(key);
+        if (slots == null || currencyId >= slots.length) {
+            slots = slots == null ? new int[currencyId + 1] : Arrays.copyOf(slots, currencyId + 1);
+            slotIndex[dimension].put(key, slots);
+        }
+        int slot = freeSlots[--freeCount];
+        slots[currencyId] = slot + 1;
+        slotDimension[slot] = dimension;
+        slotKey[slot] = key;
+        slotCurrency[slot] = currency;
+        slotCurrencyId[slot] = currencyId;
+        slotLastPane[slot] = Long.MIN_VALUE;
+        return slot;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+}
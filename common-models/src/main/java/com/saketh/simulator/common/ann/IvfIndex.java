@@ -0,0 +1,376 @@
+package com.saketh.simulator.common.ann;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Approximate nearest-neighbour index over fixed-length float vectors
+ * (inverted file, IVF-Flat).
+ * <p>
+ * Vectors are assigned to the nearest of {@code listCount} k-means
+ * centroids and stored row-major in one flat float array per list. A search
+ * scans only the {@code nprobe} lists whose centroids are closest to the
+ * query, trading recall for latency.
+ * <p>
+ * Inserts may run concurrently with searches. A list appends under its own
+ * lock and publishes the new size through a volatile write after the
+ * vector is in place, so a search sees a consistent prefix without
+ * locking. Once {@code maxVectors} are stored, an insert overwrites a
+ * random vector of its list instead, keeping memory fixed while the index
+ * follows recent traffic; a search racing such an overwrite may read a
+ * partly replaced vector, which only perturbs one approximate distance.
+ */
+public class IvfIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x49564631; // "IVF1"
+    private static final int INITIAL_LIST_CAPACITY = 16;
+
+    private final int dimension;
+    private final int listCount;
+    private final long maxVectors;
+    private final float[] centroids;
+    private final VectorList[] lists;
+    private final AtomicLong size = new AtomicLong();
+    private final ThreadLocal<Probes> probeScratch = ThreadLocal.withInitial(Probes::new);
+
+    /**
+     * Create an empty index over the given centroids
+     *
+     * @param centroids  {@code listCount} row-major centroids of {@code dimension} floats
+     * @param maxVectors vectors stored before inserts start replacing old ones
+     */
+    public IvfIndex(int dimension, float[] centroids, long maxVectors) {
+        if (dimension <= 0 || centroids.length == 0 || centroids.length % dimension != 0) {
+            throw new IllegalArgumentException("Centroids must be a non-empty multiple of dimension " + dimension);
+        }
+        this.dimension = dimension;
+        this.listCount = centroids.length / dimension;
+        this.maxVectors = maxVectors;
+        this.centroids = centroids.clone();
+        this.lists = new VectorList[listCount];
+        for (int i = 0; i < listCount; i++) {
+            lists[i] = new VectorList(dimension);
+        }
+    }
+
+    /**
+     * Train centroids with k-means on a sample and create an empty index
+     *
+     * @param sample row-major training vectors
+     * @param count  number of vectors in the sample
+     */
+    public static IvfIndex train(int dimension, float[] sample, int count, int listCount, int iterations,
+                                 long maxVectors, long seed) {
+        if (count < listCount) {
+            throw new IllegalArgumentException("Need at least " + listCount + " training vectors, got " + count);
+        }
+        Random random = new Random(seed);
+        float[] centroids = new float[listCount * dimension];
+        // Distinct random sample rows as the starting centroids
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = i;
+        }
+        for (int c = 0; c < listCount; c++) {
+            int pick = c + random.nextInt(count - c);
+            int row = rows[pick];
+            rows[pick] = rows[c];
+            System.arraycopy(sample, row * dimension, centroids, c * dimension, dimension);
+        }
+
+        int[] assignment = new int[count];
+        double[] sums = new double[listCount * dimension];
+        int[] members = new int[listCount];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(members, 0);
+            for (int i = 0; i < count; i++) {
+                int nearest = nearestCentroid(centroids, listCount, dimension, sample, i * dimension);
+                assignment[i] = nearest;
+                members[nearest]++;
+                for (int d = 0; d < dimension; d++) {
+                    sums[nearest * dimension + d] += sample[i * dimension + d];
+                }
+            }
+            for (int c = 0; c < listCount; c++) {
+                if (members[c] == 0) {
+                    // Reseed an empty list with a random sample vector
+                    System.arraycopy(sample, random.nextInt(count) * dimension, centroids, c * dimension, dimension);
+                    continue;
+                }
+                for (int d = 0; d < dimension; d++) {
+                    centroids[c * dimension + d] = (float) (sums[c * dimension + d] / members[c]);
+                }
+            }
+        }
+        return new IvfIndex(dimension, centroids, maxVectors);
+    }
+
+    /**
+     * Insert a vector; safe to call concurrently with other inserts and searches
+     */
+    public void add(float[] vector) {
+        checkDimension(vector);
+        VectorList list = lists[nearestCentroid(centroids, listCount, dimension, vector, 0)];
+        if (size.get() >= maxVectors && list.replaceRandom(vector)) {
+            return;
+        }
+        list.append(vector);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Find the {@code k} nearest stored vectors within the {@code nprobe}
+     * closest lists
+     *
+     * @param distances receives the Euclidean distances of the neighbours found, ascending
+     * @return number of neighbours found, at most {@code k}
+     */
+    public int search(float[] query, int k, int nprobe, float[] distances) {
+        checkDimension(query);
+        nprobe = Math.min(nprobe, listCount);
+        Probes scratch = probeScratch.get().ensure(nprobe);
+        int[] probes = scratch.lists;
+        int probed = nearestCentroids(query, nprobe, probes, scratch.distances);
+
+        // Squared distances kept sorted ascending; k is small, so insertion beats a heap
+        int found = 0;
+        for (int p = 0; p < probed; p++) {
+            VectorList list = lists[probes[p]];
+            int count = list.size;
+            float[] data = list.data;
+            for (int row = 0, offset = 0; row < count; row++, offset += dimension) {
+                float distance = squaredDistance(query, 0, data, offset, dimension);
+                if (found == k && distance >= distances[k - 1]) {
+                    continue;
+                }
+                int at = found < k ? found++ : k - 1;
+                while (at > 0 && distances[at - 1] > distance) {
+                    distances[at] = distances[at - 1];
+                    at--;
+                }
+                distances[at] = distance;
+            }
+        }
+        for (int i = 0; i < found; i++) {
+            distances[i] = (float) Math.sqrt(distances[i]);
+        }
+        return found;
+    }
+
+    /**
+     * Exact k-nearest search over every stored vector, the reference for recall
+     */
+    public int searchExact(float[] query, int k, float[] distances) {
+        return search(query, k, listCount, distances);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getListCount() {
+        return listCount;
+    }
+
+    public long getMaxVectors() {
+        return maxVectors;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Write the centroids and stored vectors to {@code path}, atomically
+     * replacing an older snapshot. Inserts may continue meanwhile.
+     */
+    public void writeSnapshot(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16), crc))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(dimension);
+            out.writeInt(listCount);
+            out.writeLong(maxVectors);
+            writeFloats(out, centroids, centroids.length);
+            for (VectorList list : lists) {
+                int count = list.size;
+                float[] data = list.data;
+                out.writeInt(count);
+                writeFloats(out, data, count * dimension);
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Load an index written by {@link #writeSnapshot}
+     *
+     * @param maxVectors limit of the loaded index, replacing the one the snapshot was written with
+     */
+    public static IvfIndex readSnapshot(Path path, long maxVectors) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16), crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an IVF index snapshot: " + path);
+            }
+            int dimension = in.readInt();
+            int listCount = in.readInt();
+            in.readLong(); // limit the snapshot was written with
+            if (dimension <= 0 || listCount <= 0) {
+                throw new IOException("Invalid IVF index snapshot header: " + path);
+            }
+            IvfIndex index = new IvfIndex(dimension, readFloats(in, listCount * dimension), maxVectors);
+            long total = 0;
+            for (VectorList list : index.lists) {
+                int count = in.readInt();
+                if (count < 0) {
+                    throw new IOException("Invalid list size in " + path);
+                }
+                list.data = readFloats(in, count * dimension);
+                list.size = count;
+                total += count;
+            }
+            index.size.set(total);
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Checksum mismatch in " + path);
+            }
+            return index;
+        }
+    }
+
+    private int nearestCentroids(float[] query, int nprobe, int[] probes, float[] probeDistances) {
+        int found = 0;
+        for (int c = 0; c < listCount; c++) {
+            float distance = squaredDistance(query, 0, centroids, c * dimension, dimension);
+            if (found == nprobe && distance >= probeDistances[nprobe - 1]) {
+                continue;
+            }
+            int at = found < nprobe ? found++ : nprobe - 1;
+            while (at > 0 && probeDistances[at - 1] > distance) {
+                probeDistances[at] = probeDistances[at - 1];
+                probes[at] = probes[at - 1];
+                at--;
+            }
+            probeDistances[at] = distance;
+            probes[at] = c;
+        }
+        return found;
+    }
+
+    private static int nearestCentroid(float[] centroids, int listCount, int dimension, float[] vector, int offset) {
+        int nearest = 0;
+        float best = Float.MAX_VALUE;
+        for (int c = 0; c < listCount; c++) {
+            float distance = squaredDistance(vector, offset, centroids, c * dimension, dimension);
+            if (distance < best) {
+                best = distance;
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+
+    private static float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        float sum = 0f;
+        for (int d = 0; d < dimension; d++) {
+            float diff = a[aOffset + d] - b[bOffset + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " dimensions, got " + vector.length);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * Float.BYTES);
+        buffer.asFloatBuffer().put(values, 0, count);
+        out.write(buffer.array());
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        byte[] bytes = new byte[count * Float.BYTES];
+        in.readFully(bytes);
+        float[] values = new float[count];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(values, 0, count);
+        return values;
+    }
+
+    /**
+     * Per-thread buffers for the lists a search probes
+     */
+    private static final class Probes {
+
+        private int[] lists = new int[0];
+        private float[] distances = new float[0];
+
+        Probes ensure(int nprobe) {
+            if (lists.length < nprobe) {
+                lists = new int[nprobe];
+                distances = new float[nprobe];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Vectors of one inverted list, row-major in a growable array
+     */
+    private static final class VectorList {
+
+        private final int dimension;
+        private volatile float[] data;
+        private volatile int size;
+
+        VectorList(int dimension) {
+            this.dimension = dimension;
+            this.data = new float[INITIAL_LIST_CAPACITY * dimension];
+        }
+
+        synchronized void append(float[] vector) {
+            float[] current = data;
+            int offset = size * dimension;
+            if (offset + dimension > current.length) {
+                float[] grown = new float[Math.max(current.length * 2, offset + dimension)];
+                System.arraycopy(current, 0, grown, 0, offset);
+                data = grown;
+                current = grown;
+            }
+            System.arraycopy(vector, 0, current, offset, dimension);
+            size = size + 1; // publishes the vector to searches
+        }
+
+        synchronized boolean replaceRandom(float[] vector) {
+            if (size == 0) {
+                return false;
+            }
+            System.arraycopy(vector, 0, data, ThreadLocalRandom.current().nextInt(size) * dimension, dimension);
+            return true;
+        }
+    }
+}
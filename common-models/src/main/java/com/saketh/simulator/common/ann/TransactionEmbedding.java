@@ -0,0 +1,88 @@
+package com.saketh.simulator.common.ann;
+
+import com.saketh.simulator.common.ml.TransactionFeatures;
+import com.saketh.simulator.common.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Embeds a transaction as a {@link #DIMENSION}-float vector for nearest
+ * neighbour search: log amount, time of day on the unit circle, one-hot
+ * category, the device as a point on a circle and the location on the
+ * unit sphere. Each group is weighted so that a change in any one of them
+ * moves the vector by a distance of roughly one.
+ */
+public final class TransactionEmbedding {
+
+    public static final int DIMENSION = 16;
+
+    private static final int AMOUNT = 0;
+    private static final int HOUR = 1;
+    private static final int CATEGORY = 3;
+    private static final int DEVICE = CATEGORY + TransactionFeatures.CATEGORIES.size() + 1;
+    private static final int LOCATION = DEVICE + 2;
+
+    // log1p of the largest generated amount
+    private static final double AMOUNT_SCALE = 1.0 / Math.log1p(150_000.0);
+    private static final float HOUR_WEIGHT = 0.5f;
+    private static final float CATEGORY_WEIGHT = 0.7f;
+    private static final float DEVICE_WEIGHT = 0.5f;
+
+    private TransactionEmbedding() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Write the embedding of a transaction into {@code out}
+     */
+    public static void embed(Transaction transaction, float[] out) {
+        Arrays.fill(out, 0, DIMENSION, 0f);
+
+        double amount = transaction.getAmount() == null ? 0.0 : Math.max(transaction.getAmount().doubleValue(), 0.0);
+        out[AMOUNT] = (float) (Math.log1p(amount) * AMOUNT_SCALE);
+
+        LocalDateTime timestamp = transaction.getTimestamp();
+        if (timestamp != null) {
+            double angle = 2 * Math.PI * (timestamp.getHour() + timestamp.getMinute() / 60.0) / 24.0;
+            out[HOUR] = (float) Math.cos(angle) * HOUR_WEIGHT;
+            out[HOUR + 1] = (float) Math.sin(angle) * HOUR_WEIGHT;
+        }
+
+        String category = transaction.getCategory();
+        int index = category == null ? -1 : TransactionFeatures.CATEGORIES.indexOf(category.toLowerCase());
+        out[CATEGORY + (index < 0 ? TransactionFeatures.CATEGORIES.size() : index)] = CATEGORY_WEIGHT;
+
+        String deviceId = transaction.getDeviceId();
+        if (deviceId != null && !deviceId.isBlank()) {
+            // Spread devices around a circle; the same device always lands on the same point
+            double angle = 2 * Math.PI * ((deviceId.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL) / 4294967296.0;
+            out[DEVICE] = (float) Math.cos(angle) * DEVICE_WEIGHT;
+            out[DEVICE + 1] = (float) Math.sin(angle) * DEVICE_WEIGHT;
+        }
+
+        embedLocation(transaction.getLocation(), out);
+    }
+
+    /**
+     * Place a "lat,lon" location on the unit sphere; unparseable locations stay at the origin
+     */
+    private static void embedLocation(String location, float[] out) {
+        if (location == null) {
+            return;
+        }
+        int comma = location.indexOf(',');
+        if (comma < 0) {
+            return;
+        }
+        try {
+            double lat = Math.toRadians(Double.parseDouble(location.substring(0, comma).trim()));
+            double lon = Math.toRadians(Double.parseDouble(location.substring(comma + 1).trim()));
+            out[LOCATION] = (float) (Math.cos(lat) * Math.cos(lon));
+            out[LOCATION + 1] = (float) (Math.cos(lat) * Math.sin(lon));
+            out[LOCATION + 2] = (float) Math.sin(lat);
+        } catch (NumberFormatException e) {
+            // Free-text location, leave it out of the embedding
+        }
+    }
+}
@@ -17,6 +17,8 @@ public final class AppConstants {
     // Transaction Limits
     public static final String MAX_TRANSACTION_AMOUNT = "100000.00";
     public static final String MIN_TRANSACTION_AMOUNT = "0.01";
+    public static final long MAX_TRANSACTION_AMOUNT_UNITS = 100_000L; // major units of the transaction currency
+    public static final long MIN_TRANSACTION_AMOUNT_MINOR_UNITS = 1L; // minor units of the transaction currency
     public static final int MAX_DAILY_TRANSACTIONS = 50;
 
     // Risk Levels
@@ -8,57 +8,115 @@ public enum TransactionStatus {
     /**
      * Transaction received, awaiting validation
      */
-    PENDING,
+    PENDING(0),
     
     /**
      * Currently being validated
      */
-    VALIDATING,
+    VALIDATING(1),
     
     /**
      * Passed validation, ready for settlement
      */
-    VALIDATED,
+    VALIDATED(2),
     
     /**
      * Failed validation checks
      */
-    VALIDATION_FAILED,
+    VALIDATION_FAILED(3),
     
     /**
      * Flagged as potentially fraudulent, needs review
      */
-    FRAUD_REVIEW,
+    FRAUD_REVIEW(4),
     
     /**
      * Being processed for settlement
      */
-    SETTLING,
+    SETTLING(5),
     
     /**
      * Successfully settled
      */
-    SETTLED,
+    SETTLED(6),
     
     /**
      * Settlement failed
      */
-    SETTLEMENT_FAILED,
+    SETTLEMENT_FAILED(7),
     
     /**
      * Rejected due to fraud/policy violation
      */
-    REJECTED,
+    REJECTED(8),
     
     /**
      * Cancelled by user
      */
-    CANCELLED,
+    CANCELLED(9),
     
     /**
      * Refunded/reversed
      */
-    REFUNDED;
+    REFUNDED(10);
+
+    private static final TransactionStatus[] BY_CODE = new TransactionStatus[values().length];
+
+    /**
+     * Allowed next states, as a bitmask over ordinals indexed by ordinal
+     */
+    private static final int[] TRANSITIONS = new int[values().length];
+
+    static {
+        for (TransactionStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+        allow(PENDING, VALIDATING, VALIDATED, VALIDATION_FAILED, REJECTED, CANCELLED);
+        allow(VALIDATING, VALIDATED, VALIDATION_FAILED, FRAUD_REVIEW, REJECTED);
+        allow(VALIDATED, SETTLING, FRAUD_REVIEW, REJECTED, CANCELLED);
+        allow(VALIDATION_FAILED, REJECTED);
+        allow(FRAUD_REVIEW, VALIDATED, REJECTED, CANCELLED);
+        allow(SETTLING, SETTLED, SETTLEMENT_FAILED);
+        allow(SETTLED, REFUNDED);
+    }
+
+    private static void allow(TransactionStatus from, TransactionStatus... to) {
+        for (TransactionStatus next : to) {
+            TRANSITIONS[from.ordinal()] |= 1 << next.ordinal();
+        }
+    }
+
+    /**
+     * Stable wire code (never reuse or renumber)
+     */
+    private final int code;
+
+    TransactionStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Look up a status by its wire code
+     *
+     * @return the status, or null for a code added after this build
+     */
+    public static TransactionStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            return null;
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Check if the pipeline may move a transaction from this status to the next
+     */
+    public boolean canTransitionTo(TransactionStatus next) {
+        return (TRANSITIONS[ordinal()] & (1 << next.ordinal())) != 0;
+    }
     
     /**
      * Check if transaction is in a terminal state
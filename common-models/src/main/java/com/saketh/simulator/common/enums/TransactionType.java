@@ -8,42 +8,75 @@ public enum TransactionType {
     /**
      * Money added to account
      */
-    DEPOSIT,
+    DEPOSIT(0),
     
     /**
      * Money withdrawn from account
      */
-    WITHDRAWAL,
+    WITHDRAWAL(1),
     
     /**
      * Transfer between accounts
      */
-    TRANSFER,
+    TRANSFER(2),
     
     /**
      * Payment to merchant/vendor
      */
-    PAYMENT,
+    PAYMENT(3),
     
     /**
      * Refund from merchant
      */
-    REFUND,
+    REFUND(4),
     
     /**
      * Fee charged by the system
      */
-    FEE,
+    FEE(5),
     
     /**
      * Interest credited
      */
-    INTEREST,
+    INTEREST(6),
     
     /**
      * Adjustment/correction
      */
-    ADJUSTMENT;
+    ADJUSTMENT(7);
+
+    private static final TransactionType[] BY_CODE = new TransactionType[values().length];
+
+    static {
+        for (TransactionType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    /**
+     * Stable wire code (never reuse or renumber)
+     */
+    private final int code;
+
+    TransactionType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Look up a type by its wire code
+     *
+     * @return the type, or null for a code added after this build
+     */
+    public static TransactionType fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            return null;
+        }
+        return BY_CODE[code];
+    }
     
     /**
      * Check if transaction type is debit
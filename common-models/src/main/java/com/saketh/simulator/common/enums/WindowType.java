@@ -0,0 +1,17 @@
+package com.saketh.simulator.common.enums;
+
+/**
+ * Kinds of time window an aggregate covers.
+ */
+public enum WindowType {
+
+    /**
+     * Fixed, non-overlapping windows
+     */
+    TUMBLING,
+
+    /**
+     * Overlapping windows advancing by one pane
+     */
+    SLIDING
+}
@@ -0,0 +1,13 @@
+package com.saketh.simulator.common.id;
+
+/**
+ * Source of unique identifiers for domain objects.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Generate the next identifier
+     */
+    String nextId();
+}
@@ -0,0 +1,53 @@
+package com.saketh.simulator.common.id;
+
+/**
+ * Process-wide transaction ID generator used by the {@code Transaction}
+ * builder default. Defaults to {@link UlidGenerator}; services may install
+ * another generator at startup.
+ * <p>
+ * The default is created on first use rather than in a static initializer,
+ * so a bad node ID surfaces as an {@link IllegalStateException} naming the
+ * setting instead of disabling every class that touches IDs. Services call
+ * {@link #initialize()} before starting to fail fast on it.
+ */
+public final class TransactionIds {
+
+    private static volatile IdGenerator generator;
+
+    private TransactionIds() {
+        // Utility class, prevent instantiation
+    }
+
+    public static String nextId() {
+        IdGenerator current = generator;
+        if (current == null) {
+            current = installDefault();
+        }
+        return current.nextId();
+    }
+
+    /**
+     * Create the default generator now unless one is installed
+     *
+     * @throws IllegalStateException if the configured node ID is invalid
+     */
+    public static void initialize() {
+        if (generator == null) {
+            installDefault();
+        }
+    }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException("ID generator cannot be null");
+        }
+        generator = idGenerator;
+    }
+
+    private static synchronized IdGenerator installDefault() {
+        if (generator == null) {
+            generator = new UlidGenerator();
+        }
+        return generator;
+    }
+}
@@ -0,0 +1,124 @@
+package com.saketh.simulator.common.id;
+
+import java.util.Arrays;
+
+/**
+ * 128-bit, time-sortable identifiers in ULID text form.
+ * <p>
+ * Layout: 48-bit Unix epoch milliseconds, 16-bit node ID, 64-bit sequence.
+ * The text form is 26 characters of Crockford base32, which sorts in the
+ * same order as the binary form; {@link #toBytes} gives the 16-byte
+ * big-endian binary form used by codecs and indexes.
+ */
+public final class Ulid {
+
+    public static final int TEXT_LENGTH = 26;
+    public static final int BINARY_LENGTH = 16;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private Ulid() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Encode the 128-bit value into {@code out[0..25]}
+     */
+    public static void encode(long hi, long lo, char[] out) {
+        for (int i = TEXT_LENGTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) lo & 0x1F];
+            lo = (lo >>> 5) | (hi << 59);
+            hi >>>= 5;
+        }
+    }
+
+    public static String toString(long hi, long lo) {
+        char[] out = new char[TEXT_LENGTH];
+        encode(hi, lo, out);
+        return new String(out);
+    }
+
+    /**
+     * Check whether a string is a well-formed ULID
+     */
+    public static boolean isValid(CharSequence text) {
+        if (text == null || text.length() != TEXT_LENGTH || digit(text.charAt(0)) > 7) {
+            return false;
+        }
+        for (int i = 1; i < TEXT_LENGTH; i++) {
+            if (digit(text.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a string is a ULID in canonical (upper-case) text form,
+     * i.e. one that survives a round trip through the binary form unchanged
+     */
+    public static boolean isCanonical(CharSequence text) {
+        if (!isValid(text)) {
+            return false;
+        }
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            if (ALPHABET[digit(text.charAt(i))] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * High 64 bits (timestamp and node ID) of a valid ULID
+     */
+    public static long parseHi(CharSequence text) {
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            hi = (hi << 5) | (lo >>> 59);
+            lo = (lo << 5) | digit(text.charAt(i));
+        }
+        return hi;
+    }
+
+    /**
+     * Low 64 bits (sequence) of a valid ULID
+     */
+    public static long parseLo(CharSequence text) {
+        long lo = 0;
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            lo = (lo << 5) | digit(text.charAt(i));
+        }
+        return lo;
+    }
+
+    /**
+     * Milliseconds since the epoch at which an ID was generated
+     */
+    public static long timestampMillis(long hi) {
+        return hi >>> 16;
+    }
+
+    public static byte[] toBytes(long hi, long lo) {
+        byte[] bytes = new byte[BINARY_LENGTH];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (hi >>> (56 - 8 * i));
+            bytes[i + 8] = (byte) (lo >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+
+    private static int digit(char c) {
+        return c < 128 ? DECODE[c] : -1;
+    }
+}
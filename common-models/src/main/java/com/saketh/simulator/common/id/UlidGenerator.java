@@ -0,0 +1,94 @@
+package com.saketh.simulator.common.id;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention-free generator of {@link Ulid} identifiers.
+ * <p>
+ * Each thread keeps its own state: the first ID of a millisecond starts at a
+ * random 63-bit sequence from {@link ThreadLocalRandom}, later IDs in the same
+ * millisecond increment it. IDs from one thread are therefore strictly
+ * increasing even if the wall clock steps back, and no lock or
+ * {@code SecureRandom} is touched on the hot path.
+ * <p>
+ * Ordering is per thread only. IDs minted by different threads of a node
+ * sort by millisecond, but within a millisecond their random sequences
+ * interleave, and a thread whose clock was held back can mint IDs below
+ * another thread's.
+ */
+public class UlidGenerator implements IdGenerator {
+
+    /**
+     * System property (or {@link #NODE_ID_ENV} environment variable)
+     * holding this process's 16-bit node ID
+     */
+    public static final String NODE_ID_PROPERTY = "simulator.node-id";
+    public static final String NODE_ID_ENV = "SIMULATOR_NODE_ID";
+
+    private final long nodeId;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public UlidGenerator() {
+        this(resolveNodeId());
+    }
+
+    public UlidGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > 0xFFFF) {
+            throw new IllegalArgumentException("Node ID must fit in 16 bits: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextId() {
+        State current = state.get();
+        current.advance(System.currentTimeMillis());
+        Ulid.encode((current.millis << 16) | nodeId, current.sequence, current.buffer);
+        return new String(current.buffer);
+    }
+
+    /**
+     * Configured node ID, or a random one if none is set
+     *
+     * @throws IllegalStateException if the configured value is not an integer from 0 to 65535
+     */
+    private static int resolveNodeId() {
+        String configured = System.getProperty(NODE_ID_PROPERTY, System.getenv(NODE_ID_ENV));
+        if (configured == null || configured.isBlank()) {
+            return new SecureRandom().nextInt(0x10000);
+        }
+        int nodeId;
+        try {
+            nodeId = Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            nodeId = -1;
+        }
+        if (nodeId < 0 || nodeId > 0xFFFF) {
+            throw new IllegalStateException("Invalid node ID '" + configured + "' in " + NODE_ID_PROPERTY
+                + " / " + NODE_ID_ENV + ": expected an integer from 0 to 65535");
+        }
+        return nodeId;
+    }
+
+    /**
+     * Per-thread generator state
+     */
+    private static final class State {
+
+        private final char[] buffer = new char[Ulid.TEXT_LENGTH];
+        private long millis;
+        private long sequence;
+
+        void advance(long now) {
+            if (now > millis) {
+                millis = now;
+                sequence = ThreadLocalRandom.current().nextLong() >>> 1;
+            } else if (++sequence < 0) {
+                // Sequence exhausted within this millisecond, borrow the next one
+                millis++;
+                sequence = ThreadLocalRandom.current().nextLong() >>> 1;
+            }
+        }
+    }
+}
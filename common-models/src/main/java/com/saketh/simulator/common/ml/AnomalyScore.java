@@ -0,0 +1,47 @@
+package com.saketh.simulator.common.ml;
+
+/**
+ * Result of one anomaly scoring: the model score with the version of the
+ * model that produced it, and the distance to the nearest known
+ * transactions. Mutable and meant to be reused by the caller.
+ */
+public class AnomalyScore {
+
+    private double score;
+    private String modelVersion;
+    private double neighborDistance = Double.NaN;
+
+    /**
+     * Anomaly score in (0, 1], NaN when no model is loaded
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Version of the model that computed the score, null when none is loaded
+     */
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Mean distance to the nearest stored transactions, NaN when unknown
+     */
+    public double getNeighborDistance() {
+        return neighborDistance;
+    }
+
+    public void setNeighborDistance(double neighborDistance) {
+        this.neighborDistance = neighborDistance;
+    }
+
+    public boolean isScored() {
+        return modelVersion != null;
+    }
+
+    void set(double score, String modelVersion) {
+        this.score = score;
+        this.modelVersion = modelVersion;
+    }
+}
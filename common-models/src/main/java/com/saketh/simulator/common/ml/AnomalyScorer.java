@@ -0,0 +1,83 @@
+package com.saketh.simulator.common.ml;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores feature vectors against the current {@link IsolationForest},
+ * which can be swapped while scoring runs. Each call reads the model once,
+ * so the version it reports is always the one that computed the score.
+ */
+public class AnomalyScorer {
+
+    private volatile IsolationForest model;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+
+    public AnomalyScorer() {
+    }
+
+    public AnomalyScorer(IsolationForest model) {
+        swap(model);
+    }
+
+    /**
+     * Replace the model; calls already running finish on the old one
+     *
+     * @return the previous model, or null
+     */
+    public IsolationForest swap(IsolationForest model) {
+        if (model != null) {
+            TransactionFeatures.checkCompatible(model.getFeatureNames());
+        }
+        IsolationForest previous = this.model;
+        this.model = model;
+        return previous;
+    }
+
+    /**
+     * Score one vector into a caller-owned result
+     */
+    public void score(float[] features, AnomalyScore out) {
+        IsolationForest current = model;
+        if (current == null) {
+            out.set(Double.NaN, null);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        out.set(current.score(features), current.getVersion());
+        evaluationNanos.add(System.nanoTime() - startNanos);
+        evaluations.increment();
+    }
+
+    /**
+     * Score {@code count} row-major vectors of {@link TransactionFeatures#COUNT}
+     * features into {@code out}
+     *
+     * @return version of the model that scored the batch, or null when none is loaded
+     */
+    public String score(float[] rows, int count, double[] out) {
+        IsolationForest current = model;
+        if (current == null) {
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        current.score(rows, count, out);
+        evaluationNanos.add(System.nanoTime() - startNanos);
+        evaluations.add(count);
+        return current.getVersion();
+    }
+
+    public IsolationForest getModel() {
+        return model;
+    }
+
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    public double getAverageEvaluationNanos() {
+        long count = evaluations.sum();
+        return count == 0 ? 0.0 : (double) evaluationNanos.sum() / count;
+    }
+}
@@ -0,0 +1,223 @@
+package com.saketh.simulator.common.ml;
+
+import java.util.Arrays;
+
+/**
+ * Immutable Isolation Forest held in flat primitive arrays.
+ * <p>
+ * All trees share one node table, renumbered breadth first so the two
+ * children of a node are adjacent: a vector moves to {@code child + 1}
+ * when {@code x[feature] > threshold} and to {@code child} otherwise, as
+ * scikit-learn's {@code <=} goes left. Leaves point back at themselves
+ * with an infinite threshold, so every walk takes exactly the tree's depth
+ * in steps, with no leaf test and no mispredictable branch. A leaf stores
+ * its full path length, the depth plus the expected depth of the samples
+ * it still held, so scoring is a walk and a sum.
+ * <p>
+ * Scores follow scikit-learn's {@code -score_samples}: about 0.5 for
+ * ordinary points and approaching 1.0 for anomalies.
+ */
+public final class IsolationForest {
+
+    private static final double EULER_GAMMA = 0.5772156649015329;
+
+    private final String version;
+    private final String[] featureNames;
+    private final int[] roots;
+    private final int[] depths;
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] child;
+    private final double[] pathLength;
+    private final double normalizer;
+
+    /**
+     * @param roots      first node of each tree
+     * @param feature    split feature per node, -1 for leaves
+     * @param threshold  split threshold per node
+     * @param left       left child per node, ignored for leaves
+     * @param right      right child per node, ignored for leaves
+     * @param pathLength path length per leaf, ignored for internal nodes
+     * @param maxSamples samples each tree was grown on
+     */
+    public IsolationForest(String version, String[] featureNames, int[] roots, int[] feature, double[] threshold,
+                           int[] left, int[] right, double[] pathLength, int maxSamples) {
+        if (roots.length == 0 || featureNames.length == 0) {
+            throw new IllegalArgumentException("Forest has no trees or no features");
+        }
+        int nodes = feature.length;
+        if (threshold.length != nodes || left.length != nodes || right.length != nodes
+                || pathLength.length != nodes) {
+            throw new IllegalArgumentException("Node arrays differ in length");
+        }
+        for (int node = 0; node < nodes; node++) {
+            if (feature[node] >= featureNames.length) {
+                throw new IllegalArgumentException("Node " + node + " splits on unknown feature " + feature[node]);
+            }
+            // Children after their parent rules out cycles, so every walk ends at a leaf
+            if (feature[node] >= 0 && (left[node] <= node || left[node] >= nodes
+                    || right[node] <= node || right[node] >= nodes)) {
+                throw new IllegalArgumentException("Node " + node + " has invalid children");
+            }
+        }
+        for (int root : roots) {
+            if (root < 0 || root >= nodes) {
+                throw new IllegalArgumentException("Invalid root " + root);
+            }
+        }
+        this.version = version;
+        this.featureNames = featureNames.clone();
+        this.roots = new int[roots.length];
+        this.depths = new int[roots.length];
+        this.feature = new int[nodes];
+        this.threshold = new double[nodes];
+        this.child = new int[nodes];
+        this.pathLength = new double[nodes];
+        this.normalizer = roots.length * averagePathLength(maxSamples);
+
+        // Breadth first from each root; a node's children are queued together, so they land side by side
+        int[] order = new int[nodes];
+        int[] depth = new int[nodes];
+        int next = 0;
+        for (int t = 0; t < roots.length; t++) {
+            this.roots[t] = next;
+            order[next++] = roots[t];
+            for (int at = this.roots[t]; at < next; at++) {
+                int node = order[at];
+                this.pathLength[at] = pathLength[node];
+                if (feature[node] < 0) {
+                    this.threshold[at] = Double.POSITIVE_INFINITY;
+                    this.child[at] = at;
+                    continue;
+                }
+                if (next + 2 > nodes) {
+                    throw new IllegalArgumentException("Trees share nodes");
+                }
+                this.feature[at] = feature[node];
+                this.threshold[at] = threshold[node];
+                this.child[at] = next;
+                depth[next] = depth[at] + 1;
+                order[next++] = left[node];
+                depth[next] = depth[at] + 1;
+                order[next++] = right[node];
+                this.depths[t] = depth[at] + 1;
+            }
+        }
+    }
+
+    /**
+     * Anomaly score of one feature vector
+     */
+    public double score(float[] x) {
+        return score(x, 0);
+    }
+
+    /**
+     * Anomaly score of the vector starting at {@code offset}
+     */
+    public double score(float[] x, int offset) {
+        double depth = 0;
+        int t = 0;
+        // Four trees at a time; a walk that reaches its leaf early just stays there
+        for (; t + 4 <= roots.length; t += 4) {
+            int n0 = roots[t];
+            int n1 = roots[t + 1];
+            int n2 = roots[t + 2];
+            int n3 = roots[t + 3];
+            int steps = Math.max(Math.max(depths[t], depths[t + 1]), Math.max(depths[t + 2], depths[t + 3]));
+            for (int step = 0; step < steps; step++) {
+                n0 = child[n0] + (x[offset + feature[n0]] > threshold[n0] ? 1 : 0);
+                n1 = child[n1] + (x[offset + feature[n1]] > threshold[n1] ? 1 : 0);
+                n2 = child[n2] + (x[offset + feature[n2]] > threshold[n2] ? 1 : 0);
+                n3 = child[n3] + (x[offset + feature[n3]] > threshold[n3] ? 1 : 0);
+            }
+            depth += pathLength[n0] + pathLength[n1] + pathLength[n2] + pathLength[n3];
+        }
+        for (; t < roots.length; t++) {
+            depth += pathLength[leafOf(roots[t], depths[t], x, offset)];
+        }
+        return Math.pow(2.0, -depth / normalizer);
+    }
+
+    /**
+     * Score {@code count} row-major vectors into {@code out}. Trees are the
+     * outer loop, so each tree stays in cache while every row walks it, and
+     * four rows walk in lockstep so their independent loads overlap.
+     */
+    public void score(float[] rows, int count, double[] out) {
+        int width = featureNames.length;
+        Arrays.fill(out, 0, count, 0.0);
+        for (int t = 0; t < roots.length; t++) {
+            int root = roots[t];
+            int steps = depths[t];
+            int row = 0;
+            for (; row + 4 <= count; row += 4) {
+                int o0 = row * width;
+                int o1 = o0 + width;
+                int o2 = o1 + width;
+                int o3 = o2 + width;
+                int n0 = root;
+                int n1 = root;
+                int n2 = root;
+                int n3 = root;
+                for (int step = 0; step < steps; step++) {
+                    n0 = child[n0] + (rows[o0 + feature[n0]] > threshold[n0] ? 1 : 0);
+                    n1 = child[n1] + (rows[o1 + feature[n1]] > threshold[n1] ? 1 : 0);
+                    n2 = child[n2] + (rows[o2 + feature[n2]] > threshold[n2] ? 1 : 0);
+                    n3 = child[n3] + (rows[o3 + feature[n3]] > threshold[n3] ? 1 : 0);
+                }
+                out[row] += pathLength[n0];
+                out[row + 1] += pathLength[n1];
+                out[row + 2] += pathLength[n2];
+                out[row + 3] += pathLength[n3];
+            }
+            for (; row < count; row++) {
+                out[row] += pathLength[leafOf(root, steps, rows, row * width)];
+            }
+        }
+        for (int row = 0; row < count; row++) {
+            out[row] = Math.pow(2.0, -out[row] / normalizer);
+        }
+    }
+
+    private int leafOf(int node, int steps, float[] x, int offset) {
+        for (int step = 0; step < steps; step++) {
+            node = child[node] + (x[offset + feature[node]] > threshold[node] ? 1 : 0);
+        }
+        return node;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String[] getFeatureNames() {
+        return featureNames.clone();
+    }
+
+    public int getFeatureCount() {
+        return featureNames.length;
+    }
+
+    public int getTreeCount() {
+        return roots.length;
+    }
+
+    public int getNodeCount() {
+        return feature.length;
+    }
+
+    /**
+     * Expected path length of an unsuccessful search in a binary search
+     * tree of {@code n} samples, the normalisation term of Isolation Forest
+     */
+    public static double averagePathLength(long n) {
+        if (n <= 1) {
+            return 0.0;
+        }
+        if (n == 2) {
+            return 1.0;
+        }
+        return 2.0 * (Math.log(n - 1.0) + EULER_GAMMA) - 2.0 * (n - 1.0) / n;
+    }
+}
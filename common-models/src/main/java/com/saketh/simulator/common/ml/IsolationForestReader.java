@@ -0,0 +1,103 @@
+package com.saketh.simulator.common.ml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads an Isolation Forest exported by {@code python-ml/export_isolation_forest.py}.
+ * <p>
+ * The file is JSON: {@code format}, {@code version}, {@code maxSamples},
+ * {@code features} (names in vector order) and {@code trees}, each tree
+ * holding scikit-learn's {@code tree_} arrays {@code feature},
+ * {@code threshold}, {@code left}, {@code right} (-1 for leaves) and
+ * {@code samples}, with feature indices already mapped onto the full
+ * vector. Trees are concatenated into one node table.
+ */
+public final class IsolationForestReader {
+
+    public static final String FORMAT = "isolation-forest/v1";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private IsolationForestReader() {
+        // Utility class, prevent instantiation
+    }
+
+    public static IsolationForest read(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return read(input);
+        }
+    }
+
+    public static IsolationForest read(InputStream input) throws IOException {
+        JsonNode root = MAPPER.readTree(input);
+        if (root == null || !FORMAT.equals(root.path("format").asText())) {
+            throw new IOException("Not an " + FORMAT + " model");
+        }
+        JsonNode features = root.path("features");
+        String[] featureNames = new String[features.size()];
+        for (int i = 0; i < featureNames.length; i++) {
+            featureNames[i] = features.get(i).asText();
+        }
+        JsonNode trees = root.path("trees");
+        int nodes = 0;
+        for (JsonNode tree : trees) {
+            nodes += tree.path("feature").size();
+        }
+
+        int[] roots = new int[trees.size()];
+        int[] feature = new int[nodes];
+        double[] threshold = new double[nodes];
+        int[] left = new int[nodes];
+        int[] right = new int[nodes];
+        double[] pathLength = new double[nodes];
+        int[] depth = new int[nodes];
+
+        int base = 0;
+        for (int t = 0; t < roots.length; t++) {
+            JsonNode tree = trees.get(t);
+            int size = tree.path("feature").size();
+            if (size == 0 || tree.path("threshold").size() != size || tree.path("left").size() != size
+                    || tree.path("right").size() != size || tree.path("samples").size() != size) {
+                throw new IOException("Tree " + t + " has inconsistent node arrays");
+            }
+            roots[t] = base;
+            for (int i = 0; i < size; i++) {
+                int node = base + i;
+                int leftChild = tree.path("left").get(i).asInt();
+                if (leftChild < 0) {
+                    feature[node] = -1;
+                    pathLength[node] = depth[node]
+                        + IsolationForest.averagePathLength(tree.path("samples").get(i).asLong());
+                    continue;
+                }
+                int rightChild = tree.path("right").get(i).asInt();
+                // scikit-learn numbers children after their parent, so depths fill in order
+                if (leftChild <= i || leftChild >= size || rightChild <= i || rightChild >= size) {
+                    throw new IOException("Tree " + t + " node " + i + " has invalid children");
+                }
+                feature[node] = tree.path("feature").get(i).asInt();
+                if (feature[node] < 0) {
+                    throw new IOException("Tree " + t + " node " + i + " has no split feature");
+                }
+                threshold[node] = tree.path("threshold").get(i).asDouble();
+                left[node] = base + leftChild;
+                right[node] = base + rightChild;
+                depth[left[node]] = depth[node] + 1;
+                depth[right[node]] = depth[node] + 1;
+            }
+            base += size;
+        }
+        try {
+            return new IsolationForest(root.path("version").asText(), featureNames, roots, feature, threshold,
+                left, right, pathLength, root.path("maxSamples").asInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid model: " + e.getMessage(), e);
+        }
+    }
+}
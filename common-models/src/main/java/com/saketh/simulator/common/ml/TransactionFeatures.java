@@ -0,0 +1,85 @@
+package com.saketh.simulator.common.ml;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.velocity.VelocityStats;
+import com.saketh.simulator.common.velocity.VelocityWindow;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-order numeric feature vector of a transaction, as seen by the
+ * anomaly models. The Python exporter computes the same features in the
+ * same order; {@link #NAMES} is written into every exported model and
+ * checked when it is loaded, so a change here needs a retrained model.
+ */
+public final class TransactionFeatures {
+
+    /**
+     * Feature names in vector order
+     */
+    public static final List<String> NAMES = List.of(
+        "log_amount",
+        "hour_of_day",
+        "day_of_week",
+        "transaction_type",
+        "category",
+        "has_merchant",
+        "has_target_account",
+        "velocity_minute_count",
+        "velocity_hour_count",
+        "velocity_day_count");
+
+    public static final int COUNT = NAMES.size();
+
+    /**
+     * Categories with their own code; anything else maps to {@code CATEGORIES.size()}
+     */
+    public static final List<String> CATEGORIES = List.of(
+        "groceries", "entertainment", "utilities", "healthcare", "education", "shopping", "dining");
+
+    private TransactionFeatures() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Write the features of a transaction into {@code out} starting at
+     * {@code offset}. Velocity is the user's state including this
+     * transaction.
+     */
+    public static void extract(Transaction transaction, VelocityStats velocity, float[] out, int offset) {
+        double amount = transaction.getAmount() == null ? 0.0 : transaction.getAmount().doubleValue();
+        LocalDateTime timestamp = transaction.getTimestamp();
+
+        out[offset] = (float) Math.log1p(Math.max(amount, 0.0));
+        out[offset + 1] = timestamp == null ? 0f : timestamp.getHour() + timestamp.getMinute() / 60f;
+        out[offset + 2] = timestamp == null ? 0f : timestamp.getDayOfWeek().getValue() - 1;
+        out[offset + 3] = transaction.getTransactionType() == null ? -1f : transaction.getTransactionType().getCode();
+        out[offset + 4] = categoryCode(transaction.getCategory());
+        out[offset + 5] = isBlank(transaction.getMerchantId()) ? 0f : 1f;
+        out[offset + 6] = isBlank(transaction.getTargetAccountId()) ? 0f : 1f;
+        out[offset + 7] = velocity == null ? 0f : velocity.getCount(VelocityWindow.ONE_MINUTE);
+        out[offset + 8] = velocity == null ? 0f : velocity.getCount(VelocityWindow.ONE_HOUR);
+        out[offset + 9] = velocity == null ? 0f : velocity.getCount(VelocityWindow.ONE_DAY);
+    }
+
+    /**
+     * Check that a model was trained on this feature layout
+     */
+    public static void checkCompatible(String[] featureNames) {
+        if (!Arrays.asList(featureNames).equals(NAMES)) {
+            throw new IllegalArgumentException("Model features " + Arrays.toString(featureNames)
+                + " do not match " + NAMES);
+        }
+    }
+
+    private static float categoryCode(String category) {
+        int index = category == null ? -1 : CATEGORIES.indexOf(category.toLowerCase());
+        return index < 0 ? CATEGORIES.size() : index;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,41 @@
+package com.saketh.simulator.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pipeline latency of one stage over a closed time window, built from
+ * trace headers. Published to the transaction-metrics topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyMetric {
+
+    /**
+     * Window bounds, start inclusive and end exclusive
+     */
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+
+    /**
+     * A pipeline stage (time since the previous hop), END_TO_END or CONSUMER_LAG
+     */
+    private String stage;
+
+    private Long count;
+
+    /**
+     * Latency statistics in milliseconds; percentiles within about 6%
+     */
+    private Double meanMs;
+    private Double p50Ms;
+    private Double p99Ms;
+    private Double p999Ms;
+    private Double maxMs;
+}
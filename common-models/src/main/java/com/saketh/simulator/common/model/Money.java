@@ -0,0 +1,243 @@
+package com.saketh.simulator.common.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable fixed-point amount of money in minor units (e.g. cents).
+ * <p>
+ * The scale comes from the currency (2 for USD, 0 for JPY, 3 for KWD). Only
+ * ISO 4217 codes with a fixed number of minor digits are supported; the
+ * table is built once at class load, so unknown codes sent by clients are
+ * rejected rather than cached.
+ * Arithmetic is done on {@code long}s and throws {@link ArithmeticException}
+ * on overflow; the static {@code *MinorUnits} helpers let hot paths work on
+ * primitives without creating Money instances at all.
+ * Serialized as JSON {@code {"amount": 12.34, "currency": "USD"}}.
+ */
+public final class Money implements Comparable<Money> {
+
+    private static final int DEFAULT_SCALE = 2;
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+    private static final Map<String, Integer> SCALES = loadScales();
+
+    private final long minorUnits;
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency, "Currency cannot be null");
+        scaleOf(currency);
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * Convert a decimal amount that fits the currency's scale exactly
+     *
+     * @throws ArithmeticException if the amount has more digits than the currency
+     */
+    @JsonCreator
+    public static Money of(@JsonProperty("amount") BigDecimal amount,
+                           @JsonProperty("currency") String currency) {
+        return new Money(toMinorUnitsExact(amount, currency), currency);
+    }
+
+    /**
+     * Whether the code is an ISO 4217 currency this type can represent
+     */
+    public static boolean isSupportedCurrency(String currency) {
+        return currency != null && SCALES.containsKey(currency);
+    }
+
+    /**
+     * Number of minor-unit digits of a currency, 2 if no currency is given
+     *
+     * @throws IllegalArgumentException if the code is not a supported currency
+     */
+    public static int scaleOf(String currency) {
+        if (currency == null) {
+            return DEFAULT_SCALE;
+        }
+        Integer scale = SCALES.get(currency);
+        if (scale == null) {
+            // The code comes from the client, so it is not echoed back
+            throw new IllegalArgumentException("Unsupported currency code");
+        }
+        return scale;
+    }
+
+    /**
+     * Convert a decimal amount to minor units of a currency, rounding half-even.
+     * This is the one step of the minor-unit path that may allocate: it goes
+     * through a short-lived scale-0 BigDecimal, which the JIT usually
+     * eliminates, plus a rounded copy when the amount has more digits than
+     * the currency.
+     *
+     * @throws ArithmeticException if the result does not fit in a long
+     * @throws IllegalArgumentException if the code is not a supported currency
+     */
+    public static long toMinorUnits(BigDecimal amount, String currency) {
+        int scale = scaleOf(currency);
+        if (amount.scale() == scale) {
+            // Scale-0 view of a compact value is read without inflating to BigInteger
+            return amount.scaleByPowerOfTen(scale).longValueExact();
+        }
+        return amount.setScale(scale, RoundingMode.HALF_EVEN).scaleByPowerOfTen(scale).longValueExact();
+    }
+
+    /**
+     * Convert a decimal amount to minor units of a currency without rounding.
+     * Use this wherever an amount arrives from outside, so excess precision
+     * is rejected instead of silently moving money; {@link #toMinorUnits} is
+     * for computed values such as FX conversions.
+     *
+     * @throws ArithmeticException if the amount has more digits than the
+     *         currency or does not fit in a long
+     * @throws IllegalArgumentException if the code is not a supported currency
+     */
+    public static long toMinorUnitsExact(BigDecimal amount, String currency) {
+        int scale = scaleOf(currency);
+        if (amount.scale() == scale) {
+            return amount.scaleByPowerOfTen(scale).longValueExact();
+        }
+        return amount.setScale(scale, RoundingMode.UNNECESSARY).scaleByPowerOfTen(scale).longValueExact();
+    }
+
+    /**
+     * Check that an amount has no non-zero digits below the currency's minor
+     * unit, so {@code 10.50} and {@code 10.500} pass for USD but {@code 10.005}
+     * does not.
+     *
+     * @throws IllegalArgumentException if the code is not a supported currency
+     */
+    public static boolean isExactInMinorUnits(BigDecimal amount, String currency) {
+        int scale = scaleOf(currency);
+        return amount.scale() <= scale || amount.stripTrailingZeros().scale() <= scale;
+    }
+
+    /**
+     * Convert whole major units (e.g. dollars) to minor units of a currency
+     */
+    public static long majorToMinorUnits(long majorUnits, String currency) {
+        return Math.multiplyExact(majorUnits, POWERS_OF_TEN[scaleOf(currency)]);
+    }
+
+    /**
+     * Overflow-checked sum of two minor-unit amounts
+     */
+    public static long addMinorUnits(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Overflow-checked difference of two minor-unit amounts
+     */
+    public static long subtractMinorUnits(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    @JsonIgnore
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    @JsonIgnore
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    @JsonIgnore
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    @JsonProperty("amount")
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scaleOf(currency));
+    }
+
+    @JsonProperty("currency")
+    public String getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    /**
+     * ISO 4217 codes known to the JDK with their minor digits. Codes without
+     * minor units (XAU, XXX and other funds or metals, digits -1) are left out.
+     */
+    private static Map<String, Integer> loadScales() {
+        Map<String, Integer> scales = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int digits = currency.getDefaultFractionDigits();
+            if (digits >= 0 && digits < POWERS_OF_TEN.length) {
+                scales.put(currency.getCurrencyCode(), digits);
+            }
+        }
+        return Map.copyOf(scales);
+    }
+}
@@ -1,6 +1,9 @@
 package com.saketh.simulator.common.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.id.TransactionIds;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -10,7 +13,6 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * Core transaction domain model shared across all microservices.
@@ -23,10 +25,10 @@ import java.util.UUID;
 public class Transaction {
 
     /**
-     * Unique transaction identifier
+     * Unique transaction identifier (time-sortable ULID by default)
      */
     @Builder.Default
-    private String transactionId = UUID.randomUUID().toString();
+    private String transactionId = TransactionIds.nextId();
 
     /**
      * Source user/account ID
@@ -45,7 +47,7 @@ public class Transaction {
      * Transaction type (DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT)
      */
     @NotNull(message = "Transaction type cannot be null")
-    private String transactionType;
+    private TransactionType transactionType;
 
     /**
      * Target account for transfers
@@ -56,7 +58,7 @@ public class Transaction {
      * Current transaction status
      */
     @Builder.Default
-    private String status = "PENDING";
+    private TransactionStatus status = TransactionStatus.PENDING;
 
     /**
      * Timestamp when transaction was initiated
@@ -131,4 +133,17 @@ public class Transaction {
      * Processing notes or error messages
      */
     private String notes;
+
+    /**
+     * Move to the next pipeline status, enforcing the allowed transitions
+     *
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    public void transitionTo(TransactionStatus next) {
+        if (status != null && !status.canTransitionTo(next)) {
+            throw new IllegalStateException("Illegal status transition " + status + " -> " + next
+                + " for transaction " + transactionId);
+        }
+        status = next;
+    }
 }
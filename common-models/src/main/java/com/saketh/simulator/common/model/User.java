@@ -1,11 +1,11 @@
 package com.saketh.simulator.common.model;
 
+import com.saketh.simulator.common.constants.AppConstants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -42,7 +42,7 @@ public class User {
      * Current account balance
      */
     @Builder.Default
-    private BigDecimal balance = BigDecimal.ZERO;
+    private Money balance = Money.zero(AppConstants.DEFAULT_CURRENCY);
 
     /**
      * Account type (SAVINGS, CHECKING, BUSINESS)
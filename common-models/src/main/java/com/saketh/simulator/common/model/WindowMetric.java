@@ -0,0 +1,60 @@
+package com.saketh.simulator.common.model;
+
+import com.saketh.simulator.common.enums.WindowType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of the transactions of one group over a closed time window.
+ * Published to the transaction-metrics topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowMetric {
+
+    private WindowType windowType;
+
+    /**
+     * Window bounds, start inclusive and end exclusive
+     */
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+
+    /**
+     * Grouping, e.g. CATEGORY / groceries. Amounts are per currency.
+     */
+    private String dimension;
+    private String key;
+    private String currency;
+
+    /**
+     * Instance that aggregated the window. An instance only sees its
+     * assigned partitions, so metrics of the same group and window from
+     * different sources are partials: counts and sums add and min and max
+     * combine, but percentiles are per source.
+     */
+    private String source;
+
+    private Long count;
+
+    /**
+     * Amount statistics in major units of the currency
+     */
+    private BigDecimal sum;
+    private BigDecimal min;
+    private BigDecimal max;
+
+    /**
+     * Approximate amount percentiles (within about 6%)
+     */
+    private BigDecimal p50;
+    private BigDecimal p95;
+    private BigDecimal p99;
+}
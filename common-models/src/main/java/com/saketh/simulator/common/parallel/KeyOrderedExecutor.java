@@ -0,0 +1,201 @@
+package com.saketh.simulator.common.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on a fixed set of single-threaded lanes, choosing the lane by
+ * key, so tasks with the same key run one at a time in submission order
+ * while different keys run in parallel. Lets a consumer use more cores than
+ * it has partitions without reordering records of the same key.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+    private final AtomicInteger unkeyed = new AtomicInteger();
+
+    public KeyOrderedExecutor(int laneCount, String threadNamePrefix) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("laneCount must be positive");
+        }
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = threadNamePrefix + i;
+            lanes[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Run a task after every earlier task with the same key. Tasks without
+     * a key are spread round-robin.
+     */
+    public <R> CompletableFuture<R> submit(String key, Supplier<R> task) {
+        return CompletableFuture.supplyAsync(task, lanes[laneOf(key)]);
+    }
+
+    /**
+     * Run {@code work} on every item, ordered per key, and wait up to
+     * {@code timeoutMillis} for all of them.
+     * <p>
+     * The result's {@link BatchResult#getCompletedPrefix() completed prefix}
+     * is the number of leading items that finished successfully. For items
+     * from independent sequences, such as the partitions of a Kafka poll
+     * batch, use {@link BatchResult#isCompleted(int)} to find each sequence's
+     * own prefix instead: a gap in one partition does not hold back offsets
+     * of another.
+     * <p>
+     * Items still queued at the timeout are cancelled, so their lanes skip
+     * them instead of working through a backlog that will be redelivered
+     * anyway. An item already running is left to finish.
+     */
+    public <T, R> BatchResult<R> processBatch(List<T> items, Function<T, String> keyOf,
+                                              Function<T, R> work, long timeoutMillis) {
+        List<CompletableFuture<R>> futures = submitAll(items, keyOf, work);
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException e) {
+            // Inspected per item below
+        }
+        return collect(futures, timeoutMillis);
+    }
+
+    /**
+     * Run {@code work} on every item, ordered per key, and wait for all of
+     * them however long they take.
+     * <p>
+     * For work that cannot be abandoned half way, such as applying postings
+     * to an in-memory ledger: a deadline would only turn a GC pause or a slow
+     * lane into a partly applied batch. An interrupt does not end the wait; it
+     * stays set for the caller. Only items that threw are reported as failed.
+     */
+    public <T, R> BatchResult<R> processBatch(List<T> items, Function<T, String> keyOf,
+                                              Function<T, R> work) {
+        List<CompletableFuture<R>> futures = submitAll(items, keyOf, work);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .handle((value, error) -> null)
+            .join();
+        return collect(futures, 0);
+    }
+
+    private <T, R> List<CompletableFuture<R>> submitAll(List<T> items, Function<T, String> keyOf,
+                                                        Function<T, R> work) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(submit(keyOf.apply(item), () -> work.apply(item)));
+        }
+        return futures;
+    }
+
+    private static <R> BatchResult<R> collect(List<CompletableFuture<R>> futures, long timeoutMillis) {
+        List<R> results = new ArrayList<>(futures.size());
+        boolean[] completedItems = new boolean[futures.size()];
+        int completedPrefix = 0;
+        Throwable failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<R> future = futures.get(i);
+            // A cancelled supplyAsync task is skipped when its lane reaches it
+            boolean timedOut = future.cancel(false);
+            boolean completed = !timedOut && !future.isCompletedExceptionally();
+            results.add(completed ? future.join() : null);
+            completedItems[i] = completed;
+            if (completed && completedPrefix == i) {
+                completedPrefix++;
+            } else if (!completed && failure == null) {
+                failure = timedOut
+                    ? new TimeoutException("Not completed within " + timeoutMillis + "ms")
+                    : causeOf(future);
+            }
+        }
+        return new BatchResult<>(results, completedItems, completedPrefix, failure);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        Throwable ex = future.handle((value, error) -> error).join();
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private int laneOf(String key) {
+        if (key == null) {
+            return Math.floorMod(unkeyed.getAndIncrement(), lanes.length);
+        }
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    /**
+     * Results of a batch, index-aligned with its items; null where an item
+     * failed or did not finish in time
+     */
+    public static final class BatchResult<R> {
+
+        private final List<R> results;
+        private final boolean[] completedItems;
+        private final int completedPrefix;
+        private final Throwable firstFailure;
+
+        BatchResult(List<R> results, boolean[] completedItems, int completedPrefix, Throwable firstFailure) {
+            this.results = results;
+            this.completedItems = completedItems;
+            this.completedPrefix = completedPrefix;
+            this.firstFailure = firstFailure;
+        }
+
+        public List<R> getResults() {
+            return results;
+        }
+
+        /**
+         * Whether the item at an index completed successfully
+         */
+        public boolean isCompleted(int index) {
+            return completedItems[index];
+        }
+
+        /**
+         * Number of leading items that completed successfully
+         */
+        public int getCompletedPrefix() {
+            return completedPrefix;
+        }
+
+        public boolean isComplete() {
+            return completedPrefix == results.size();
+        }
+
+        /**
+         * Why the item at {@link #getCompletedPrefix()} did not complete, or null
+         */
+        public Throwable getFirstFailure() {
+            return firstFailure;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.saketh.simulator.common.rules;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.velocity.VelocityWindow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable evaluation plan compiled from {@link RuleDefinition}s.
+ * <p>
+ * Rules are flattened into parallel arrays indexed by rule and sorted by
+ * {@link RuleType}, so evaluation is a single loop over primitive arrays
+ * with a switch over the rule type, and allocates nothing. Per-rule hit counters carry
+ * over from the previous rule set for rules with the same name.
+ */
+public final class CompiledRuleSet {
+
+    /**
+     * Rules are reported as bits of a long
+     */
+    public static final int MAX_RULES = Long.SIZE;
+
+    private static final int MAX_SCORE = 100;
+
+    // One in this many evaluations times each rule individually
+    private static final int TIMING_SAMPLE_MASK = 1023;
+
+    private final long version;
+    private final int size;
+    private final String[] names;
+    private final RuleType[] types;
+    private final int[] weights;
+    private final BigDecimal[] amounts;
+    private final String[] currencies;
+    private final Set<?>[] valueSets;
+    private final int[] hourMasks;
+    private final VelocityWindow[] windows;
+    private final long[] counts;
+    private final LongAdder[] hits;
+    private final LongAdder[] sampledNanos;
+    private final LongAdder[] sampledRuns;
+
+    private CompiledRuleSet(long version, List<RuleDefinition> rules, CompiledRuleSet previous) {
+        this.version = version;
+        this.size = rules.size();
+        this.names = new String[size];
+        this.types = new RuleType[size];
+        this.weights = new int[size];
+        this.amounts = new BigDecimal[size];
+        this.currencies = new String[size];
+        this.valueSets = new Set<?>[size];
+        this.hourMasks = new int[size];
+        this.windows = new VelocityWindow[size];
+        this.counts = new long[size];
+        this.hits = new LongAdder[size];
+        this.sampledNanos = new LongAdder[size];
+        this.sampledRuns = new LongAdder[size];
+
+        for (int i = 0; i < size; i++) {
+            RuleDefinition rule = rules.get(i);
+            names[i] = rule.getName();
+            types[i] = rule.getType();
+            weights[i] = rule.getWeight();
+            switch (rule.getType()) {
+                case AMOUNT_ABOVE -> {
+                    amounts[i] = rule.getThreshold();
+                    currencies[i] = rule.getCurrency();
+                }
+                case CATEGORY_IN, MERCHANT_IN -> valueSets[i] = Set.copyOf(rule.getValues());
+                case OFF_HOURS -> hourMasks[i] = hourMask(rule.getStartHour(), rule.getEndHour());
+                case VELOCITY_ABOVE -> {
+                    windows[i] = rule.getWindow();
+                    counts[i] = rule.getThreshold().longValueExact();
+                }
+                case COUNTRY_MISMATCH -> {
+                    // Compares context facts only
+                }
+            }
+
+            int carried = previous == null ? -1 : previous.indexOf(names[i]);
+            hits[i] = carried < 0 ? new LongAdder() : previous.hits[carried];
+            sampledNanos[i] = carried < 0 ? new LongAdder() : previous.sampledNanos[carried];
+            sampledRuns[i] = carried < 0 ? new LongAdder() : previous.sampledRuns[carried];
+        }
+    }
+
+    /**
+     * Check and compile rule definitions. Disabled rules are dropped.
+     *
+     * @param previous rule set being replaced, whose counters are carried over, or null
+     * @throws IllegalArgumentException if a definition is invalid
+     */
+    public static CompiledRuleSet compile(long version, List<RuleDefinition> definitions,
+                                          CompiledRuleSet previous) {
+        List<RuleDefinition> rules = new ArrayList<>(definitions.size());
+        Set<String> seen = new HashSet<>();
+        for (RuleDefinition rule : definitions) {
+            if (Boolean.FALSE.equals(rule.getEnabled())) {
+                continue;
+            }
+            check(rule);
+            if (!seen.add(rule.getName())) {
+                throw new IllegalArgumentException("Duplicate rule name " + rule.getName());
+            }
+            rules.add(rule);
+        }
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " rules are supported, got " + rules.size());
+        }
+
+        // Same-type rules side by side keep the switch in the evaluation loop predictable
+        rules.sort(Comparator.comparingInt(rule -> rule.getType().ordinal()));
+        return new CompiledRuleSet(version, rules, previous);
+    }
+
+    /**
+     * Evaluate every rule against a transaction. A sampled evaluation also
+     * times each rule.
+     */
+    public void evaluate(Transaction transaction, RuleContext context, RuleResult out) {
+        boolean timed = (ThreadLocalRandom.current().nextInt() & TIMING_SAMPLE_MASK) == 0;
+        BigDecimal amount = transaction.getAmount();
+        String currency = transaction.getCurrency();
+        String category = transaction.getCategory();
+        String merchantId = transaction.getMerchantId();
+        int hour = hourOf(transaction.getTimestamp());
+
+        int score = 0;
+        long triggered = 0;
+        for (int i = 0; i < size; i++) {
+            long start = timed ? System.nanoTime() : 0L;
+            boolean hit = test(i, amount, currency, category, merchantId, hour, context);
+            if (timed) {
+                sampledNanos[i].add(System.nanoTime() - start);
+                sampledRuns[i].increment();
+            }
+            if (hit) {
+                score += weights[i];
+                triggered |= 1L << i;
+                hits[i].increment();
+            }
+        }
+        out.set(this, Math.min(score, MAX_SCORE), triggered);
+    }
+
+    private boolean test(int i, BigDecimal amount, String currency, String category,
+                         String merchantId, int hour, RuleContext context) {
+        return switch (types[i]) {
+            case AMOUNT_ABOVE -> amount != null
+                && (currencies[i] == null || currencies[i].equals(currency))
+                && amount.compareTo(amounts[i]) > 0;
+            case CATEGORY_IN -> category != null && valueSets[i].contains(category);
+            case MERCHANT_IN -> merchantId != null && valueSets[i].contains(merchantId);
+            case COUNTRY_MISMATCH -> context != null
+                && context.getHomeCountry() != null && context.getTransactionCountry() != null
+                && !context.getHomeCountry().equalsIgnoreCase(context.getTransactionCountry());
+            case OFF_HOURS -> hour >= 0 && (hourMasks[i] >>> hour & 1) != 0;
+            case VELOCITY_ABOVE -> context != null && context.getVelocity() != null
+                && context.getVelocity().getCount(windows[i]) > counts[i];
+        };
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getRuleName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Snapshot of per-rule hit counts and sampled evaluation times
+     */
+    public List<RuleStats> getStats() {
+        List<RuleStats> stats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long runs = sampledRuns[i].sum();
+            stats.add(RuleStats.builder()
+                .name(names[i])
+                .type(types[i])
+                .weight(weights[i])
+                .hits(hits[i].sum())
+                .avgNanos(runs == 0 ? 0.0 : (double) sampledNanos[i].sum() / runs)
+                .build());
+        }
+        return stats;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int hourOf(LocalDateTime timestamp) {
+        return timestamp == null ? -1 : timestamp.getHour();
+    }
+
+    /**
+     * Bit h is set for every hour h in [start, end), wrapping past midnight
+     */
+    private static int hourMask(int startHour, int endHour) {
+        int end = endHour % 24;
+        int mask = 0;
+        for (int hour = startHour; hour != end; hour = (hour + 1) % 24) {
+            mask |= 1 << hour;
+        }
+        return mask;
+    }
+
+    private static void check(RuleDefinition rule) {
+        String name = rule.getName();
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Rule name is required");
+        }
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Rule " + name + ": type is required");
+        }
+        if (rule.getWeight() == null || rule.getWeight() < 0 || rule.getWeight() > MAX_SCORE) {
+            throw new IllegalArgumentException("Rule " + name + ": weight must be between 0 and " + MAX_SCORE);
+        }
+        switch (rule.getType()) {
+            case AMOUNT_ABOVE -> {
+                if (rule.getThreshold() == null || rule.getThreshold().signum() < 0) {
+                    throw new IllegalArgumentException("Rule " + name + ": non-negative threshold is required");
+                }
+            }
+            case CATEGORY_IN, MERCHANT_IN -> {
+                if (rule.getValues() == null || rule.getValues().isEmpty() || rule.getValues().contains(null)) {
+                    throw new IllegalArgumentException("Rule " + name + ": values are required");
+                }
+            }
+            case OFF_HOURS -> {
+                Integer start = rule.getStartHour();
+                Integer end = rule.getEndHour();
+                if (start == null || end == null || start < 0 || start > 23 || end < 0 || end > 24
+                        || start.equals(end % 24)) {
+                    throw new IllegalArgumentException("Rule " + name + ": startHour 0-23 and a different endHour 0-24 are required");
+                }
+            }
+            case VELOCITY_ABOVE -> {
+                if (rule.getWindow() == null || rule.getThreshold() == null || rule.getThreshold().signum() < 0
+                        || rule.getThreshold().stripTrailingZeros().scale() > 0) {
+                    throw new IllegalArgumentException("Rule " + name + ": window and a whole-number threshold are required");
+                }
+            }
+            case COUNTRY_MISMATCH -> {
+                // No parameters
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.saketh.simulator.common.rules;
+
+import com.saketh.simulator.common.velocity.VelocityStats;
+
+/**
+ * Per-transaction facts that are not on the transaction itself.
+ * Mutable and meant to be reused by the caller; rules whose facts are
+ * missing do not trigger.
+ */
+public class RuleContext {
+
+    private String homeCountry;
+    private String transactionCountry;
+    private VelocityStats velocity;
+
+    public String getHomeCountry() {
+        return homeCountry;
+    }
+
+    public RuleContext homeCountry(String homeCountry) {
+        this.homeCountry = homeCountry;
+        return this;
+    }
+
+    public String getTransactionCountry() {
+        return transactionCountry;
+    }
+
+    public RuleContext transactionCountry(String transactionCountry) {
+        this.transactionCountry = transactionCountry;
+        return this;
+    }
+
+    public VelocityStats getVelocity() {
+        return velocity;
+    }
+
+    public RuleContext velocity(VelocityStats velocity) {
+        this.velocity = velocity;
+        return this;
+    }
+
+    public RuleContext clear() {
+        homeCountry = null;
+        transactionCountry = null;
+        velocity = null;
+        return this;
+    }
+}
@@ -0,0 +1,72 @@
+package com.saketh.simulator.common.rules;
+
+import com.saketh.simulator.common.velocity.VelocityWindow;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Fraud rule as declared in configuration.
+ * Compiled into a {@link CompiledRuleSet} before it is evaluated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleDefinition {
+
+    /**
+     * Unique rule name, reported in {@code FraudScore.triggeredRules}
+     */
+    private String name;
+
+    /**
+     * Kind of check
+     */
+    private RuleType type;
+
+    /**
+     * Points added to the rule-based score (0-100) when the rule triggers
+     */
+    private Integer weight;
+
+    /**
+     * Amount (major units) for AMOUNT_ABOVE, transaction count for VELOCITY_ABOVE
+     */
+    private BigDecimal threshold;
+
+    /**
+     * Currency an AMOUNT_ABOVE rule applies to, or null for any
+     */
+    private String currency;
+
+    /**
+     * Categories or merchant IDs for CATEGORY_IN and MERCHANT_IN
+     */
+    private List<String> values;
+
+    /**
+     * First off-hours hour (0-23), inclusive
+     */
+    private Integer startHour;
+
+    /**
+     * Last off-hours hour (0-24), exclusive
+     */
+    private Integer endHour;
+
+    /**
+     * Window counted by VELOCITY_ABOVE
+     */
+    private VelocityWindow window;
+
+    /**
+     * Disabled rules are skipped at compile time
+     */
+    @Builder.Default
+    private Boolean enabled = true;
+}
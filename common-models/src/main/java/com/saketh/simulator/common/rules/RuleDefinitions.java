@@ -0,0 +1,54 @@
+package com.saketh.simulator.common.rules;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Loads rule definitions from JSON: an array of {@link RuleDefinition} objects.
+ */
+public final class RuleDefinitions {
+
+    /**
+     * Classpath location of the built-in rules
+     */
+    public static final String DEFAULT_RESOURCE = "/rules/default-fraud-rules.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<RuleDefinition>> RULE_LIST = new TypeReference<>() {
+    };
+
+    private RuleDefinitions() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Built-in rules shipped with common-models
+     */
+    public static List<RuleDefinition> defaults() {
+        try (InputStream input = RuleDefinitions.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing " + DEFAULT_RESOURCE);
+            }
+            return read(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + DEFAULT_RESOURCE, e);
+        }
+    }
+
+    public static List<RuleDefinition> read(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return read(input);
+        }
+    }
+
+    public static List<RuleDefinition> read(InputStream input) throws IOException {
+        return MAPPER.readValue(input, RULE_LIST);
+    }
+}
@@ -0,0 +1,143 @@
+package com.saketh.simulator.common.rules;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.model.FraudScore;
+import com.saketh.simulator.common.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rule-based fraud scoring with hot-reloadable rules.
+ * <p>
+ * Evaluation reads the current {@link CompiledRuleSet} through a volatile
+ * reference, so {@link #reload} swaps in a new rule set without blocking
+ * scoring threads; in-flight evaluations finish on the rule set they started
+ * with.
+ */
+public class RuleEngine {
+
+    private volatile CompiledRuleSet ruleSet;
+
+    // Metrics
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAccumulator maxEvaluationNanos = new LongAccumulator(Math::max, 0);
+
+    public RuleEngine(List<RuleDefinition> definitions) {
+        this.ruleSet = CompiledRuleSet.compile(1, definitions, null);
+    }
+
+    /**
+     * Compile and switch to new rule definitions. The current rules stay
+     * active if the new ones are invalid.
+     *
+     * @return version of the new rule set
+     * @throws IllegalArgumentException if a definition is invalid
+     */
+    public synchronized long reload(List<RuleDefinition> definitions) {
+        CompiledRuleSet current = ruleSet;
+        CompiledRuleSet next = CompiledRuleSet.compile(current.getVersion() + 1, definitions, current);
+        ruleSet = next;
+        return next.getVersion();
+    }
+
+    /**
+     * Score a transaction into a caller-owned result, without allocating
+     */
+    public void evaluate(Transaction transaction, RuleContext context, RuleResult out) {
+        long start = System.nanoTime();
+        ruleSet.evaluate(transaction, context, out);
+        long elapsed = System.nanoTime() - start;
+
+        evaluations.increment();
+        evaluationNanos.add(elapsed);
+        maxEvaluationNanos.accumulate(elapsed);
+    }
+
+    /**
+     * Score a transaction into a {@link FraudScore} carrying the rule-based
+     * score, triggered rules, risk level and recommendation
+     */
+    public FraudScore score(Transaction transaction, RuleContext context) {
+        RuleResult result = new RuleResult();
+        evaluate(transaction, context, result);
+        return toFraudScore(transaction, result);
+    }
+
+    /**
+     * Build a {@link FraudScore} from an evaluation result
+     */
+    public static FraudScore toFraudScore(Transaction transaction, RuleResult result) {
+        String riskLevel = riskLevelOf(result.getScore());
+        return FraudScore.builder()
+            .transactionId(transaction.getTransactionId())
+            .ruleBasedScore(result.getScore())
+            .triggeredRules(result.getTriggeredRules())
+            .riskLevel(riskLevel)
+            .recommendation(recommendationOf(riskLevel))
+            .requiresManualReview(AppConstants.RISK_HIGH.equals(riskLevel))
+            .build();
+    }
+
+    /**
+     * Map a rule-based score (0-100) onto the configured risk thresholds
+     */
+    public static String riskLevelOf(int score) {
+        double probability = score / 100.0;
+        if (probability >= AppConstants.FRAUD_SCORE_THRESHOLD_HIGH) {
+            return AppConstants.RISK_CRITICAL;
+        }
+        if (probability >= AppConstants.FRAUD_SCORE_THRESHOLD_MEDIUM) {
+            return AppConstants.RISK_HIGH;
+        }
+        if (probability >= AppConstants.FRAUD_SCORE_THRESHOLD_LOW) {
+            return AppConstants.RISK_MEDIUM;
+        }
+        return AppConstants.RISK_LOW;
+    }
+
+    /**
+     * Recommendation for a risk level: APPROVE, REVIEW or REJECT
+     */
+    public static String recommendationOf(String riskLevel) {
+        if (AppConstants.RISK_CRITICAL.equals(riskLevel)) {
+            return "REJECT";
+        }
+        if (AppConstants.RISK_HIGH.equals(riskLevel)) {
+            return "REVIEW";
+        }
+        return "APPROVE";
+    }
+
+    /**
+     * Version of the active rule set, incremented on every reload
+     */
+    public long getVersion() {
+        return ruleSet.getVersion();
+    }
+
+    /**
+     * Per-rule hit counts and sampled timings of the active rule set
+     */
+    public List<RuleStats> getRuleStats() {
+        return ruleSet.getStats();
+    }
+
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    /**
+     * Mean time to evaluate the whole rule set (nanoseconds)
+     */
+    public double getAverageEvaluationNanos() {
+        long count = evaluations.sum();
+        return count == 0 ? 0.0 : (double) evaluationNanos.sum() / count;
+    }
+
+    public long getMaxEvaluationNanos() {
+        return maxEvaluationNanos.get();
+    }
+}
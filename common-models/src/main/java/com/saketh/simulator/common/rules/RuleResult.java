@@ -0,0 +1,57 @@
+package com.saketh.simulator.common.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of evaluating a rule set against one transaction.
+ * Mutable and meant to be reused by the caller, so scoring does not allocate.
+ */
+public class RuleResult {
+
+    private CompiledRuleSet ruleSet;
+    private int score;
+    private long triggered;
+
+    /**
+     * Rule-based score (0-100)
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Bit i is set when rule i of the evaluated rule set triggered
+     */
+    public long getTriggeredMask() {
+        return triggered;
+    }
+
+    public int getTriggeredCount() {
+        return Long.bitCount(triggered);
+    }
+
+    /**
+     * Version of the rule set that produced this result
+     */
+    public long getRuleSetVersion() {
+        return ruleSet == null ? 0 : ruleSet.getVersion();
+    }
+
+    /**
+     * Names of the triggered rules, in evaluation order
+     */
+    public List<String> getTriggeredRules() {
+        List<String> names = new ArrayList<>(Long.bitCount(triggered));
+        for (long mask = triggered; mask != 0; mask &= mask - 1) {
+            names.add(ruleSet.getRuleName(Long.numberOfTrailingZeros(mask)));
+        }
+        return names;
+    }
+
+    void set(CompiledRuleSet ruleSet, int score, long triggered) {
+        this.ruleSet = ruleSet;
+        this.score = score;
+        this.triggered = triggered;
+    }
+}
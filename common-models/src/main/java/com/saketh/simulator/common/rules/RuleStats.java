@@ -0,0 +1,30 @@
+package com.saketh.simulator.common.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hit count and sampled evaluation time of one compiled rule.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleStats {
+
+    private String name;
+    private RuleType type;
+    private Integer weight;
+
+    /**
+     * Number of transactions the rule triggered on
+     */
+    private Long hits;
+
+    /**
+     * Mean evaluation time of the rule over sampled evaluations (nanoseconds)
+     */
+    private Double avgNanos;
+}
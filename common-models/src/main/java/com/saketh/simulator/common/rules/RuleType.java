@@ -0,0 +1,38 @@
+package com.saketh.simulator.common.rules;
+
+/**
+ * Kinds of fraud rule that can be declared in configuration.
+ * The order is the evaluation order of compiled rules.
+ */
+public enum RuleType {
+
+    /**
+     * Amount strictly above {@code threshold}, optionally only in {@code currency}
+     */
+    AMOUNT_ABOVE,
+
+    /**
+     * Category is one of {@code values}
+     */
+    CATEGORY_IN,
+
+    /**
+     * Merchant ID is one of {@code values}
+     */
+    MERCHANT_IN,
+
+    /**
+     * Transaction country differs from the user's home country
+     */
+    COUNTRY_MISMATCH,
+
+    /**
+     * Transaction hour in [{@code startHour}, {@code endHour}), wrapping past midnight
+     */
+    OFF_HOURS,
+
+    /**
+     * More than {@code threshold} transactions by the user in {@code window}
+     */
+    VELOCITY_ABOVE
+}
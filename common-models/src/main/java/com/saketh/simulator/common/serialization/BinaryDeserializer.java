@@ -0,0 +1,46 @@
+package com.saketh.simulator.common.serialization;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+
+/**
+ * Kafka deserializer reading the binary wire format.
+ * Payloads without the binary magic byte are read as JSON, so consumers can
+ * switch before all producers have moved to the binary format.
+ */
+public abstract class BinaryDeserializer<T> implements Deserializer<T> {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Class<T> type;
+
+    protected BinaryDeserializer(Class<T> type) {
+        this.type = type;
+    }
+
+    protected abstract T decode(byte[] data);
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (WireFormat.isBinary(data)) {
+                return decode(data);
+            }
+            return JSON_MAPPER.readValue(data, type);
+        } catch (IllegalArgumentException | DateTimeException | IOException e) {
+            throw new SerializationException("Failed to deserialize " + type.getSimpleName()
+                + " from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.saketh.simulator.common.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka serializer writing the binary wire format.
+ * Tags each record with a {@link WireFormat#CONTENT_FORMAT_HEADER} header so
+ * consumers can tell binary and JSON records apart without parsing them.
+ * A value the format cannot hold fails the send with a
+ * {@link SerializationException}.
+ */
+public abstract class BinarySerializer<T> implements Serializer<T> {
+
+    private static final byte[] FORMAT_BINARY = WireFormat.FORMAT_BINARY.getBytes(StandardCharsets.UTF_8);
+
+    protected abstract byte[] encode(T data);
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return data == null ? null : encode(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+        if (data == null) {
+            return null;
+        }
+        headers.remove(WireFormat.CONTENT_FORMAT_HEADER);
+        headers.add(WireFormat.CONTENT_FORMAT_HEADER, FORMAT_BINARY);
+        return encode(topic, data);
+    }
+
+    private byte[] encode(String topic, T data) {
+        try {
+            return encode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to serialize " + data.getClass().getSimpleName()
+                + " for topic " + topic, e);
+        }
+    }
+}
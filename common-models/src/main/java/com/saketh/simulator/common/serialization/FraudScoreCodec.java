@@ -0,0 +1,127 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.model.FraudScore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary wire codec for {@link FraudScore}.
+ * Field numbers are part of the format: never reuse or renumber them.
+ * Dictionary codes newer than this build decode as null.
+ */
+public final class FraudScoreCodec {
+
+    private static final int TRANSACTION_ID = 1;
+    private static final int TRANSACTION_ID_UUID = 2;
+    private static final int TRANSACTION_ID_ULID = 18;
+    private static final int FRAUD_PROBABILITY = 3;
+    private static final int RISK_LEVEL_CODE = 4;
+    private static final int RISK_LEVEL = 5;
+    private static final int RULE_BASED_SCORE = 6;
+    private static final int ML_SCORE = 7;
+    private static final int MODEL_VERSION = 8;
+    private static final int TRIGGERED_RULE = 9;
+    private static final int ANOMALY = 10;
+    private static final int RECOMMENDATION_CODE = 11;
+    private static final int RECOMMENDATION = 12;
+    private static final int EXPLANATION = 13;
+    private static final int CONFIDENCE = 14;
+    private static final int PROCESSING_TIME_MS = 15;
+    private static final int ANALYZED_AT = 16;
+    private static final int REQUIRES_MANUAL_REVIEW = 17;
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private FraudScoreCodec() {
+        // Utility class, prevent instantiation
+    }
+
+    public static byte[] encode(FraudScore score) {
+        WireWriter writer = new WireWriter(INITIAL_CAPACITY);
+        writer.writeHeader(WireFormat.SCHEMA_FRAUD_SCORE);
+
+        writer.writeIdField(TRANSACTION_ID, TRANSACTION_ID_UUID, TRANSACTION_ID_ULID, score.getTransactionId());
+        writer.writeDoubleField(FRAUD_PROBABILITY, score.getFraudProbability());
+        writer.writeDictionaryField(RISK_LEVEL_CODE, RISK_LEVEL,
+            WireDictionary.RISK_LEVELS, score.getRiskLevel());
+        writer.writeIntegerField(RULE_BASED_SCORE, score.getRuleBasedScore());
+        writer.writeDoubleField(ML_SCORE, score.getMlScore());
+        writer.writeStringField(MODEL_VERSION, score.getModelVersion());
+        writeRepeated(writer, TRIGGERED_RULE, score.getTriggeredRules());
+        writeRepeated(writer, ANOMALY, score.getAnomalies());
+        writer.writeDictionaryField(RECOMMENDATION_CODE, RECOMMENDATION,
+            WireDictionary.RECOMMENDATIONS, score.getRecommendation());
+        writer.writeStringField(EXPLANATION, score.getExplanation());
+        writer.writeDoubleField(CONFIDENCE, score.getConfidence());
+        writer.writeLongField(PROCESSING_TIME_MS, score.getProcessingTimeMs());
+        writer.writeTimestampField(ANALYZED_AT, score.getAnalyzedAt());
+        writer.writeBooleanField(REQUIRES_MANUAL_REVIEW, score.getRequiresManualReview());
+
+        return writer.toByteArray();
+    }
+
+    public static FraudScore decode(byte[] data) {
+        WireReader reader = new WireReader(data, WireFormat.SCHEMA_FRAUD_SCORE);
+
+        // Every field is set explicitly so builder defaults do not replace absent values
+        FraudScore.FraudScoreBuilder builder = FraudScore.builder()
+            .analyzedAt(null)
+            .requiresManualReview(null);
+        List<String> triggeredRules = null;
+        List<String> anomalies = null;
+
+        int field;
+        while ((field = reader.nextField()) != -1) {
+            switch (field) {
+                case TRANSACTION_ID -> builder.transactionId(reader.readString());
+                case TRANSACTION_ID_UUID -> builder.transactionId(reader.readUuid());
+                case TRANSACTION_ID_ULID -> builder.transactionId(reader.readUlid());
+                case FRAUD_PROBABILITY -> builder.fraudProbability(reader.readDouble());
+                case RISK_LEVEL_CODE -> builder.riskLevel(WireDictionary.RISK_LEVELS.value(reader.readVarint()));
+                case RISK_LEVEL -> builder.riskLevel(reader.readString());
+                case RULE_BASED_SCORE -> builder.ruleBasedScore((int) reader.readSigned());
+                case ML_SCORE -> builder.mlScore(reader.readDouble());
+                case MODEL_VERSION -> builder.modelVersion(reader.readString());
+                case TRIGGERED_RULE -> {
+                    if (triggeredRules == null) {
+                        triggeredRules = new ArrayList<>();
+                    }
+                    triggeredRules.add(reader.readString());
+                }
+                case ANOMALY -> {
+                    if (anomalies == null) {
+                        anomalies = new ArrayList<>();
+                    }
+                    anomalies.add(reader.readString());
+                }
+                case RECOMMENDATION_CODE -> builder.recommendation(
+                    WireDictionary.RECOMMENDATIONS.value(reader.readVarint()));
+                case RECOMMENDATION -> builder.recommendation(reader.readString());
+                case EXPLANATION -> builder.explanation(reader.readString());
+                case CONFIDENCE -> builder.confidence(reader.readDouble());
+                case PROCESSING_TIME_MS -> builder.processingTimeMs(reader.readSigned());
+                case ANALYZED_AT -> builder.analyzedAt(reader.readTimestamp());
+                case REQUIRES_MANUAL_REVIEW -> builder.requiresManualReview(reader.readBoolean());
+                default -> reader.skipField();
+            }
+        }
+
+        return builder
+            .triggeredRules(triggeredRules)
+            .anomalies(anomalies)
+            .build();
+    }
+
+    /**
+     * Lists are written as one field occurrence per element
+     */
+    private static void writeRepeated(WireWriter writer, int field, List<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            writer.writeStringField(field, value);
+        }
+    }
+}
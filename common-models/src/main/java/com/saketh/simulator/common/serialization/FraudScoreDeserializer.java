@@ -0,0 +1,18 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.model.FraudScore;
+
+/**
+ * Kafka deserializer for {@link FraudScore}, reading binary or JSON payloads.
+ */
+public class FraudScoreDeserializer extends BinaryDeserializer<FraudScore> {
+
+    public FraudScoreDeserializer() {
+        super(FraudScore.class);
+    }
+
+    @Override
+    protected FraudScore decode(byte[] data) {
+        return FraudScoreCodec.decode(data);
+    }
+}
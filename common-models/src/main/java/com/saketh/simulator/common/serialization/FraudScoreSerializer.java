@@ -0,0 +1,14 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.model.FraudScore;
+
+/**
+ * Kafka serializer for {@link FraudScore} in the binary wire format.
+ */
+public class FraudScoreSerializer extends BinarySerializer<FraudScore> {
+
+    @Override
+    protected byte[] encode(FraudScore data) {
+        return FraudScoreCodec.encode(data);
+    }
+}
@@ -0,0 +1,173 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Binary wire codec for {@link Transaction}.
+ * Field numbers are part of the format: never reuse or renumber them.
+ * Enum and dictionary values newer than this build decode as null, so a
+ * consumer that has not been upgraded rejects the record in validation
+ * instead of failing to read it.
+ */
+public final class TransactionCodec {
+
+    private static final int TRANSACTION_ID = 1;
+    private static final int TRANSACTION_ID_UUID = 2;
+    private static final int TRANSACTION_ID_ULID = 27;
+    private static final int USER_ID = 3;
+    private static final int AMOUNT_UNSCALED = 4;
+    private static final int AMOUNT_SCALE = 5;
+    private static final int AMOUNT_TEXT = 6;
+    private static final int TRANSACTION_TYPE_CODE = 7;
+    private static final int TRANSACTION_TYPE = 8; // read-only: written by pre-enum producers
+    private static final int TARGET_ACCOUNT_ID = 9;
+    private static final int STATUS_CODE = 10;
+    private static final int STATUS = 11; // read-only: written by pre-enum producers
+    private static final int TIMESTAMP = 12;
+    private static final int MERCHANT_ID = 13;
+    private static final int CATEGORY = 14;
+    private static final int LOCATION = 15;
+    private static final int DEVICE_ID = 16;
+    private static final int IP_ADDRESS = 17;
+    private static final int CURRENCY_CODE = 18;
+    private static final int CURRENCY = 19;
+    private static final int FRAUD_FLAG = 20;
+    private static final int FRAUD_SCORE = 21;
+    private static final int FRAUD_REASON = 22;
+    private static final int METADATA = 23;
+    private static final int PROCESSED_AT = 24;
+    private static final int SETTLED_AT = 25;
+    private static final int NOTES = 26;
+
+    private static final int INITIAL_CAPACITY = 192;
+
+    private TransactionCodec() {
+        // Utility class, prevent instantiation
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        WireWriter writer = new WireWriter(INITIAL_CAPACITY);
+        writer.writeHeader(WireFormat.SCHEMA_TRANSACTION);
+
+        writer.writeIdField(TRANSACTION_ID, TRANSACTION_ID_UUID, TRANSACTION_ID_ULID, transaction.getTransactionId());
+        writer.writeStringField(USER_ID, transaction.getUserId());
+        writeAmount(writer, transaction.getAmount());
+        if (transaction.getTransactionType() != null) {
+            writer.writeVarintField(TRANSACTION_TYPE_CODE, transaction.getTransactionType().getCode());
+        }
+        writer.writeStringField(TARGET_ACCOUNT_ID, transaction.getTargetAccountId());
+        if (transaction.getStatus() != null) {
+            writer.writeVarintField(STATUS_CODE, transaction.getStatus().getCode());
+        }
+        writer.writeTimestampField(TIMESTAMP, transaction.getTimestamp());
+        writer.writeStringField(MERCHANT_ID, transaction.getMerchantId());
+        writer.writeStringField(CATEGORY, transaction.getCategory());
+        writer.writeStringField(LOCATION, transaction.getLocation());
+        writer.writeStringField(DEVICE_ID, transaction.getDeviceId());
+        writer.writeStringField(IP_ADDRESS, transaction.getIpAddress());
+        writer.writeDictionaryField(CURRENCY_CODE, CURRENCY,
+            WireDictionary.CURRENCIES, transaction.getCurrency());
+        writer.writeBooleanField(FRAUD_FLAG, transaction.getFraudFlag());
+        writer.writeDoubleField(FRAUD_SCORE, transaction.getFraudScore());
+        writer.writeStringField(FRAUD_REASON, transaction.getFraudReason());
+        writer.writeStringField(METADATA, transaction.getMetadata());
+        writer.writeTimestampField(PROCESSED_AT, transaction.getProcessedAt());
+        writer.writeTimestampField(SETTLED_AT, transaction.getSettledAt());
+        writer.writeStringField(NOTES, transaction.getNotes());
+
+        return writer.toByteArray();
+    }
+
+    public static Transaction decode(byte[] data) {
+        WireReader reader = new WireReader(data, WireFormat.SCHEMA_TRANSACTION);
+
+        // Every field is set explicitly so builder defaults do not replace absent values
+        Transaction.TransactionBuilder builder = Transaction.builder()
+            .transactionId(null)
+            .status(null)
+            .timestamp(null)
+            .currency(null)
+            .fraudFlag(null);
+
+        long amountUnscaled = 0;
+        int amountScale = 0;
+        boolean hasAmount = false;
+
+        int field;
+        while ((field = reader.nextField()) != -1) {
+            switch (field) {
+                case TRANSACTION_ID -> builder.transactionId(reader.readString());
+                case TRANSACTION_ID_UUID -> builder.transactionId(reader.readUuid());
+                case TRANSACTION_ID_ULID -> builder.transactionId(reader.readUlid());
+                case USER_ID -> builder.userId(reader.readString());
+                case AMOUNT_UNSCALED -> {
+                    amountUnscaled = reader.readSigned();
+                    hasAmount = true;
+                }
+                case AMOUNT_SCALE -> amountScale = (int) reader.readSigned();
+                case AMOUNT_TEXT -> builder.amount(new BigDecimal(reader.readString()));
+                case TRANSACTION_TYPE_CODE -> builder.transactionType(
+                    TransactionType.fromCode((int) reader.readVarint()));
+                case TRANSACTION_TYPE -> builder.transactionType(enumOrNull(TransactionType.class, reader.readString()));
+                case TARGET_ACCOUNT_ID -> builder.targetAccountId(reader.readString());
+                case STATUS_CODE -> builder.status(TransactionStatus.fromCode((int) reader.readVarint()));
+                case STATUS -> builder.status(enumOrNull(TransactionStatus.class, reader.readString()));
+                case TIMESTAMP -> builder.timestamp(reader.readTimestamp());
+                case MERCHANT_ID -> builder.merchantId(reader.readString());
+                case CATEGORY -> builder.category(reader.readString());
+                case LOCATION -> builder.location(reader.readString());
+                case DEVICE_ID -> builder.deviceId(reader.readString());
+                case IP_ADDRESS -> builder.ipAddress(reader.readString());
+                case CURRENCY_CODE -> builder.currency(WireDictionary.CURRENCIES.value(reader.readVarint()));
+                case CURRENCY -> builder.currency(reader.readString());
+                case FRAUD_FLAG -> builder.fraudFlag(reader.readBoolean());
+                case FRAUD_SCORE -> builder.fraudScore(reader.readDouble());
+                case FRAUD_REASON -> builder.fraudReason(reader.readString());
+                case METADATA -> builder.metadata(reader.readString());
+                case PROCESSED_AT -> builder.processedAt(reader.readTimestamp());
+                case SETTLED_AT -> builder.settledAt(reader.readTimestamp());
+                case NOTES -> builder.notes(reader.readString());
+                default -> reader.skipField();
+            }
+        }
+
+        if (hasAmount) {
+            builder.amount(BigDecimal.valueOf(amountUnscaled, amountScale));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Enum constant by name, or null for a name this build does not know
+     */
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Amounts whose unscaled value fits in a long travel as varints, others as text
+     */
+    private static void writeAmount(WireWriter writer, BigDecimal amount) {
+        if (amount == null) {
+            return;
+        }
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writer.writeSignedField(AMOUNT_UNSCALED, unscaled.longValue());
+            if (amount.scale() != 0) {
+                writer.writeSignedField(AMOUNT_SCALE, amount.scale());
+            }
+        } else {
+            writer.writeStringField(AMOUNT_TEXT, amount.toString());
+        }
+    }
+}
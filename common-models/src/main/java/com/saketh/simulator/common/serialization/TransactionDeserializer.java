@@ -0,0 +1,18 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.model.Transaction;
+
+/**
+ * Kafka deserializer for {@link Transaction}, reading binary or JSON payloads.
+ */
+public class TransactionDeserializer extends BinaryDeserializer<Transaction> {
+
+    public TransactionDeserializer() {
+        super(Transaction.class);
+    }
+
+    @Override
+    protected Transaction decode(byte[] data) {
+        return TransactionCodec.decode(data);
+    }
+}
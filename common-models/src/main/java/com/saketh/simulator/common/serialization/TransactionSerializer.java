@@ -0,0 +1,14 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.model.Transaction;
+
+/**
+ * Kafka serializer for {@link Transaction} in the binary wire format.
+ */
+public class TransactionSerializer extends BinarySerializer<Transaction> {
+
+    @Override
+    protected byte[] encode(Transaction data) {
+        return TransactionCodec.encode(data);
+    }
+}
@@ -0,0 +1,54 @@
+package com.saketh.simulator.common.serialization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed code table for a string field with a small set of common values.
+ * <p>
+ * Entries are append-only: a code, once assigned, never changes meaning.
+ * Values outside the table are written as plain strings. Readers built
+ * before a code was appended decode it as null.
+ */
+public final class WireDictionary {
+
+    public static final WireDictionary CURRENCIES = new WireDictionary(
+        "USD", "EUR", "INR", "GBP", "JPY", "CNY", "CAD", "AUD", "CHF", "SGD", "HKD", "AED");
+
+    public static final WireDictionary RISK_LEVELS = new WireDictionary(
+        "LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    public static final WireDictionary RECOMMENDATIONS = new WireDictionary(
+        "APPROVE", "REVIEW", "REJECT");
+
+    private final String[] values;
+    private final Map<String, Integer> codes;
+
+    private WireDictionary(String... values) {
+        this.values = values;
+        this.codes = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            codes.put(values[i], i);
+        }
+    }
+
+    /**
+     * Get code of a value, or -1 if it is not in the table
+     */
+    public int code(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Get value of a code
+     *
+     * @return the value, or null for a code appended after this build
+     */
+    public String value(long code) {
+        if (code < 0 || code >= values.length) {
+            return null;
+        }
+        return values[(int) code];
+    }
+}
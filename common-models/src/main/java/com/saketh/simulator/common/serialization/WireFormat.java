@@ -0,0 +1,66 @@
+package com.saketh.simulator.common.serialization;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Constants of the compact binary wire format used on Kafka topics.
+ * <p>
+ * Every payload starts with {@link #MAGIC}, a format version and a schema ID,
+ * followed by protobuf-style tagged fields ({@code fieldNumber << 3 | wireType}).
+ * Readers skip field numbers they do not know, so fields can be added
+ * without a version bump. JSON payloads never start with {@link #MAGIC}, which
+ * lets one deserializer read both formats during a rollout.
+ */
+public final class WireFormat {
+
+    private WireFormat() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * First byte of every binary payload (not a valid first byte of JSON text)
+     */
+    public static final byte MAGIC = (byte) 0xF7;
+
+    /**
+     * Current format version
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * Record header naming the payload format
+     */
+    public static final String CONTENT_FORMAT_HEADER = "content-format";
+    public static final String FORMAT_BINARY = "ftx-binary/1";
+    public static final String FORMAT_JSON = "json";
+
+    // Schema IDs
+    public static final byte SCHEMA_TRANSACTION = 1;
+    public static final byte SCHEMA_FRAUD_SCORE = 2;
+
+    // Wire types
+    public static final int WIRE_VARINT = 0;
+    public static final int WIRE_FIXED64 = 1;
+    public static final int WIRE_LENGTH_DELIMITED = 2;
+
+    // Timestamps travel as UTC microseconds since the epoch, limited to years 1 to 9999
+    public static final long MIN_TIMESTAMP_MICROS =
+        LocalDateTime.of(1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1_000_000L;
+    public static final long MAX_TIMESTAMP_MICROS =
+        LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC) * 1_000_000L + 999_999L;
+
+    /**
+     * Check whether a timestamp can be written, i.e. falls in years 1 to 9999
+     */
+    public static boolean isTimestampInRange(LocalDateTime value) {
+        return value.getYear() >= 1 && value.getYear() <= 9999;
+    }
+
+    /**
+     * Check whether a payload is in the binary format
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC;
+    }
+}
@@ -0,0 +1,173 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.id.Ulid;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Reads tagged fields of the binary wire format from a byte array.
+ * Malformed input is reported with {@link IllegalArgumentException}.
+ */
+public class WireReader {
+
+    private final byte[] data;
+    private int position;
+    private int wireType;
+
+    /**
+     * Start reading a payload, checking its magic byte and schema ID
+     */
+    public WireReader(byte[] data, byte expectedSchemaId) {
+        if (!WireFormat.isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary wire format payload");
+        }
+        if (data[1] > WireFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported wire format version " + data[1]);
+        }
+        if (data[2] != expectedSchemaId) {
+            throw new IllegalArgumentException("Expected schema " + expectedSchemaId + " but found " + data[2]);
+        }
+        this.data = data;
+        this.position = 3;
+    }
+
+    /**
+     * Read the next field tag.
+     *
+     * @return the field number, or -1 at the end of the payload
+     */
+    public int nextField() {
+        if (position >= data.length) {
+            return -1;
+        }
+        long tag = readVarint();
+        wireType = (int) (tag & 0x7);
+        return (int) (tag >>> 3);
+    }
+
+    public long readVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + position);
+    }
+
+    public long readSigned() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean readBoolean() {
+        return readVarint() != 0;
+    }
+
+    public double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (long) (data[position++] & 0xFF) << (i * 8);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public LocalDateTime readTimestamp() {
+        long micros = readSigned();
+        if (micros < WireFormat.MIN_TIMESTAMP_MICROS || micros > WireFormat.MAX_TIMESTAMP_MICROS) {
+            throw new IllegalArgumentException("Timestamp out of range: " + micros + "us");
+        }
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+            ZoneOffset.UTC);
+    }
+
+    public String readString() {
+        int length = readLength();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Read an identifier written as 16 raw UUID bytes
+     */
+    public String readUuid() {
+        if (readLength() != 16) {
+            throw new IllegalArgumentException("UUID field must be 16 bytes");
+        }
+        return new UUID(readFixedLong(), readFixedLong()).toString();
+    }
+
+    /**
+     * Read an identifier written as 16 raw ULID bytes
+     */
+    public String readUlid() {
+        if (readLength() != Ulid.BINARY_LENGTH) {
+            throw new IllegalArgumentException("ULID field must be 16 bytes");
+        }
+        return Ulid.toString(readFixedLong(), readFixedLong());
+    }
+
+    public byte[] readBytes() {
+        int length = readLength();
+        byte[] value = new byte[length];
+        System.arraycopy(data, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Skip the value of a field this reader does not know
+     */
+    public void skipField() {
+        switch (wireType) {
+            case WireFormat.WIRE_VARINT -> readVarint();
+            case WireFormat.WIRE_FIXED64 -> {
+                require(8);
+                position += 8;
+            }
+            case WireFormat.WIRE_LENGTH_DELIMITED -> {
+                // Read the length first: it advances the position the skip starts from
+                int length = readLength();
+                position += length;
+            }
+            default -> throw new IllegalArgumentException("Unknown wire type " + wireType);
+        }
+    }
+
+    private long readFixedLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > data.length - position) {
+            throw new IllegalArgumentException("Field length " + length + " exceeds payload");
+        }
+        return (int) length;
+    }
+
+    private byte readByte() {
+        require(1);
+        return data[position++];
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > data.length) {
+            throw new IllegalArgumentException("Truncated payload at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.id.Ulid;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable buffer writing tagged fields of the binary wire format.
+ * Null values are skipped, so absent fields cost nothing on the wire.
+ */
+public class WireWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    public WireWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Write the magic byte, version and schema ID
+     */
+    public void writeHeader(byte schemaId) {
+        ensureCapacity(3);
+        buffer[position++] = WireFormat.MAGIC;
+        buffer[position++] = WireFormat.VERSION;
+        buffer[position++] = schemaId;
+    }
+
+    public void writeVarintField(int field, long value) {
+        writeTag(field, WireFormat.WIRE_VARINT);
+        writeVarint(value);
+    }
+
+    public void writeSignedField(int field, long value) {
+        writeVarintField(field, (value << 1) ^ (value >> 63));
+    }
+
+    public void writeBooleanField(int field, Boolean value) {
+        if (value != null) {
+            writeVarintField(field, value ? 1 : 0);
+        }
+    }
+
+    public void writeIntegerField(int field, Integer value) {
+        if (value != null) {
+            writeSignedField(field, value);
+        }
+    }
+
+    public void writeLongField(int field, Long value) {
+        if (value != null) {
+            writeSignedField(field, value);
+        }
+    }
+
+    public void writeDoubleField(int field, Double value) {
+        if (value == null) {
+            return;
+        }
+        writeTag(field, WireFormat.WIRE_FIXED64);
+        long bits = Double.doubleToRawLongBits(value);
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (bits >>> (i * 8));
+        }
+    }
+
+    /**
+     * Timestamps are written as microseconds since the epoch, read as UTC
+     *
+     * @throws IllegalArgumentException if the value is outside years 1 to 9999
+     */
+    public void writeTimestampField(int field, LocalDateTime value) {
+        if (value != null) {
+            if (!WireFormat.isTimestampInRange(value)) {
+                throw new IllegalArgumentException("Timestamp out of range: " + value);
+            }
+            writeSignedField(field, value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000);
+        }
+    }
+
+    /**
+     * Write a dictionary code when the value is in the table, otherwise the string
+     */
+    public void writeDictionaryField(int codeField, int stringField, WireDictionary dictionary, String value) {
+        int code = dictionary.code(value);
+        if (code >= 0) {
+            writeVarintField(codeField, code);
+        } else {
+            writeStringField(stringField, value);
+        }
+    }
+
+    /**
+     * Write an identifier, as 16 raw bytes when it is a ULID or canonical UUID string
+     */
+    public void writeIdField(int textField, int uuidField, int ulidField, String id) {
+        if (Ulid.isCanonical(id)) {
+            writeTag(ulidField, WireFormat.WIRE_LENGTH_DELIMITED);
+            writeVarint(Ulid.BINARY_LENGTH);
+            writeFixedLong(Ulid.parseHi(id));
+            writeFixedLong(Ulid.parseLo(id));
+            return;
+        }
+        if (id != null && id.length() == 36) {
+            try {
+                UUID uuid = UUID.fromString(id);
+                if (uuid.toString().equals(id)) {
+                    writeTag(uuidField, WireFormat.WIRE_LENGTH_DELIMITED);
+                    writeVarint(16);
+                    writeFixedLong(uuid.getMostSignificantBits());
+                    writeFixedLong(uuid.getLeastSignificantBits());
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a UUID, written as text
+            }
+        }
+        writeStringField(textField, id);
+    }
+
+    public void writeBytesField(int field, byte[] value) {
+        if (value == null) {
+            return;
+        }
+        writeTag(field, WireFormat.WIRE_LENGTH_DELIMITED);
+        writeVarint(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    /**
+     * Write a string as UTF-8 without an intermediate byte array.
+     * Unpaired surrogates become '?', as in {@code String.getBytes(UTF_8)}.
+     */
+    public void writeStringField(int field, String value) {
+        if (value == null) {
+            return;
+        }
+        writeTag(field, WireFormat.WIRE_LENGTH_DELIMITED);
+        int utf8Length = utf8Length(value);
+        writeVarint(utf8Length);
+        ensureCapacity(utf8Length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Copy of the bytes written so far
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeVarint(((long) field << 3) | wireType);
+    }
+
+    private void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int i = 56; i >= 0; i -= 8) {
+            buffer[position++] = (byte) (value >>> i);
+        }
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,26 @@
+package com.saketh.simulator.common.trace;
+
+/**
+ * Wall-clock time in microseconds without allocating.
+ * <p>
+ * The epoch offset is taken once from {@link System#currentTimeMillis()}
+ * and advanced with {@link System#nanoTime()}, so readings within a JVM
+ * are monotonic and microsecond-precise. Readings from different hosts
+ * also differ by their clock skew, and a long-running JVM drifts slowly
+ * from NTP corrections it does not see.
+ */
+public final class TraceClock {
+
+    private static final long EPOCH_OFFSET_MICROS = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+
+    private TraceClock() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Microseconds since the epoch
+     */
+    public static long nowMicros() {
+        return EPOCH_OFFSET_MICROS + System.nanoTime() / 1000;
+    }
+}
@@ -0,0 +1,154 @@
+package com.saketh.simulator.common.trace;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compact binary pipeline trace carried in the {@value #KEY} record header.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ *   version    1 byte
+ *   trace id   8 bytes
+ *   ingest     8 bytes   epoch microseconds when ingestion received the request
+ *   hop count  1 byte
+ *   hops       5 bytes each: stage id, then microseconds since ingest as an
+ *              unsigned int (saturating at about 71 minutes)
+ * </pre>
+ * Ingestion starts the trace with its own hop and every later stage copies
+ * it onto its output record with one more hop appended. Reading and
+ * appending work on the raw bytes, so a stage allocates only the new
+ * header value.
+ */
+public final class TraceHeaders {
+
+    private TraceHeaders() {
+        // Utility class, prevent instantiation
+    }
+
+    public static final String KEY = "ftx-trace";
+
+    private static final byte VERSION = 1;
+    private static final int TRACE_ID_OFFSET = 1;
+    private static final int INGEST_OFFSET = 9;
+    private static final int HOP_COUNT_OFFSET = 17;
+    private static final int HOPS_OFFSET = 18;
+    private static final int HOP_SIZE = 5;
+    private static final int MAX_HOPS = 32;
+    private static final long MAX_HOP_DELTA = 0xFFFF_FFFFL;
+
+    /**
+     * New trace with a random id and the ingestion hop
+     */
+    public static byte[] start(long ingestMicros, long hopMicros) {
+        byte[] trace = new byte[HOPS_OFFSET + HOP_SIZE];
+        trace[0] = VERSION;
+        putLong(trace, TRACE_ID_OFFSET, ThreadLocalRandom.current().nextLong());
+        putLong(trace, INGEST_OFFSET, ingestMicros);
+        trace[HOP_COUNT_OFFSET] = 1;
+        putHop(trace, HOPS_OFFSET, TraceStage.INGESTION, hopMicros - ingestMicros);
+        return trace;
+    }
+
+    /**
+     * Copy of {@code trace} with one more hop
+     *
+     * @return null if {@code trace} is null or not a valid trace; the trace
+     *         itself if it already holds the maximum number of hops
+     */
+    public static byte[] appendHop(byte[] trace, TraceStage stage, long hopMicros) {
+        if (!isValid(trace)) {
+            return null;
+        }
+        int hops = getHopCount(trace);
+        if (hops >= MAX_HOPS) {
+            return trace;
+        }
+        byte[] next = new byte[trace.length + HOP_SIZE];
+        System.arraycopy(trace, 0, next, 0, trace.length);
+        next[HOP_COUNT_OFFSET] = (byte) (hops + 1);
+        putHop(next, trace.length, stage, hopMicros - getIngestMicros(trace));
+        return next;
+    }
+
+    /**
+     * Whether {@code trace} has a known version and matches its hop count
+     */
+    public static boolean isValid(byte[] trace) {
+        return trace != null && trace.length >= HOPS_OFFSET && trace[0] == VERSION
+            && trace.length == HOPS_OFFSET + (trace[HOP_COUNT_OFFSET] & 0xFF) * HOP_SIZE;
+    }
+
+    public static long getTraceId(byte[] trace) {
+        return getLong(trace, TRACE_ID_OFFSET);
+    }
+
+    public static long getIngestMicros(byte[] trace) {
+        return getLong(trace, INGEST_OFFSET);
+    }
+
+    public static int getHopCount(byte[] trace) {
+        return trace[HOP_COUNT_OFFSET] & 0xFF;
+    }
+
+    /**
+     * Stage of hop {@code index}, or null if written by a newer version
+     */
+    public static TraceStage getHopStage(byte[] trace, int index) {
+        return TraceStage.fromId(trace[HOPS_OFFSET + index * HOP_SIZE]);
+    }
+
+    /**
+     * Epoch microseconds of hop {@code index}
+     */
+    public static long getHopMicros(byte[] trace, int index) {
+        int at = HOPS_OFFSET + index * HOP_SIZE + 1;
+        long delta = ((trace[at] & 0xFFL) << 24) | ((trace[at + 1] & 0xFFL) << 16)
+            | ((trace[at + 2] & 0xFFL) << 8) | (trace[at + 3] & 0xFFL);
+        return getIngestMicros(trace) + delta;
+    }
+
+    /**
+     * Trace header value of a record, or null if it has none
+     */
+    public static byte[] read(Headers headers) {
+        Header header = headers.lastHeader(KEY);
+        return header == null ? null : header.value();
+    }
+
+    /**
+     * Set the trace header of an outgoing record; a null trace is skipped
+     */
+    public static void write(Headers headers, byte[] trace) {
+        if (trace != null) {
+            headers.remove(KEY);
+            headers.add(KEY, trace);
+        }
+    }
+
+    private static void putHop(byte[] trace, int at, TraceStage stage, long delta) {
+        long clamped = Math.max(0, Math.min(MAX_HOP_DELTA, delta));
+        trace[at] = stage.getId();
+        trace[at + 1] = (byte) (clamped >>> 24);
+        trace[at + 2] = (byte) (clamped >>> 16);
+        trace[at + 3] = (byte) (clamped >>> 8);
+        trace[at + 4] = (byte) clamped;
+    }
+
+    private static void putLong(byte[] bytes, int at, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[at + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int at) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[at + i] & 0xFF);
+        }
+        return value;
+    }
+}
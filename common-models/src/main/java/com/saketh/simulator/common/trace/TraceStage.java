@@ -0,0 +1,41 @@
+package com.saketh.simulator.common.trace;
+
+/**
+ * Pipeline stages that stamp a hop on the trace header
+ */
+public enum TraceStage {
+
+    /** Ingestion handed the record to the producer */
+    INGESTION(1),
+
+    /** Validation sent its result */
+    VALIDATION(2),
+
+    /** Settlement sent its result */
+    SETTLEMENT(3);
+
+    private static final TraceStage[] BY_ID = new TraceStage[4];
+
+    static {
+        for (TraceStage stage : values()) {
+            BY_ID[stage.id] = stage;
+        }
+    }
+
+    private final byte id;
+
+    TraceStage(int id) {
+        this.id = (byte) id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * Stage with a wire id, or null for ids written by a newer version
+     */
+    public static TraceStage fromId(int id) {
+        return id > 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+}
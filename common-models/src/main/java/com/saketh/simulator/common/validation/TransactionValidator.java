@@ -0,0 +1,84 @@
+package com.saketh.simulator.common.validation;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.WireFormat;
+
+/**
+ * Hand-compiled, single-pass validator for incoming transactions.
+ * <p>
+ * Covers the Bean Validation constraints declared on {@link Transaction}
+ * ({@code @NotNull}, {@code @Positive}) and the {@link AppConstants} amount
+ * limits without reflection or exceptions, so it can run on every record of
+ * a batch. Amounts with more digits than their currency are rejected rather
+ * than rounded. The amount is converted to minor units once, the only
+ * allocating step. Keep it in sync with the annotations.
+ */
+public final class TransactionValidator {
+
+    private TransactionValidator() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Validate a new, enriched transaction.
+     *
+     * @return the first failed check, or null if the transaction is valid
+     */
+    public static ValidationError validate(Transaction transaction) {
+        if (transaction.getUserId() == null) {
+            return ValidationError.USER_ID_REQUIRED;
+        }
+        if (transaction.getTransactionType() == null) {
+            return ValidationError.TRANSACTION_TYPE_REQUIRED;
+        }
+        if (transaction.getStatus() != TransactionStatus.PENDING) {
+            return ValidationError.STATUS_NOT_PENDING;
+        }
+        if (transaction.getTimestamp() != null && !WireFormat.isTimestampInRange(transaction.getTimestamp())) {
+            return ValidationError.TIMESTAMP_OUT_OF_RANGE;
+        }
+        if (transaction.getAmount() == null) {
+            return ValidationError.AMOUNT_REQUIRED;
+        }
+        if (transaction.getAmount().signum() <= 0) {
+            return ValidationError.AMOUNT_NOT_POSITIVE;
+        }
+        if (transaction.getCurrency() != null && !Money.isSupportedCurrency(transaction.getCurrency())) {
+            return ValidationError.CURRENCY_UNSUPPORTED;
+        }
+
+        if (!Money.isExactInMinorUnits(transaction.getAmount(), transaction.getCurrency())) {
+            return ValidationError.AMOUNT_PRECISION;
+        }
+
+        long amountMinorUnits;
+        try {
+            amountMinorUnits = Money.toMinorUnitsExact(transaction.getAmount(), transaction.getCurrency());
+        } catch (ArithmeticException e) {
+            return ValidationError.AMOUNT_OUT_OF_RANGE;
+        }
+        if (amountMinorUnits < AppConstants.MIN_TRANSACTION_AMOUNT_MINOR_UNITS) {
+            return ValidationError.AMOUNT_BELOW_MINIMUM;
+        }
+        return null;
+    }
+
+    /**
+     * Check whether a transaction exceeds the single-transaction limit.
+     * High-value transactions are accepted but flagged for fraud review.
+     */
+    public static boolean isHighValue(Transaction transaction) {
+        if (transaction.getAmount() == null) {
+            return false;
+        }
+        try {
+            return Money.toMinorUnits(transaction.getAmount(), transaction.getCurrency())
+                > Money.majorToMinorUnits(AppConstants.MAX_TRANSACTION_AMOUNT_UNITS, transaction.getCurrency());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
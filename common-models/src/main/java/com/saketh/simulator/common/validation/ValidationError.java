@@ -0,0 +1,29 @@
+package com.saketh.simulator.common.validation;
+
+/**
+ * Reasons a transaction can fail validation, with client-facing messages.
+ */
+public enum ValidationError {
+
+    USER_ID_REQUIRED("User ID cannot be null"),
+    AMOUNT_REQUIRED("Amount cannot be null"),
+    AMOUNT_NOT_POSITIVE("Amount must be positive"),
+    AMOUNT_BELOW_MINIMUM("Amount is below the minimum for its currency"),
+    AMOUNT_OUT_OF_RANGE("Transaction amount is out of range"),
+    AMOUNT_PRECISION("Amount has more decimal places than its currency allows"),
+    CURRENCY_UNSUPPORTED("Currency is not a supported ISO 4217 code"),
+    TRANSACTION_TYPE_REQUIRED("Transaction type cannot be null"),
+    STATUS_NOT_PENDING("New transactions must have status PENDING"),
+    TIMESTAMP_OUT_OF_RANGE("Timestamp must fall between years 1 and 9999"),
+    VELOCITY_LIMIT_EXCEEDED("Transaction velocity limit exceeded for user");
+
+    private final String message;
+
+    ValidationError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
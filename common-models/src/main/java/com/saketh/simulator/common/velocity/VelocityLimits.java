@@ -0,0 +1,45 @@
+package com.saketh.simulator.common.velocity;
+
+import com.saketh.simulator.common.constants.AppConstants;
+
+import java.util.Arrays;
+
+/**
+ * Maximum transaction count and amount allowed per user in each window.
+ * Unset limits are unlimited.
+ */
+public final class VelocityLimits {
+
+    private final int[] maxCounts = new int[VelocityWindow.values().length];
+    private final long[] maxAmounts = new long[VelocityWindow.values().length];
+
+    public VelocityLimits() {
+        Arrays.fill(maxCounts, Integer.MAX_VALUE);
+        Arrays.fill(maxAmounts, Long.MAX_VALUE);
+    }
+
+    /**
+     * Limits enforcing {@link AppConstants#MAX_DAILY_TRANSACTIONS} only
+     */
+    public static VelocityLimits defaults() {
+        return new VelocityLimits().maxCount(VelocityWindow.ONE_DAY, AppConstants.MAX_DAILY_TRANSACTIONS);
+    }
+
+    public VelocityLimits maxCount(VelocityWindow window, int maxCount) {
+        maxCounts[window.ordinal()] = maxCount;
+        return this;
+    }
+
+    public VelocityLimits maxAmount(VelocityWindow window, long maxAmountMinorUnits) {
+        maxAmounts[window.ordinal()] = maxAmountMinorUnits;
+        return this;
+    }
+
+    public int getMaxCount(VelocityWindow window) {
+        return maxCounts[window.ordinal()];
+    }
+
+    public long getMaxAmount(VelocityWindow window) {
+        return maxAmounts[window.ordinal()];
+    }
+}
@@ -0,0 +1,38 @@
+package com.saketh.simulator.common.velocity;
+
+import java.util.Arrays;
+
+/**
+ * Per-window transaction counts and amounts of one user.
+ * Mutable and meant to be reused by the caller, so reading velocity does
+ * not allocate.
+ */
+public class VelocityStats {
+
+    private final int[] counts = new int[VelocityWindow.values().length];
+    private final long[] amounts = new long[VelocityWindow.values().length];
+
+    /**
+     * Number of transactions in the window
+     */
+    public int getCount(VelocityWindow window) {
+        return counts[window.ordinal()];
+    }
+
+    /**
+     * Sum of amounts in the window, in minor units at nominal value
+     */
+    public long getAmount(VelocityWindow window) {
+        return amounts[window.ordinal()];
+    }
+
+    void set(VelocityWindow window, int count, long amount) {
+        counts[window.ordinal()] = count;
+        amounts[window.ordinal()] = amount;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(amounts, 0);
+    }
+}
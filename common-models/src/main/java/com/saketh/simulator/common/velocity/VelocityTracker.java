@@ -0,0 +1,205 @@
+package com.saketh.simulator.common.velocity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory per-user transaction velocity over sliding windows.
+ * <p>
+ * Each user owns fixed-size primitive ring buffers (one bucket ring per
+ * {@link VelocityWindow}), so memory per user is bounded. Users are spread
+ * over lock stripes; each stripe is an access-ordered map capped at its share
+ * of {@code maxUsers}, which evicts the least recently seen user when full
+ * and drops users idle for longer than the longest window as new ones arrive.
+ * <p>
+ * Amounts are summed in minor units at nominal value, without currency conversion.
+ */
+public class VelocityTracker {
+
+    private static final int STRIPES = 64;
+    private static final VelocityWindow[] WINDOWS = VelocityWindow.values();
+    private static final int[] WINDOW_OFFSETS = new int[WINDOWS.length];
+    private static final int TOTAL_BUCKETS;
+    private static final long IDLE_MILLIS;
+
+    static {
+        int offset = 0;
+        long longest = 0;
+        for (VelocityWindow window : WINDOWS) {
+            WINDOW_OFFSETS[window.ordinal()] = offset;
+            offset += window.getBucketCount();
+            longest = Math.max(longest, window.getWindowMillis());
+        }
+        TOTAL_BUCKETS = offset;
+        IDLE_MILLIS = longest;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public VelocityTracker(int maxUsers) {
+        int usersPerStripe = Math.max(1, maxUsers / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(usersPerStripe);
+        }
+    }
+
+    /**
+     * Record a transaction unless it would exceed a limit.
+     *
+     * @param out filled with the user's velocity including this transaction if
+     *            it was recorded, excluding it otherwise
+     * @return the first window whose limit would be exceeded, or null if recorded
+     */
+    public VelocityWindow tryRecord(String userId, long amountMinorUnits, long nowMillis,
+                                    VelocityLimits limits, VelocityStats out) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            UserState state = stripe.getOrCreate(userId, nowMillis);
+            state.sum(nowMillis, out);
+
+            for (VelocityWindow window : WINDOWS) {
+                if (out.getCount(window) + 1 > limits.getMaxCount(window)
+                        || out.getAmount(window) > limits.getMaxAmount(window) - amountMinorUnits) {
+                    return window;
+                }
+            }
+
+            state.add(nowMillis, 1, amountMinorUnits);
+            for (VelocityWindow window : WINDOWS) {
+                out.set(window, out.getCount(window) + 1, out.getAmount(window) + amountMinorUnits);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Take back a transaction recorded at {@code recordedAtMillis}, e.g. when
+     * it could not be published. No-op once its buckets have rolled over.
+     */
+    public void undo(String userId, long amountMinorUnits, long recordedAtMillis) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            UserState state = stripe.users.get(userId);
+            if (state != null) {
+                state.remove(recordedAtMillis, amountMinorUnits);
+            }
+        }
+    }
+
+    /**
+     * Read a user's current velocity without recording anything
+     */
+    public void peek(String userId, long nowMillis, VelocityStats out) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            UserState state = stripe.users.get(userId);
+            if (state == null) {
+                out.clear();
+            } else {
+                state.sum(nowMillis, out);
+            }
+        }
+    }
+
+    /**
+     * Number of users currently tracked
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.users.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String userId) {
+        int h = userId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Lock stripe: LRU map of users capped at a fixed size
+     */
+    private static final class Stripe {
+
+        private final Map<String, UserState> users;
+        private long nowMillis;
+
+        Stripe(int maxUsers) {
+            this.users = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, UserState> eldest) {
+                    return size() > maxUsers || eldest.getValue().lastSeenMillis < nowMillis - IDLE_MILLIS;
+                }
+            };
+        }
+
+        UserState getOrCreate(String userId, long now) {
+            nowMillis = now;
+            UserState state = users.get(userId);
+            if (state == null) {
+                state = new UserState();
+                // Stamp before insertion so the idle check cannot evict the new entry
+                state.lastSeenMillis = now;
+                users.put(userId, state);
+            }
+            state.lastSeenMillis = now;
+            return state;
+        }
+    }
+
+    /**
+     * Bucket rings of one user, all windows back to back in flat arrays
+     */
+    private static final class UserState {
+
+        private final int[] epochs = new int[TOTAL_BUCKETS];
+        private final int[] counts = new int[TOTAL_BUCKETS];
+        private final long[] amounts = new long[TOTAL_BUCKETS];
+        private long lastSeenMillis;
+
+        void add(long nowMillis, int count, long amount) {
+            for (VelocityWindow window : WINDOWS) {
+                int epoch = (int) (nowMillis / window.getBucketMillis());
+                int slot = WINDOW_OFFSETS[window.ordinal()] + Math.floorMod(epoch, window.getBucketCount());
+                if (epochs[slot] != epoch) {
+                    epochs[slot] = epoch;
+                    counts[slot] = 0;
+                    amounts[slot] = 0;
+                }
+                counts[slot] += count;
+                amounts[slot] += amount;
+            }
+        }
+
+        void remove(long recordedAtMillis, long amount) {
+            for (VelocityWindow window : WINDOWS) {
+                int epoch = (int) (recordedAtMillis / window.getBucketMillis());
+                int slot = WINDOW_OFFSETS[window.ordinal()] + Math.floorMod(epoch, window.getBucketCount());
+                if (epochs[slot] == epoch && counts[slot] > 0) {
+                    counts[slot]--;
+                    amounts[slot] -= amount;
+                }
+            }
+        }
+
+        void sum(long nowMillis, VelocityStats out) {
+            for (VelocityWindow window : WINDOWS) {
+                int currentEpoch = (int) (nowMillis / window.getBucketMillis());
+                int oldestEpoch = currentEpoch - window.getBucketCount() + 1;
+                int offset = WINDOW_OFFSETS[window.ordinal()];
+                int count = 0;
+                long amount = 0;
+                for (int i = offset; i < offset + window.getBucketCount(); i++) {
+                    if (epochs[i] >= oldestEpoch && epochs[i] <= currentEpoch) {
+                        count += counts[i];
+                        amount += amounts[i];
+                    }
+                }
+                out.set(window, count, amount);
+            }
+        }
+    }
+}
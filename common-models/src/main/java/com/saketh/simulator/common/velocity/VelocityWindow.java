@@ -0,0 +1,44 @@
+package com.saketh.simulator.common.velocity;
+
+/**
+ * Sliding windows tracked per user, each split into a ring of time buckets.
+ * A window covers its last {@code bucketCount} buckets, so it slides in
+ * steps of one bucket.
+ */
+public enum VelocityWindow {
+
+    /**
+     * Last minute, in 10-second buckets
+     */
+    ONE_MINUTE(10_000L, 6),
+
+    /**
+     * Last hour, in 5-minute buckets
+     */
+    ONE_HOUR(300_000L, 12),
+
+    /**
+     * Last 24 hours, in 1-hour buckets
+     */
+    ONE_DAY(3_600_000L, 24);
+
+    private final long bucketMillis;
+    private final int bucketCount;
+
+    VelocityWindow(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * bucketCount;
+    }
+}
@@ -0,0 +1,165 @@
+package com.saketh.simulator.common.aggregation;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.enums.WindowType;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.model.WindowMetric;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Window emission, lateness, early closing, "other" folding and slot reuse
+ * of {@link WindowAggregator}, with one-second panes, two-pane tumbling and
+ * three-pane sliding windows and one second of allowed lateness.
+ */
+class WindowAggregatorTest {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final List<WindowMetric> emitted = new ArrayList<>();
+
+    @Test
+    void emitsTumblingAndSlidingWindowsWhenTheWatermarkPasses() {
+        WindowAggregator aggregator = aggregator(64);
+        assertTrue(aggregator.add(transaction("food", "10.00", "USD"), 0, emitted::add));
+        assertTrue(aggregator.add(transaction("food", "30.00", "USD"), 500, emitted::add));
+        assertTrue(aggregator.add(transaction("food", "20.00", "USD"), 1500, emitted::add));
+        assertTrue(emitted.isEmpty());
+
+        aggregator.advanceWatermark(2000, emitted::add);
+
+        List<WindowMetric> tumbling = food(WindowType.TUMBLING);
+        assertEquals(1, tumbling.size());
+        WindowMetric window = tumbling.get(0);
+        assertEquals(EPOCH, window.getWindowStart());
+        assertEquals(EPOCH.plusSeconds(2), window.getWindowEnd());
+        assertEquals(3L, window.getCount());
+        assertEquals(new BigDecimal("60.00"), window.getSum());
+        assertEquals(new BigDecimal("10.00"), window.getMin());
+        assertEquals(new BigDecimal("30.00"), window.getMax());
+        assertTrue(window.getP50().compareTo(window.getMin()) >= 0);
+        assertTrue(window.getP99().compareTo(window.getMax()) <= 0);
+
+        // One sliding window per closed pane, each covering the three panes up to it
+        List<WindowMetric> sliding = food(WindowType.SLIDING);
+        assertEquals(List.of(2L, 3L), sliding.stream().map(WindowMetric::getCount).collect(Collectors.toList()));
+        assertEquals(EPOCH.minusSeconds(1), sliding.get(1).getWindowStart());
+        assertEquals(EPOCH.plusSeconds(2), sliding.get(1).getWindowEnd());
+    }
+
+    @Test
+    void keepsCurrenciesApartAtTheirOwnScale() {
+        WindowAggregator aggregator = aggregator(64);
+        aggregator.add(transaction("food", "10.00", "USD"), 0, emitted::add);
+        aggregator.add(transaction("food", "1500", "JPY"), 0, emitted::add);
+        aggregator.advanceWatermark(2000, emitted::add);
+
+        List<WindowMetric> tumbling = food(WindowType.TUMBLING);
+        assertEquals(2, tumbling.size());
+        for (WindowMetric window : tumbling) {
+            assertEquals(window.getCurrency().equals("JPY") ? new BigDecimal("1500") : new BigDecimal("10.00"),
+                window.getSum());
+        }
+    }
+
+    @Test
+    void dropsTransactionsForClosedPanes() {
+        WindowAggregator aggregator = aggregator(64);
+        aggregator.add(transaction("food", "10.00", "USD"), 0, emitted::add);
+        aggregator.advanceWatermark(2000, emitted::add);
+
+        assertFalse(aggregator.add(transaction("food", "10.00", "USD"), 1500, emitted::add));
+        assertEquals(1, aggregator.getLateCount());
+        // The watermark never moves back
+        aggregator.advanceWatermark(1000, emitted::add);
+        assertEquals(2000, aggregator.getWatermark());
+    }
+
+    @Test
+    void closesOldPanesEarlyForATransactionFarAhead() {
+        WindowAggregator aggregator = aggregator(64);
+        aggregator.add(transaction("food", "10.00", "USD"), 0, emitted::add);
+
+        // No watermark yet, but the ring cannot hold pane 0 and pane 5 open together
+        aggregator.add(transaction("food", "10.00", "USD"), 5000, emitted::add);
+
+        List<WindowMetric> tumbling = food(WindowType.TUMBLING);
+        assertEquals(1, tumbling.size());
+        assertEquals(EPOCH, tumbling.get(0).getWindowStart());
+        assertEquals(1L, tumbling.get(0).getCount());
+    }
+
+    @Test
+    void foldsGroupsBeyondTheSlotCapacityIntoOther() {
+        // 16 slots, 2 of them kept for "other" groups
+        WindowAggregator aggregator = aggregator(16);
+        for (int i = 0; i < 14; i++) {
+            aggregator.add(transaction("category-" + i, "1.00", "USD"), 0, emitted::add);
+        }
+        aggregator.advanceWatermark(2000, emitted::add);
+
+        // The first transaction takes a slot per dimension, each later category one more
+        List<WindowMetric> categories = emitted.stream()
+            .filter(metric -> metric.getWindowType() == WindowType.TUMBLING)
+            .filter(metric -> metric.getDimension().equals(AggregationDimension.CATEGORY.name()))
+            .collect(Collectors.toList());
+        assertEquals(12, categories.size());
+        WindowMetric other = categories.stream()
+            .filter(metric -> metric.getKey().equals(WindowAggregator.OTHER_KEY))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(3L, other.getCount());
+        assertEquals(0, aggregator.getOverflowCount());
+    }
+
+    @Test
+    void freesSlotsOnceNoWindowCoversTheirPanes() {
+        WindowAggregator aggregator = aggregator(64);
+        aggregator.add(transaction("food", "10.00", "USD"), 1500, emitted::add);
+        aggregator.advanceWatermark(2000, emitted::add);
+        // Still covered by sliding windows yet to be emitted
+        assertEquals(4, aggregator.getSlotCount());
+
+        aggregator.advanceWatermark(10_000, emitted::add);
+        assertEquals(0, aggregator.getSlotCount());
+        assertEquals(4, aggregator.getReclaimedCount());
+
+        // A freed group starts afresh in later windows
+        emitted.clear();
+        aggregator.add(transaction("food", "5.00", "USD"), 10_500, emitted::add);
+        aggregator.advanceWatermark(12_000, emitted::add);
+        assertEquals(new BigDecimal("5.00"), food(WindowType.TUMBLING).get(0).getSum());
+    }
+
+    private List<WindowMetric> food(WindowType type) {
+        return emitted.stream()
+            .filter(metric -> metric.getWindowType() == type)
+            .filter(metric -> metric.getDimension().equals(AggregationDimension.CATEGORY.name()))
+            .filter(metric -> metric.getKey().equals("food"))
+            .collect(Collectors.toList());
+    }
+
+    private static WindowAggregator aggregator(int maxSlots) {
+        return new WindowAggregator(1000, 2, 3, 1000, maxSlots, ZoneOffset.UTC);
+    }
+
+    private static Transaction transaction(String category, String amount, String currency) {
+        return Transaction.builder()
+            .userId("user-1")
+            .amount(new BigDecimal(amount))
+            .currency(currency)
+            .category(category)
+            .transactionType(TransactionType.PAYMENT)
+            .build();
+    }
+}
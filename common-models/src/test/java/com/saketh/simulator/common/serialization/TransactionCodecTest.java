@@ -0,0 +1,125 @@
+package com.saketh.simulator.common.serialization;
+
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link TransactionCodec} round trips, and how the Kafka (de)serializers
+ * surface payloads the codec cannot handle.
+ */
+class TransactionCodecTest {
+
+    private final TransactionSerializer serializer = new TransactionSerializer();
+    private final TransactionDeserializer deserializer = new TransactionDeserializer();
+
+    @Test
+    void roundTripsEveryField() {
+        Transaction transaction = transaction();
+        assertEquals(transaction, TransactionCodec.decode(TransactionCodec.encode(transaction)));
+    }
+
+    @Test
+    void roundTripsAmountsOutsideLongRangeAsText() {
+        Transaction transaction = transaction();
+        transaction.setAmount(new BigDecimal("123456789012345678901234567890.12"));
+        assertEquals(transaction.getAmount(), TransactionCodec.decode(TransactionCodec.encode(transaction)).getAmount());
+    }
+
+    @Test
+    void keepsAbsentFieldsNull() {
+        Transaction transaction = TransactionCodec.decode(new byte[] {
+            WireFormat.MAGIC, WireFormat.VERSION, WireFormat.SCHEMA_TRANSACTION});
+        assertNull(transaction.getTransactionId());
+        assertNull(transaction.getStatus());
+        assertNull(transaction.getTimestamp());
+        assertNull(transaction.getCurrency());
+    }
+
+    @Test
+    void skipsFieldsFromNewerProducers() {
+        Transaction transaction = transaction();
+        WireWriter extra = new WireWriter(32);
+        extra.writeVarintField(200, 7);
+        extra.writeDoubleField(201, 0.25);
+        extra.writeStringField(202, "from a newer schema");
+        byte[] known = TransactionCodec.encode(transaction);
+        byte[] unknown = extra.toByteArray();
+        byte[] payload = Arrays.copyOf(known, known.length + unknown.length);
+        System.arraycopy(unknown, 0, payload, known.length, unknown.length);
+
+        assertEquals(transaction, TransactionCodec.decode(payload));
+    }
+
+    @Test
+    void reportsEveryTruncationAsSerializationException() {
+        byte[] payload = TransactionCodec.encode(transaction());
+        for (int length = 3; length < payload.length; length++) {
+            byte[] truncated = Arrays.copyOf(payload, length);
+            try {
+                deserializer.deserialize("topic", truncated);
+            } catch (SerializationException e) {
+                // Expected unless the cut falls between fields
+            }
+        }
+    }
+
+    @Test
+    void readsPayloadsWithoutMagicByteAsJson() {
+        byte[] json = "{\"transactionId\":\"tx-1\",\"userId\":\"u\",\"amount\":5}".getBytes();
+        Transaction transaction = deserializer.deserialize("topic", json);
+        assertEquals("tx-1", transaction.getTransactionId());
+
+        byte[] payload = TransactionCodec.encode(transaction());
+        payload[0] = '[';
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", payload));
+    }
+
+    @Test
+    void rejectsOutOfRangeTimestampsOnBothPaths() {
+        Transaction transaction = transaction();
+        transaction.setTimestamp(LocalDateTime.of(10_000, 1, 1, 0, 0));
+        assertThrows(SerializationException.class, () -> serializer.serialize("topic", transaction));
+
+        WireWriter writer = new WireWriter(16);
+        writer.writeHeader(WireFormat.SCHEMA_TRANSACTION);
+        writer.writeStringField(3, "user-1");
+        writer.writeSignedField(12, Long.MAX_VALUE);
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", writer.toByteArray()));
+    }
+
+    private static Transaction transaction() {
+        return Transaction.builder()
+            .transactionId("01HZY3K8Q4M2N7P5R6S8T9V0WX")
+            .userId("user-42")
+            .amount(new BigDecimal("1234.50"))
+            .transactionType(TransactionType.TRANSFER)
+            .targetAccountId("user-7")
+            .status(TransactionStatus.VALIDATED)
+            .timestamp(LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000))
+            .merchantId("merchant-1")
+            .category("groceries")
+            .location("Lisbon")
+            .deviceId("device-9")
+            .ipAddress("10.0.0.1")
+            .currency("EUR")
+            .fraudFlag(false)
+            .fraudScore(0.125)
+            .fraudReason("none")
+            .metadata("{\"k\":1}")
+            .processedAt(LocalDateTime.of(1969, 7, 20, 20, 17, 40))
+            .settledAt(LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000))
+            .notes("nötes")
+            .build();
+    }
+}
@@ -0,0 +1,192 @@
+package com.saketh.simulator.common.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Field-level round trips through {@link WireWriter} and {@link WireReader},
+ * and the reader's handling of malformed input.
+ */
+class WireReaderTest {
+
+    private static final byte SCHEMA = WireFormat.SCHEMA_TRANSACTION;
+
+    @Test
+    void roundTripsVarintEdges() {
+        long[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        WireWriter writer = writer();
+        for (long value : values) {
+            writer.writeVarintField(1, value);
+            writer.writeSignedField(2, value);
+        }
+
+        WireReader reader = new WireReader(writer.toByteArray(), SCHEMA);
+        for (long value : values) {
+            assertEquals(1, reader.nextField());
+            assertEquals(value, reader.readVarint());
+            assertEquals(2, reader.nextField());
+            assertEquals(value, reader.readSigned());
+        }
+        assertEquals(-1, reader.nextField());
+    }
+
+    @Test
+    void singleByteVarintsUseOneByte() {
+        WireWriter writer = writer();
+        writer.writeVarintField(1, 127);
+        assertEquals(3 + 2, writer.toByteArray().length);
+
+        writer = writer();
+        writer.writeVarintField(1, 128);
+        assertEquals(3 + 3, writer.toByteArray().length);
+    }
+
+    @Test
+    void rejectsVarintLongerThanTenBytes() {
+        byte[] payload = header(1 << 3);
+        byte[] data = Arrays.copyOf(payload, payload.length + 11);
+        Arrays.fill(data, payload.length, data.length, (byte) 0x80);
+
+        WireReader reader = new WireReader(data, SCHEMA);
+        assertEquals(1, reader.nextField());
+        assertThrows(IllegalArgumentException.class, reader::readVarint);
+    }
+
+    @Test
+    void skipsUnknownFieldsOfEveryWireType() {
+        WireWriter writer = writer();
+        writer.writeVarintField(100, 42);
+        writer.writeDoubleField(101, 1.5);
+        writer.writeStringField(102, "ignored");
+        writer.writeStringField(1, "kept");
+
+        WireReader reader = new WireReader(writer.toByteArray(), SCHEMA);
+        for (int field = 100; field <= 102; field++) {
+            assertEquals(field, reader.nextField());
+            reader.skipField();
+        }
+        assertEquals(1, reader.nextField());
+        assertEquals("kept", reader.readString());
+        assertEquals(-1, reader.nextField());
+    }
+
+    @Test
+    void rejectsUnknownWireType() {
+        WireReader reader = new WireReader(header((7 << 3) | 5), SCHEMA);
+        assertEquals(7, reader.nextField());
+        assertThrows(IllegalArgumentException.class, reader::skipField);
+    }
+
+    @Test
+    void rejectsBadHeader() {
+        byte[] payload = writer().toByteArray();
+
+        byte[] badMagic = payload.clone();
+        badMagic[0] = '{';
+        assertThrows(IllegalArgumentException.class, () -> new WireReader(badMagic, SCHEMA));
+
+        byte[] newerVersion = payload.clone();
+        newerVersion[1] = WireFormat.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> new WireReader(newerVersion, SCHEMA));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new WireReader(payload, WireFormat.SCHEMA_FRAUD_SCORE));
+        assertThrows(IllegalArgumentException.class,
+            () -> new WireReader(Arrays.copyOf(payload, 2), SCHEMA));
+    }
+
+    @Test
+    void rejectsTruncatedFields() {
+        WireWriter writer = writer();
+        writer.writeStringField(1, "hello");
+        byte[] string = writer.toByteArray();
+        WireReader stringReader = new WireReader(Arrays.copyOf(string, string.length - 1), SCHEMA);
+        assertEquals(1, stringReader.nextField());
+        assertThrows(IllegalArgumentException.class, stringReader::readString);
+
+        writer = writer();
+        writer.writeDoubleField(2, 2.0);
+        byte[] fixed = writer.toByteArray();
+        WireReader fixedReader = new WireReader(Arrays.copyOf(fixed, fixed.length - 1), SCHEMA);
+        assertEquals(2, fixedReader.nextField());
+        assertThrows(IllegalArgumentException.class, fixedReader::readDouble);
+
+        writer = writer();
+        writer.writeVarintField(3, Long.MAX_VALUE);
+        byte[] varint = writer.toByteArray();
+        WireReader varintReader = new WireReader(Arrays.copyOf(varint, varint.length - 1), SCHEMA);
+        assertEquals(3, varintReader.nextField());
+        assertThrows(IllegalArgumentException.class, varintReader::readVarint);
+    }
+
+    @Test
+    void roundTripsTimestampLimits() {
+        LocalDateTime min = LocalDateTime.of(1, 1, 1, 0, 0);
+        LocalDateTime max = LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000);
+        LocalDateTime epoch = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123_456_000);
+
+        WireWriter writer = writer();
+        for (LocalDateTime value : new LocalDateTime[] {min, max, epoch, beforeEpoch}) {
+            writer.writeTimestampField(1, value);
+        }
+        WireReader reader = new WireReader(writer.toByteArray(), SCHEMA);
+        for (LocalDateTime value : new LocalDateTime[] {min, max, epoch, beforeEpoch}) {
+            assertEquals(1, reader.nextField());
+            assertEquals(value, reader.readTimestamp());
+        }
+    }
+
+    @Test
+    void rejectsTimestampsOutsideTheWireRange() {
+        assertThrows(IllegalArgumentException.class,
+            () -> writer().writeTimestampField(1, LocalDateTime.of(10_000, 1, 1, 0, 0)));
+        assertThrows(IllegalArgumentException.class,
+            () -> writer().writeTimestampField(1, LocalDateTime.of(0, 12, 31, 23, 59)));
+        assertThrows(IllegalArgumentException.class,
+            () -> writer().writeTimestampField(1, LocalDateTime.MAX));
+
+        for (long micros : new long[] {WireFormat.MAX_TIMESTAMP_MICROS + 1, WireFormat.MIN_TIMESTAMP_MICROS - 1,
+                Long.MAX_VALUE, Long.MIN_VALUE}) {
+            WireWriter writer = writer();
+            writer.writeSignedField(1, micros);
+            WireReader reader = new WireReader(writer.toByteArray(), SCHEMA);
+            assertEquals(1, reader.nextField());
+            assertThrows(IllegalArgumentException.class, reader::readTimestamp);
+        }
+    }
+
+    @Test
+    void roundTripsStringsAndBytes() {
+        String text = "café € 💳";
+        byte[] bytes = {0, 1, (byte) 0xFF};
+        WireWriter writer = writer();
+        writer.writeStringField(1, text);
+        writer.writeBytesField(2, bytes);
+        writer.writeStringField(3, "");
+
+        WireReader reader = new WireReader(writer.toByteArray(), SCHEMA);
+        assertEquals(1, reader.nextField());
+        assertEquals(text, reader.readString());
+        assertEquals(2, reader.nextField());
+        assertArrayEquals(bytes, reader.readBytes());
+        assertEquals(3, reader.nextField());
+        assertEquals("", reader.readString());
+    }
+
+    private static WireWriter writer() {
+        WireWriter writer = new WireWriter(16);
+        writer.writeHeader(SCHEMA);
+        return writer;
+    }
+
+    private static byte[] header(int tag) {
+        return new byte[] {WireFormat.MAGIC, WireFormat.VERSION, SCHEMA, (byte) tag};
+    }
+}
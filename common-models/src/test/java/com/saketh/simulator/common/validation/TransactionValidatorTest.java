@@ -0,0 +1,55 @@
+package com.saketh.simulator.common.validation;
+
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Amount precision at the validation boundary: digits below a currency's
+ * minor unit are rejected, never rounded away.
+ */
+class TransactionValidatorTest {
+
+    @Test
+    void acceptsAmountsWithinTheCurrencyScale() {
+        assertNull(TransactionValidator.validate(transaction("10.5", "USD")));
+        assertNull(TransactionValidator.validate(transaction("10.500", "USD")));
+        assertNull(TransactionValidator.validate(transaction("1000", "JPY")));
+        assertNull(TransactionValidator.validate(transaction("1.005", "BHD")));
+    }
+
+    @Test
+    void rejectsExcessPrecisionInsteadOfRounding() {
+        assertEquals(ValidationError.AMOUNT_PRECISION, TransactionValidator.validate(transaction("10.005", "USD")));
+        assertEquals(ValidationError.AMOUNT_PRECISION, TransactionValidator.validate(transaction("0.004", "USD")));
+        assertEquals(ValidationError.AMOUNT_PRECISION, TransactionValidator.validate(transaction("100.5", "JPY")));
+        assertEquals(ValidationError.AMOUNT_PRECISION, TransactionValidator.validate(transaction("1.0001", null)));
+    }
+
+    @Test
+    void exactConversionRefusesToRound() {
+        assertEquals(1050L, Money.toMinorUnitsExact(new BigDecimal("10.500"), "USD"));
+        assertEquals(1050L, Money.toMinorUnitsExact(new BigDecimal("10.5"), "USD"));
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnitsExact(new BigDecimal("10.005"), "USD"));
+        // Computed values still round half-even
+        assertEquals(1000L, Money.toMinorUnits(new BigDecimal("10.005"), "USD"));
+    }
+
+    private static Transaction transaction(String amount, String currency) {
+        return Transaction.builder()
+            .userId("user-42")
+            .amount(new BigDecimal(amount))
+            .transactionType(TransactionType.PAYMENT)
+            .status(TransactionStatus.PENDING)
+            .currency(currency)
+            .build();
+    }
+}
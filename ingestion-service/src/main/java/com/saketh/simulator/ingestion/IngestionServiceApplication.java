@@ -1,5 +1,6 @@
 package com.saketh.simulator.ingestion;
 
+import com.saketh.simulator.common.id.TransactionIds;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -13,6 +14,8 @@ import org.springframework.kafka.annotation.EnableKafka;
 public class IngestionServiceApplication {
 
     public static void main(String[] args) {
+        // Fail on a bad node ID before anything mints a transaction ID
+        TransactionIds.initialize();
         SpringApplication.run(IngestionServiceApplication.class, args);
     }
 }
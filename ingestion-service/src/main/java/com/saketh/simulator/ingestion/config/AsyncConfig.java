@@ -0,0 +1,23 @@
+package com.saketh.simulator.ingestion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async request handling. The NDJSON stream endpoint is the only async
+ * handler here, so its timeout is the async default: a large backfill has
+ * to outlast the container's 30 second default.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${ingestion.stream.timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamTimeoutMs);
+    }
+}
@@ -11,8 +11,10 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import com.saketh.simulator.common.constants.AppConstants;
 import com.saketh.simulator.common.constants.KafkaTopics;
 import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -26,6 +28,9 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${ingestion.kafka.wire-format:json}")
+    private String wireFormat;
+
     /**
      * Configure Kafka producer properties
      */
@@ -36,7 +41,8 @@ public class KafkaProducerConfig {
         // Basic configuration
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, 
+            "binary".equalsIgnoreCase(wireFormat) ? TransactionSerializer.class : JsonSerializer.class);
         
         // Performance tuning
         configProps.put(ProducerConfig.ACKS_CONFIG, "all"); // Wait for all replicas
@@ -68,7 +74,8 @@ public class KafkaProducerConfig {
      */
     @Bean
     public NewTopic rawTransactionsTopic() {
-        return new NewTopic(KafkaTopics.RAW_TRANSACTIONS, 3, (short) 1);
+        return new NewTopic(KafkaTopics.RAW_TRANSACTIONS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
     }
 
     /**
@@ -76,6 +83,7 @@ public class KafkaProducerConfig {
      */
     @Bean
     public NewTopic auditEventsTopic() {
-        return new NewTopic(KafkaTopics.AUDIT_EVENTS, 3, (short) 1);
+        return new NewTopic(KafkaTopics.AUDIT_EVENTS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
     }
 }
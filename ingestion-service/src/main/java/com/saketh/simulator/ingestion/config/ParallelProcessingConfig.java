@@ -0,0 +1,22 @@
+package com.saketh.simulator.ingestion.config;
+
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Worker lanes shared by all batch requests for preparing and sending chunks.
+ */
+@Configuration
+public class ParallelProcessingConfig {
+
+    /**
+     * One lane per core unless {@code ingestion.batch.workers} is set
+     */
+    @Bean(destroyMethod = "close")
+    public KeyOrderedExecutor batchWorkers(@Value("${ingestion.batch.workers:0}") int workers) {
+        int lanes = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new KeyOrderedExecutor(lanes, "ingestion-batch-worker-");
+    }
+}
@@ -0,0 +1,49 @@
+package com.saketh.simulator.ingestion.controller;
+
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics.Stage;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times {@code @RequestBody} binding on the transaction endpoints as the
+ * parse stage. Binding runs on the request thread, so the start time is
+ * kept in a per-thread slot between the two callbacks; it includes
+ * reading the body off the socket, as a slow client is part of the cost.
+ */
+@ControllerAdvice(assignableTypes = TransactionController.class)
+public class ParseTimingAdvice extends RequestBodyAdviceAdapter {
+
+    private static final ThreadLocal<long[]> START_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final IngestionMetrics metrics;
+
+    public ParseTimingAdvice(IngestionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+                                           Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        START_NANOS.get()[0] = System.nanoTime();
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        metrics.recordSince(Stage.PARSE, START_NANOS.get()[0]);
+        return body;
+    }
+}
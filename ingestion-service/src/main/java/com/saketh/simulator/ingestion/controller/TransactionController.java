@@ -1,17 +1,32 @@
 package com.saketh.simulator.ingestion.controller;
 
 import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.ingestion.dto.BatchIngestionResult;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import com.saketh.simulator.ingestion.exception.DeliveryPendingException;
+import com.saketh.simulator.ingestion.exception.DuplicateInFlightException;
+import com.saketh.simulator.ingestion.exception.TransactionValidationException;
+import com.saketh.simulator.ingestion.service.RequestExecutionService;
+import com.saketh.simulator.ingestion.service.StreamingIngestionService;
 import com.saketh.simulator.ingestion.service.TransactionIngestionService;
-import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * REST controller for transaction ingestion.
@@ -23,7 +38,11 @@ import java.util.Map;
 @Slf4j
 public class TransactionController {
 
+    private static final String STREAM_PERMIT = TransactionController.class.getName() + ".STREAM_PERMIT";
+
     private final TransactionIngestionService ingestionService;
+    private final RequestExecutionService requestExecution;
+    private final StreamingIngestionService streamingIngestionService;
 
     /**
      * Health check endpoint
@@ -41,11 +60,18 @@ public class TransactionController {
      * Ingest a single transaction
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> ingestTransaction(
-            @Valid @RequestBody Transaction transaction) {
+    public ResponseEntity<Map<String, Object>> ingestTransaction(@RequestBody Transaction transaction) {
         
         log.info("Received transaction ingestion request: {}", transaction.getTransactionId());
         
+        try {
+            return requestExecution.execute(() -> doIngestTransaction(transaction));
+        } catch (RejectedExecutionException e) {
+            return rejectedResponse(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> doIngestTransaction(Transaction transaction) {
         try {
             String result = ingestionService.ingestTransaction(transaction);
             
@@ -53,11 +79,58 @@ public class TransactionController {
             response.put("success", true);
             response.put("transactionId", transaction.getTransactionId());
             response.put("message", result);
-            response.put("status", "PENDING");
+            response.put("status", transaction.getStatus());
             
             log.info("Transaction {} ingested successfully", transaction.getTransactionId());
             return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
             
+        } catch (TransactionValidationException e) {
+            log.warn("Transaction {} failed validation: {}", 
+                transaction.getTransactionId(), e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("transactionId", transaction.getTransactionId());
+            errorResponse.put("errorCode", e.getError());
+            errorResponse.put("error", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            
+        } catch (AdmissionRejectedException e) {
+            log.warn("Transaction {} rejected by admission control: {}", 
+                transaction.getTransactionId(), e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("transactionId", transaction.getTransactionId());
+            errorResponse.put("error", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+            
+        } catch (DuplicateInFlightException e) {
+            log.info("Transaction {} is a duplicate of one still in flight", transaction.getTransactionId());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("transactionId", transaction.getTransactionId());
+            errorResponse.put("error", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+            
+        } catch (DeliveryPendingException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("transactionId", transaction.getTransactionId());
+            errorResponse.put("error", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+            
         } catch (Exception e) {
             log.error("Failed to ingest transaction {}: {}", 
                 transaction.getTransactionId(), e.getMessage(), e);
@@ -75,22 +148,31 @@ public class TransactionController {
      * Ingest multiple transactions in batch
      */
     @PostMapping("/batch")
-    public ResponseEntity<Map<String, Object>> ingestTransactionBatch(
-            @Valid @RequestBody List<Transaction> transactions) {
+    public ResponseEntity<Map<String, Object>> ingestTransactionBatch(@RequestBody List<Transaction> transactions) {
         
         log.info("Received batch ingestion request with {} transactions", transactions.size());
         
         try {
-            int successCount = ingestionService.ingestBatch(transactions);
+            return requestExecution.execute(() -> doIngestBatch(transactions));
+        } catch (RejectedExecutionException e) {
+            return rejectedResponse(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> doIngestBatch(List<Transaction> transactions) {
+        try {
+            BatchIngestionResult result = ingestionService.ingestBatch(transactions);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("totalReceived", transactions.size());
-            response.put("successCount", successCount);
+            response.put("totalReceived", result.getTotalReceived());
+            response.put("successCount", result.getSuccessCount());
+            response.put("failedCount", result.getFailedCount());
+            response.put("failedTransactionIds", result.getFailedTransactionIds());
             response.put("message", "Batch ingestion completed");
             
-            log.info("Batch ingestion completed: {}/{} successful", 
-                successCount, transactions.size());
+            log.info("Batch ingestion completed: {}/{} acknowledged", 
+                result.getSuccessCount(), result.getTotalReceived());
             return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
             
         } catch (Exception e) {
@@ -105,6 +187,67 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Ingest a newline-delimited JSON stream of transactions.
+     * Records are published as they are parsed and per-line results are
+     * streamed back, so the body is never held in memory as a whole. A line's
+     * {@code accepted} means handed to the producer; the summary line counts
+     * broker acknowledgements.
+     * <p>
+     * A stream holds an in-flight permit from admission until its body is
+     * written, or until the request ends if the body never starts. It runs
+     * under {@code ingestion.stream.timeout-ms} rather than the default
+     * async timeout.
+     */
+    @PostMapping(value = "/batch/stream", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> ingestTransactionStream(HttpServletRequest request) {
+        log.info("Received streaming batch ingestion request");
+        
+        try {
+            requestExecution.acquire();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(output -> streamingIngestionService.writeRejection(output, e.getMessage()));
+        }
+        
+        // Whichever of the body and request completion claims the permit first releases it
+        AtomicBoolean claimed = new AtomicBoolean();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(STREAM_PERMIT,
+            new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                    if (claimed.compareAndSet(false, true)) {
+                        requestExecution.release();
+                    }
+                }
+            });
+        StreamingResponseBody body = output -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                streamingIngestionService.ingestStream(request.getInputStream(), output);
+            } finally {
+                requestExecution.release();
+            }
+        };
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    /**
+     * Map an in-flight limit rejection to 503
+     */
+    private ResponseEntity<Map<String, Object>> rejectedResponse(RejectedExecutionException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", e.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(errorResponse);
+    }
+
     /**
      * Get transaction statistics
      */
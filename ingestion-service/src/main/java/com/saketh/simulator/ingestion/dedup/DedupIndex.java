@@ -0,0 +1,136 @@
+package com.saketh.simulator.ingestion.dedup;
+
+/**
+ * Bounded, time-expiring set of 128-bit key hashes.
+ * Keys live in primitive open-addressing tables split into lock stripes.
+ * Each key may only occupy one of {@link #PROBE_WINDOW} slots after its home
+ * slot; when the window is full of live entries the one closest to expiry
+ * is evicted, so memory stays fixed at 24 bytes per slot.
+ */
+public class DedupIndex {
+
+    private static final int PROBE_WINDOW = 8;
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long ttlMillis;
+
+    /**
+     * Create an index holding up to {@code capacity} keys for {@code ttlMillis} each
+     */
+    public DedupIndex(int capacity, long ttlMillis) {
+        int stripeCapacity = Math.max(PROBE_WINDOW, nextPowerOfTwo(capacity / STRIPES));
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+        this.stripeMask = STRIPES - 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Record a key unless an unexpired copy is already present.
+     *
+     * @return true if the key was added, false if it is a duplicate
+     */
+    public boolean add(long hashHi, long hashLo, long nowMillis) {
+        if (hashHi == 0 && hashLo == 0) {
+            hashLo = 1; // (0, 0) marks an empty slot
+        }
+        return stripeFor(hashHi).add(hashHi, hashLo, nowMillis, nowMillis + ttlMillis);
+    }
+
+    /**
+     * Forget a key, e.g. after its publish failed so a retry can go through
+     */
+    public void remove(long hashHi, long hashLo) {
+        if (hashHi == 0 && hashLo == 0) {
+            hashLo = 1;
+        }
+        stripeFor(hashHi).remove(hashHi, hashLo);
+    }
+
+    /**
+     * Number of slots evicted while still live
+     */
+    public long getEvictionCount() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.evictions;
+            }
+        }
+        return total;
+    }
+
+    private Stripe stripeFor(long hashHi) {
+        return stripes[(int) (hashHi >>> 58) & stripeMask];
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * One lock stripe: parallel arrays indexed by slot
+     */
+    private static final class Stripe {
+
+        private final long[] hashHi;
+        private final long[] hashLo;
+        private final long[] expiresAt;
+        private final int mask;
+        private long evictions;
+
+        Stripe(int capacity) {
+            this.hashHi = new long[capacity];
+            this.hashLo = new long[capacity];
+            this.expiresAt = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        synchronized boolean add(long hi, long lo, long now, long expiry) {
+            int home = (int) lo & mask;
+            int freeSlot = -1;
+            int oldestSlot = home;
+
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int slot = (home + i) & mask;
+                boolean live = expiresAt[slot] > now;
+                if (live && hashHi[slot] == hi && hashLo[slot] == lo) {
+                    return false;
+                }
+                if (!live && freeSlot < 0) {
+                    freeSlot = slot;
+                }
+                if (expiresAt[slot] < expiresAt[oldestSlot]) {
+                    oldestSlot = slot;
+                }
+            }
+
+            int slot = freeSlot;
+            if (slot < 0) {
+                slot = oldestSlot;
+                evictions++;
+            }
+            hashHi[slot] = hi;
+            hashLo[slot] = lo;
+            expiresAt[slot] = expiry;
+            return true;
+        }
+
+        synchronized void remove(long hi, long lo) {
+            int home = (int) lo & mask;
+            // Clear every copy: stopping at an expired one could leave the live one behind
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int slot = (home + i) & mask;
+                if (hashHi[slot] == hi && hashLo[slot] == lo) {
+                    hashHi[slot] = 0;
+                    hashLo[slot] = 0;
+                    expiresAt[slot] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.saketh.simulator.ingestion.dedup;
+
+/**
+ * Allocation-free 64-bit hashing of string keys (MurmurHash3 mixing).
+ * Two calls with different seeds give the halves of a 128-bit key hash.
+ */
+public final class KeyHash {
+
+    public static final long SEED_HI = 0x9E3779B97F4A7C15L;
+    public static final long SEED_LO = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private KeyHash() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Hash the UTF-16 code units of a key, four per 64-bit block
+     */
+    public static long hash(CharSequence key, long seed) {
+        int length = key.length();
+        long h = seed ^ (length * C1);
+
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long k = key.charAt(i)
+                | ((long) key.charAt(i + 1) << 16)
+                | ((long) key.charAt(i + 2) << 32)
+                | ((long) key.charAt(i + 3) << 48);
+            h ^= mixKey(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) key.charAt(i) << shift;
+        }
+        h ^= mixKey(tail);
+
+        return finalMix(h);
+    }
+
+    private static long mixKey(long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        return k * C2;
+    }
+
+    private static long finalMix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
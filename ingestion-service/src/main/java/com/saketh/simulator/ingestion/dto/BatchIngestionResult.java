@@ -0,0 +1,40 @@
+package com.saketh.simulator.ingestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch ingestion, counted against broker acknowledgements.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIngestionResult {
+
+    /**
+     * Number of transactions in the request
+     */
+    private int totalReceived;
+
+    /**
+     * Number of transactions acknowledged by the broker
+     */
+    private int successCount;
+
+    /**
+     * Number of transactions rejected, failed or not acknowledged in time
+     */
+    private int failedCount;
+
+    /**
+     * IDs of the transactions counted in failedCount
+     */
+    @Builder.Default
+    private List<String> failedTransactionIds = new ArrayList<>();
+}
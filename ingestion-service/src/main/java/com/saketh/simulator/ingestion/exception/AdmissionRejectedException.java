@@ -0,0 +1,19 @@
+package com.saketh.simulator.ingestion.exception;
+
+/**
+ * Thrown when the Kafka producer is saturated and a transaction is not
+ * admitted. Carries how long the client should wait before retrying.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.saketh.simulator.ingestion.exception;
+
+/**
+ * Thrown when a transaction's write to the local spool has not finished
+ * within the request timeout. The write may still succeed: the transaction
+ * keeps its idempotency claim until it does or fails, so a retry learns the
+ * outcome instead of publishing it twice.
+ */
+public class DeliveryPendingException extends RuntimeException {
+
+    public DeliveryPendingException(String transactionId) {
+        super("Transaction " + transactionId + " is still being written, retry to learn its outcome");
+    }
+}
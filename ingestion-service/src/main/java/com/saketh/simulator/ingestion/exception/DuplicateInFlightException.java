@@ -0,0 +1,12 @@
+package com.saketh.simulator.ingestion.exception;
+
+/**
+ * Thrown when a transaction ID arrives again while its original is still
+ * being published, so its outcome is not known yet.
+ */
+public class DuplicateInFlightException extends RuntimeException {
+
+    public DuplicateInFlightException(String transactionId) {
+        super("Transaction " + transactionId + " is still being processed, retry later");
+    }
+}
@@ -0,0 +1,20 @@
+package com.saketh.simulator.ingestion.exception;
+
+import com.saketh.simulator.common.validation.ValidationError;
+
+/**
+ * Thrown when an ingested transaction fails validation.
+ */
+public class TransactionValidationException extends IllegalArgumentException {
+
+    private final ValidationError error;
+
+    public TransactionValidationException(ValidationError error) {
+        super(error.getMessage());
+        this.error = error;
+    }
+
+    public ValidationError getError() {
+        return error;
+    }
+}
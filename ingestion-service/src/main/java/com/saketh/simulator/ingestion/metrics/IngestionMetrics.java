@@ -0,0 +1,166 @@
+package com.saketh.simulator.ingestion.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and per-stage latencies of the ingestion path, shared by the
+ * controller and services so each total has one owner.
+ * <p>
+ * Counters are {@link LongAdder}s exported as function counters, so
+ * request threads never contend on a shared cache line. Each stage is a
+ * Micrometer {@link Timer} with a percentile histogram, which Prometheus
+ * scrapes as buckets; its HdrHistogram-backed recorder is wait-free for
+ * writers. The client-side p50, p99 and p99.9 cover the last couple of
+ * minutes and back the {@code /stats} view.
+ */
+@Component
+public class IngestionMetrics {
+
+    /**
+     * Timed stages, in the order a transaction passes through them
+     */
+    public enum Stage {
+        /** Reading and deserialising the request body */
+        PARSE("parse"),
+        /** Filling in timestamp, status and currency defaults */
+        ENRICH("enrich"),
+        /** Business rule checks */
+        VALIDATE("validate"),
+        /** The producer send call, up to the record being buffered */
+        SEND_ENQUEUE("send.enqueue"),
+        /** From the send call to the broker acknowledgement */
+        BROKER_ACK("broker.ack");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_KEYS = {"p50Ms", "p99Ms", "p999Ms"};
+
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+
+    // Metrics
+    private final LongAdder received = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder kafkaAcked = new LongAdder();
+    private final LongAdder kafkaFailed = new LongAdder();
+
+    public IngestionMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("ingestion.transactions.received", received, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.transactions.accepted", accepted, LongAdder::sum)
+            .description("Transactions handed to Kafka or the spool")
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.transactions.failed", failed, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.kafka.acked", kafkaAcked, LongAdder::sum)
+            .description("Records acknowledged by the broker")
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.kafka.failed", kafkaFailed, LongAdder::sum)
+            .register(meterRegistry);
+
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("ingestion.stage.latency")
+                .description("Time spent in one ingestion stage")
+                .tag("stage", stage.getTag())
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Record time spent in a stage
+     */
+    public void record(Stage stage, long nanos) {
+        stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} and ends now
+     */
+    public void recordSince(Stage stage, long startNanos) {
+        record(stage, System.nanoTime() - startNanos);
+    }
+
+    public void received(int count) {
+        received.add(count);
+    }
+
+    public void accepted(int count) {
+        accepted.add(count);
+    }
+
+    public void failed(int count) {
+        failed.add(count);
+    }
+
+    public void kafkaAcked() {
+        kafkaAcked.increment();
+    }
+
+    public void kafkaFailed() {
+        kafkaFailed.increment();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getKafkaAcked() {
+        return kafkaAcked.sum();
+    }
+
+    public long getKafkaFailed() {
+        return kafkaFailed.sum();
+    }
+
+    /**
+     * Count, p50, p99, p99.9 and max in milliseconds for every stage
+     */
+    public Map<String, Object> getLatencySnapshot() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            HistogramSnapshot snapshot = stageTimers[stage.ordinal()].takeSnapshot();
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", snapshot.count());
+            ValueAtPercentile[] percentiles = snapshot.percentileValues();
+            for (int i = 0; i < percentiles.length; i++) {
+                latency.put(PERCENTILE_KEYS[i], percentiles[i].value(TimeUnit.MILLISECONDS));
+            }
+            latency.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            stages.put(stage.getTag(), latency);
+        }
+        return stages;
+    }
+}
@@ -0,0 +1,179 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the Kafka producer.
+ * Tracks records and estimated bytes awaiting a broker ack and rejects new
+ * sends once either crosses its high watermark, instead of letting request
+ * threads block in {@code KafkaTemplate.send} for {@code max.block.ms}.
+ * The record limit adapts AIMD-style: it grows by one per window of fast
+ * acks and is cut multiplicatively when ack latency exceeds the target or
+ * sends fail.
+ */
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    // Rough JSON overhead of a Transaction beyond its variable-length fields
+    private static final int RECORD_OVERHEAD_BYTES = 320;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final boolean enabled;
+    private final long maxInFlightBytes;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+
+    private final AtomicLong inFlightRecords = new AtomicLong(0);
+    private final AtomicLong inFlightBytes = new AtomicLong(0);
+    private final LongAdder rejectedCount = new LongAdder();
+
+    // Limit state, updated under this service's monitor on each ack
+    private volatile int recordLimit;
+    private double limit;
+    private volatile double smoothedLatencyNanos;
+    private long lastDecreaseNanos;
+
+    public AdmissionControlService(
+            @Value("${ingestion.admission.enabled:true}") boolean enabled,
+            @Value("${ingestion.admission.max-in-flight-bytes:25165824}") long maxInFlightBytes,
+            @Value("${ingestion.admission.initial-limit:1000}") int initialLimit,
+            @Value("${ingestion.admission.min-limit:50}") int minLimit,
+            @Value("${ingestion.admission.max-limit:20000}") int maxLimit,
+            @Value("${ingestion.admission.target-latency-ms:100}") long targetLatencyMs,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.limit = initialLimit;
+        this.recordLimit = initialLimit;
+
+        Gauge.builder("ingestion.admission.limit", this, AdmissionControlService::getRecordLimit)
+            .description("Current adaptive in-flight record limit")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.admission.inflight.records", inFlightRecords, AtomicLong::get)
+            .register(meterRegistry);
+        Gauge.builder("ingestion.admission.inflight.bytes", inFlightBytes, AtomicLong::get)
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.admission.rejected", rejectedCount, LongAdder::sum)
+            .description("Sends rejected with 429")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Admit one transaction for sending.
+     *
+     * @return permit size in bytes, to be handed back to {@link #release}
+     * @throws AdmissionRejectedException if a high watermark is crossed
+     */
+    public int acquire(Transaction transaction) {
+        int bytes = estimateSize(transaction);
+        if (!enabled) {
+            return bytes;
+        }
+
+        if (inFlightRecords.incrementAndGet() > recordLimit) {
+            inFlightRecords.decrementAndGet();
+            throw reject("in-flight record limit of " + recordLimit + " reached");
+        }
+        if (inFlightBytes.addAndGet(bytes) > maxInFlightBytes) {
+            inFlightBytes.addAndGet(-bytes);
+            inFlightRecords.decrementAndGet();
+            throw reject("in-flight byte limit of " + maxInFlightBytes + " reached");
+        }
+        return bytes;
+    }
+
+    /**
+     * Return a permit once the broker has acked or failed the send
+     */
+    public void release(int bytes, long sendStartNanos, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        inFlightBytes.addAndGet(-bytes);
+        long inFlight = inFlightRecords.decrementAndGet();
+        onAck(System.nanoTime() - sendStartNanos, success, inFlight);
+    }
+
+    private synchronized void onAck(long latencyNanos, boolean success, long inFlight) {
+        smoothedLatencyNanos += (latencyNanos - smoothedLatencyNanos) * LATENCY_SMOOTHING;
+
+        if (!success || latencyNanos > targetLatencyNanos) {
+            // At most one decrease per smoothed round trip, so one slow burst only backs off once
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos > (long) smoothedLatencyNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight >= limit / 2) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        recordLimit = (int) limit;
+    }
+
+    private AdmissionRejectedException reject(String reason) {
+        rejectedCount.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds((long) (smoothedLatencyNanos * 2)));
+        log.debug("Admission rejected: {}", reason);
+        return new AdmissionRejectedException("Kafka producer saturated: " + reason, retryAfterSeconds);
+    }
+
+    private static int estimateSize(Transaction transaction) {
+        return RECORD_OVERHEAD_BYTES
+            + length(transaction.getTransactionId())
+            + length(transaction.getUserId())
+            + length(transaction.getTargetAccountId())
+            + length(transaction.getMerchantId())
+            + length(transaction.getCategory())
+            + length(transaction.getLocation())
+            + length(transaction.getDeviceId())
+            + length(transaction.getIpAddress())
+            + length(transaction.getMetadata())
+            + length(transaction.getNotes());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Records that can be admitted right now before the record limit is reached
+     */
+    public int getAvailablePermits() {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(0, recordLimit - inFlightRecords.get());
+    }
+
+    /**
+     * Get current adaptive record limit
+     */
+    public int getRecordLimit() {
+        return recordLimit;
+    }
+
+    /**
+     * Get total sends rejected by admission control
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,197 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.ingestion.dedup.DedupIndex;
+import com.saketh.simulator.ingestion.dedup.KeyHash;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops retried transactions before they reach Kafka.
+ * Transaction IDs are claimed in a bounded, time-expiring {@link DedupIndex};
+ * a second claim for the same ID within the TTL is reported as a duplicate.
+ * <p>
+ * Until the claimant {@link #confirm confirms} or {@link #release releases}
+ * it, a claim also has a pending outcome, so a duplicate that arrives while
+ * the original is in flight can wait for or report the original's result
+ * instead of being told it was accepted. Pending outcomes live only as long
+ * as a send, so admission control bounds them.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final boolean enabled;
+    private final DedupIndex index;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public IdempotencyService(
+            @Value("${ingestion.dedup.enabled:true}") boolean enabled,
+            @Value("${ingestion.dedup.capacity:1048576}") int capacity,
+            @Value("${ingestion.dedup.ttl-ms:600000}") long ttlMs,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.index = new DedupIndex(capacity, ttlMs);
+
+        FunctionCounter.builder("ingestion.dedup.hits", hits, LongAdder::sum)
+            .description("Duplicate transaction IDs dropped")
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.dedup.misses", misses, LongAdder::sum)
+            .description("Transaction IDs seen for the first time")
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.dedup.evictions", index, DedupIndex::getEvictionCount)
+            .description("Live entries evicted to make room")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.dedup.hit.rate", this, IdempotencyService::getHitRate)
+            .register(meterRegistry);
+        Gauge.builder("ingestion.dedup.pending", pending, ConcurrentHashMap::size)
+            .description("Claimed transaction IDs whose publish has not finished")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Claim a transaction ID for publishing, or report the state of the
+     * earlier claim in the same call. A {@link ClaimState#CLAIMED} result
+     * must end in {@link #confirm} or {@link #release}.
+     * <p>
+     * An earlier claim that is released while this call runs is claimed
+     * again rather than reported, so a retry of a failed publish is never
+     * told the original was delivered.
+     */
+    public Claim claim(String transactionId) {
+        if (!enabled || transactionId == null) {
+            return Claim.CLAIMED;
+        }
+        long hi = KeyHash.hash(transactionId, KeyHash.SEED_HI);
+        long lo = KeyHash.hash(transactionId, KeyHash.SEED_LO);
+        while (true) {
+            // Pending first, so a duplicate never sees the index entry without the outcome
+            CompletableFuture<Void> outcome = new CompletableFuture<>();
+            CompletableFuture<Void> earlier = pending.putIfAbsent(transactionId, outcome);
+            if (earlier != null) {
+                if (!earlier.isDone()) {
+                    hits.increment();
+                    log.info("Duplicate transaction {} still in flight", transactionId);
+                    return new Claim(ClaimState.IN_FLIGHT, earlier);
+                }
+                if (earlier.isCompletedExceptionally()) {
+                    // Released and leaving the map; claim again once it has
+                    Thread.onSpinWait();
+                    continue;
+                }
+                hits.increment();
+                log.info("Duplicate transaction {} dropped", transactionId);
+                return Claim.DELIVERED;
+            }
+            if (index.add(hi, lo, System.currentTimeMillis())) {
+                misses.increment();
+                return Claim.CLAIMED;
+            }
+            // Delivered within the TTL: a release removes the index entry before its pending outcome
+            outcome.complete(null);
+            pending.remove(transactionId, outcome);
+            hits.increment();
+            log.info("Duplicate transaction {} dropped", transactionId);
+            return Claim.DELIVERED;
+        }
+    }
+
+    /**
+     * Mark a claimed transaction as delivered
+     */
+    public void confirm(String transactionId) {
+        if (!enabled || transactionId == null) {
+            return;
+        }
+        CompletableFuture<Void> outcome = pending.remove(transactionId);
+        if (outcome != null) {
+            outcome.complete(null);
+        }
+    }
+
+    /**
+     * Release a claim so a retry of a failed publish is not treated as a
+     * duplicate, failing duplicates that waited on it. The index entry goes
+     * first, so a claim that sees no pending outcome can trust the index.
+     */
+    public void release(String transactionId, Throwable cause) {
+        if (!enabled || transactionId == null) {
+            return;
+        }
+        index.remove(
+            KeyHash.hash(transactionId, KeyHash.SEED_HI),
+            KeyHash.hash(transactionId, KeyHash.SEED_LO));
+        CompletableFuture<Void> outcome = pending.remove(transactionId);
+        if (outcome != null) {
+            outcome.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Get number of duplicates dropped
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get fraction of claims that were duplicates
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * What {@link #claim} found for a transaction ID
+     */
+    public enum ClaimState {
+        /** New: the caller owns the claim */
+        CLAIMED,
+        /** An earlier copy is still being published */
+        IN_FLIGHT,
+        /** An earlier copy was delivered within the TTL */
+        DELIVERED
+    }
+
+    /**
+     * Result of {@link #claim}, with the earlier copy's outcome while it is in flight
+     */
+    public static final class Claim {
+
+        static final Claim CLAIMED = new Claim(ClaimState.CLAIMED, null);
+        static final Claim DELIVERED = new Claim(ClaimState.DELIVERED, null);
+
+        private final ClaimState state;
+        private final CompletableFuture<Void> inFlight;
+
+        Claim(ClaimState state, CompletableFuture<Void> inFlight) {
+            this.state = state;
+            this.inFlight = inFlight;
+        }
+
+        public ClaimState getState() {
+            return state;
+        }
+
+        /**
+         * Completes when the earlier copy is delivered, exceptionally if it fails;
+         * null unless {@link ClaimState#IN_FLIGHT}
+         */
+        public CompletableFuture<Void> getInFlight() {
+            return inFlight;
+        }
+    }
+}
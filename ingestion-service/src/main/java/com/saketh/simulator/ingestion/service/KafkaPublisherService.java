@@ -2,18 +2,26 @@ package com.saketh.simulator.ingestion.service;
 
 import com.saketh.simulator.common.constants.KafkaTopics;
 import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.trace.TraceClock;
+import com.saketh.simulator.common.trace.TraceHeaders;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for publishing transaction events to Kafka.
  * Handles async publishing with callbacks and error handling.
+ * Every record starts a pipeline trace in a {@link TraceHeaders} header.
  */
 @Service
 @RequiredArgsConstructor
@@ -21,35 +29,53 @@ import java.util.concurrent.atomic.AtomicLong;
 public class KafkaPublisherService {
 
     private final KafkaTemplate<String, Transaction> kafkaTemplate;
-    
-    // Metrics
-    private final AtomicLong publishedCount = new AtomicLong(0);
-    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AdmissionControlService admissionControl;
+    private final IngestionMetrics metrics;
 
     /**
-     * Publish transaction to Kafka asynchronously
+     * Publish transaction to Kafka asynchronously, tracing it from now
+     *
+     * @throws AdmissionRejectedException if the producer is saturated
      */
     public CompletableFuture<SendResult<String, Transaction>> publishTransaction(Transaction transaction) {
+        return publishTransaction(transaction, TraceClock.nowMicros());
+    }
+
+    /**
+     * Publish transaction to Kafka asynchronously
+     *
+     * @param ingestMicros {@link TraceClock} time the request was received
+     * @throws AdmissionRejectedException if the producer is saturated
+     */
+    public CompletableFuture<SendResult<String, Transaction>> publishTransaction(Transaction transaction,
+                                                                                long ingestMicros) {
         log.debug("Publishing transaction {} to Kafka topic: {}", 
             transaction.getTransactionId(), KafkaTopics.RAW_TRANSACTIONS);
         
-        CompletableFuture<SendResult<String, Transaction>> future = 
-            kafkaTemplate.send(
-                KafkaTopics.RAW_TRANSACTIONS, 
-                transaction.getTransactionId(), 
-                transaction
-            );
+        int permitBytes = admissionControl.acquire(transaction);
+        long sendStartNanos = System.nanoTime();
+        
+        CompletableFuture<SendResult<String, Transaction>> future;
+        try {
+            future = kafkaTemplate.send(tracedRecord(transaction, ingestMicros));
+        } catch (RuntimeException e) {
+            admissionControl.release(permitBytes, sendStartNanos, false);
+            throw e;
+        }
+        metrics.recordSince(Stage.SEND_ENQUEUE, sendStartNanos);
         
         // Add callback for success/failure handling
         future.whenComplete((result, ex) -> {
+            admissionControl.release(permitBytes, sendStartNanos, ex == null);
             if (ex == null) {
-                publishedCount.incrementAndGet();
+                metrics.recordSince(Stage.BROKER_ACK, sendStartNanos);
+                metrics.kafkaAcked();
                 log.info("Transaction {} published successfully to partition {} with offset {}",
                     transaction.getTransactionId(),
                     result.getRecordMetadata().partition(),
                     result.getRecordMetadata().offset());
             } else {
-                failedCount.incrementAndGet();
+                metrics.kafkaFailed();
                 log.error("Failed to publish transaction {}: {}", 
                     transaction.getTransactionId(), ex.getMessage(), ex);
             }
@@ -58,6 +84,42 @@ public class KafkaPublisherService {
         return future;
     }
 
+    /**
+     * Publish a chunk of transactions without waiting for acknowledgements,
+     * tracing them from now
+     */
+    public List<CompletableFuture<SendResult<String, Transaction>>> publishBatch(List<Transaction> transactions) {
+        return publishBatch(transactions, TraceClock.nowMicros());
+    }
+
+    /**
+     * Publish a chunk of transactions without waiting for acknowledgements.
+     * Returns one future per transaction, in input order; a record the
+     * producer refuses up front gets an already-failed future.
+     *
+     * @param ingestMicros {@link TraceClock} time the request was received
+     */
+    public List<CompletableFuture<SendResult<String, Transaction>>> publishBatch(List<Transaction> transactions,
+                                                                                 long ingestMicros) {
+        log.debug("Publishing chunk of {} transactions to Kafka topic: {}",
+            transactions.size(), KafkaTopics.RAW_TRANSACTIONS);
+        
+        List<CompletableFuture<SendResult<String, Transaction>>> futures = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            try {
+                futures.add(publishTransaction(transaction, ingestMicros));
+            } catch (AdmissionRejectedException e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            } catch (Exception e) {
+                metrics.kafkaFailed();
+                log.error("Failed to enqueue transaction {}: {}", 
+                    transaction.getTransactionId(), e.getMessage());
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
+    }
+
     /**
      * Publish transaction synchronously (blocking)
      * Use this when you need immediate confirmation
@@ -65,13 +127,26 @@ public class KafkaPublisherService {
     public void publishTransactionSync(Transaction transaction) throws Exception {
         log.debug("Publishing transaction {} synchronously", transaction.getTransactionId());
         
-        SendResult<String, Transaction> result = kafkaTemplate.send(
-            KafkaTopics.RAW_TRANSACTIONS,
-            transaction.getTransactionId(),
-            transaction
-        ).get(); // Block until complete
+        int permitBytes = admissionControl.acquire(transaction);
+        long sendStartNanos = System.nanoTime();
+        boolean success = false;
+        
+        SendResult<String, Transaction> result;
+        try {
+            CompletableFuture<SendResult<String, Transaction>> future =
+                kafkaTemplate.send(tracedRecord(transaction, TraceClock.nowMicros()));
+            metrics.recordSince(Stage.SEND_ENQUEUE, sendStartNanos);
+            result = future.get(); // Block until complete
+            success = true;
+        } finally {
+            admissionControl.release(permitBytes, sendStartNanos, success);
+            if (!success) {
+                metrics.kafkaFailed();
+            }
+        }
         
-        publishedCount.incrementAndGet();
+        metrics.recordSince(Stage.BROKER_ACK, sendStartNanos);
+        metrics.kafkaAcked();
         log.info("Transaction {} published synchronously to partition {} with offset {}",
             transaction.getTransactionId(),
             result.getRecordMetadata().partition(),
@@ -79,16 +154,15 @@ public class KafkaPublisherService {
     }
 
     /**
-     * Get total published count
+     * Record for raw-transactions carrying a new trace
      */
-    public long getPublishedCount() {
-        return publishedCount.get();
-    }
-
-    /**
-     * Get total failed count
-     */
-    public long getFailedCount() {
-        return failedCount.get();
+    private static ProducerRecord<String, Transaction> tracedRecord(Transaction transaction, long ingestMicros) {
+        ProducerRecord<String, Transaction> record = new ProducerRecord<>(
+            KafkaTopics.RAW_TRANSACTIONS,
+            transaction.getTransactionId(),
+            transaction
+        );
+        TraceHeaders.write(record.headers(), TraceHeaders.start(ingestMicros, TraceClock.nowMicros()));
+        return record;
     }
 }
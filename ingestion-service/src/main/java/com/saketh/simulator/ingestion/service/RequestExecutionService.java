@@ -0,0 +1,91 @@
+package com.saketh.simulator.ingestion.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps the ingestion requests running at once, so a blocked Kafka send path
+ * cannot pile up an unbounded number of waiting requests. Requests over the
+ * limit are rejected at once instead of queueing behind the blocked ones.
+ * <p>
+ * Requests run on the thread Tomcat accepted them on. By default that is a
+ * platform worker, and the limit has to fit inside
+ * {@code server.tomcat.threads.max} so health and stats stay reachable.
+ * With {@code spring.threads.virtual.enabled} on Java 21+, Tomcat runs each
+ * request on its own virtual thread; a blocked request then costs no
+ * worker, and the limit only bounds the work queued on the send path.
+ */
+@Service
+@Slf4j
+public class RequestExecutionService {
+
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+
+    public RequestExecutionService(
+            @Value("${ingestion.execution.max-in-flight:180}") int maxInFlight,
+            @Value("${server.tomcat.threads.max:200}") int workerThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs Java 21 or later, running "
+                + Runtime.version());
+        }
+        if (maxInFlight <= 0 || (!virtualThreads && maxInFlight > workerThreads)) {
+            throw new IllegalStateException("ingestion.execution.max-in-flight must be between 1 and "
+                + "server.tomcat.threads.max (" + workerThreads + ") on platform threads, got " + maxInFlight);
+        }
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        if (virtualThreads) {
+            log.info("Ingestion on virtual threads, limited to {} requests in flight", maxInFlight);
+        } else {
+            log.info("Ingestion on platform threads, limited to {} of {} Tomcat workers", maxInFlight, workerThreads);
+        }
+    }
+
+    /**
+     * Run a request task on the calling thread if an in-flight permit is free.
+     *
+     * @throws RejectedExecutionException if the in-flight limit is reached
+     */
+    public <T> T execute(Supplier<T> task) {
+        acquire();
+        try {
+            return task.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Take an in-flight permit for a request whose work outlives the calling
+     * thread, such as a streamed response. The caller must {@link #release} it.
+     *
+     * @throws RejectedExecutionException if the in-flight limit is reached
+     */
+    public void acquire() {
+        if (!inFlightPermits.tryAcquire()) {
+            log.warn("In-flight limit of {} requests reached, rejecting request", maxInFlight);
+            throw new RejectedExecutionException("Too many requests in flight");
+        }
+    }
+
+    /**
+     * Return a permit taken with {@link #acquire}
+     */
+    public void release() {
+        inFlightPermits.release();
+    }
+
+    /**
+     * Get number of requests currently in flight
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+}
@@ -0,0 +1,274 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionCodec;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import com.saketh.simulator.ingestion.spool.SpoolFullException;
+import com.saketh.simulator.ingestion.spool.SpoolLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable-local delivery: transactions are acknowledged once they are in
+ * the on-disk {@link SpoolLog}, and a background drainer replays the spool
+ * to Kafka in order. Each chunk is capped at the records admission control
+ * will take right now, and the drainer commits the longest prefix the broker
+ * has acked before resending the rest. Delivery to Kafka is at-least-once;
+ * consumers dedupe on transactionId.
+ * The spool does not keep receive times, so traces start at the drain.
+ */
+@Service
+@Slf4j
+public class SpoolService {
+
+    public static final String MODE_DIRECT = "direct";
+    public static final String MODE_DURABLE_LOCAL = "durable-local";
+
+    private static final long IDLE_WAIT_MS = 5;
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final int drainBatchSize;
+    private final KafkaPublisherService kafkaPublisher;
+    private final AdmissionControlService admissionControl;
+    private final MeterRegistry meterRegistry;
+
+    private SpoolLog spool;
+    private Thread drainer;
+    private volatile boolean running;
+
+    // Metrics
+    private final LongAdder spooledCount = new LongAdder();
+    private final LongAdder drainedCount = new LongAdder();
+    private final LongAdder drainFailures = new LongAdder();
+    private final LongAdder corruptRecords = new LongAdder();
+
+    public SpoolService(
+            @Value("${ingestion.delivery-mode:" + MODE_DIRECT + "}") String deliveryMode,
+            @Value("${ingestion.spool.directory:spool}") String directory,
+            @Value("${ingestion.spool.segment-bytes:67108864}") int segmentBytes,
+            @Value("${ingestion.spool.max-segments:64}") int maxSegments,
+            @Value("${ingestion.spool.drain-batch-size:500}") int drainBatchSize,
+            KafkaPublisherService kafkaPublisher,
+            AdmissionControlService admissionControl,
+            MeterRegistry meterRegistry) {
+        if (!MODE_DIRECT.equals(deliveryMode) && !MODE_DURABLE_LOCAL.equals(deliveryMode)) {
+            throw new IllegalArgumentException("Unknown ingestion.delivery-mode: " + deliveryMode);
+        }
+        this.enabled = MODE_DURABLE_LOCAL.equals(deliveryMode);
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.drainBatchSize = drainBatchSize;
+        this.kafkaPublisher = kafkaPublisher;
+        this.admissionControl = admissionControl;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        spool = SpoolLog.open(directory, segmentBytes, maxSegments);
+
+        FunctionCounter.builder("ingestion.spool.appended", spooledCount, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.spool.drained", drainedCount, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("ingestion.spool.corrupt", corruptRecords, LongAdder::sum)
+            .description("Spool records dropped because they could not be decoded")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.spool.backlog", spool, SpoolLog::getBacklog)
+            .description("Spooled records not yet acked by Kafka")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.spool.segments", spool, SpoolLog::getSegmentCount)
+            .register(meterRegistry);
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "spool-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Durable-local delivery enabled, spooling to {}", directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        drainer.join(AppConstants.BATCH_TIMEOUT_MS);
+        if (drainer.isAlive()) {
+            drainer.interrupt();
+            drainer.join(AppConstants.BATCH_TIMEOUT_MS);
+        }
+        if (drainer.isAlive()) {
+            // Closing the segments under a running reader could hand it unmapped buffers
+            log.warn("Spool drainer did not stop, leaving the spool open");
+            return;
+        }
+        spool.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a transaction to the spool
+     *
+     * @return future completed once the transaction is on disk
+     * @throws AdmissionRejectedException if the spool is full
+     */
+    public CompletableFuture<Long> append(Transaction transaction) {
+        try {
+            CompletableFuture<Long> future = spool.append(TransactionCodec.encode(transaction));
+            spooledCount.increment();
+            return future;
+        } catch (SpoolFullException e) {
+            throw new AdmissionRejectedException(e.getMessage(), RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Append a chunk of transactions. Returns one future per transaction, in
+     * input order; a transaction the spool refuses gets an already-failed future.
+     */
+    public List<CompletableFuture<Long>> appendBatch(List<Transaction> transactions) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            try {
+                futures.add(append(transaction));
+            } catch (RuntimeException e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Get number of spooled transactions not yet acked by Kafka
+     */
+    public long getBacklog() {
+        return enabled ? spool.getBacklog() : 0;
+    }
+
+    /**
+     * Whether the spool stopped taking records after an fsync failure
+     */
+    public boolean isFailed() {
+        return enabled && spool.isFailed();
+    }
+
+    /**
+     * Get number of spooled transactions delivered to Kafka
+     */
+    public long getDrainedCount() {
+        return drainedCount.sum();
+    }
+
+    /**
+     * Get number of failed drain attempts
+     */
+    public long getDrainFailures() {
+        return drainFailures.sum();
+    }
+
+    private void drainLoop() {
+        List<byte[]> records = new ArrayList<>(drainBatchSize);
+        long[] sequences = new long[drainBatchSize];
+        List<Transaction> transactions = new ArrayList<>(drainBatchSize);
+        // Per record: index of its ack in the published chunk, or -1 if it was undecodable
+        int[] ackIndex = new int[drainBatchSize];
+        while (running) {
+            // Never offer more than admission control will take, or the tail is rejected every round
+            int permits = Math.min(drainBatchSize, admissionControl.getAvailablePermits());
+            records.clear();
+            if (permits <= 0 || spool.read(permits, records, sequences) < 0) {
+                sleep(IDLE_WAIT_MS);
+                continue;
+            }
+
+            transactions.clear();
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    transactions.add(TransactionCodec.decode(records.get(i)));
+                    ackIndex[i] = transactions.size() - 1;
+                } catch (IllegalArgumentException e) {
+                    // The record passed its CRC, so this is a codec mismatch; it can never be delivered
+                    corruptRecords.increment();
+                    ackIndex[i] = -1;
+                    log.error("Dropping undecodable spool record: {}", e.getMessage());
+                }
+            }
+
+            List<? extends CompletableFuture<?>> acks = kafkaPublisher.publishBatch(transactions);
+            long deadline = System.currentTimeMillis() + AppConstants.BATCH_TIMEOUT_MS;
+            int delivered = 0;
+            long committable = -1;
+            String failure = null;
+            for (int i = 0; i < records.size(); i++) {
+                if (ackIndex[i] >= 0) {
+                    try {
+                        acks.get(ackIndex[i]).get(Math.max(0, deadline - System.currentTimeMillis()),
+                            TimeUnit.MILLISECONDS);
+                        delivered++;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (ExecutionException e) {
+                        failure = e.getCause().getMessage();
+                        break;
+                    } catch (TimeoutException e) {
+                        failure = "no ack within " + AppConstants.BATCH_TIMEOUT_MS + "ms";
+                        break;
+                    }
+                }
+                committable = sequences[i];
+            }
+
+            if (committable >= 0) {
+                spool.commit(committable);
+                drainedCount.add(delivered);
+            }
+            if (failure != null) {
+                // Resend from the first unacked record once Kafka recovers
+                drainFailures.increment();
+                log.warn("Spool drain failed after {} of {} records, retrying in {}ms: {}",
+                    delivered, records.size(), AppConstants.RETRY_BACKOFF_MS, failure);
+                spool.rewind();
+                sleep(AppConstants.RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import com.saketh.simulator.ingestion.exception.DeliveryPendingException;
+import com.saketh.simulator.ingestion.exception.DuplicateInFlightException;
+import com.saketh.simulator.ingestion.exception.TransactionValidationException;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics.Stage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Streaming ingestion of newline-delimited JSON (NDJSON) bodies.
+ * <p>
+ * Records are framed on newlines straight from the request bytes into a
+ * buffer of at most {@code ingestion.stream.max-record-bytes}, and each
+ * frame is read by a Jackson {@link JsonParser} over that buffer, so heap
+ * use does not grow with the body or with any single line. A malformed or
+ * oversized record only rejects its own line.
+ * <p>
+ * Each line gets a result as soon as it is handed to the producer;
+ * {@code accepted} there means enqueued (or spooled in durable-local mode),
+ * not yet acknowledged by the broker. The closing summary waits up to
+ * {@link AppConstants#BATCH_TIMEOUT_MS} for the acknowledgements and
+ * reports which accepted records were not delivered.
+ */
+@Service
+@Slf4j
+public class StreamingIngestionService {
+
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final TransactionIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader transactionReader;
+    private final IngestionMetrics metrics;
+    private final int maxRecordBytes;
+
+    public StreamingIngestionService(TransactionIngestionService ingestionService,
+                                     ObjectMapper objectMapper,
+                                     IngestionMetrics metrics,
+                                     @Value("${ingestion.stream.max-record-bytes:65536}") int maxRecordBytes) {
+        this.ingestionService = ingestionService;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.maxRecordBytes = maxRecordBytes;
+        this.transactionReader = objectMapper.readerFor(Transaction.class);
+    }
+
+    /**
+     * Ingest every line of the NDJSON input, writing one result line per
+     * input line followed by a summary line
+     */
+    public void ingestStream(InputStream input, OutputStream output) throws IOException {
+        RecordFramer framer = new RecordFramer(input, maxRecordBytes);
+        // Lines are separated by the newlines written below, not Jackson's default root separator
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+            .setRootValueSeparator(null);
+        Deliveries deliveries = new Deliveries();
+
+        long lineNumber = 0;
+        long totalReceived = 0;
+        long successCount = 0;
+        long unflushed = 0;
+
+        while (framer.next()) {
+            lineNumber++;
+            if (framer.isBlank()) {
+                continue;
+            }
+            totalReceived++;
+
+            Transaction transaction = null;
+            String error;
+            if (framer.isOversized()) {
+                error = "Record exceeds " + maxRecordBytes + " bytes";
+            } else {
+                try {
+                    transaction = parse(framer.record(), framer.length());
+                    // Validation happens inside submitTransaction, after enrichment
+                    deliveries.track(transaction, ingestionService.submitTransaction(transaction));
+                    error = null;
+                } catch (Exception e) {
+                    error = describe(e);
+                }
+            }
+
+            if (error == null) {
+                successCount++;
+            } else {
+                log.debug("Rejected NDJSON line {}: {}", lineNumber, error);
+            }
+            writeLineResult(generator, lineNumber, transaction, error);
+
+            // Flush when the client has nothing more buffered, so results stream back incrementally
+            if (++unflushed >= AppConstants.BATCH_SIZE || !framer.hasBuffered()) {
+                generator.flush();
+                unflushed = 0;
+            }
+        }
+        generator.flush();
+
+        boolean settled = deliveries.await(AppConstants.BATCH_TIMEOUT_MS);
+
+        generator.writeStartObject();
+        generator.writeBooleanField("summary", true);
+        generator.writeNumberField("totalReceived", totalReceived);
+        generator.writeNumberField("successCount", successCount);
+        deliveries.writeSummary(generator, settled);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+
+        log.info("Streaming ingestion completed: {}/{} accepted, {} acknowledged",
+            successCount, totalReceived, deliveries.getAcknowledged());
+    }
+
+    /**
+     * Write the single line answering a stream that was turned away before
+     * any record was read
+     */
+    public void writeRejection(OutputStream output, String error) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.writeStartObject();
+        generator.writeBooleanField("success", false);
+        generator.writeStringField("error", error);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private Transaction parse(byte[] record, int length) throws IOException {
+        long parseStart = System.nanoTime();
+        try (JsonParser parser = objectMapper.getFactory().createParser(record, 0, length)) {
+            Transaction transaction = transactionReader.readValue(parser);
+            if (transaction == null) {
+                throw new InvalidRecordException("Empty record");
+            }
+            if (parser.nextToken() != null) {
+                throw new InvalidRecordException("Unexpected content after the record");
+            }
+            metrics.recordSince(Stage.PARSE, parseStart);
+            return transaction;
+        }
+    }
+
+    /**
+     * Client-facing reason for a rejected line. Parser and internal
+     * exception messages are not echoed, they can quote the input or
+     * describe server internals.
+     */
+    private static String describe(Exception e) {
+        if (e instanceof TransactionValidationException || e instanceof AdmissionRejectedException
+                || e instanceof DuplicateInFlightException || e instanceof DeliveryPendingException
+                || e instanceof InvalidRecordException) {
+            return e.getMessage();
+        }
+        if (e instanceof JsonParseException) {
+            return "Malformed JSON at column " + ((JsonParseException) e).getLocation().getColumnNr();
+        }
+        if (e instanceof JsonMappingException) {
+            List<JsonMappingException.Reference> path = ((JsonMappingException) e).getPath();
+            String field = path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+            return field == null ? "Invalid record" : "Invalid value for field '" + field + "'";
+        }
+        if (e instanceof JsonProcessingException) {
+            return "Invalid record";
+        }
+        log.warn("Failed to ingest NDJSON record: {}", e.getMessage(), e);
+        return "Internal error";
+    }
+
+    private void writeLineResult(JsonGenerator generator, long lineNumber,
+                                 Transaction transaction, String error) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("line", lineNumber);
+        generator.writeBooleanField("accepted", error == null);
+        if (transaction != null && transaction.getTransactionId() != null) {
+            generator.writeStringField("transactionId", transaction.getTransactionId());
+        }
+        if (error != null) {
+            generator.writeStringField("error", error);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Broker acknowledgements of the accepted records of one stream.
+     * Keeps counts and a bounded list of failed ids rather than the futures.
+     */
+    private static final class Deliveries {
+
+        private long pending;
+        private long acknowledged;
+        private long failed;
+        private final List<String> failedIds = new ArrayList<>();
+
+        synchronized void track(Transaction transaction, CompletableFuture<?> delivery) {
+            pending++;
+            delivery.whenComplete((result, ex) -> complete(transaction.getTransactionId(), ex == null));
+        }
+
+        private synchronized void complete(String transactionId, boolean delivered) {
+            pending--;
+            if (delivered) {
+                acknowledged++;
+            } else {
+                failed++;
+                if (failedIds.size() < MAX_REPORTED_FAILURES) {
+                    failedIds.add(transactionId);
+                }
+            }
+            if (pending == 0) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Wait until every tracked record is acknowledged or failed
+         *
+         * @return false if some were still pending at the timeout
+         */
+        synchronized boolean await(long timeoutMs) {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            try {
+                while (pending > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+
+        synchronized long getAcknowledged() {
+            return acknowledged;
+        }
+
+        synchronized void writeSummary(JsonGenerator generator, boolean settled) throws IOException {
+            generator.writeNumberField("acknowledgedCount", acknowledged);
+            generator.writeNumberField("deliveryFailedCount", failed);
+            generator.writeNumberField("unacknowledgedCount", pending);
+            generator.writeArrayFieldStart("deliveryFailedTransactionIds");
+            for (String transactionId : failedIds) {
+                generator.writeString(transactionId);
+            }
+            generator.writeEndArray();
+            if (!settled) {
+                log.warn("{} streamed records still unacknowledged after {} ms",
+                    pending, AppConstants.BATCH_TIMEOUT_MS);
+            }
+        }
+    }
+
+    /**
+     * Splits the body into newline-terminated records, copying each into a
+     * reused buffer of at most the record size limit. The bytes of an
+     * oversized record are read and dropped up to its newline.
+     */
+    private static final class RecordFramer {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private final byte[] record;
+        private int position;
+        private int limit;
+        private int length;
+        private boolean oversized;
+
+        RecordFramer(InputStream in, int maxRecordBytes) {
+            this.in = in;
+            this.record = new byte[maxRecordBytes];
+        }
+
+        /**
+         * Frame the next record
+         *
+         * @return false at the end of the body
+         */
+        boolean next() throws IOException {
+            length = 0;
+            oversized = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return any;
+                    }
+                }
+                any = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position - start);
+                if (position < limit) {
+                    position++;
+                    return true;
+                }
+            }
+        }
+
+        private void append(int start, int count) {
+            int room = record.length - length;
+            if (count > room) {
+                oversized = true;
+                count = room;
+            }
+            System.arraycopy(buffer, start, record, length, count);
+            length += count;
+        }
+
+        boolean isBlank() {
+            if (oversized) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                byte b = record[i];
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isOversized() {
+            return oversized;
+        }
+
+        byte[] record() {
+            return record;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Whether more of the body can be read without blocking
+         */
+        boolean hasBuffered() throws IOException {
+            return position < limit || in.available() > 0;
+        }
+    }
+
+    /**
+     * A record that parsed but is not a single transaction
+     */
+    private static final class InvalidRecordException extends RuntimeException {
+
+        InvalidRecordException(String message) {
+            super(message);
+        }
+    }
+}
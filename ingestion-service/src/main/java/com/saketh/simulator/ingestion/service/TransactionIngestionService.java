@@ -1,15 +1,35 @@
 package com.saketh.simulator.ingestion.service;
 
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.validation.TransactionValidator;
+import com.saketh.simulator.common.validation.ValidationError;
 import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor.BatchResult;
+import com.saketh.simulator.common.trace.TraceClock;
+import com.saketh.simulator.ingestion.dto.BatchIngestionResult;
+import com.saketh.simulator.ingestion.exception.AdmissionRejectedException;
+import com.saketh.simulator.ingestion.exception.DeliveryPendingException;
+import com.saketh.simulator.ingestion.exception.DuplicateInFlightException;
+import com.saketh.simulator.ingestion.exception.TransactionValidationException;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics.Stage;
+import com.saketh.simulator.ingestion.service.IdempotencyService.Claim;
+import com.saketh.simulator.ingestion.service.IdempotencyService.ClaimState;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service layer for transaction ingestion business logic.
@@ -21,20 +41,36 @@ import java.util.concurrent.atomic.AtomicLong;
 public class TransactionIngestionService {
 
     private final KafkaPublisherService kafkaPublisher;
+    private final IdempotencyService idempotencyService;
+    private final AdmissionControlService admissionControl;
+    private final VelocityService velocityService;
+    private final SpoolService spoolService;
+    private final IngestionMetrics metrics;
+    private final KeyOrderedExecutor batchWorkers;
 
-    // In-memory counters for statistics (will be replaced with proper metrics)
-    private final AtomicLong totalReceived = new AtomicLong(0);
-    private final AtomicLong totalPublished = new AtomicLong(0);
-    private final AtomicLong totalFailed = new AtomicLong(0);
+    private static final String ACCEPTED_MESSAGE = "Transaction accepted and published for processing";
 
     /**
      * Ingest a single transaction
      */
     public String ingestTransaction(Transaction transaction) {
+        submitTransaction(transaction);
+        return ACCEPTED_MESSAGE;
+    }
+
+    /**
+     * Ingest a single transaction and return its delivery: the broker
+     * acknowledgement in direct mode, already complete once the transaction
+     * is spooled in durable-local mode or was delivered before.
+     *
+     * @throws DuplicateInFlightException if an earlier copy is still being published
+     */
+    public CompletableFuture<?> submitTransaction(Transaction transaction) {
         log.debug("Processing transaction: {}", transaction.getTransactionId());
+        long ingestMicros = TraceClock.nowMicros();
         
         // Increment received counter
-        totalReceived.incrementAndGet();
+        metrics.received(1);
         
         // Enrich transaction with processing metadata
         enrichTransaction(transaction);
@@ -42,55 +78,236 @@ public class TransactionIngestionService {
         // Validate transaction (basic validation)
         validateTransaction(transaction);
         
-        // Publish to Kafka asynchronously
+        // Retries of a delivered transaction get the original response; the
+        // outcome of one still in flight is not known yet
+        Claim claim = idempotencyService.claim(transaction.getTransactionId());
+        if (claim.getState() == ClaimState.IN_FLIGHT) {
+            throw new DuplicateInFlightException(transaction.getTransactionId());
+        }
+        if (claim.getState() == ClaimState.DELIVERED) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        // Count against the user's velocity limits; a rejection frees the claim for a later retry
+        long recordedAt;
         try {
-            kafkaPublisher.publishTransaction(transaction);
-            totalPublished.incrementAndGet();
-            log.info("Transaction {} published to Kafka successfully", 
-                transaction.getTransactionId());
+            recordedAt = velocityService.record(transaction);
+        } catch (TransactionValidationException e) {
+            metrics.failed(1);
+            idempotencyService.release(transaction.getTransactionId(), e);
+            throw e;
+        }
+        
+        // Publish to Kafka asynchronously, or acknowledge once spooled to local disk
+        CompletableFuture<?> delivery;
+        try {
+            if (spoolService.isEnabled()) {
+                // The claim resolves with the write, even if that is after this request gives up on it
+                delivery = spoolService.append(transaction)
+                    .whenComplete((result, ex) -> settle(transaction, recordedAt, ex));
+                awaitSpooled(transaction, delivery);
+                log.info("Transaction {} spooled for publishing", transaction.getTransactionId());
+            } else {
+                delivery = kafkaPublisher.publishTransaction(transaction, ingestMicros)
+                    .whenComplete((result, ex) -> settle(transaction, recordedAt, ex));
+                log.info("Transaction {} published to Kafka successfully", 
+                    transaction.getTransactionId());
+            }
+            metrics.accepted(1);
+        } catch (AdmissionRejectedException e) {
+            metrics.failed(1);
+            settle(transaction, recordedAt, e);
+            throw e;
+        } catch (DeliveryPendingException | SpoolWriteException e) {
+            // Settled by the write itself
+            metrics.failed(1);
+            throw e;
         } catch (Exception e) {
-            totalFailed.incrementAndGet();
+            metrics.failed(1);
+            settle(transaction, recordedAt, e);
             log.error("Failed to publish transaction {} to Kafka: {}", 
                 transaction.getTransactionId(), e.getMessage(), e);
             throw new RuntimeException("Failed to publish transaction: " + e.getMessage(), e);
         }
         
-        return "Transaction accepted and published for processing";
+        return delivery;
+    }
+
+    /**
+     * Wait up to {@link AppConstants#BATCH_TIMEOUT_MS} for a spool write
+     *
+     * @throws DeliveryPendingException if the write is still queued for fsync
+     * @throws SpoolWriteException if the write failed
+     */
+    private void awaitSpooled(Transaction transaction, CompletableFuture<?> spooled) {
+        try {
+            spooled.get(AppConstants.BATCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Transaction {} still not spooled after {} ms",
+                transaction.getTransactionId(), AppConstants.BATCH_TIMEOUT_MS);
+            throw new DeliveryPendingException(transaction.getTransactionId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryPendingException(transaction.getTransactionId());
+        } catch (ExecutionException e) {
+            log.error("Failed to spool transaction {}: {}",
+                transaction.getTransactionId(), e.getCause().getMessage(), e.getCause());
+            throw new SpoolWriteException(e.getCause());
+        }
     }
 
     /**
-     * Ingest multiple transactions in batch
+     * Ingest multiple transactions in batch.
+     * Chunks of {@link AppConstants#BATCH_SIZE} are enriched, validated and
+     * handed to the producer in parallel on the shared batch worker lanes.
+     * The whole batch, chunks and broker acknowledgements alike, has
+     * {@link AppConstants#BATCH_TIMEOUT_MS}: a chunk still queued then is
+     * dropped and a transaction not acknowledged by then counts as failed.
      */
-    public int ingestBatch(List<Transaction> transactions) {
+    public BatchIngestionResult ingestBatch(List<Transaction> transactions) {
         log.info("Processing batch of {} transactions", transactions.size());
+        long ingestMicros = TraceClock.nowMicros();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AppConstants.BATCH_TIMEOUT_MS);
+        
+        metrics.received(transactions.size());
+        
+        List<List<Transaction>> chunks = new ArrayList<>();
+        for (int from = 0; from < transactions.size(); from += AppConstants.BATCH_SIZE) {
+            chunks.add(transactions.subList(from, Math.min(from + AppConstants.BATCH_SIZE, transactions.size())));
+        }
+        BatchResult<List<CompletableFuture<?>>> published = batchWorkers.processBatch(chunks, chunk -> null,
+            chunk -> publishChunk(chunk, ingestMicros), AppConstants.BATCH_TIMEOUT_MS);
+        
+        List<CompletableFuture<?>> acks = new ArrayList<>(transactions.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            if (published.isCompleted(i)) {
+                acks.addAll(published.getResults().get(i));
+            } else {
+                // A chunk that was already running settles its own claims when its sends finish
+                CompletableFuture<?> failed = CompletableFuture.failedFuture(published.getFirstFailure());
+                chunks.get(i).forEach(transaction -> acks.add(failed));
+            }
+        }
+        if (!published.isComplete()) {
+            log.warn("Batch chunks not published: {}", published.getFirstFailure().getMessage());
+        }
+        
+        awaitAcks(acks, deadlineNanos);
+        
+        List<String> failedIds = new ArrayList<>();
+        for (int i = 0; i < acks.size(); i++) {
+            CompletableFuture<?> ack = acks.get(i);
+            if (!ack.isDone() || ack.isCompletedExceptionally()) {
+                failedIds.add(transactions.get(i).getTransactionId());
+            }
+        }
         
-        int successCount = 0;
-        for (Transaction transaction : transactions) {
+        int successCount = transactions.size() - failedIds.size();
+        metrics.accepted(successCount);
+        metrics.failed(failedIds.size());
+        
+        return BatchIngestionResult.builder()
+            .totalReceived(transactions.size())
+            .successCount(successCount)
+            .failedCount(failedIds.size())
+            .failedTransactionIds(failedIds)
+            .build();
+    }
+
+    /**
+     * Enrich and validate a chunk, then publish the valid transactions.
+     * Returns one ack future per input transaction, in input order.
+     */
+    private List<CompletableFuture<?>> publishChunk(List<Transaction> chunk, long ingestMicros) {
+        List<CompletableFuture<?>> acks = new ArrayList<>(chunk.size());
+        List<Transaction> valid = new ArrayList<>(chunk.size());
+        List<Long> recordedAt = new ArrayList<>(chunk.size());
+        List<Integer> validIndexes = new ArrayList<>(chunk.size());
+        
+        for (Transaction transaction : chunk) {
             try {
-                ingestTransaction(transaction);
-                successCount++;
+                enrichTransaction(transaction);
+                validateTransaction(transaction);
+                Claim claim = idempotencyService.claim(transaction.getTransactionId());
+                if (claim.getState() != ClaimState.CLAIMED) {
+                    // Sent earlier: report the original's outcome, waiting for it if still in flight
+                    acks.add(claim.getState() == ClaimState.IN_FLIGHT
+                        ? claim.getInFlight() : CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                try {
+                    recordedAt.add(velocityService.record(transaction));
+                } catch (TransactionValidationException e) {
+                    idempotencyService.release(transaction.getTransactionId(), e);
+                    throw e;
+                }
+                validIndexes.add(acks.size());
+                valid.add(transaction);
+                acks.add(null);
             } catch (Exception e) {
                 log.error("Failed to process transaction {} in batch: {}", 
                     transaction.getTransactionId(), e.getMessage());
-                totalFailed.incrementAndGet();
+                acks.add(CompletableFuture.failedFuture(e));
             }
         }
         
-        return successCount;
+        List<? extends CompletableFuture<?>> sent = spoolService.isEnabled()
+            ? spoolService.appendBatch(valid)
+            : kafkaPublisher.publishBatch(valid, ingestMicros);
+        for (int i = 0; i < sent.size(); i++) {
+            Transaction transaction = valid.get(i);
+            long recorded = recordedAt.get(i);
+            acks.set(validIndexes.get(i), sent.get(i)
+                .whenComplete((result, ex) -> settle(transaction, recorded, ex)));
+        }
+        return acks;
+    }
+
+    /**
+     * Resolve the idempotency claim of a transaction once its publish is
+     * done, giving it up if the publish failed
+     */
+    private void settle(Transaction transaction, long recordedAt, Throwable ex) {
+        if (ex == null) {
+            idempotencyService.confirm(transaction.getTransactionId());
+        } else {
+            idempotencyService.release(transaction.getTransactionId(), ex);
+            velocityService.undo(transaction, recordedAt);
+        }
+    }
+
+    /**
+     * Wait for all acknowledgements up to the batch deadline.
+     * Failures are read back from the individual futures by the caller.
+     */
+    private void awaitAcks(List<CompletableFuture<?>> acks, long deadlineNanos) {
+        try {
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0]))
+                .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Batch acknowledgements timed out after {} ms", AppConstants.BATCH_TIMEOUT_MS);
+        } catch (ExecutionException e) {
+            log.debug("Batch completed with failures: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for batch acknowledgements");
+        }
     }
 
     /**
      * Enrich transaction with additional metadata
      */
     private void enrichTransaction(Transaction transaction) {
+        long startNanos = System.nanoTime();
+        
         // Set timestamp if not provided
         if (transaction.getTimestamp() == null) {
             transaction.setTimestamp(LocalDateTime.now());
         }
         
         // Set default status if not provided
-        if (transaction.getStatus() == null || transaction.getStatus().isEmpty()) {
-            transaction.setStatus("PENDING");
+        if (transaction.getStatus() == null) {
+            transaction.setStatus(TransactionStatus.PENDING);
         }
         
         // Set default currency if not provided
@@ -98,6 +315,7 @@ public class TransactionIngestionService {
             transaction.setCurrency("USD");
         }
         
+        metrics.recordSince(Stage.ENRICH, startNanos);
         log.debug("Transaction {} enriched with metadata", transaction.getTransactionId());
     }
 
@@ -105,16 +323,14 @@ public class TransactionIngestionService {
      * Validate transaction business rules
      */
     private void validateTransaction(Transaction transaction) {
-        // Basic validation (Bean Validation handles most of this)
-        if (transaction.getAmount() == null) {
-            throw new IllegalArgumentException("Transaction amount cannot be null");
-        }
-        
-        if (transaction.getAmount().doubleValue() <= 0) {
-            throw new IllegalArgumentException("Transaction amount must be positive");
+        long startNanos = System.nanoTime();
+        ValidationError error = TransactionValidator.validate(transaction);
+        metrics.recordSince(Stage.VALIDATE, startNanos);
+        if (error != null) {
+            throw new TransactionValidationException(error);
         }
         
-        if (transaction.getAmount().doubleValue() > 100000) {
+        if (TransactionValidator.isHighValue(transaction)) {
             log.warn("High-value transaction detected: {} - Amount: {}", 
                 transaction.getTransactionId(), transaction.getAmount());
         }
@@ -123,26 +339,48 @@ public class TransactionIngestionService {
     }
 
     /**
-     * Get ingestion statistics
+     * Get ingestion statistics, with p50/p99/p99.9 latency per stage
      */
     public Map<String, Object> getStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalReceived", totalReceived.get());
-        stats.put("totalPublished", totalPublished.get());
-        stats.put("totalFailed", totalFailed.get());
-        stats.put("kafkaPublished", kafkaPublisher.getPublishedCount());
-        stats.put("kafkaFailed", kafkaPublisher.getFailedCount());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalReceived", metrics.getReceived());
+        stats.put("totalPublished", metrics.getAccepted());
+        stats.put("totalFailed", metrics.getFailed());
+        stats.put("kafkaPublished", metrics.getKafkaAcked());
+        stats.put("kafkaFailed", metrics.getKafkaFailed());
+        stats.put("duplicatesDropped", idempotencyService.getHitCount());
+        stats.put("duplicateRate", idempotencyService.getHitRate());
+        stats.put("admissionLimit", admissionControl.getRecordLimit());
+        stats.put("admissionRejected", admissionControl.getRejectedCount());
+        stats.put("velocityRejected", velocityService.getRejectedCount());
+        if (spoolService.isEnabled()) {
+            stats.put("spoolBacklog", spoolService.getBacklog());
+            stats.put("spoolDrained", spoolService.getDrainedCount());
+            stats.put("spoolDrainFailures", spoolService.getDrainFailures());
+            stats.put("spoolFailed", spoolService.isFailed());
+        }
         stats.put("successRate", calculateSuccessRate());
+        stats.put("latency", metrics.getLatencySnapshot());
         stats.put("timestamp", LocalDateTime.now().toString());
         
         return stats;
     }
 
     private double calculateSuccessRate() {
-        long received = totalReceived.get();
+        long received = metrics.getReceived();
         if (received == 0) {
             return 100.0;
         }
-        return (totalPublished.get() * 100.0) / received;
+        return (metrics.getAccepted() * 100.0) / received;
+    }
+
+    /**
+     * A spool write that failed after its claim was already released
+     */
+    private static final class SpoolWriteException extends RuntimeException {
+
+        SpoolWriteException(Throwable cause) {
+            super("Failed to spool transaction: " + cause.getMessage(), cause);
+        }
     }
 }
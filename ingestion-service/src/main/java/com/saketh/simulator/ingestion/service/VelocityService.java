@@ -0,0 +1,132 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.validation.ValidationError;
+import com.saketh.simulator.common.velocity.VelocityLimits;
+import com.saketh.simulator.common.velocity.VelocityStats;
+import com.saketh.simulator.common.velocity.VelocityTracker;
+import com.saketh.simulator.common.velocity.VelocityWindow;
+import com.saketh.simulator.ingestion.exception.TransactionValidationException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user velocity limits on ingested transactions.
+ * Enforces {@link AppConstants#MAX_DAILY_TRANSACTIONS} (and optional per-minute
+ * and per-hour count limits, and per-window amount limits) from an in-memory
+ * {@link VelocityTracker}, without a database round-trip.
+ * <p>
+ * Amount limits are in minor units summed at nominal value across currencies.
+ * Each tracked user costs about 850 bytes of heap (42 buckets in three
+ * primitive arrays, plus the map entry and id), so size
+ * {@code ingestion.velocity.max-users} at roughly 85MB per 100k users.
+ */
+@Service
+@Slf4j
+public class VelocityService {
+
+    private final boolean enabled;
+    private final VelocityTracker tracker;
+    private final VelocityLimits limits;
+    private final ThreadLocal<VelocityStats> stats = ThreadLocal.withInitial(VelocityStats::new);
+
+    // Metrics
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public VelocityService(
+            @Value("${ingestion.velocity.enabled:true}") boolean enabled,
+            @Value("${ingestion.velocity.max-users:100000}") int maxUsers,
+            @Value("${ingestion.velocity.max-per-minute:0}") int maxPerMinute,
+            @Value("${ingestion.velocity.max-per-hour:0}") int maxPerHour,
+            @Value("${ingestion.velocity.max-per-day:" + AppConstants.MAX_DAILY_TRANSACTIONS + "}") int maxPerDay,
+            @Value("${ingestion.velocity.max-amount-per-minute:0}") long maxAmountPerMinute,
+            @Value("${ingestion.velocity.max-amount-per-hour:0}") long maxAmountPerHour,
+            @Value("${ingestion.velocity.max-amount-per-day:0}") long maxAmountPerDay,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.tracker = new VelocityTracker(maxUsers);
+        this.limits = new VelocityLimits();
+        if (maxPerMinute > 0) {
+            limits.maxCount(VelocityWindow.ONE_MINUTE, maxPerMinute);
+        }
+        if (maxPerHour > 0) {
+            limits.maxCount(VelocityWindow.ONE_HOUR, maxPerHour);
+        }
+        if (maxPerDay > 0) {
+            limits.maxCount(VelocityWindow.ONE_DAY, maxPerDay);
+        }
+        if (maxAmountPerMinute > 0) {
+            limits.maxAmount(VelocityWindow.ONE_MINUTE, maxAmountPerMinute);
+        }
+        if (maxAmountPerHour > 0) {
+            limits.maxAmount(VelocityWindow.ONE_HOUR, maxAmountPerHour);
+        }
+        if (maxAmountPerDay > 0) {
+            limits.maxAmount(VelocityWindow.ONE_DAY, maxAmountPerDay);
+        }
+
+        FunctionCounter.builder("ingestion.velocity.rejected", rejectedCount, LongAdder::sum)
+            .description("Transactions rejected by velocity limits")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.velocity.users", tracker, VelocityTracker::size)
+            .description("Users with velocity state in memory")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Count a transaction against its user's velocity.
+     *
+     * @return the time it was recorded at, to hand back to {@link #undo}
+     * @throws TransactionValidationException if a velocity limit is exceeded
+     */
+    public long record(Transaction transaction) {
+        long now = System.currentTimeMillis();
+        if (!enabled) {
+            return now;
+        }
+        VelocityWindow exceeded = tracker.tryRecord(transaction.getUserId(), amountOf(transaction), now,
+            limits, stats.get());
+        if (exceeded != null) {
+            rejectedCount.increment();
+            log.warn("Velocity limit for {} exceeded by user {} on transaction {}",
+                exceeded, transaction.getUserId(), transaction.getTransactionId());
+            throw new TransactionValidationException(ValidationError.VELOCITY_LIMIT_EXCEEDED);
+        }
+        return now;
+    }
+
+    /**
+     * Take back a transaction that was recorded but could not be published
+     */
+    public void undo(Transaction transaction, long recordedAtMillis) {
+        if (enabled) {
+            tracker.undo(transaction.getUserId(), amountOf(transaction), recordedAtMillis);
+        }
+    }
+
+    /**
+     * Read a user's current velocity, e.g. as input to rule-based scoring
+     */
+    public void peek(String userId, VelocityStats out) {
+        tracker.peek(userId, System.currentTimeMillis(), out);
+    }
+
+    /**
+     * Get number of transactions rejected by velocity limits
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private static long amountOf(Transaction transaction) {
+        return Money.toMinorUnits(transaction.getAmount(), transaction.getCurrency());
+    }
+}
@@ -0,0 +1,12 @@
+package com.saketh.simulator.ingestion.spool;
+
+/**
+ * Thrown when the spool has reached its size limit and cannot take more
+ * records until the drainer catches up.
+ */
+public class SpoolFullException extends RuntimeException {
+
+    public SpoolFullException(String message) {
+        super(message);
+    }
+}
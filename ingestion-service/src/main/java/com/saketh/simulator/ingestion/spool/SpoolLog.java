@@ -0,0 +1,374 @@
+package com.saketh.simulator.ingestion.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead log of records on local disk.
+ * <p>
+ * Records get consecutive sequence numbers and are written into a chain of
+ * memory-mapped {@link SpoolSegment}s. Appends only copy into the mapping;
+ * a single flusher thread forces dirty segments to disk and completes every
+ * append covered by that fsync, so concurrent appends share one fsync
+ * (group commit). A single reader consumes durable records in order and
+ * {@link #commit}s them once delivered; fully committed segments are
+ * deleted. The committed sequence is kept in a small checkpoint file, so
+ * after a crash reading resumes at the first uncommitted record; records
+ * may be delivered again if the checkpoint was not yet written back.
+ * <p>
+ * A failed fsync leaves the state of the page cache unknown, so the spool
+ * fails stop: the records of that flush and every later append are failed,
+ * and readers never see past the last durable record.
+ */
+@Slf4j
+public class SpoolLog implements Closeable {
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    // Oldest first; the last one is appended to
+    private final List<SpoolSegment> segments = new ArrayList<>();
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+    private final Thread flusher;
+
+    // Guarded by this
+    private long nextSequence;
+    private List<PendingAppend> pending = new ArrayList<>();
+    private final List<SpoolSegment> unflushed = new ArrayList<>();
+    private boolean closed;
+    private RuntimeException failure;
+
+    private volatile long durableSequence;
+    private volatile long committedSequence;
+
+    // Reader cursor, guarded by this
+    private SpoolSegment readSegment;
+    private int readPosition;
+    private long readSequence;
+
+    private SpoolLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+
+        Files.createDirectories(directory);
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+        long committed = checkpoint.getLong(0);
+        this.committedSequence = checkpoint.getLong(8) == ~committed ? committed : 0;
+
+        recover();
+
+        this.flusher = new Thread(this::flushLoop, "spool-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Open the spool in a directory, recovering any records left by a
+     * previous run
+     *
+     * @param segmentBytes size of each segment file
+     * @param maxSegments  segments allowed on disk before appends are refused
+     */
+    public static SpoolLog open(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        return new SpoolLog(directory, segmentBytes, maxSegments);
+    }
+
+    /**
+     * Append a record.
+     *
+     * @return future completed with the record's sequence once it is on disk
+     * @throws SpoolFullException if the spool has reached its size limit
+     */
+    public CompletableFuture<Long> append(byte[] payload) {
+        if (payload.length == 0 || payload.length > segmentBytes - SpoolSegment.HEADER_BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment");
+        }
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Spool is closed");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Spool is unavailable after an fsync failure");
+            }
+            long sequence = nextSequence;
+            SpoolSegment active = segments.get(segments.size() - 1);
+            if (!active.append(sequence, payload)) {
+                active = roll(sequence);
+                active.append(sequence, payload);
+            }
+            nextSequence++;
+            if (unflushed.isEmpty() || unflushed.get(unflushed.size() - 1) != active) {
+                unflushed.add(active);
+            }
+            pending.add(new PendingAppend(sequence, future));
+            if (pending.size() == 1) {
+                notifyAll();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Read up to {@code maxRecords} durable records after the last one read.
+     *
+     * @param sequences filled with the sequence of each record added to
+     *                  {@code out}, at the same index; at least {@code maxRecords} long
+     * @return sequence of the last record added to {@code out}, or -1 if none
+     */
+    public synchronized long read(int maxRecords, List<byte[]> out, long[] sequences) {
+        long last = -1;
+        int count = 0;
+        while (count < maxRecords && readSequence < durableSequence) {
+            if (readSegment == null) {
+                readSegment = segments.get(0);
+                readPosition = 0;
+            }
+            if (readPosition >= readSegment.getWritePosition()) {
+                int index = segments.indexOf(readSegment);
+                if (index + 1 >= segments.size()) {
+                    break;
+                }
+                readSegment = segments.get(index + 1);
+                readPosition = 0;
+                continue;
+            }
+            long sequence = readSegment.sequenceAt(readPosition);
+            if (sequence > readSequence) {
+                sequences[count] = sequence;
+                out.add(readSegment.payloadAt(readPosition));
+                readSequence = sequence;
+                last = sequence;
+                count++;
+            }
+            readPosition = readSegment.nextPosition(readPosition);
+        }
+        return last;
+    }
+
+    /**
+     * Move the reader back to the first uncommitted record, e.g. after a
+     * failed delivery
+     */
+    public synchronized void rewind() {
+        readSegment = null;
+        readSequence = committedSequence;
+    }
+
+    /**
+     * Mark every record up to {@code sequence} as delivered and delete
+     * segments that hold only delivered records
+     */
+    public void commit(long sequence) {
+        List<SpoolSegment> deletable = new ArrayList<>();
+        synchronized (this) {
+            if (sequence <= committedSequence) {
+                return;
+            }
+            committedSequence = sequence;
+            checkpoint.putLong(0, sequence);
+            checkpoint.putLong(8, ~sequence);
+            while (segments.size() > 1 && segments.get(0).getLastSequence() <= sequence) {
+                SpoolSegment segment = segments.remove(0);
+                if (segment == readSegment) {
+                    readSegment = null;
+                }
+                deletable.add(segment);
+            }
+        }
+        if (!deletable.isEmpty()) {
+            // Deleted records must never be replayed
+            checkpoint.force();
+            for (SpoolSegment segment : deletable) {
+                try {
+                    segment.delete();
+                } catch (IOException e) {
+                    log.warn("Failed to delete spool segment {}: {}", segment.getBaseSequence(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records on disk that are not yet committed
+     */
+    public long getBacklog() {
+        return durableSequence - committedSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long getCommittedSequence() {
+        return committedSequence;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Whether an fsync failed, after which no more records are accepted
+     */
+    public synchronized boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Flush outstanding appends and close the segment files
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            checkpoint.force();
+            checkpointChannel.close();
+            for (SpoolSegment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    private SpoolSegment roll(long baseSequence) {
+        if (segments.size() >= maxSegments) {
+            throw new SpoolFullException("Spool is full (" + segments.size() + " segments)");
+        }
+        try {
+            SpoolSegment segment = SpoolSegment.create(directory, baseSequence, segmentBytes);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new SpoolFullException("Failed to create spool segment: " + e.getMessage());
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<PendingAppend> batch;
+            List<SpoolSegment> dirty;
+            RuntimeException failed;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                dirty = new ArrayList<>(unflushed);
+                unflushed.clear();
+                failed = failure;
+            }
+
+            if (failed == null) {
+                try {
+                    for (SpoolSegment segment : dirty) {
+                        segment.force();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Spool fsync failed for {} records, refusing further appends: {}",
+                        batch.size(), e.getMessage(), e);
+                    synchronized (this) {
+                        failure = e;
+                    }
+                    failed = e;
+                }
+            }
+            if (failed != null) {
+                // Covered by a failed fsync or appended after it; durableSequence must not move past them
+                for (PendingAppend append : batch) {
+                    append.future.completeExceptionally(failed);
+                }
+                continue;
+            }
+
+            durableSequence = batch.get(batch.size() - 1).sequence;
+            for (PendingAppend append : batch) {
+                append.future.complete(append.sequence);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                .filter(path -> path.getFileName().toString().endsWith(SpoolSegment.SUFFIX))
+                .sorted()
+                .toList();
+        }
+
+        long lastSequence = committedSequence;
+        for (Path file : files) {
+            SpoolSegment segment = SpoolSegment.recover(file);
+            if (segment.isEmpty() || segment.getLastSequence() <= committedSequence) {
+                segment.delete();
+                continue;
+            }
+            if (!segments.isEmpty() && segment.getBaseSequence() != lastSequence + 1) {
+                log.warn("Spool gap before segment {}: last recovered sequence was {}",
+                    segment.getBaseSequence(), lastSequence);
+            }
+            segments.add(segment);
+            lastSequence = segment.getLastSequence();
+        }
+
+        // Never append after a possibly torn tail: start a fresh segment
+        nextSequence = lastSequence + 1;
+        segments.add(SpoolSegment.create(directory, nextSequence, segmentBytes));
+        durableSequence = lastSequence;
+        readSequence = committedSequence;
+
+        if (lastSequence > committedSequence) {
+            log.info("Recovered {} undelivered spool records in {} segments",
+                lastSequence - committedSequence, segments.size() - 1);
+        }
+    }
+
+    private static final class PendingAppend {
+
+        private final long sequence;
+        private final CompletableFuture<Long> future;
+
+        PendingAppend(long sequence, CompletableFuture<Long> future) {
+            this.sequence = sequence;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.saketh.simulator.ingestion.spool;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the spool.
+ * <p>
+ * Records are laid out back to back as {@code [int length][int crc][long
+ * sequence][payload]}, with the CRC32C covering sequence and payload. The
+ * file is zero-filled when created, so a zero length marks the end of data.
+ */
+final class SpoolSegment {
+
+    static final int HEADER_BYTES = 16;
+    static final String SUFFIX = ".seg";
+
+    private final Path path;
+    private final long baseSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    // Guarded by the owning SpoolLog
+    private int writePosition;
+    private long lastSequence;
+
+    private SpoolSegment(Path path, long baseSequence, FileChannel channel, int capacity) throws IOException {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.lastSequence = baseSequence - 1;
+    }
+
+    /**
+     * Create an empty segment whose first record will have {@code baseSequence}
+     */
+    static SpoolSegment create(Path directory, long baseSequence, int capacity) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SpoolSegment(path, baseSequence, channel, capacity);
+    }
+
+    /**
+     * Open an existing segment and find the end of its valid records.
+     * Scanning stops at the first zero length, torn record or CRC mismatch.
+     */
+    static SpoolSegment recover(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long baseSequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SpoolSegment segment = new SpoolSegment(path, baseSequence, channel, (int) channel.size());
+
+        int position = 0;
+        long expected = baseSequence;
+        while (segment.isValidRecord(position, expected)) {
+            position += HEADER_BYTES + segment.buffer.getInt(position);
+            expected++;
+        }
+        segment.writePosition = position;
+        segment.lastSequence = expected - 1;
+        return segment;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d%s", baseSequence, SUFFIX);
+    }
+
+    /**
+     * Append a record if it fits
+     *
+     * @return false if the segment is full
+     */
+    boolean append(long sequence, byte[] payload) {
+        int length = payload.length;
+        if (writePosition + HEADER_BYTES + length > capacity) {
+            return false;
+        }
+        int position = writePosition;
+        buffer.putLong(position + 8, sequence);
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position + 4, crc(position + 8, 8 + length));
+        // Length last: a record without it reads as end of data
+        buffer.putInt(position, length);
+        writePosition = position + HEADER_BYTES + length;
+        lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Read the payload of the record at a position
+     */
+    byte[] payloadAt(int position) {
+        byte[] payload = new byte[buffer.getInt(position)];
+        buffer.get(position + HEADER_BYTES, payload);
+        return payload;
+    }
+
+    long sequenceAt(int position) {
+        return buffer.getLong(position + 8);
+    }
+
+    int nextPosition(int position) {
+        return position + HEADER_BYTES + buffer.getInt(position);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    boolean isEmpty() {
+        return lastSequence < baseSequence;
+    }
+
+    private boolean isValidRecord(int position, long expectedSequence) {
+        if (position + HEADER_BYTES > capacity) {
+            return false;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > capacity - position - HEADER_BYTES) {
+            return false;
+        }
+        return buffer.getLong(position + 8) == expectedSequence
+            && buffer.getInt(position + 4) == crc(position + 8, 8 + length);
+    }
+
+    private int crc(int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
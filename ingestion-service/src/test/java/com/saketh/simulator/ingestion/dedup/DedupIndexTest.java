@@ -0,0 +1,121 @@
+package com.saketh.simulator.ingestion.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Probing, expiry, eviction and concurrent claims of {@link DedupIndex}.
+ * With a capacity of 64 each stripe has 8 slots, so one probe window spans
+ * a whole stripe; keys with the same high hash share a stripe and keys
+ * whose low hashes agree in the last three bits share a home slot.
+ */
+class DedupIndexTest {
+
+    private static final long TTL = 100;
+    private static final long STRIPE = 1;
+
+    @Test
+    void detectsDuplicatesUntilTheyExpire() {
+        DedupIndex index = new DedupIndex(64, TTL);
+
+        assertTrue(index.add(STRIPE, 3, 0));
+        assertFalse(index.add(STRIPE, 3, TTL - 1));
+        assertTrue(index.add(STRIPE, 3, TTL));
+    }
+
+    @Test
+    void probesPastKeysWithTheSameHomeSlot() {
+        DedupIndex index = new DedupIndex(64, TTL);
+
+        // Home slot 1 for all three
+        assertTrue(index.add(STRIPE, 1, 0));
+        assertTrue(index.add(STRIPE, 9, 0));
+        assertTrue(index.add(STRIPE, 17, 0));
+        assertFalse(index.add(STRIPE, 1, 0));
+        assertFalse(index.add(STRIPE, 9, 0));
+        assertFalse(index.add(STRIPE, 17, 0));
+        assertEquals(0, index.getEvictionCount());
+    }
+
+    @Test
+    void evictsTheEntryClosestToExpiryWhenTheWindowIsFull() {
+        DedupIndex index = new DedupIndex(64, TTL);
+        for (int lo = 1; lo <= 8; lo++) {
+            assertTrue(index.add(STRIPE, lo, lo));
+        }
+
+        // Every slot is live, so the oldest key makes room
+        assertTrue(index.add(STRIPE, 9, 9));
+        assertEquals(1, index.getEvictionCount());
+        assertFalse(index.add(STRIPE, 3, 9));
+        // The evicted key is no longer recognised as a duplicate
+        assertTrue(index.add(STRIPE, 1, 9));
+        assertEquals(2, index.getEvictionCount());
+    }
+
+    @Test
+    void removeLetsARetryThroughEvenWithAnExpiredCopyInTheWindow() {
+        DedupIndex index = new DedupIndex(64, TTL);
+        assertTrue(index.add(STRIPE, 8, 0));
+        assertTrue(index.add(STRIPE, 16, 0));
+        // Both expired: the key's new copy takes the first free slot, ahead of its expired one
+        assertTrue(index.add(STRIPE, 16, TTL + 10));
+
+        index.remove(STRIPE, 16);
+        assertTrue(index.add(STRIPE, 16, TTL + 20));
+        assertFalse(index.add(STRIPE, 16, TTL + 20));
+    }
+
+    @Test
+    void concurrentClaimsOfAKeySucceedOnce() throws Exception {
+        DedupIndex index = new DedupIndex(1 << 20, 60_000);
+        int threads = 8;
+        int keys = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> claimed = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                claimed.add(pool.submit(() -> {
+                    start.await();
+                    int added = 0;
+                    for (int k = 0; k < keys; k++) {
+                        if (index.add(mix(k), mix(~k), 0)) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : claimed) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(keys, total);
+            assertEquals(0, index.getEvictionCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Spread small integers over the whole hash space
+     */
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        return z ^ (z >>> 31);
+    }
+}
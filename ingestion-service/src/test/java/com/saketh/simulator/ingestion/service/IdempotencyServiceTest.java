@@ -0,0 +1,109 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.ingestion.service.IdempotencyService.Claim;
+import com.saketh.simulator.ingestion.service.IdempotencyService.ClaimState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Claim states of {@link IdempotencyService}, including duplicates racing
+ * the release or confirmation of the original.
+ */
+class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService(true, 1 << 16, 60_000, new SimpleMeterRegistry());
+
+    @Test
+    void reportsEachStateOfTheOriginal() {
+        assertEquals(ClaimState.CLAIMED, service.claim("tx-1").getState());
+
+        Claim inFlight = service.claim("tx-1");
+        assertEquals(ClaimState.IN_FLIGHT, inFlight.getState());
+        assertTrue(!inFlight.getInFlight().isDone());
+
+        service.confirm("tx-1");
+        assertTrue(inFlight.getInFlight().isDone());
+        assertEquals(ClaimState.DELIVERED, service.claim("tx-1").getState());
+    }
+
+    @Test
+    void releasedClaimCanBeClaimedAgain() {
+        assertEquals(ClaimState.CLAIMED, service.claim("tx-1").getState());
+        Claim inFlight = service.claim("tx-1");
+
+        service.release("tx-1", new IllegalStateException("send failed"));
+        assertTrue(inFlight.getInFlight().isCompletedExceptionally());
+        assertEquals(ClaimState.CLAIMED, service.claim("tx-1").getState());
+    }
+
+    @Test
+    void duplicateRacingAReleaseIsNeverToldDelivered() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                String transactionId = "tx-" + i;
+                assertEquals(ClaimState.CLAIMED, service.claim(transactionId).getState());
+
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> release = threads.submit(() -> {
+                    start.await();
+                    service.release(transactionId, new IllegalStateException("send failed"));
+                    return null;
+                });
+                Future<Claim> duplicate = threads.submit(() -> {
+                    start.await();
+                    return service.claim(transactionId);
+                });
+
+                release.get(5, TimeUnit.SECONDS);
+                assertNotEquals(ClaimState.DELIVERED, duplicate.get(5, TimeUnit.SECONDS).getState(),
+                    "round " + i);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentClaimsOfANewIdHaveOneWinner() throws Exception {
+        int claimants = 8;
+        ExecutorService threads = Executors.newFixedThreadPool(claimants);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String transactionId = "tx-" + i;
+                CyclicBarrier start = new CyclicBarrier(claimants);
+                List<Future<Claim>> claims = new ArrayList<>();
+                for (int c = 0; c < claimants; c++) {
+                    claims.add(threads.submit(() -> {
+                        start.await();
+                        return service.claim(transactionId);
+                    }));
+                }
+
+                int claimed = 0;
+                for (Future<Claim> claim : claims) {
+                    ClaimState state = claim.get(5, TimeUnit.SECONDS).getState();
+                    assertNotEquals(ClaimState.DELIVERED, state);
+                    if (state == ClaimState.CLAIMED) {
+                        claimed++;
+                    }
+                }
+                assertEquals(1, claimed, "round " + i);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.saketh.simulator.ingestion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * In-flight limit and the platform or virtual thread mode checks of {@link RequestExecutionService}.
+ */
+class RequestExecutionServiceTest {
+
+    @Test
+    void platformLimitMustFitInsideTheWorkerPool() {
+        assertThrows(IllegalStateException.class, () -> new RequestExecutionService(201, 200, false));
+        assertThrows(IllegalStateException.class, () -> new RequestExecutionService(0, 200, false));
+        new RequestExecutionService(200, 200, false);
+    }
+
+    @Test
+    void virtualThreadsNeedJava21() {
+        if (Runtime.version().feature() >= 21) {
+            RequestExecutionService service = new RequestExecutionService(10_000, 200, true);
+            assertEquals(0, service.getInFlightCount());
+        } else {
+            assertThrows(IllegalStateException.class, () -> new RequestExecutionService(10_000, 200, true));
+        }
+    }
+
+    @Test
+    void rejectsOverTheLimitAndReleasesAfterEachRequest() {
+        RequestExecutionService service = new RequestExecutionService(1, 200, false);
+
+        service.execute(() -> {
+            assertEquals(1, service.getInFlightCount());
+            assertThrows(RejectedExecutionException.class, () -> service.execute(() -> null));
+            return null;
+        });
+        assertEquals(0, service.getInFlightCount());
+
+        service.acquire();
+        assertThrows(RejectedExecutionException.class, service::acquire);
+        service.release();
+        assertEquals(0, service.getInFlightCount());
+    }
+}
@@ -0,0 +1,130 @@
+package com.saketh.simulator.ingestion.service;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.ingestion.dto.BatchIngestionResult;
+import com.saketh.simulator.ingestion.exception.DeliveryPendingException;
+import com.saketh.simulator.ingestion.exception.DuplicateInFlightException;
+import com.saketh.simulator.ingestion.metrics.IngestionMetrics;
+import com.saketh.simulator.ingestion.service.IdempotencyService.ClaimState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Idempotency claims of single-transaction ingestion and the chunk fan-out
+ * of batch ingestion, with a real {@link IdempotencyService} and the send
+ * paths mocked.
+ */
+class TransactionIngestionServiceTest {
+
+    private final KafkaPublisherService kafkaPublisher = mock(KafkaPublisherService.class);
+    private final SpoolService spoolService = mock(SpoolService.class);
+    private final VelocityService velocityService = mock(VelocityService.class);
+    private final KeyOrderedExecutor batchWorkers = new KeyOrderedExecutor(4, "test-batch-worker-");
+    private IdempotencyService idempotencyService;
+    private TransactionIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(true, 1024, 60_000, registry);
+        service = new TransactionIngestionService(kafkaPublisher, idempotencyService,
+            mock(AdmissionControlService.class), velocityService, spoolService, new IngestionMetrics(registry), batchWorkers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchWorkers.close();
+    }
+
+    @Test
+    void slowSpoolWriteKeepsTheClaimUntilItResolves() throws Exception {
+        CompletableFuture<Long> write = new CompletableFuture<>();
+        when(spoolService.isEnabled()).thenReturn(true);
+        when(spoolService.append(any())).thenReturn(write);
+
+        assertThrows(DeliveryPendingException.class, () -> service.submitTransaction(transaction("tx-1")));
+
+        // A retry while the write is queued must not publish a second copy
+        assertThrows(DuplicateInFlightException.class, () -> service.submitTransaction(transaction("tx-1")));
+        verify(spoolService, times(1)).append(any());
+
+        write.complete(1L);
+        assertNull(service.submitTransaction(transaction("tx-1")).get());
+        verify(spoolService, times(1)).append(any());
+        verify(velocityService, never()).undo(any(), any(Long.class));
+    }
+
+    @Test
+    void failedSpoolWriteReleasesTheClaimOnce() {
+        CompletableFuture<Long> write = new CompletableFuture<>();
+        when(spoolService.isEnabled()).thenReturn(true);
+        when(spoolService.append(any())).thenReturn(write);
+        write.completeExceptionally(new IllegalStateException("disk full"));
+
+        assertThrows(RuntimeException.class, () -> service.submitTransaction(transaction("tx-2")));
+        verify(velocityService, times(1)).undo(any(), any(Long.class));
+
+        // Released, so a retry is a new attempt
+        assertEquals(ClaimState.CLAIMED, idempotencyService.claim("tx-2").getState());
+    }
+
+    @Test
+    void batchChunksAreSentInParallelAndReportedInInputOrder() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(kafkaPublisher.publishBatch(any(), any(Long.class))).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            List<Transaction> chunk = invocation.getArgument(0);
+            // The chunk holding tx-150 is not acknowledged by the broker
+            return chunk.stream()
+                .map(transaction -> transaction.getTransactionId().equals("tx-150")
+                    ? CompletableFuture.failedFuture(new IllegalStateException("not acknowledged"))
+                    : CompletableFuture.completedFuture(null))
+                .collect(Collectors.toList());
+        });
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 350; i++) {
+            transactions.add(transaction("tx-" + i));
+        }
+
+        BatchIngestionResult result = service.ingestBatch(transactions);
+
+        assertEquals(350, result.getTotalReceived());
+        assertEquals(349, result.getSuccessCount());
+        assertEquals(List.of("tx-150"), result.getFailedTransactionIds());
+        assertEquals(4, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("test-batch-worker-")));
+    }
+
+    private static Transaction transaction(String transactionId) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .userId("user-1")
+            .amount(new BigDecimal("10.00"))
+            .currency("USD")
+            .transactionType(TransactionType.DEPOSIT)
+            .build();
+    }
+}
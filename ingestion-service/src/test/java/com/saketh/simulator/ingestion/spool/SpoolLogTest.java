@@ -0,0 +1,145 @@
+package com.saketh.simulator.ingestion.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recovery of the spool after a restart: undelivered records are replayed
+ * from the checkpoint on, a torn tail is dropped, and fully committed
+ * segments are deleted.
+ */
+class SpoolLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    private static final int RECORD_BYTES = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysUndeliveredRecordsAfterReopen() throws Exception {
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            appendAll(spool, 5);
+        }
+
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            assertEquals(5, spool.getBacklog());
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), readAll(spool));
+            // New records continue the sequence
+            assertEquals(6L, spool.append(payload(6)).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void resumesAfterTheCheckpointedSequence() throws Exception {
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            appendAll(spool, 5);
+            readAll(spool);
+            spool.commit(3);
+        }
+
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            assertEquals(3, spool.getCommittedSequence());
+            assertEquals(List.of(4L, 5L), readAll(spool));
+
+            // A rewind after a failed delivery goes back to the checkpoint, not the start
+            spool.rewind();
+            assertEquals(List.of(4L, 5L), readAll(spool));
+        }
+    }
+
+    @Test
+    void dropsATornTailAndAppendsToAFreshSegment() throws Exception {
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            appendAll(spool, 3);
+        }
+        // Flip a payload byte of the last record, as a write cut short by a crash would leave it
+        int frame = SpoolSegment.HEADER_BYTES + RECORD_BYTES;
+        corrupt(directory.resolve(SpoolSegment.fileName(1)), 2 * frame + SpoolSegment.HEADER_BYTES);
+
+        try (SpoolLog spool = SpoolLog.open(directory, SEGMENT_BYTES, 8)) {
+            assertEquals(2, spool.getDurableSequence());
+            assertEquals(List.of(1L, 2L), readAll(spool));
+
+            // The lost record's sequence is reused, but never after the torn bytes
+            assertEquals(3L, spool.append(payload(3)).get(5, TimeUnit.SECONDS));
+            assertEquals(2, spool.getSegmentCount());
+            assertEquals(List.of(3L), readAll(spool));
+        }
+    }
+
+    @Test
+    void deletesCommittedSegmentsAndRefusesAppendsWhenFull() throws Exception {
+        // Two records per segment
+        int segmentBytes = 2 * (SpoolSegment.HEADER_BYTES + RECORD_BYTES);
+        try (SpoolLog spool = SpoolLog.open(directory, segmentBytes, 3)) {
+            appendAll(spool, 6);
+            assertEquals(3, spool.getSegmentCount());
+            assertThrows(SpoolFullException.class, () -> spool.append(payload(7)));
+
+            readAll(spool);
+            spool.commit(4);
+            assertEquals(1, spool.getSegmentCount());
+        }
+
+        try (SpoolLog spool = SpoolLog.open(directory, segmentBytes, 3)) {
+            assertEquals(List.of(5L, 6L), readAll(spool));
+        }
+    }
+
+    private static void appendAll(SpoolLog spool, int count) throws Exception {
+        List<CompletableFuture<Long>> appends = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            appends.add(spool.append(payload(i)));
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1L, appends.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Read every durable record, checking each payload against its sequence
+     */
+    private static List<Long> readAll(SpoolLog spool) {
+        List<Long> read = new ArrayList<>();
+        List<byte[]> payloads = new ArrayList<>();
+        long[] sequences = new long[64];
+        while (spool.read(sequences.length, payloads, sequences) >= 0) {
+            for (int i = 0; i < payloads.size(); i++) {
+                assertArrayEquals(payload(sequences[i]), payloads.get(i));
+                read.add(sequences[i]);
+            }
+            payloads.clear();
+        }
+        return read;
+    }
+
+    private static byte[] payload(long sequence) {
+        return String.format("record-%09d", sequence).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void corrupt(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.flip();
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            channel.write(b, position);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+"""
+Run the load generator at several client concurrencies and tabulate
+throughput and tail latency, e.g. to compare two builds or settings of
+ingestion-service:
+
+    python load-generator/concurrency_sweep.py --label=platform-200 --out=sweep.csv
+    python load-generator/concurrency_sweep.py --label=max-in-flight-100 --out=sweep.csv
+
+Each run offers far more than the service can take, so --max-in-flight
+becomes the number of clients waiting on the service at once. Rows are
+appended to --out, one per concurrency. Extra --name=value options are
+passed to the load generator unchanged. High concurrencies need enough
+file descriptors for one socket per client (ulimit -n).
+"""
+
+import csv
+import os
+import re
+import subprocess
+import sys
+
+DEFAULTS = {
+    "jar": "load-generator/target/load-generator-1.0.0.jar",
+    "url": "http://localhost:8081",
+    "concurrency": "1000,10000,50000",
+    "rate": "200000",
+    "duration-s": "60",
+    "label": "run",
+    "out": "concurrency_sweep.csv",
+}
+
+SUMMARY = re.compile(r"(\d+) completed \(([\d.]+) req/s, ([\d.]+) transactions/s\)")
+STATUSES = re.compile(r"2xx (\d+), 429 (\d+), other 4xx (\d+), 5xx (\d+), errors (\d+)")
+PERCENTILE = re.compile(r"^(50\.0|99\.0|99\.9|max)\s+([\d.]+)\s+([\d.]+)$")
+
+COLUMNS = ["label", "clients", "req_per_s", "tx_per_s", "ok", "throttled", "client_errors",
+           "server_errors", "errors", "p50_service_ms", "p99_service_ms", "p99.9_service_ms",
+           "max_service_ms", "p99_response_ms"]
+
+
+def parse_args(argv):
+    options = dict(DEFAULTS)
+    passthrough = []
+    for arg in argv:
+        name, eq, value = arg[2:].partition("=")
+        if not arg.startswith("--") or not eq:
+            sys.exit(f"Expected --name=value, got: {arg}\n\n{__doc__.strip()}")
+        if name in DEFAULTS:
+            options[name] = value
+        else:
+            passthrough.append(arg)
+    return options, passthrough
+
+
+def run(options, passthrough, clients):
+    command = ["java", "-jar", options["jar"], f"--url={options['url']}", f"--rate={options['rate']}",
+               f"--duration-s={options['duration-s']}", f"--max-in-flight={clients}"] + passthrough
+    print(" ".join(command), flush=True)
+    output = subprocess.run(command, check=True, capture_output=True, text=True).stdout
+
+    row = {"label": options["label"], "clients": clients}
+    for line in output.splitlines():
+        line = line.strip()
+        match = SUMMARY.search(line)
+        if match:
+            row["req_per_s"], row["tx_per_s"] = match.group(2), match.group(3)
+        match = STATUSES.search(line)
+        if match:
+            (row["ok"], row["throttled"], row["client_errors"], row["server_errors"],
+             row["errors"]) = match.groups()
+        match = PERCENTILE.match(line)
+        if match:
+            name = {"50.0": "p50", "99.0": "p99", "99.9": "p99.9", "max": "max"}[match.group(1)]
+            row[f"{name}_service_ms"] = match.group(3)
+            if name == "p99":
+                row["p99_response_ms"] = match.group(2)
+    return row
+
+
+def main():
+    options, passthrough = parse_args(sys.argv[1:])
+    rows = [run(options, passthrough, int(clients)) for clients in options["concurrency"].split(",")]
+
+    new_file = not os.path.exists(options["out"])
+    with open(options["out"], "a", newline="") as f:
+        writer = csv.DictWriter(f, fieldnames=COLUMNS)
+        if new_file:
+            writer.writeheader()
+        writer.writerows(rows)
+
+    print(f"{'clients':>8} {'req/s':>10} {'ok':>9} {'throttled':>9} {'5xx':>7} {'p50_ms':>9} {'p99_ms':>9} {'p99.9_ms':>9}")
+    for row in rows:
+        print(f"{row['clients']:>8} {row.get('req_per_s', '-'):>10} {row.get('ok', '-'):>9} "
+              f"{row.get('throttled', '-'):>9} {row.get('server_errors', '-'):>7} "
+              f"{row.get('p50_service_ms', '-'):>9} {row.get('p99_service_ms', '-'):>9} "
+              f"{row.get('p99.9_service_ms', '-'):>9}")
+
+
+if __name__ == "__main__":
+    main()
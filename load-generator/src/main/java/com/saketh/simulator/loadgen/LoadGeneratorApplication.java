@@ -0,0 +1,31 @@
+package com.saketh.simulator.loadgen;
+
+/**
+ * Open-loop load generator for the ingestion service.
+ * <p>
+ * Example: {@code java -jar load-generator.jar --endpoint=batch --batch-size=100
+ * --profile=step --rate=2000 --step-rate=1000 --step-s=30 --duration-s=180}
+ */
+public final class LoadGeneratorApplication {
+
+    private LoadGeneratorApplication() {
+        // Utility class, prevent instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --url --endpoint=single|batch|stream --batch-size --profile=constant|ramp|step"
+                + " --rate --to-rate --step-rate --step-s --duration-s --max-in-flight --timeout-ms"
+                + " --pool-size --seed --report-interval-ms --hlog");
+            System.exit(2);
+            return;
+        }
+        TransactionFactory factory = new TransactionFactory(
+            options.getEndpoint(), options.getBatchSize(), options.getPoolSize(), options.getSeed());
+        new OpenLoopRunner(options, factory, System.out).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.saketh.simulator.loadgen;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options, given as {@code --name=value}
+ */
+public final class LoadOptions {
+
+    private static final Set<String> KNOWN = Set.of(
+        "url", "endpoint", "batch-size", "profile", "rate", "to-rate", "step-rate", "step-s",
+        "duration-s", "max-in-flight", "timeout-ms", "pool-size", "seed", "report-interval-ms", "hlog");
+
+    private final URI baseUri;
+    private final TargetEndpoint endpoint;
+    private final int batchSize;
+    private final RateProfile profile;
+    private final int maxInFlight;
+    private final long timeoutMs;
+    private final int poolSize;
+    private final long seed;
+    private final long reportIntervalMs;
+    private final String histogramLog;
+
+    private LoadOptions(Map<String, String> values) {
+        this.baseUri = URI.create(values.getOrDefault("url", "http://localhost:8080"));
+        this.endpoint = TargetEndpoint.valueOf(values.getOrDefault("endpoint", "single").toUpperCase(Locale.ROOT));
+        this.batchSize = endpoint == TargetEndpoint.SINGLE ? 1 : intValue(values, "batch-size", 100);
+        this.maxInFlight = intValue(values, "max-in-flight", 1024);
+        this.timeoutMs = longValue(values, "timeout-ms", 5000);
+        this.poolSize = intValue(values, "pool-size", 10_000);
+        this.seed = longValue(values, "seed", 42);
+        this.reportIntervalMs = longValue(values, "report-interval-ms", 1000);
+        this.histogramLog = values.get("hlog");
+
+        // Rates are in transactions per second whatever the endpoint
+        double rate = doubleValue(values, "rate", 1000);
+        long duration = longValue(values, "duration-s", 60);
+        String shape = values.getOrDefault("profile", "constant").toLowerCase(Locale.ROOT);
+        RateProfile transactions;
+        switch (shape) {
+            case "constant":
+                transactions = RateProfile.constant(rate, duration);
+                break;
+            case "ramp":
+                transactions = RateProfile.ramp(rate, doubleValue(values, "to-rate", rate * 2), duration);
+                break;
+            case "step":
+                transactions = RateProfile.step(rate, doubleValue(values, "step-rate", rate / 2),
+                    longValue(values, "step-s", 10), duration);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile: " + shape);
+        }
+        this.profile = transactions.scaledDown(batchSize);
+    }
+
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            if (!KNOWN.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            values.put(name, arg.substring(eq + 1));
+        }
+        return new LoadOptions(values);
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    private static long longValue(Map<String, String> values, String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    private static double doubleValue(Map<String, String> values, String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+
+    public URI getTargetUri() {
+        return baseUri.resolve(endpoint.getPath());
+    }
+
+    public TargetEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Request rate profile, already divided by the batch size
+     */
+    public RateProfile getProfile() {
+        return profile;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getReportIntervalMs() {
+        return reportIntervalMs;
+    }
+
+    public String getHistogramLog() {
+        return histogramLog;
+    }
+}
@@ -0,0 +1,249 @@
+package com.saketh.simulator.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop driver: requests are due on a fixed schedule taken from the
+ * {@link RateProfile}, whether or not earlier ones have completed.
+ * <p>
+ * Two latencies are recorded per request. Response time runs from the
+ * moment the request was due, so a send that is delayed because the
+ * generator or the service fell behind is charged to the service, which
+ * is what corrects for coordinated omission. Service time runs from the
+ * actual send and shows what a closed-loop client would have reported.
+ * When {@code max-in-flight} requests are outstanding the scheduler waits
+ * for a slot rather than dropping the request, and the wait counts toward
+ * response time.
+ */
+public final class OpenLoopRunner {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long LATE_SEND_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int CALLBACK_THREADS = 2;
+    private static final double[] PERCENTILES = {50, 75, 90, 99, 99.9, 99.99};
+
+    private final LoadOptions options;
+    private final TransactionFactory factory;
+    private final PrintStream out;
+    private final HttpClient client;
+    private final ExecutorService callbackExecutor;
+    private final Semaphore inFlight;
+
+    private final Recorder responseTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder serviceTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalResponse = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalService = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private Histogram intervalResponse;
+    private Histogram intervalService;
+
+    // Metrics
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lateSends = new LongAdder();
+
+    public OpenLoopRunner(LoadOptions options, TransactionFactory factory, PrintStream out) {
+        this.options = options;
+        this.factory = factory;
+        this.out = out;
+        this.callbackExecutor = Executors.newFixedThreadPool(CALLBACK_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(options.getTimeoutMs()))
+            .executor(callbackExecutor)
+            .build();
+        this.inFlight = new Semaphore(options.getMaxInFlight());
+    }
+
+    /**
+     * Drive the target for the profile's duration, printing a line per
+     * report interval and a summary at the end
+     */
+    public void run() throws InterruptedException, FileNotFoundException {
+        RateProfile profile = options.getProfile();
+        HttpRequest.Builder template = HttpRequest.newBuilder(options.getTargetUri())
+            .timeout(Duration.ofMillis(options.getTimeoutMs()))
+            .header("Content-Type", options.getEndpoint().getContentType());
+
+        HistogramLogWriter logWriter = null;
+        if (options.getHistogramLog() != null) {
+            logWriter = new HistogramLogWriter(options.getHistogramLog());
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(System.currentTimeMillis());
+            logWriter.setBaseTime(System.currentTimeMillis());
+            logWriter.outputLegend();
+        }
+
+        out.printf("Target %s (%s, %d per request), %s for %ds%n", options.getTargetUri(),
+            options.getEndpoint(), options.getBatchSize(), profile,
+            TimeUnit.NANOSECONDS.toSeconds(profile.getDurationNanos()));
+        out.printf("%7s %9s %9s %8s %7s %7s %7s %7s %9s %9s %9s %9s%n", "time_s", "target/s", "done/s",
+            "2xx", "429", "4xx", "5xx", "err", "p50_ms", "p99_ms", "p99.9_ms", "max_ms");
+
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HistogramLogWriter intervalLog = logWriter;
+        reporter.scheduleAtFixedRate(() -> report(start, profile, intervalLog),
+            options.getReportIntervalMs(), options.getReportIntervalMs(), TimeUnit.MILLISECONDS);
+
+        long end = start + profile.getDurationNanos();
+        long intended = start;
+        while (intended < end) {
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            send(template, intended);
+            intended += (long) (TimeUnit.SECONDS.toNanos(1) / profile.rateAt(intended - start));
+        }
+
+        // Let the stragglers finish or time out before the last report
+        if (!inFlight.tryAcquire(options.getMaxInFlight(), options.getTimeoutMs() + 1000, TimeUnit.MILLISECONDS)) {
+            out.printf("%d requests still in flight at shutdown%n",
+                options.getMaxInFlight() - inFlight.availablePermits());
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(options.getReportIntervalMs() * 2, TimeUnit.MILLISECONDS);
+        report(start, profile, logWriter);
+        if (logWriter != null) {
+            logWriter.close();
+        }
+        summary(System.nanoTime() - start);
+        callbackExecutor.shutdownNow();
+    }
+
+    private void send(HttpRequest.Builder template, long intended) {
+        long sendTime = System.nanoTime();
+        if (sendTime - intended > LATE_SEND_NANOS) {
+            lateSends.increment();
+        }
+        HttpRequest request = template.copy()
+            .POST(HttpRequest.BodyPublishers.ofByteArray(factory.nextBody()))
+            .build();
+        sent.increment();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                long now = System.nanoTime();
+                responseTimes.recordValue(toMicros(now - intended));
+                serviceTimes.recordValue(toMicros(now - sendTime));
+                if (error != null) {
+                    failures.increment();
+                } else {
+                    count(response.statusCode());
+                }
+                inFlight.release();
+            });
+    }
+
+    private void count(int status) {
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else if (status == 429) {
+            throttled.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else {
+            clientErrors.increment();
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    private long lastSucceeded;
+    private long lastThrottled;
+    private long lastClientErrors;
+    private long lastServerErrors;
+    private long lastFailures;
+
+    private synchronized void report(long start, RateProfile profile, HistogramLogWriter logWriter) {
+        long elapsed = System.nanoTime() - start;
+        intervalResponse = responseTimes.getIntervalHistogram(intervalResponse);
+        intervalService = serviceTimes.getIntervalHistogram(intervalService);
+        totalResponse.add(intervalResponse);
+        totalService.add(intervalService);
+        if (logWriter != null) {
+            intervalResponse.setTag("response");
+            intervalService.setTag("service");
+            logWriter.outputIntervalHistogram(intervalResponse);
+            logWriter.outputIntervalHistogram(intervalService);
+        }
+
+        long ok = succeeded.sum();
+        long rejected = throttled.sum();
+        long client = clientErrors.sum();
+        long server = serverErrors.sum();
+        long failed = failures.sum();
+        double seconds = (intervalResponse.getEndTimeStamp() - intervalResponse.getStartTimeStamp()) / 1000.0;
+        out.printf("%7.1f %9.0f %9.0f %8d %7d %7d %7d %7d %9.2f %9.2f %9.2f %9.2f%n",
+            elapsed / 1e9,
+            profile.rateAt(Math.min(elapsed, profile.getDurationNanos() - 1)),
+            seconds > 0 ? intervalResponse.getTotalCount() / seconds : 0.0,
+            ok - lastSucceeded, rejected - lastThrottled, client - lastClientErrors,
+            server - lastServerErrors, failed - lastFailures,
+            millis(intervalResponse.getValueAtPercentile(50)),
+            millis(intervalResponse.getValueAtPercentile(99)),
+            millis(intervalResponse.getValueAtPercentile(99.9)),
+            millis(intervalResponse.getMaxValue()));
+        lastSucceeded = ok;
+        lastThrottled = rejected;
+        lastClientErrors = client;
+        lastServerErrors = server;
+        lastFailures = failed;
+    }
+
+    private synchronized void summary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long completed = totalResponse.getTotalCount();
+        out.println();
+        out.printf("Sent %d requests in %.1fs, %d completed (%.0f req/s, %.0f transactions/s)%n",
+            sent.sum(), seconds, completed, completed / seconds, completed * options.getBatchSize() / seconds);
+        out.printf("2xx %d, 429 %d, other 4xx %d, 5xx %d, errors %d, sent more than 1ms late %d%n",
+            succeeded.sum(), throttled.sum(), clientErrors.sum(), serverErrors.sum(), failures.sum(),
+            lateSends.sum());
+        out.printf("%-10s %16s %16s%n", "percentile", "response_ms", "service_ms");
+        for (double percentile : PERCENTILES) {
+            out.printf("%-10s %16.2f %16.2f%n", percentile,
+                millis(totalResponse.getValueAtPercentile(percentile)),
+                millis(totalService.getValueAtPercentile(percentile)));
+        }
+        out.printf("%-10s %16.2f %16.2f%n", "max",
+            millis(totalResponse.getMaxValue()), millis(totalService.getMaxValue()));
+        out.println("Response time is measured from each request's scheduled start (coordinated-omission corrected);");
+        out.println("service time from the actual send.");
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.saketh.simulator.loadgen;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Target request rate as a function of time since the run started
+ */
+public final class RateProfile {
+
+    public enum Shape {
+        CONSTANT, RAMP, STEP
+    }
+
+    private final Shape shape;
+    private final double startRate;
+    private final double endRate;
+    private final double stepRate;
+    private final long stepNanos;
+    private final long durationNanos;
+
+    private RateProfile(Shape shape, double startRate, double endRate, double stepRate,
+                        long stepNanos, long durationNanos) {
+        if (startRate <= 0 || endRate <= 0 || durationNanos <= 0) {
+            throw new IllegalArgumentException("Rates and duration must be positive");
+        }
+        this.shape = shape;
+        this.startRate = startRate;
+        this.endRate = endRate;
+        this.stepRate = stepRate;
+        this.stepNanos = stepNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Hold {@code rate} for the whole run
+     */
+    public static RateProfile constant(double rate, long durationSeconds) {
+        return new RateProfile(Shape.CONSTANT, rate, rate, 0, 0, TimeUnit.SECONDS.toNanos(durationSeconds));
+    }
+
+    /**
+     * Move linearly from {@code fromRate} to {@code toRate} over the run
+     */
+    public static RateProfile ramp(double fromRate, double toRate, long durationSeconds) {
+        return new RateProfile(Shape.RAMP, fromRate, toRate, 0, 0, TimeUnit.SECONDS.toNanos(durationSeconds));
+    }
+
+    /**
+     * Start at {@code rate} and add {@code stepRate} every {@code stepSeconds}
+     */
+    public static RateProfile step(double rate, double stepRate, long stepSeconds, long durationSeconds) {
+        if (stepSeconds <= 0) {
+            throw new IllegalArgumentException("Step length must be positive");
+        }
+        long steps = (durationSeconds - 1) / stepSeconds;
+        if (rate + steps * stepRate <= 0) {
+            throw new IllegalArgumentException("Step profile drops to a non-positive rate");
+        }
+        return new RateProfile(Shape.STEP, rate, rate + steps * stepRate, stepRate,
+            TimeUnit.SECONDS.toNanos(stepSeconds), TimeUnit.SECONDS.toNanos(durationSeconds));
+    }
+
+    /**
+     * Target rate, in requests per second, {@code elapsedNanos} into the run
+     */
+    public double rateAt(long elapsedNanos) {
+        switch (shape) {
+            case RAMP:
+                return startRate + (endRate - startRate) * Math.min(1.0, (double) elapsedNanos / durationNanos);
+            case STEP:
+                return startRate + (elapsedNanos / stepNanos) * stepRate;
+            default:
+                return startRate;
+        }
+    }
+
+    /**
+     * Same profile with every rate divided by {@code divisor}, used to turn
+     * transactions per second into requests per second for batched endpoints
+     */
+    public RateProfile scaledDown(int divisor) {
+        return new RateProfile(shape, startRate / divisor, endRate / divisor, stepRate / divisor,
+            stepNanos, durationNanos);
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        switch (shape) {
+            case RAMP:
+                return String.format("ramp %.0f -> %.0f/s", startRate, endRate);
+            case STEP:
+                return String.format("step %.0f/s %+.0f every %ds up to %.0f/s",
+                    startRate, stepRate, TimeUnit.NANOSECONDS.toSeconds(stepNanos), endRate);
+            default:
+                return String.format("constant %.0f/s", startRate);
+        }
+    }
+}
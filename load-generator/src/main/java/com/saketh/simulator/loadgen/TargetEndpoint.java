@@ -0,0 +1,32 @@
+package com.saketh.simulator.loadgen;
+
+/**
+ * Ingestion endpoints the generator can drive
+ */
+public enum TargetEndpoint {
+
+    /** One transaction per {@code POST /api/v1/transactions} */
+    SINGLE("/api/v1/transactions", "application/json"),
+
+    /** A JSON array per {@code POST /api/v1/transactions/batch} */
+    BATCH("/api/v1/transactions/batch", "application/json"),
+
+    /** Newline-delimited JSON per {@code POST /api/v1/transactions/batch/stream} */
+    STREAM("/api/v1/transactions/batch/stream", "application/x-ndjson");
+
+    private final String path;
+    private final String contentType;
+
+    TargetEndpoint(String path, String contentType) {
+        this.path = path;
+        this.contentType = contentType;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
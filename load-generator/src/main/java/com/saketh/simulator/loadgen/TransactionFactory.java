@@ -0,0 +1,102 @@
+package com.saketh.simulator.loadgen;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Request bodies shaped like those of
+ * {@code python-ml/transaction_generator.py}: 1000 users, 100 merchants,
+ * uniform amounts up to 5000 with 5% between 10k and 150k. Bodies are
+ * serialised up front into a pool and cycled, so the scheduler never
+ * spends time on JSON; the ingestion service assigns transaction IDs, so
+ * a reused body is still a new transaction.
+ */
+public final class TransactionFactory {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT", "REFUND"};
+    private static final List<String> CURRENCIES = List.of("USD", "EUR", "INR", "GBP", "JPY");
+    private static final List<String> CATEGORIES = List.of(
+        "groceries", "entertainment", "utilities", "healthcare", "education", "shopping", "dining");
+    private static final String[] IP_PREFIXES = {"192.168.1", "10.0.0", "172.16.0", "203.0.113"};
+
+    private final byte[][] bodies;
+    private int next;
+
+    /**
+     * @param endpoint  endpoint the bodies are for
+     * @param batchSize transactions per body, ignored for {@link TargetEndpoint#SINGLE}
+     * @param poolSize  distinct bodies to build
+     * @param seed      random seed, so runs are repeatable
+     */
+    public TransactionFactory(TargetEndpoint endpoint, int batchSize, int poolSize, long seed) {
+        if (poolSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Pool and batch size must be positive");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(seed);
+        int perBody = endpoint == TargetEndpoint.SINGLE ? 1 : batchSize;
+        this.bodies = new byte[poolSize][];
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                if (endpoint == TargetEndpoint.SINGLE) {
+                    bodies[i] = mapper.writeValueAsBytes(transaction(random));
+                } else if (endpoint == TargetEndpoint.BATCH) {
+                    Object[] batch = new Object[perBody];
+                    for (int j = 0; j < perBody; j++) {
+                        batch[j] = transaction(random);
+                    }
+                    bodies[i] = mapper.writeValueAsBytes(batch);
+                } else {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(perBody * 320);
+                    for (int j = 0; j < perBody; j++) {
+                        out.writeBytes(mapper.writeValueAsBytes(transaction(random)));
+                        out.write('\n');
+                    }
+                    bodies[i] = out.toByteArray();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Next body from the pool; only called from the scheduler thread
+     */
+    public byte[] nextBody() {
+        byte[] body = bodies[next];
+        next = next + 1 == bodies.length ? 0 : next + 1;
+        return body;
+    }
+
+    static Map<String, Object> transaction(Random random) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        double amount = random.nextDouble() < 0.05
+            ? 10_000 + random.nextDouble() * 140_000
+            : 0.01 + random.nextDouble() * 4_999.99;
+
+        Map<String, Object> transaction = new LinkedHashMap<>();
+        transaction.put("userId", "user_" + (1 + random.nextInt(1000)));
+        transaction.put("amount", Math.round(amount * 100) / 100.0);
+        transaction.put("transactionType", type);
+        transaction.put("currency", CURRENCIES.get(random.nextInt(CURRENCIES.size())));
+        transaction.put("category", CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+        transaction.put("location", (random.nextDouble() * 180 - 90) + "," + (random.nextDouble() * 360 - 180));
+        transaction.put("ipAddress", IP_PREFIXES[random.nextInt(IP_PREFIXES.length)] + "." + (1 + random.nextInt(254)));
+        transaction.put("deviceId", "device_" + (1 + random.nextInt(500)));
+        if ("TRANSFER".equals(type)) {
+            transaction.put("targetAccountId", "account_" + (1 + random.nextInt(1000)));
+        }
+        if ("PAYMENT".equals(type) || "REFUND".equals(type)) {
+            transaction.put("merchantId", "merchant_" + (1 + random.nextInt(100)));
+        }
+        return transaction;
+    }
+}
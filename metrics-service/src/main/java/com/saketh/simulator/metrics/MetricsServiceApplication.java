@@ -0,0 +1,24 @@
+package com.saketh.simulator.metrics;
+
+import com.saketh.simulator.common.id.TransactionIds;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Metrics Service - Aggregates the transaction stream over time windows.
+ * Publishes closed tumbling and sliding window aggregates per category,
+ * merchant, currency and transaction type to transaction-metrics.
+ */
+@SpringBootApplication
+@EnableKafka
+@EnableScheduling
+public class MetricsServiceApplication {
+
+    public static void main(String[] args) {
+        // Fail on a bad node ID before anything mints a transaction ID
+        TransactionIds.initialize();
+        SpringApplication.run(MetricsServiceApplication.class, args);
+    }
+}
@@ -0,0 +1,66 @@
+package com.saketh.simulator.metrics.controller;
+
+import com.saketh.simulator.common.model.LatencyMetric;
+import com.saketh.simulator.common.model.WindowMetric;
+import com.saketh.simulator.metrics.service.LatencyCollectorService;
+import com.saketh.simulator.metrics.service.WindowAggregationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller exposing aggregation statistics, the latest window and
+ * the latest pipeline latencies.
+ */
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final WindowAggregationService aggregationService;
+    private final LatencyCollectorService latencyCollectorService;
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "metrics-service");
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get aggregation statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>(aggregationService.getStatistics());
+        stats.put("trace", latencyCollectorService.getStatistics());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Get the aggregates of the most recently closed tumbling window
+     */
+    @GetMapping("/windows/latest")
+    public ResponseEntity<List<WindowMetric>> getLatestWindow() {
+        return ResponseEntity.ok(aggregationService.getLatestWindow());
+    }
+
+    /**
+     * Get the per-stage and end-to-end latencies of the most recently closed trace window
+     */
+    @GetMapping("/latency/latest")
+    public ResponseEntity<List<LatencyMetric>> getLatestLatency() {
+        return ResponseEntity.ok(latencyCollectorService.getLatestWindow());
+    }
+}
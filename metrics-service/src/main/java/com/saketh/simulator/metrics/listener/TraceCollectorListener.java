@@ -0,0 +1,29 @@
+package com.saketh.simulator.metrics.listener;
+
+import com.saketh.simulator.metrics.service.LatencyCollectorService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Batch listener reading the trace headers of the pipeline's final topics.
+ */
+@Component
+@RequiredArgsConstructor
+public class TraceCollectorListener {
+
+    private final LatencyCollectorService collectorService;
+
+    @KafkaListener(
+        id = "pipeline-trace-collector",
+        topics = "${metrics.trace.topics:settled-transactions,settlement-failures,failed-transactions}",
+        containerFactory = "traceListenerContainerFactory",
+        autoStartup = "${metrics.trace.enabled:true}"
+    )
+    public void onBatch(List<ConsumerRecord<String, byte[]>> records) {
+        collectorService.processBatch(records);
+    }
+}
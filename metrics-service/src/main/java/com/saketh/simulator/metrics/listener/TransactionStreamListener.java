@@ -0,0 +1,29 @@
+package com.saketh.simulator.metrics.listener;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.metrics.service.WindowAggregationService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Batch listener for the aggregated transaction topics.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionStreamListener {
+
+    private final WindowAggregationService aggregationService;
+
+    @KafkaListener(
+        id = "transaction-metrics-aggregator",
+        topics = "${metrics.aggregation.topics:validated-transactions}",
+        containerFactory = "batchListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, Transaction>> records) {
+        aggregationService.processBatch(records);
+    }
+}
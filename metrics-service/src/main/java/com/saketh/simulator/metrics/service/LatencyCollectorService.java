@@ -0,0 +1,225 @@
+package com.saketh.simulator.metrics.service;
+
+import com.saketh.simulator.common.aggregation.HistogramBuckets;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.LatencyMetric;
+import com.saketh.simulator.common.trace.TraceClock;
+import com.saketh.simulator.common.trace.TraceHeaders;
+import com.saketh.simulator.common.trace.TraceStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the {@link TraceHeaders} of records leaving the pipeline into
+ * latency histograms and publishes them to transaction-metrics.
+ * <p>
+ * Each hop is charged to its stage as the time since the previous hop
+ * (the ingest time for the first), so a stage's latency includes the
+ * Kafka transit and queueing in front of it. END_TO_END runs from ingest
+ * to the last hop, and CONSUMER_LAG from the last hop to this collector
+ * reading the record. Histograms use {@link HistogramBuckets} over
+ * microseconds and are closed and reset every window; recording a record
+ * reads its header bytes in place and allocates nothing.
+ */
+@Service
+@Slf4j
+public class LatencyCollectorService {
+
+    public static final String END_TO_END = "END_TO_END";
+    public static final String CONSUMER_LAG = "CONSUMER_LAG";
+
+    private static final int STAGES = TraceStage.values().length;
+    private static final int END_TO_END_SERIES = STAGES;
+    private static final int CONSUMER_LAG_SERIES = STAGES + 1;
+    private static final int SERIES = STAGES + 2;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String[] seriesNames = new String[SERIES];
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Guarded by this
+    private int[] buckets = new int[SERIES * HistogramBuckets.BUCKET_COUNT];
+    private final long[] counts = new long[SERIES];
+    private final long[] sums = new long[SERIES];
+    private final long[] maxima = new long[SERIES];
+    private long windowStartMillis = System.currentTimeMillis();
+
+    private volatile List<LatencyMetric> lastWindow = Collections.emptyList();
+
+    // Metrics
+    private final Counter tracedCount;
+    private final Counter untracedCount;
+    private final Counter emittedCount;
+    private final Counter publishFailureCount;
+
+    public LatencyCollectorService(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        for (TraceStage stage : TraceStage.values()) {
+            seriesNames[stage.ordinal()] = stage.name();
+        }
+        seriesNames[END_TO_END_SERIES] = END_TO_END;
+        seriesNames[CONSUMER_LAG_SERIES] = CONSUMER_LAG;
+
+        this.tracedCount = Counter.builder("metrics.trace.records")
+            .description("Records leaving the pipeline by trace header")
+            .tag("outcome", "traced")
+            .register(meterRegistry);
+        this.untracedCount = Counter.builder("metrics.trace.records")
+            .tag("outcome", "untraced")
+            .register(meterRegistry);
+        this.emittedCount = Counter.builder("metrics.trace.windows.emitted")
+            .description("Latency metrics published")
+            .register(meterRegistry);
+        this.publishFailureCount = Counter.builder("metrics.trace.publish.failures")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record the trace of every record in a poll batch
+     */
+    public void processBatch(List<ConsumerRecord<String, byte[]>> records) {
+        long nowMicros = TraceClock.nowMicros();
+        int traced = 0;
+        synchronized (this) {
+            for (ConsumerRecord<String, byte[]> record : records) {
+                byte[] trace = TraceHeaders.read(record.headers());
+                if (!TraceHeaders.isValid(trace)) {
+                    continue;
+                }
+                long ingestMicros = TraceHeaders.getIngestMicros(trace);
+                long previous = ingestMicros;
+                int hops = TraceHeaders.getHopCount(trace);
+                for (int i = 0; i < hops; i++) {
+                    long hopMicros = TraceHeaders.getHopMicros(trace, i);
+                    TraceStage stage = TraceHeaders.getHopStage(trace, i);
+                    if (stage != null) {
+                        record(stage.ordinal(), hopMicros - previous);
+                    }
+                    previous = hopMicros;
+                }
+                record(END_TO_END_SERIES, previous - ingestMicros);
+                record(CONSUMER_LAG_SERIES, nowMicros - previous);
+                traced++;
+            }
+        }
+        tracedCount.increment(traced);
+        untracedCount.increment(records.size() - traced);
+    }
+
+    /**
+     * Close the current window and publish one metric per non-empty series
+     */
+    @Scheduled(fixedDelayString = "${metrics.trace.window-ms:10000}")
+    public void closeWindow() {
+        int[] closed;
+        long[] closedCounts;
+        long[] closedSums;
+        long[] closedMaxima;
+        long startMillis;
+        long endMillis = System.currentTimeMillis();
+        synchronized (this) {
+            closed = buckets;
+            closedCounts = counts.clone();
+            closedSums = sums.clone();
+            closedMaxima = maxima.clone();
+            startMillis = windowStartMillis;
+            buckets = new int[SERIES * HistogramBuckets.BUCKET_COUNT];
+            Arrays.fill(counts, 0);
+            Arrays.fill(sums, 0);
+            Arrays.fill(maxima, 0);
+            windowStartMillis = endMillis;
+        }
+
+        LocalDateTime windowStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), zone);
+        LocalDateTime windowEnd = LocalDateTime.ofInstant(Instant.ofEpochMilli(endMillis), zone);
+        List<LatencyMetric> metrics = new ArrayList<>(SERIES);
+        for (int series = 0; series < SERIES; series++) {
+            long count = closedCounts[series];
+            if (count == 0) {
+                continue;
+            }
+            int offset = series * HistogramBuckets.BUCKET_COUNT;
+            metrics.add(LatencyMetric.builder()
+                .windowStart(windowStart)
+                .windowEnd(windowEnd)
+                .stage(seriesNames[series])
+                .count(count)
+                .meanMs(closedSums[series] / (count * 1000.0))
+                .p50Ms(quantileMs(closed, offset, count, 0.5, closedMaxima[series]))
+                .p99Ms(quantileMs(closed, offset, count, 0.99, closedMaxima[series]))
+                .p999Ms(quantileMs(closed, offset, count, 0.999, closedMaxima[series]))
+                .maxMs(millis(closedMaxima[series]))
+                .build());
+        }
+        if (metrics.isEmpty()) {
+            return;
+        }
+
+        for (LatencyMetric metric : metrics) {
+            String key = "LATENCY:" + metric.getStage();
+            kafkaTemplate.send(KafkaTopics.METRICS, key, metric)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        publishFailureCount.increment();
+                        log.warn("Failed to publish latency metric {}: {}", key, ex.getMessage());
+                    }
+                });
+        }
+        lastWindow = metrics;
+        emittedCount.increment(metrics.size());
+        log.debug("Published {} latency metrics", metrics.size());
+    }
+
+    /**
+     * Latency metrics of the most recently closed window
+     */
+    public List<LatencyMetric> getLatestWindow() {
+        return lastWindow;
+    }
+
+    /**
+     * Get trace collection statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("traced", (long) tracedCount.count());
+        stats.put("untraced", (long) untracedCount.count());
+        stats.put("latencyMetricsEmitted", (long) emittedCount.count());
+        stats.put("latencyPublishFailures", (long) publishFailureCount.count());
+        return stats;
+    }
+
+    private void record(int series, long micros) {
+        long value = Math.max(0, micros);
+        buckets[series * HistogramBuckets.BUCKET_COUNT + HistogramBuckets.bucketOf(value)]++;
+        counts[series]++;
+        sums[series] += value;
+        if (value > maxima[series]) {
+            maxima[series] = value;
+        }
+    }
+
+    // Bucket midpoints can overshoot the largest value seen
+    private static double quantileMs(int[] counts, int offset, long total, double quantile, long max) {
+        return millis(Math.min(HistogramBuckets.valueAtQuantile(counts, offset, total, quantile), max));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
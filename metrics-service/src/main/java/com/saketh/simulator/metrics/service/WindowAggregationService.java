@@ -0,0 +1,236 @@
+package com.saketh.simulator.metrics.service;
+
+import com.saketh.simulator.common.aggregation.WindowAggregator;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.enums.WindowType;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.model.WindowMetric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds consumed transactions into a {@link WindowAggregator} and publishes
+ * closed windows to transaction-metrics.
+ * <p>
+ * Event time is the transaction timestamp. The watermark trails the
+ * slowest active partition's newest event time by the allowed lateness;
+ * partitions without records for the idle timeout stop holding it back,
+ * and when every partition is idle it follows the wall clock, so the last
+ * windows still close once traffic stops. Transactions stamped further
+ * ahead of the wall clock than {@code metrics.aggregation.max-future-ms}
+ * are dropped, so a skewed client clock cannot drag the watermark forward
+ * and close windows early.
+ * <p>
+ * Each instance aggregates the partitions assigned to it, so its windows
+ * are partials. They are published with the instance id as their source
+ * and keyed by group, window and source, so partials of different
+ * instances never overwrite each other and can be combined downstream.
+ */
+@Service
+@Slf4j
+public class WindowAggregationService {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final WindowAggregator aggregator;
+    private final long allowedLatenessMillis;
+    private final long idleTimeoutMillis;
+    private final long maxFutureMillis;
+    private final String instanceId;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Guarded by aggregator
+    private final Map<Integer, Long> partitionEventTime = new HashMap<>();
+    private final Map<Integer, Long> partitionSeenAt = new HashMap<>();
+
+    private volatile List<WindowMetric> lastTumbling = Collections.emptyList();
+
+    // Metrics
+    private final Counter aggregatedCount;
+    private final Counter lateCount;
+    private final Counter futureCount;
+    private final Counter skippedCount;
+    private final Counter emittedCount;
+    private final Counter publishFailureCount;
+    private final Timer batchTimer;
+
+    public WindowAggregationService(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${metrics.aggregation.pane-ms:60000}") long paneMillis,
+            @Value("${metrics.aggregation.tumbling-window-ms:60000}") long tumblingMillis,
+            @Value("${metrics.aggregation.sliding-window-ms:300000}") long slidingMillis,
+            @Value("${metrics.aggregation.allowed-lateness-ms:10000}") long allowedLatenessMillis,
+            @Value("${metrics.aggregation.idle-timeout-ms:30000}") long idleTimeoutMillis,
+            @Value("${metrics.aggregation.max-keys:2048}") int maxKeys,
+            @Value("${metrics.aggregation.max-future-ms:60000}") long maxFutureMillis,
+            @Value("${metrics.aggregation.instance-id:${HOSTNAME:metrics-service}}") String instanceId,
+            MeterRegistry meterRegistry) {
+        if (tumblingMillis % paneMillis != 0 || slidingMillis % paneMillis != 0) {
+            throw new IllegalArgumentException("Window lengths must be multiples of the pane length " + paneMillis);
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxFutureMillis = maxFutureMillis;
+        this.instanceId = instanceId;
+        this.aggregator = new WindowAggregator(paneMillis, (int) (tumblingMillis / paneMillis),
+            (int) (slidingMillis / paneMillis), allowedLatenessMillis, maxKeys, zone);
+
+        this.aggregatedCount = recordCounter(meterRegistry, "aggregated");
+        this.lateCount = recordCounter(meterRegistry, "late");
+        this.futureCount = recordCounter(meterRegistry, "future");
+        this.skippedCount = recordCounter(meterRegistry, "skipped");
+        this.emittedCount = Counter.builder("metrics.windows.emitted")
+            .description("Window aggregates published")
+            .register(meterRegistry);
+        this.publishFailureCount = Counter.builder("metrics.windows.publish.failures")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("metrics.batch.duration")
+            .description("Time to aggregate one poll batch")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Aggregate a poll batch and publish any windows it closes
+     */
+    public void processBatch(List<ConsumerRecord<String, Transaction>> records) {
+        long startNanos = System.nanoTime();
+        long now = System.currentTimeMillis();
+        List<WindowMetric> closed = new ArrayList<>();
+        synchronized (aggregator) {
+            for (ConsumerRecord<String, Transaction> record : records) {
+                Transaction transaction = record.value();
+                if (transaction == null || transaction.getTimestamp() == null) {
+                    skippedCount.increment();
+                    continue;
+                }
+                long eventTime = transaction.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+                if (eventTime > now + maxFutureMillis) {
+                    futureCount.increment();
+                    continue;
+                }
+                long lateBefore = aggregator.getLateCount();
+                if (aggregator.add(transaction, eventTime, closed::add)) {
+                    aggregatedCount.increment();
+                } else if (aggregator.getLateCount() > lateBefore) {
+                    lateCount.increment();
+                } else {
+                    skippedCount.increment();
+                }
+                partitionEventTime.merge(record.partition(), eventTime, Math::max);
+                partitionSeenAt.put(record.partition(), now);
+            }
+            aggregator.advanceWatermark(watermark(now), closed::add);
+        }
+        publish(closed);
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Advance the watermark while no records arrive
+     */
+    @Scheduled(fixedDelayString = "${metrics.aggregation.tick-interval-ms:1000}")
+    public void tick() {
+        List<WindowMetric> closed = new ArrayList<>();
+        synchronized (aggregator) {
+            aggregator.advanceWatermark(watermark(System.currentTimeMillis()), closed::add);
+        }
+        publish(closed);
+    }
+
+    /**
+     * Slowest active partition's event time less the allowed lateness
+     */
+    private long watermark(long now) {
+        long slowest = Long.MAX_VALUE;
+        for (Map.Entry<Integer, Long> entry : partitionEventTime.entrySet()) {
+            if (now - partitionSeenAt.get(entry.getKey()) < idleTimeoutMillis) {
+                slowest = Math.min(slowest, entry.getValue());
+            }
+        }
+        return (slowest == Long.MAX_VALUE ? now : slowest) - allowedLatenessMillis;
+    }
+
+    private void publish(List<WindowMetric> closed) {
+        if (closed.isEmpty()) {
+            return;
+        }
+        List<WindowMetric> tumbling = new ArrayList<>();
+        for (WindowMetric metric : closed) {
+            if (metric.getWindowType() == WindowType.TUMBLING) {
+                tumbling.add(metric);
+            }
+            metric.setSource(instanceId);
+            String key = String.join("|", metric.getWindowType().name(), metric.getDimension(), metric.getKey(),
+                metric.getCurrency(), metric.getWindowStart().toString(), instanceId);
+            kafkaTemplate.send(KafkaTopics.METRICS, key, metric)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        publishFailureCount.increment();
+                        log.warn("Failed to publish window metric {}: {}", key, ex.getMessage());
+                    }
+                });
+        }
+        if (!tumbling.isEmpty()) {
+            lastTumbling = tumbling;
+        }
+        emittedCount.increment(closed.size());
+        log.debug("Published {} window aggregates", closed.size());
+    }
+
+    /**
+     * Aggregates of the most recently closed tumbling window
+     */
+    public List<WindowMetric> getLatestWindow() {
+        return lastTumbling;
+    }
+
+    /**
+     * Get aggregation statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("aggregated", (long) aggregatedCount.count());
+        stats.put("late", (long) lateCount.count());
+        stats.put("future", (long) futureCount.count());
+        stats.put("skipped", (long) skippedCount.count());
+        stats.put("windowsEmitted", (long) emittedCount.count());
+        stats.put("publishFailures", (long) publishFailureCount.count());
+        synchronized (aggregator) {
+            stats.put("groups", aggregator.getSlotCount());
+            stats.put("groupOverflow", aggregator.getOverflowCount());
+            stats.put("groupsReclaimed", aggregator.getReclaimedCount());
+            long watermark = aggregator.getWatermark();
+            if (watermark != Long.MIN_VALUE) {
+                stats.put("watermark", LocalDateTime.ofInstant(Instant.ofEpochMilli(watermark), zone).toString());
+            }
+        }
+        stats.put("batches", batchTimer.count());
+        stats.put("meanBatchMs", batchTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("timestamp", LocalDateTime.now().toString());
+        return stats;
+    }
+
+    private static Counter recordCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("metrics.records")
+            .description("Consumed records by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,128 @@
+"""
+Train an Isolation Forest on generated transactions and export it for the
+JVM scorer in common-models (com.saketh.simulator.common.ml).
+
+The export is JSON in the "isolation-forest/v1" format: per tree, the
+scikit-learn tree_ arrays (feature, threshold, children, node sample
+counts) with feature indices mapped onto the full feature vector.
+Features must match TransactionFeatures.NAMES on the Java side, in order.
+"""
+import argparse
+import bisect
+import json
+import math
+import random
+from collections import defaultdict
+from datetime import datetime, timedelta
+
+import numpy as np
+from sklearn.ensemble import IsolationForest
+
+from transaction_generator import CATEGORIES, generate_transaction
+
+FORMAT = "isolation-forest/v1"
+
+FEATURE_NAMES = [
+    "log_amount",
+    "hour_of_day",
+    "day_of_week",
+    "transaction_type",
+    "category",
+    "has_merchant",
+    "has_target_account",
+    "velocity_minute_count",
+    "velocity_hour_count",
+    "velocity_day_count",
+]
+
+# Codes of com.saketh.simulator.common.enums.TransactionType
+TRANSACTION_TYPE_CODES = {
+    "DEPOSIT": 0, "WITHDRAWAL": 1, "TRANSFER": 2, "PAYMENT": 3,
+    "REFUND": 4, "FEE": 5, "INTEREST": 6, "ADJUSTMENT": 7,
+}
+
+
+def extract_features(transaction, timestamp, velocity):
+    """Feature vector of one transaction; velocity counts include it"""
+    category = (transaction.get("category") or "").lower()
+    return [
+        math.log1p(max(transaction.get("amount", 0.0), 0.0)),
+        timestamp.hour + timestamp.minute / 60.0,
+        timestamp.weekday(),
+        TRANSACTION_TYPE_CODES.get(transaction.get("transactionType"), -1),
+        CATEGORIES.index(category) if category in CATEGORIES else len(CATEGORIES),
+        1.0 if transaction.get("merchantId") else 0.0,
+        1.0 if transaction.get("targetAccountId") else 0.0,
+        velocity[0],
+        velocity[1],
+        velocity[2],
+    ]
+
+
+def generate_dataset(count, days, seed):
+    """Generated transactions spread over the given days, with per-user velocity"""
+    random.seed(seed)
+    start = datetime(2024, 1, 1)
+    span = days * 86400.0
+    offsets = sorted(random.uniform(0, span) for _ in range(count))
+    history = defaultdict(list)
+    rows = []
+    for offset in offsets:
+        transaction = generate_transaction()
+        times = history[transaction["userId"]]
+        times.append(offset)
+        velocity = [len(times) - bisect.bisect_right(times, offset - window) for window in (60, 3600, 86400)]
+        rows.append(extract_features(transaction, start + timedelta(seconds=offset), velocity))
+    return np.asarray(rows, dtype=np.float32)
+
+
+def export(model, feature_names, path, version):
+    """Write a fitted IsolationForest in the format read by IsolationForestReader"""
+    trees = []
+    for estimator, features in zip(model.estimators_, model.estimators_features_):
+        tree = estimator.tree_
+        leaf = tree.children_left < 0
+        feature = np.where(leaf, -1, np.asarray(features)[np.maximum(tree.feature, 0)])
+        trees.append({
+            "feature": feature.astype(int).tolist(),
+            "threshold": np.where(leaf, 0.0, tree.threshold).tolist(),
+            "left": tree.children_left.astype(int).tolist(),
+            "right": tree.children_right.astype(int).tolist(),
+            "samples": tree.n_node_samples.astype(int).tolist(),
+        })
+    document = {
+        "format": FORMAT,
+        "version": version,
+        "maxSamples": int(model.max_samples_),
+        "features": list(feature_names),
+        "trees": trees,
+    }
+    with open(path, "w") as output:
+        json.dump(document, output)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Train and export an Isolation Forest for the validation service")
+    parser.add_argument("--output", default="isolation-forest.json", help="Model file to write")
+    parser.add_argument("--count", type=int, default=200000, help="Generated training transactions")
+    parser.add_argument("--days", type=int, default=7, help="Days the training transactions span")
+    parser.add_argument("--trees", type=int, default=100, help="Number of trees")
+    parser.add_argument("--max-samples", type=int, default=256, help="Samples per tree")
+    parser.add_argument("--seed", type=int, default=42, help="Random seed")
+    parser.add_argument("--version", default=datetime.now().strftime("%Y%m%d%H%M%S"), help="Model version")
+    args = parser.parse_args()
+
+    data = generate_dataset(args.count, args.days, args.seed)
+    model = IsolationForest(n_estimators=args.trees, max_samples=args.max_samples, random_state=args.seed)
+    model.fit(data)
+    export(model, FEATURE_NAMES, args.output, args.version)
+
+    scores = -model.score_samples(data[:5])
+    print(f"Exported {args.trees} trees as version {args.version} to {args.output}")
+    print("Reference scores of the first rows (compare with the JVM scorer):")
+    for row, score in zip(data[:5].tolist(), scores):
+        print(f"  {row} -> {score:.6f}")
+
+
+if __name__ == "__main__":
+    main()
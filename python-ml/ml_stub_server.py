@@ -0,0 +1,147 @@
+"""
+Local stand-in for the ML scoring service, for testing the validation
+service's remote scoring client.
+
+Serves POST /score/batch:
+    request:  {"features": [...names], "instances": [[...], ...]}
+    response: {"modelVersion": "...", "scores": [...]}
+
+Latency, jitter and failures can be injected to exercise micro-batching,
+timeouts and the circuit breaker. Scores come from an exported Isolation
+Forest (export_isolation_forest.py) when --model is given, otherwise from
+a simple amount and velocity heuristic.
+"""
+import argparse
+import json
+import math
+import random
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+EULER_GAMMA = 0.5772156649015329
+
+
+def average_path_length(n):
+    if n <= 1:
+        return 0.0
+    if n == 2:
+        return 1.0
+    return 2.0 * (math.log(n - 1.0) + EULER_GAMMA) - 2.0 * (n - 1.0) / n
+
+
+class ForestScorer:
+    """Pure-Python scoring of an exported isolation-forest/v1 model"""
+
+    def __init__(self, path):
+        with open(path) as source:
+            document = json.load(source)
+        self.version = document["version"]
+        self.features = document["features"]
+        self.trees = document["trees"]
+        self.normalizer = len(self.trees) * average_path_length(document["maxSamples"])
+
+    def score(self, x):
+        depth = 0.0
+        for tree in self.trees:
+            node, level = 0, 0
+            while tree["left"][node] >= 0:
+                go_left = x[tree["feature"][node]] <= tree["threshold"][node]
+                node = tree["left"][node] if go_left else tree["right"][node]
+                level += 1
+            depth += level + average_path_length(tree["samples"][node])
+        return 2.0 ** (-depth / self.normalizer)
+
+
+class HeuristicScorer:
+    """Anomaly-like score from log amount and minute velocity"""
+
+    version = "heuristic-1"
+    features = None
+
+    def score(self, x):
+        z = (x[0] - 8.0) + 0.5 * max(x[7] - 3.0, 0.0)
+        return 1.0 / (1.0 + math.exp(-z))
+
+
+class StubHandler(BaseHTTPRequestHandler):
+    scorer = None
+    latency_ms = 0.0
+    jitter_ms = 0.0
+    error_rate = 0.0
+    lock = threading.Lock()
+    stats = {"requests": 0, "instances": 0, "errors": 0}
+
+    def do_POST(self):
+        if self.path != "/score/batch":
+            self.send_error(404)
+            return
+        body = json.loads(self.rfile.read(int(self.headers.get("Content-Length", 0))))
+        instances = body.get("instances", [])
+        with self.lock:
+            self.stats["requests"] += 1
+            self.stats["instances"] += len(instances)
+
+        delay = self.latency_ms + random.uniform(0, self.jitter_ms)
+        if delay > 0:
+            time.sleep(delay / 1000.0)
+        if random.random() < self.error_rate:
+            with self.lock:
+                self.stats["errors"] += 1
+            self.send_error(503, "Injected failure")
+            return
+        if self.scorer.features is not None and body.get("features") != self.scorer.features:
+            self.send_error(400, "Feature layout does not match the model")
+            return
+
+        response = json.dumps({
+            "modelVersion": self.scorer.version,
+            "scores": [self.scorer.score(x) for x in instances],
+        }).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(response)))
+        self.end_headers()
+        self.wfile.write(response)
+
+    def do_GET(self):
+        if self.path != "/stats":
+            self.send_error(404)
+            return
+        with self.lock:
+            response = json.dumps(self.stats).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(response)))
+        self.end_headers()
+        self.wfile.write(response)
+
+    def log_message(self, format, *args):
+        pass
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Stub ML scoring service with latency injection")
+    parser.add_argument("--port", type=int, default=8000, help="Port to listen on")
+    parser.add_argument("--model", help="Exported isolation-forest/v1 model to score with")
+    parser.add_argument("--latency-ms", type=float, default=0.0, help="Fixed delay added to every request")
+    parser.add_argument("--jitter-ms", type=float, default=0.0, help="Random extra delay, uniform up to this")
+    parser.add_argument("--error-rate", type=float, default=0.0, help="Fraction of requests answered with 503")
+    args = parser.parse_args()
+
+    StubHandler.scorer = ForestScorer(args.model) if args.model else HeuristicScorer()
+    StubHandler.latency_ms = args.latency_ms
+    StubHandler.jitter_ms = args.jitter_ms
+    StubHandler.error_rate = args.error_rate
+
+    server = ThreadingHTTPServer(("", args.port), StubHandler)
+    print(f"ML stub serving model {StubHandler.scorer.version} on port {args.port} "
+          f"(latency {args.latency_ms}ms + up to {args.jitter_ms}ms, error rate {args.error_rate})")
+    try:
+        server.serve_forever()
+    except KeyboardInterrupt:
+        server.server_close()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,22 @@
+package com.saketh.simulator.reporting;
+
+import com.saketh.simulator.common.id.TransactionIds;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.annotation.EnableKafka;
+
+/**
+ * Reporting Service - Ad-hoc aggregates over settled transactions.
+ * Loads settled-transactions into an in-memory columnar store and answers
+ * spend and volume queries from it.
+ */
+@SpringBootApplication
+@EnableKafka
+public class ReportingServiceApplication {
+
+    public static void main(String[] args) {
+        // Fail on a bad node ID before anything mints a transaction ID
+        TransactionIds.initialize();
+        SpringApplication.run(ReportingServiceApplication.class, args);
+    }
+}
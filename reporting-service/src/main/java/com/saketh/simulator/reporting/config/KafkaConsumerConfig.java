@@ -0,0 +1,84 @@
+package com.saketh.simulator.reporting.config;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka consumer configuration for batch consumption of settled transactions.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id:reporting-service}")
+    private String groupId;
+
+    @Value("${reporting.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    /**
+     * Configure Kafka consumer properties
+     */
+    @Bean
+    public ConsumerFactory<String, Transaction> consumerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = new HashMap<>();
+        
+        // Basic configuration
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        
+        // Undecodable records arrive as null values instead of failing the whole poll
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, TransactionDeserializer.class);
+        
+        // Only committed results are loaded; offsets are committed after each batch
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        
+        // Throughput tuning: fewer, larger polls
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 16384); // 16KB
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 50);
+        configProps.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 1048576); // 1MB
+        
+        DefaultKafkaConsumerFactory<String, Transaction> factory = new DefaultKafkaConsumerFactory<>(configProps);
+        // Exposes client metrics, including kafka.consumer.fetch.manager.records.lag.max
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Batch listener container
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Transaction> batchListenerContainerFactory(
+            ConsumerFactory<String, Transaction> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, Transaction> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(AppConstants.KAFKA_CONSUMER_THREADS);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
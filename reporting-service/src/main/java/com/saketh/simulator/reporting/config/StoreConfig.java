@@ -0,0 +1,35 @@
+package com.saketh.simulator.reporting.config;
+
+import com.saketh.simulator.reporting.store.ColumnarStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+/**
+ * Columnar store sizing.
+ */
+@Configuration
+public class StoreConfig {
+
+    /**
+     * Query parallelism defaults to one thread per core. Rows are kept for
+     * the reload window, so a restart rebuilds the same history.
+     */
+    @Bean(destroyMethod = "close")
+    public ColumnarStore columnarStore(
+            @Value("${reporting.store.chunk-rows:65536}") int chunkRows,
+            @Value("${reporting.store.partition-ms:3600000}") long partitionMillis,
+            @Value("${reporting.store.memory-budget-mb:512}") long memoryBudgetMb,
+            @Value("${reporting.store.max-future-ms:300000}") long maxFutureMillis,
+            @Value("${reporting.store.reload-ms:86400000}") long retentionMillis,
+            @Value("${reporting.store.recent-ids:262144}") int recentIds,
+            @Value("${reporting.query.max-groups:1000000}") int maxGroups,
+            @Value("${reporting.query.max-concurrent:4}") int maxConcurrentQueries,
+            @Value("${reporting.store.query-threads:0}") int queryThreads) {
+        int parallelism = queryThreads > 0 ? queryThreads : Runtime.getRuntime().availableProcessors();
+        return new ColumnarStore(chunkRows, partitionMillis, memoryBudgetMb * 1024 * 1024, maxFutureMillis,
+            retentionMillis, recentIds, maxGroups, maxConcurrentQueries, parallelism, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,117 @@
+package com.saketh.simulator.reporting.controller;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.reporting.exception.QueryRejectedException;
+import com.saketh.simulator.reporting.store.AggregateRow;
+import com.saketh.simulator.reporting.store.AnalyticsQuery;
+import com.saketh.simulator.reporting.store.ColumnarStore;
+import com.saketh.simulator.reporting.store.GroupBy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for ad-hoc aggregate queries over settled transactions.
+ */
+@RestController
+@RequestMapping("/api/v1/reports")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportingController {
+
+    private final ColumnarStore store;
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "reporting-service");
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Count, sum, min and max of matching transactions per group and
+     * currency, largest sums first; e.g. spend by merchant over a day with
+     * {@code groupBy=MERCHANT&from=...&to=...}, or the top users by volume
+     * with {@code groupBy=USER&limit=10}. Answers 429 while the store is
+     * running its maximum number of queries and 400 if the query has more
+     * groups than allowed.
+     */
+    @GetMapping("/aggregate")
+    public ResponseEntity<List<AggregateRow>> aggregate(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String merchantId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) TransactionType transactionType,
+            @RequestParam(defaultValue = "NONE") GroupBy groupBy,
+            @RequestParam(defaultValue = "0") int limit) {
+        
+        AnalyticsQuery query = AnalyticsQuery.builder()
+            .fromMillis(from == null ? null : from.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+            .toMillis(to == null ? null : to.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+            .userId(userId)
+            .merchantId(merchantId)
+            .category(category)
+            .currency(currency)
+            .transactionType(transactionType)
+            .groupBy(groupBy)
+            .limit(limit)
+            .build();
+        
+        long startNanos = System.nanoTime();
+        List<AggregateRow> rows;
+        try {
+            rows = store.query(query);
+        } catch (QueryRejectedException e) {
+            if (e.getRetryAfterSeconds() > 0) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        log.debug("Aggregate query by {} returned {} groups in {}us", groupBy, rows.size(),
+            (System.nanoTime() - startNanos) / 1000);
+        return ResponseEntity.ok(rows);
+    }
+
+    /**
+     * Get store statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rows", store.getRowCount());
+        stats.put("chunks", store.getChunkCount());
+        stats.put("memoryBytes", store.getMemoryBytes());
+        stats.put("memoryBudgetBytes", store.getMemoryBudgetBytes());
+        stats.put("evictedRows", store.getEvictedRows());
+        stats.put("rejectedRows", store.getRejectedRows());
+        stats.put("duplicateRows", store.getDuplicateRows());
+        stats.put("users", store.getUserCount());
+        stats.put("merchants", store.getMerchantCount());
+        stats.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(stats);
+    }
+}
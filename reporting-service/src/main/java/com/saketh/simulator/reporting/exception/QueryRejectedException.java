@@ -0,0 +1,21 @@
+package com.saketh.simulator.reporting.exception;
+
+/**
+ * Thrown when a query is not run, either because the store is already
+ * running its maximum number of scans or because its groups would exceed
+ * the group limit. Carries how long the client should wait before
+ * retrying, or 0 if retrying the same query will not help.
+ */
+public class QueryRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public QueryRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.saketh.simulator.reporting.listener;
+
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.reporting.store.ColumnarStore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch listener loading settled-transactions into the columnar store.
+ * The store lives in memory only, so the first time a partition is
+ * assigned it is rewound to the start of the reload window and the store
+ * is rebuilt from the topic. Partitions regained after a rebalance resume
+ * from the committed offset, their earlier rows still being in the store.
+ */
+@Component
+@Slf4j
+public class SettledTransactionListener implements ConsumerSeekAware {
+
+    private final ColumnarStore store;
+    private final long reloadMillis;
+    private final Set<TopicPartition> loaded = ConcurrentHashMap.newKeySet();
+
+    public SettledTransactionListener(ColumnarStore store,
+                                      @Value("${reporting.store.reload-ms:86400000}") long reloadMillis) {
+        this.store = store;
+        this.reloadMillis = reloadMillis;
+    }
+
+    @KafkaListener(
+        id = "settled-transactions-reporter",
+        topics = KafkaTopics.SETTLED_TRANSACTIONS,
+        containerFactory = "batchListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, Transaction>> records) {
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Transaction> record : records) {
+            if (record.value() != null) {
+                transactions.add(record.value());
+            }
+        }
+        store.append(transactions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<TopicPartition> reload = new ArrayList<>();
+        for (TopicPartition partition : assignments.keySet()) {
+            if (loaded.add(partition)) {
+                reload.add(partition);
+            }
+        }
+        if (!reload.isEmpty()) {
+            long since = System.currentTimeMillis() - reloadMillis;
+            log.info("Reloading {} from {}", reload, Instant.ofEpochMilli(since));
+            callback.seekToTimestamp(reload, since);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.saketh.simulator.reporting.store;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filter-and-aggregate query over the columnar store. Null filters match
+ * everything.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQuery {
+
+    /**
+     * Time range in epoch millis, start inclusive and end exclusive
+     */
+    private Long fromMillis;
+    private Long toMillis;
+
+    private String userId;
+    private String merchantId;
+    private String category;
+    private String currency;
+    private TransactionType transactionType;
+
+    @Builder.Default
+    private GroupBy groupBy = GroupBy.NONE;
+
+    /**
+     * Keep only the groups with the largest sums; 0 for all groups
+     */
+    private int limit;
+}
@@ -0,0 +1,67 @@
+package com.saketh.simulator.reporting.store;
+
+/**
+ * Fixed-capacity block of rows of one time partition, one primitive array
+ * per column. A single writer appends rows; a row becomes visible to
+ * readers when {@link #size} is published after its columns are written.
+ */
+class ColumnChunk {
+
+    /**
+     * Heap bytes per row across all columns
+     */
+    static final int BYTES_PER_ROW = 2 * Long.BYTES + 5 * Integer.BYTES;
+
+    final long partition;
+    final long[] timestamps;
+    final long[] amounts;
+    final int[] users;
+    final int[] merchants;
+    final int[] categories;
+    final int[] currencies;
+    final int[] types;
+
+    // Written by the appender before size
+    long minTimestamp = Long.MAX_VALUE;
+    long maxTimestamp = Long.MIN_VALUE;
+
+    private volatile int size;
+
+    ColumnChunk(long partition, int capacity) {
+        this.partition = partition;
+        this.timestamps = new long[capacity];
+        this.amounts = new long[capacity];
+        this.users = new int[capacity];
+        this.merchants = new int[capacity];
+        this.categories = new int[capacity];
+        this.currencies = new int[capacity];
+        this.types = new int[capacity];
+    }
+
+    boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return timestamps.length;
+    }
+
+    void append(long timestamp, long amount, int user, int merchant, int category,
+                int currency, int type) {
+        int row = size;
+        timestamps[row] = timestamp;
+        amounts[row] = amount;
+        users[row] = user;
+        merchants[row] = merchant;
+        categories[row] = category;
+        currencies[row] = currency;
+        types[row] = type;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        size = row + 1;
+    }
+}
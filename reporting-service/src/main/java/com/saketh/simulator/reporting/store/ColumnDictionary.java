@@ -0,0 +1,67 @@
+package com.saketh.simulator.reporting.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding of a string column: each distinct value gets the
+ * next int code. Codes are never reused, so a code read from a chunk
+ * always decodes to the same value. Values are added under the store's
+ * append lock and read lock-free.
+ */
+class ColumnDictionary {
+
+    /**
+     * Code of null values
+     */
+    static final int NULL_CODE = 0;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private volatile int size = 1;
+
+    /**
+     * Code of a value, adding it if new. Callers hold the append lock.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        int newCode = size;
+        current[newCode] = value;
+        values = current;
+        size = newCode + 1;
+        codes.put(value, newCode);
+        return newCode;
+    }
+
+    /**
+     * Code of a value, or -1 if it has never been stored
+     */
+    int lookup(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * Number of codes in use, including the null code
+     */
+    int size() {
+        return size;
+    }
+}
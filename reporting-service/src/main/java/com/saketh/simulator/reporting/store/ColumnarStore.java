@@ -0,0 +1,648 @@
+package com.saketh.simulator.reporting.store;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.reporting.exception.QueryRejectedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Append-only, in-memory columnar store of settled transactions.
+ * <p>
+ * Rows go into fixed-capacity {@link ColumnChunk}s partitioned by event
+ * time, with user, merchant, category and currency dictionary-encoded to
+ * ints. Queries prune chunks by time range and scan the rest in parallel
+ * on a fork-join pool. Each scan filters a block of rows into a selection
+ * vector with a branch-free loop, then aggregates the selected rows into
+ * flat per-group arrays.
+ * <p>
+ * A partition's first chunk is small and each further chunk of it doubles
+ * up to the chunk capacity, so a sparse partition does not pin a full
+ * chunk. Rows stamped further ahead of the wall clock than the allowed
+ * skew, or older than the retention, are rejected rather than opening a
+ * partition of their own. Once the memory budget is reached the chunk of
+ * the oldest partition is evicted to make room, unless the row is no
+ * newer than it, in which case the row is rejected. Dictionaries are not
+ * evicted.
+ * <p>
+ * Settled results are delivered at least once, so rows whose
+ * transactionId was among the most recently appended are skipped.
+ * <p>
+ * Group aggregates are dense arrays while the group count is small and
+ * hash tables of the groups actually seen beyond that. A query is
+ * rejected if it produces more than {@code maxGroups} groups or if
+ * {@code maxConcurrentQueries} scans are already running.
+ * <p>
+ * Appends are serialised; queries run concurrently with them and see
+ * every row appended before they started.
+ */
+@Slf4j
+public class ColumnarStore implements AutoCloseable {
+
+    private static final int BLOCK = 1024;
+    private static final int MIN_CHUNK_ROWS = 1024;
+    // Group slots up to which partials are dense arrays, 8MB per partial
+    private static final int DENSE_SLOTS = 1 << 18;
+    private static final String UNKNOWN_KEY = "unknown";
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final int chunkCapacity;
+    private final long partitionMillis;
+    private final long memoryBudgetBytes;
+    private final long maxFutureMillis;
+    private final long retentionMillis;
+    private final int maxGroups;
+    private final ZoneId zone;
+    private final ForkJoinPool pool;
+    private final Semaphore scans;
+
+    private final ColumnDictionary users = new ColumnDictionary();
+    private final ColumnDictionary merchants = new ColumnDictionary();
+    private final ColumnDictionary categories = new ColumnDictionary();
+    private final ColumnDictionary currencies = new ColumnDictionary();
+
+    // Guarded by this
+    private final Map<Long, ColumnChunk> openChunks = new HashMap<>();
+    private final Map<String, Boolean> recentIds;
+    private long allocatedBytes;
+    private long evictedRows;
+    private long rejectedRows;
+    private long duplicateRows;
+
+    private volatile ColumnChunk[] chunks = new ColumnChunk[0];
+
+    /**
+     * @param chunkCapacity        maximum rows per chunk
+     * @param partitionMillis      time span of a partition; a chunk holds rows of one partition
+     * @param memoryBudgetBytes    upper bound on column memory
+     * @param maxFutureMillis      how far ahead of the wall clock a row may be stamped
+     * @param retentionMillis      how far behind the wall clock a row may be stamped
+     * @param recentIdCount        transactionIds remembered to skip redelivered rows
+     * @param maxGroups            maximum groups a query may produce
+     * @param maxConcurrentQueries scans run at once; further queries are rejected
+     * @param parallelism          query threads
+     * @param zone                 zone of transaction timestamps
+     */
+    public ColumnarStore(int chunkCapacity, long partitionMillis, long memoryBudgetBytes,
+                         long maxFutureMillis, long retentionMillis, int recentIdCount,
+                         int maxGroups, int maxConcurrentQueries, int parallelism, ZoneId zone) {
+        this.chunkCapacity = chunkCapacity;
+        this.partitionMillis = partitionMillis;
+        this.memoryBudgetBytes = Math.max(memoryBudgetBytes, (long) chunkCapacity * ColumnChunk.BYTES_PER_ROW);
+        this.maxFutureMillis = maxFutureMillis;
+        this.retentionMillis = retentionMillis;
+        this.maxGroups = maxGroups;
+        this.zone = zone;
+        this.pool = new ForkJoinPool(parallelism);
+        this.scans = new Semaphore(maxConcurrentQueries);
+        this.recentIds = new LinkedHashMap<>(16, 0.75f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentIdCount;
+            }
+        };
+    }
+
+    /**
+     * Append transactions; those without a timestamp or usable amount, or
+     * stamped outside the accepted range, are rejected and those already
+     * appended recently are skipped
+     *
+     * @return number of rows appended
+     */
+    public synchronized int append(List<Transaction> transactions) {
+        long now = System.currentTimeMillis();
+        int appended = 0;
+        for (Transaction transaction : transactions) {
+            String transactionId = transaction.getTransactionId();
+            if (transactionId != null && recentIds.containsKey(transactionId)) {
+                duplicateRows++;
+            } else if (appendRow(transaction, now)) {
+                if (transactionId != null) {
+                    recentIds.put(transactionId, Boolean.TRUE);
+                }
+                appended++;
+            } else {
+                rejectedRows++;
+            }
+        }
+        return appended;
+    }
+
+    private boolean appendRow(Transaction transaction, long now) {
+        if (transaction.getTimestamp() == null || transaction.getAmount() == null) {
+            return false;
+        }
+        long amount;
+        try {
+            amount = Money.toMinorUnits(transaction.getAmount(), transaction.getCurrency());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return false;
+        }
+        long timestamp = transaction.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+        if (timestamp > now + maxFutureMillis || timestamp < now - retentionMillis) {
+            return false;
+        }
+
+        long partition = Math.floorDiv(timestamp, partitionMillis);
+        ColumnChunk chunk = openChunks.get(partition);
+        if (chunk == null || chunk.isFull()) {
+            int capacity = chunk == null ? Math.min(MIN_CHUNK_ROWS, chunkCapacity)
+                : (int) Math.min(chunkCapacity, 2L * chunk.capacity());
+            chunk = newChunk(partition, capacity);
+            if (chunk == null) {
+                return false;
+            }
+        }
+        TransactionType type = transaction.getTransactionType();
+        chunk.append(timestamp, amount,
+            users.encode(transaction.getUserId()),
+            merchants.encode(transaction.getMerchantId()),
+            categories.encode(transaction.getCategory()),
+            currencies.encode(transaction.getCurrency()),
+            type == null ? 0 : type.ordinal() + 1);
+        return true;
+    }
+
+    /**
+     * Allocate a chunk, evicting older partitions to stay within the budget
+     *
+     * @return the chunk, or null if only partitions no older than this one could be evicted
+     */
+    private ColumnChunk newChunk(long partition, int capacity) {
+        long bytes = (long) capacity * ColumnChunk.BYTES_PER_ROW;
+        ColumnChunk[] current = chunks;
+        while (allocatedBytes + bytes > memoryBudgetBytes) {
+            int oldest = oldest(current);
+            if (current[oldest].partition >= partition) {
+                return null;
+            }
+            current = evict(current, oldest);
+        }
+        ColumnChunk chunk = new ColumnChunk(partition, capacity);
+        ColumnChunk[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = chunk;
+        chunks = next;
+        allocatedBytes += bytes;
+        openChunks.put(partition, chunk);
+        return chunk;
+    }
+
+    private static int oldest(ColumnChunk[] current) {
+        int oldest = 0;
+        for (int i = 1; i < current.length; i++) {
+            if (current[i].partition < current[oldest].partition) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    private ColumnChunk[] evict(ColumnChunk[] current, int oldest) {
+        ColumnChunk evicted = current[oldest];
+        openChunks.remove(evicted.partition, evicted);
+        evictedRows += evicted.size();
+        allocatedBytes -= (long) evicted.capacity() * ColumnChunk.BYTES_PER_ROW;
+        log.debug("Evicted chunk of partition {} with {} rows", evicted.partition, evicted.size());
+
+        ColumnChunk[] next = new ColumnChunk[current.length - 1];
+        System.arraycopy(current, 0, next, 0, oldest);
+        System.arraycopy(current, oldest + 1, next, oldest, current.length - oldest - 1);
+        return next;
+    }
+
+    /**
+     * Run a filter-and-aggregate query; groups are ordered by descending sum
+     *
+     * @throws QueryRejectedException if too many scans are running or the query has too many groups
+     */
+    public List<AggregateRow> query(AnalyticsQuery query) {
+        if (!scans.tryAcquire()) {
+            throw new QueryRejectedException("Too many concurrent queries", 1);
+        }
+        try {
+            return scan(query);
+        } finally {
+            scans.release();
+        }
+    }
+
+    private List<AggregateRow> scan(AnalyticsQuery query) {
+        // Row counts first: every code in those rows is then in the dictionaries read below
+        ColumnChunk[] snapshot = chunks;
+        int[] limits = new int[snapshot.length];
+        for (int i = 0; i < snapshot.length; i++) {
+            limits[i] = snapshot[i].size();
+        }
+
+        Filter filter = new Filter(query);
+        if (filter.user == -1 || filter.merchant == -1 || filter.category == -1 || filter.currency == -1) {
+            // Filter value never stored
+            return new ArrayList<>();
+        }
+
+        List<ColumnChunk> candidates = new ArrayList<>();
+        List<Integer> candidateLimits = new ArrayList<>();
+        for (int i = 0; i < snapshot.length; i++) {
+            ColumnChunk chunk = snapshot[i];
+            if (limits[i] > 0 && chunk.maxTimestamp >= filter.from && chunk.minTimestamp < filter.to) {
+                candidates.add(chunk);
+                candidateLimits.add(limits[i]);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int leafSize = Math.max(1, candidates.size() / (2 * pool.getParallelism()));
+        Partial result = pool.invoke(new ScanTask(candidates, candidateLimits, 0, candidates.size(),
+            leafSize, filter, maxGroups));
+        return toRows(result, filter, query.getLimit());
+    }
+
+    private List<AggregateRow> toRows(Partial partial, Filter filter, int limit) {
+        List<AggregateRow> rows = new ArrayList<>();
+        for (int entry = 0; entry < partial.size; entry++) {
+            if (partial.count[entry] == 0) {
+                continue;
+            }
+            int slot = partial.slotOf(entry);
+            int group = slot / filter.currencyCount;
+            String currency = currencies.decode(slot % filter.currencyCount);
+            int scale = Money.scaleOf(currency);
+            rows.add(AggregateRow.builder()
+                .key(keyOf(filter.groupBy, group))
+                .currency(currency)
+                .count(partial.count[entry])
+                .sum(BigDecimal.valueOf(partial.sum[entry], scale))
+                .min(BigDecimal.valueOf(partial.min[entry], scale))
+                .max(BigDecimal.valueOf(partial.max[entry], scale))
+                .build());
+        }
+        if (rows.size() > maxGroups) {
+            throw new QueryRejectedException("Query has more than " + maxGroups
+                + " groups; narrow it with filters or a coarser grouping", 0);
+        }
+        rows.sort(Comparator.comparing(AggregateRow::getSum).reversed());
+        return limit > 0 && rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    private String keyOf(GroupBy groupBy, int code) {
+        String key;
+        switch (groupBy) {
+            case USER:
+                key = users.decode(code);
+                break;
+            case MERCHANT:
+                key = merchants.decode(code);
+                break;
+            case CATEGORY:
+                key = categories.decode(code);
+                break;
+            case CURRENCY:
+                key = currencies.decode(code);
+                break;
+            case TRANSACTION_TYPE:
+                key = code == 0 ? null : TYPES[code - 1].name();
+                break;
+            default:
+                key = "all";
+        }
+        return key == null ? UNKNOWN_KEY : key;
+    }
+
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public long getRowCount() {
+        long rows = 0;
+        for (ColumnChunk chunk : chunks) {
+            rows += chunk.size();
+        }
+        return rows;
+    }
+
+    public synchronized long getMemoryBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getEvictedRows() {
+        return evictedRows;
+    }
+
+    public synchronized long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public synchronized long getDuplicateRows() {
+        return duplicateRows;
+    }
+
+    public int getUserCount() {
+        return users.size() - 1;
+    }
+
+    public int getMerchantCount() {
+        return merchants.size() - 1;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Query resolved to dictionary codes; -2 means no filter, -1 a value
+     * that matches nothing
+     */
+    private final class Filter {
+
+        private final long from;
+        private final long to;
+        private final int user;
+        private final int merchant;
+        private final int category;
+        private final int currency;
+        private final int type;
+        private final GroupBy groupBy;
+        private final int groupCount;
+        private final int currencyCount;
+
+        Filter(AnalyticsQuery query) {
+            this.from = query.getFromMillis() == null ? Long.MIN_VALUE : query.getFromMillis();
+            this.to = query.getToMillis() == null ? Long.MAX_VALUE : query.getToMillis();
+            this.user = code(users, query.getUserId());
+            this.merchant = code(merchants, query.getMerchantId());
+            this.category = code(categories, query.getCategory());
+            this.currency = code(currencies, query.getCurrency());
+            this.type = query.getTransactionType() == null ? -2 : query.getTransactionType().ordinal() + 1;
+            this.groupBy = query.getGroupBy() == null ? GroupBy.NONE : query.getGroupBy();
+            this.currencyCount = currencies.size();
+            switch (groupBy) {
+                case USER:
+                    groupCount = users.size();
+                    break;
+                case MERCHANT:
+                    groupCount = merchants.size();
+                    break;
+                case CATEGORY:
+                    groupCount = categories.size();
+                    break;
+                case CURRENCY:
+                    groupCount = currencies.size();
+                    break;
+                case TRANSACTION_TYPE:
+                    groupCount = TYPES.length + 1;
+                    break;
+                default:
+                    groupCount = 1;
+            }
+        }
+
+        private int code(ColumnDictionary dictionary, String value) {
+            return value == null ? -2 : dictionary.lookup(value);
+        }
+
+        private int[] groupColumn(ColumnChunk chunk) {
+            switch (groupBy) {
+                case USER:
+                    return chunk.users;
+                case MERCHANT:
+                    return chunk.merchants;
+                case CATEGORY:
+                    return chunk.categories;
+                case CURRENCY:
+                    return chunk.currencies;
+                case TRANSACTION_TYPE:
+                    return chunk.types;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Per-group aggregates by slot, {@code group * currencyCount + currency}.
+     * Up to {@link #DENSE_SLOTS} slots the slot is the entry index;
+     * beyond that entries are added as slots are seen, through an
+     * open-addressing table, so memory follows the groups present.
+     */
+    private static final class Partial {
+
+        private final boolean dense;
+        private final int maxEntries;
+        // Sparse only: entry + 1 per bucket, and the slot of each entry
+        private int[] table;
+        private int[] slots;
+        private long[] count;
+        private long[] sum;
+        private long[] min;
+        private long[] max;
+        private int size;
+
+        Partial(int slotCount, int maxEntries) {
+            this.dense = slotCount <= DENSE_SLOTS;
+            this.maxEntries = maxEntries;
+            int capacity = dense ? slotCount : BLOCK;
+            this.count = new long[capacity];
+            this.sum = new long[capacity];
+            this.min = new long[capacity];
+            this.max = new long[capacity];
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, Long.MIN_VALUE);
+            if (dense) {
+                this.size = slotCount;
+            } else {
+                this.table = new int[2 * capacity];
+                this.slots = new int[capacity];
+            }
+        }
+
+        int slotOf(int entry) {
+            return dense ? entry : slots[entry];
+        }
+
+        /**
+         * Entry of a slot, added if new
+         *
+         * @throws QueryRejectedException if that makes more than the maximum entries
+         */
+        int entryOf(int slot) {
+            if (dense) {
+                return slot;
+            }
+            int mask = table.length - 1;
+            for (int bucket = bucketOf(slot, mask); ; bucket = (bucket + 1) & mask) {
+                int entry = table[bucket] - 1;
+                if (entry < 0) {
+                    return add(slot, bucket);
+                }
+                if (slots[entry] == slot) {
+                    return entry;
+                }
+            }
+        }
+
+        private int add(int slot, int bucket) {
+            if (size == maxEntries) {
+                throw new QueryRejectedException("Query has more than " + maxEntries
+                    + " groups; narrow it with filters or a coarser grouping", 0);
+            }
+            if (size == slots.length) {
+                grow();
+                return entryOf(slot);
+            }
+            int entry = size++;
+            slots[entry] = slot;
+            table[bucket] = entry + 1;
+            return entry;
+        }
+
+        private void grow() {
+            int capacity = slots.length * 2;
+            slots = Arrays.copyOf(slots, capacity);
+            count = Arrays.copyOf(count, capacity);
+            sum = Arrays.copyOf(sum, capacity);
+            min = Arrays.copyOf(min, capacity);
+            max = Arrays.copyOf(max, capacity);
+            Arrays.fill(min, size, capacity, Long.MAX_VALUE);
+            Arrays.fill(max, size, capacity, Long.MIN_VALUE);
+            table = new int[2 * capacity];
+            int mask = table.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int bucket = bucketOf(slots[entry], mask);
+                while (table[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                table[bucket] = entry + 1;
+            }
+        }
+
+        private static int bucketOf(int slot, int mask) {
+            int hash = slot * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < other.size; i++) {
+                if (other.count[i] == 0) {
+                    continue;
+                }
+                int entry = entryOf(other.slotOf(i));
+                count[entry] += other.count[i];
+                sum[entry] += other.sum[i];
+                min[entry] = Math.min(min[entry], other.min[i]);
+                max[entry] = Math.max(max[entry], other.max[i]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Scans a range of chunks, splitting it while it is larger than the leaf size
+     */
+    private static final class ScanTask extends RecursiveTask<Partial> {
+
+        private final List<ColumnChunk> chunks;
+        private final List<Integer> limits;
+        private final int start;
+        private final int end;
+        private final int leafSize;
+        private final Filter filter;
+        private final int maxGroups;
+
+        ScanTask(List<ColumnChunk> chunks, List<Integer> limits, int start, int end, int leafSize, Filter filter,
+                 int maxGroups) {
+            this.chunks = chunks;
+            this.limits = limits;
+            this.start = start;
+            this.end = end;
+            this.leafSize = leafSize;
+            this.filter = filter;
+            this.maxGroups = maxGroups;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (end - start <= leafSize) {
+                Partial partial = new Partial(filter.groupCount * filter.currencyCount, maxGroups);
+                int[] selection = new int[BLOCK];
+                for (int i = start; i < end; i++) {
+                    scan(chunks.get(i), limits.get(i), filter, partial, selection);
+                }
+                return partial;
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask left = new ScanTask(chunks, limits, start, middle, leafSize, filter, maxGroups);
+            ScanTask right = new ScanTask(chunks, limits, middle, end, leafSize, filter, maxGroups);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+
+        private static void scan(ColumnChunk chunk, int limit, Filter filter, Partial partial, int[] selection) {
+            long[] timestamps = chunk.timestamps;
+            long[] amounts = chunk.amounts;
+            int[] users = chunk.users;
+            int[] merchants = chunk.merchants;
+            int[] categories = chunk.categories;
+            int[] currencies = chunk.currencies;
+            int[] types = chunk.types;
+            int[] groups = filter.groupColumn(chunk);
+            long from = filter.from;
+            long to = filter.to;
+            int user = filter.user;
+            int merchant = filter.merchant;
+            int category = filter.category;
+            int currency = filter.currency;
+            int type = filter.type;
+            int currencyCount = filter.currencyCount;
+
+            for (int base = 0; base < limit; base += BLOCK) {
+                int blockEnd = Math.min(base + BLOCK, limit);
+
+                // Filter: branch-free, appends every row and advances only on a match
+                int selected = 0;
+                for (int row = base; row < blockEnd; row++) {
+                    long timestamp = timestamps[row];
+                    boolean match = timestamp >= from & timestamp < to
+                        & (user == -2 | users[row] == user)
+                        & (merchant == -2 | merchants[row] == merchant)
+                        & (category == -2 | categories[row] == category)
+                        & (currency == -2 | currencies[row] == currency)
+                        & (type == -2 | types[row] == type);
+                    selection[selected] = row;
+                    selected += match ? 1 : 0;
+                }
+
+                // Aggregate the selected rows
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    int entry = partial.entryOf((groups == null ? 0 : groups[row]) * currencyCount + currencies[row]);
+                    long amount = amounts[row];
+                    partial.count[entry]++;
+                    partial.sum[entry] += amount;
+                    partial.min[entry] = Math.min(partial.min[entry], amount);
+                    partial.max[entry] = Math.max(partial.max[entry], amount);
+                }
+            }
+        }
+    }
+}
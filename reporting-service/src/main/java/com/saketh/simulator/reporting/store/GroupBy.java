@@ -0,0 +1,14 @@
+package com.saketh.simulator.reporting.store;
+
+/**
+ * Column an analytics query groups rows by. Every group is further split
+ * by currency, so sums never mix currencies.
+ */
+public enum GroupBy {
+    NONE,
+    USER,
+    MERCHANT,
+    CATEGORY,
+    CURRENCY,
+    TRANSACTION_TYPE
+}
@@ -0,0 +1,201 @@
+package com.saketh.simulator.reporting.store;
+
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.reporting.exception.QueryRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grouping, filtering, deduplication, range checks and memory-bounded
+ * eviction of {@link ColumnarStore}, with one-minute partitions starting
+ * ten minutes ago.
+ */
+class ColumnarStoreTest {
+
+    private static final long PARTITION = 60_000;
+    private static final long BASE = (System.currentTimeMillis() / PARTITION - 10) * PARTITION;
+    private static final long CHUNK_BYTES = 1024L * ColumnChunk.BYTES_PER_ROW;
+
+    private final List<ColumnarStore> stores = new ArrayList<>();
+    private int nextId;
+
+    @AfterEach
+    void closeStores() {
+        stores.forEach(ColumnarStore::close);
+    }
+
+    @Test
+    void aggregatesEachGroupPerCurrency() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        assertEquals(4, store.append(List.of(
+            row("alice", "m-1", "food", "10.00", "USD", BASE),
+            row("alice", "m-1", "food", "5.00", "USD", BASE + 1),
+            row("bob", "m-2", "travel", "20.00", "USD", BASE + 2),
+            row("alice", "m-3", "food", "1000", "JPY", BASE + 3))));
+
+        List<AggregateRow> byUser = store.query(AnalyticsQuery.builder().groupBy(GroupBy.USER).build());
+        assertEquals(3, byUser.size());
+        AggregateRow aliceUsd = find(byUser, "alice", "USD");
+        assertEquals(2, aliceUsd.getCount());
+        assertEquals(new BigDecimal("15.00"), aliceUsd.getSum());
+        assertEquals(new BigDecimal("5.00"), aliceUsd.getMin());
+        assertEquals(new BigDecimal("10.00"), aliceUsd.getMax());
+        assertEquals(new BigDecimal("1000"), find(byUser, "alice", "JPY").getSum());
+        assertEquals(new BigDecimal("20.00"), find(byUser, "bob", "USD").getSum());
+    }
+
+    @Test
+    void filtersRowsAndPrunesByTime() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        store.append(List.of(
+            row("alice", "m-1", "food", "10.00", "USD", BASE),
+            row("bob", "m-1", "food", "7.00", "USD", BASE + PARTITION),
+            row("bob", "m-2", "travel", "20.00", "USD", BASE + 2 * PARTITION)));
+
+        assertEquals(2, total(store.query(AnalyticsQuery.builder().category("food").build())));
+        assertEquals(1, total(store.query(AnalyticsQuery.builder().userId("bob").merchantId("m-2").build())));
+        assertEquals(2, total(store.query(AnalyticsQuery.builder()
+            .fromMillis(BASE + PARTITION).toMillis(BASE + 3 * PARTITION).build())));
+        assertEquals(3, total(store.query(AnalyticsQuery.builder()
+            .transactionType(TransactionType.PAYMENT).build())));
+        // A value never stored matches nothing
+        assertTrue(store.query(AnalyticsQuery.builder().userId("carol").build()).isEmpty());
+    }
+
+    @Test
+    void ordersGroupsBySumAndKeepsTheLargest() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        store.append(List.of(
+            row("alice", "m-1", "food", "10.00", "USD", BASE),
+            row("alice", "m-2", "food", "30.00", "USD", BASE),
+            row("alice", "m-3", "food", "20.00", "USD", BASE)));
+
+        List<AggregateRow> top = store.query(AnalyticsQuery.builder().groupBy(GroupBy.MERCHANT).limit(2).build());
+        assertEquals(List.of("m-2", "m-3"), top.stream().map(AggregateRow::getKey).collect(Collectors.toList()));
+    }
+
+    @Test
+    void skipsRedeliveredRows() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        Transaction transaction = row("alice", "m-1", "food", "10.00", "USD", BASE);
+        assertEquals(1, store.append(List.of(transaction)));
+        assertEquals(0, store.append(List.of(transaction)));
+        assertEquals(1, store.getDuplicateRows());
+        assertEquals(1, store.getRowCount());
+    }
+
+    @Test
+    void rejectsRowsOutsideTheAcceptedRange() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        long now = System.currentTimeMillis();
+        Transaction unstamped = row("alice", "m-1", "food", "10.00", "USD", BASE);
+        unstamped.setTimestamp(null);
+
+        assertEquals(0, store.append(List.of(
+            row("alice", "m-1", "food", "10.00", "USD", now + 2 * PARTITION),
+            row("alice", "m-1", "food", "10.00", "USD", now - 2 * 24 * 60 * PARTITION),
+            unstamped)));
+        assertEquals(3, store.getRejectedRows());
+        assertEquals(0, store.getChunkCount());
+    }
+
+    @Test
+    void growsTheChunksOfABusyPartition() {
+        ColumnarStore store = store(1 << 20, 100, 2);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            rows.add(row("alice", "m-1", "food", "1.00", "USD", BASE + i));
+        }
+        store.append(rows);
+
+        assertEquals(2, store.getChunkCount());
+        assertEquals(3 * CHUNK_BYTES, store.getMemoryBytes());
+        assertEquals(1500, total(store.query(AnalyticsQuery.builder().build())));
+    }
+
+    @Test
+    void evictsTheOldestPartitionWhenTheBudgetIsReached() {
+        // Room for two first chunks; the budget never drops below one full chunk
+        ColumnarStore store = store(1024, 2 * CHUNK_BYTES, 100, 2);
+        store.append(List.of(
+            row("alice", "m-1", "food", "1.00", "USD", BASE),
+            row("alice", "m-1", "food", "2.00", "USD", BASE + PARTITION)));
+
+        store.append(List.of(row("alice", "m-1", "food", "4.00", "USD", BASE + 2 * PARTITION)));
+        assertEquals(2, store.getChunkCount());
+        assertEquals(1, store.getEvictedRows());
+        assertEquals(new BigDecimal("6.00"), store.query(AnalyticsQuery.builder().build()).get(0).getSum());
+
+        // Nothing older than this row is left to evict
+        assertEquals(0, store.append(List.of(row("alice", "m-1", "food", "8.00", "USD", BASE))));
+        assertEquals(1, store.getRejectedRows());
+    }
+
+    @Test
+    void rejectsQueriesWithTooManyGroups() {
+        ColumnarStore store = store(1 << 20, 2, 2);
+        store.append(List.of(
+            row("alice", "m-1", "food", "1.00", "USD", BASE),
+            row("bob", "m-1", "food", "1.00", "USD", BASE),
+            row("carol", "m-1", "food", "1.00", "USD", BASE)));
+
+        assertThrows(QueryRejectedException.class,
+            () -> store.query(AnalyticsQuery.builder().groupBy(GroupBy.USER).build()));
+        assertEquals(1, store.query(AnalyticsQuery.builder().groupBy(GroupBy.MERCHANT).build()).size());
+    }
+
+    @Test
+    void rejectsQueriesOverTheConcurrencyLimit() {
+        ColumnarStore store = store(1 << 20, 100, 0);
+        assertThrows(QueryRejectedException.class, () -> store.query(AnalyticsQuery.builder().build()));
+    }
+
+    private ColumnarStore store(long memoryBudgetBytes, int maxGroups, int maxConcurrentQueries) {
+        return store(1 << 12, memoryBudgetBytes, maxGroups, maxConcurrentQueries);
+    }
+
+    private ColumnarStore store(int chunkCapacity, long memoryBudgetBytes, int maxGroups, int maxConcurrentQueries) {
+        ColumnarStore store = new ColumnarStore(chunkCapacity, PARTITION, memoryBudgetBytes, PARTITION,
+            24 * 60 * PARTITION, 1000, maxGroups, maxConcurrentQueries, 2, ZoneOffset.UTC);
+        stores.add(store);
+        return store;
+    }
+
+    private Transaction row(String userId, String merchantId, String category, String amount, String currency,
+                            long epochMillis) {
+        return Transaction.builder()
+            .transactionId("tx-" + nextId++)
+            .userId(userId)
+            .merchantId(merchantId)
+            .category(category)
+            .amount(new BigDecimal(amount))
+            .currency(currency)
+            .transactionType(TransactionType.PAYMENT)
+            .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC))
+            .build();
+    }
+
+    private static AggregateRow find(List<AggregateRow> rows, String key, String currency) {
+        return rows.stream()
+            .filter(row -> row.getKey().equals(key) && row.getCurrency().equals(currency))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static long total(List<AggregateRow> rows) {
+        return rows.stream().mapToLong(AggregateRow::getCount).sum();
+    }
+}
@@ -0,0 +1,25 @@
+package com.saketh.simulator.settlement;
+
+import com.saketh.simulator.common.id.TransactionIds;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Settlement Service - Settles validated transactions against account balances.
+ * Consumes validated-transactions in batches, applies them to an in-memory
+ * ledger backed by a journal and snapshots, and publishes settled and
+ * failed records.
+ */
+@SpringBootApplication
+@EnableKafka
+@EnableScheduling
+public class SettlementServiceApplication {
+
+    public static void main(String[] args) {
+        // Fail on a bad node ID before anything mints a transaction ID
+        TransactionIds.initialize();
+        SpringApplication.run(SettlementServiceApplication.class, args);
+    }
+}
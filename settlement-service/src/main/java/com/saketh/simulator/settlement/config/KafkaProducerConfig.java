@@ -0,0 +1,90 @@
+package com.saketh.simulator.settlement.config;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka producer configuration for settlement results.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${settlement.kafka.wire-format:json}")
+    private String wireFormat;
+
+    /**
+     * Configure Kafka producer properties
+     */
+    @Bean
+    public ProducerFactory<String, Transaction> producerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = new HashMap<>();
+        
+        // Basic configuration
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        
+        // Performance tuning: results of a whole poll batch are flushed together
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536); // 64KB batch size
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
+        
+        // Reliability configuration
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        
+        Serializer<Transaction> valueSerializer = "binary".equalsIgnoreCase(wireFormat)
+            ? new TransactionSerializer()
+            : new JsonSerializer<>();
+        DefaultKafkaProducerFactory<String, Transaction> factory = new DefaultKafkaProducerFactory<>(
+            configProps, new StringSerializer(), valueSerializer);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * KafkaTemplate for publishing settlement results
+     */
+    @Bean
+    public KafkaTemplate<String, Transaction> kafkaTemplate(ProducerFactory<String, Transaction> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * Create settled-transactions topic if it doesn't exist
+     */
+    @Bean
+    public NewTopic settledTransactionsTopic() {
+        return new NewTopic(KafkaTopics.SETTLED_TRANSACTIONS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+
+    /**
+     * Create settlement-failures topic if it doesn't exist
+     */
+    @Bean
+    public NewTopic settlementFailuresTopic() {
+        return new NewTopic(KafkaTopics.SETTLEMENT_FAILURES, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+}
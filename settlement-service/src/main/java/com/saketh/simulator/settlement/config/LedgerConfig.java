@@ -0,0 +1,68 @@
+package com.saketh.simulator.settlement.config;
+
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.settlement.ledger.AccountLedger;
+import com.saketh.simulator.settlement.ledger.LedgerStore;
+import com.saketh.simulator.settlement.ledger.ParkedResults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The account ledger, its on-disk store and the worker lanes that settle against it.
+ */
+@Configuration
+public class LedgerConfig {
+
+    @Bean
+    public AccountLedger accountLedger(
+            @Value("${settlement.ledger.max-accounts:1000000}") int maxAccounts,
+            @Value("${settlement.ledger.opening-balance:10000}") long openingBalance) {
+        return new AccountLedger(maxAccounts, openingBalance);
+    }
+
+    /**
+     * Recovers the ledger from the latest snapshot and journal before any record is consumed
+     */
+    @Bean(destroyMethod = "close")
+    public LedgerStore ledgerStore(AccountLedger accountLedger,
+                                   @Value("${settlement.ledger.directory:ledger}") String directory)
+            throws IOException {
+        return LedgerStore.open(Path.of(directory), accountLedger);
+    }
+
+    /**
+     * Actuator health follows the journal; DOWN once it is disabled
+     */
+    @Bean
+    public HealthIndicator ledgerHealthIndicator(LedgerStore ledgerStore) {
+        return () -> {
+            String failure = ledgerStore.getFailure();
+            return failure == null ? Health.up().build() : Health.down().withDetail("reason", failure).build();
+        };
+    }
+
+    /**
+     * Undelivered settlement results, kept in the ledger directory that owns their offsets
+     */
+    @Bean(destroyMethod = "close")
+    public ParkedResults parkedResults(LedgerStore ledgerStore,
+                                       @Value("${settlement.ledger.directory:ledger}") String directory)
+            throws IOException {
+        return new ParkedResults(Path.of(directory));
+    }
+
+    /**
+     * One lane per core unless {@code settlement.parallel.workers} is set
+     */
+    @Bean(destroyMethod = "close")
+    public KeyOrderedExecutor settlementWorkers(@Value("${settlement.parallel.workers:0}") int workers) {
+        int lanes = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new KeyOrderedExecutor(lanes, "settlement-worker-");
+    }
+}
@@ -0,0 +1,69 @@
+package com.saketh.simulator.settlement.controller;
+
+import com.saketh.simulator.settlement.ledger.AccountLedger;
+import com.saketh.simulator.settlement.ledger.LedgerStore;
+import com.saketh.simulator.settlement.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST controller exposing settlement statistics and account balances.
+ */
+@RestController
+@RequestMapping("/api/v1/settlement")
+@RequiredArgsConstructor
+public class SettlementController {
+
+    private final SettlementService settlementService;
+    private final AccountLedger accountLedger;
+    private final LedgerStore ledgerStore;
+
+    /**
+     * Health check endpoint; DOWN once the ledger journal is disabled
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> response = new HashMap<>();
+        String failure = ledgerStore.getFailure();
+        response.put("status", failure == null ? "UP" : "DOWN");
+        response.put("service", "settlement-service");
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        if (failure != null) {
+            response.put("reason", "Ledger journal disabled: " + failure);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get settlement statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(settlementService.getStatistics());
+    }
+
+    /**
+     * Get an account's balance in minor units of its currency
+     */
+    @GetMapping("/accounts/{accountId}")
+    public ResponseEntity<Map<String, Object>> getAccount(@PathVariable String accountId) {
+        Long balance = accountLedger.getBalance(accountId);
+        if (balance == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("accountId", accountId);
+        response.put("currency", accountLedger.getCurrency(accountId));
+        response.put("balanceMinorUnits", balance);
+        return ResponseEntity.ok(response);
+    }
+}
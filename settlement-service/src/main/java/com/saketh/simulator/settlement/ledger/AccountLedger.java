@@ -0,0 +1,223 @@
+package com.saketh.simulator.settlement.ledger;
+
+import com.saketh.simulator.common.model.Money;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory account balances.
+ * <p>
+ * Accounts are given a compact integer ID on first use; balances (minor
+ * units of the account's currency) live in a primitive {@code long[]}
+ * indexed by that ID. Updates lock one of a fixed set of stripes per
+ * account; a transfer locks both accounts' stripes in stripe order, so it
+ * applies atomically without deadlocking against a reverse transfer.
+ * An account's currency is fixed by its first posting.
+ */
+public class AccountLedger {
+
+    private static final int STRIPES = 256;
+
+    private final int capacity;
+    private final long openingBalanceUnits;
+    private final long[] balances;
+    private final String[] names;
+    private final String[] currencies;
+    private final ConcurrentHashMap<String, Integer> index;
+    private final Object[] stripes = new Object[STRIPES];
+    private final Object registrationLock = new Object();
+
+    // Guarded by registrationLock
+    private int size;
+
+    /**
+     * @param capacity            maximum number of accounts
+     * @param openingBalanceUnits balance new accounts start with, in major
+     *                            units of their currency
+     */
+    public AccountLedger(int capacity, long openingBalanceUnits) {
+        this.capacity = capacity;
+        this.openingBalanceUnits = openingBalanceUnits;
+        this.balances = new long[capacity];
+        this.names = new String[capacity];
+        this.currencies = new String[capacity];
+        this.index = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Apply a posting if both accounts use its currency and, when
+     * {@code checkFunds} is set, the debit account can cover it.
+     *
+     * @return null if applied, otherwise why not
+     */
+    public SettlementError apply(Posting posting, boolean checkFunds) {
+        String currency = posting.getCurrency();
+        long amount = posting.getAmountMinorUnits();
+        int debit = posting.getDebitAccount() == null ? -1 : idOf(posting.getDebitAccount(), currency);
+        int credit = posting.getCreditAccount() == null ? -1 : idOf(posting.getCreditAccount(), currency);
+        if (debit == -2 || credit == -2) {
+            return SettlementError.LEDGER_FULL;
+        }
+        if (debit >= 0 && debit == credit) {
+            return SettlementError.SAME_ACCOUNT;
+        }
+
+        // Lock stripes in ascending order so opposite transfers cannot deadlock
+        int debitStripe = debit >= 0 ? debit & (STRIPES - 1) : credit & (STRIPES - 1);
+        int creditStripe = credit >= 0 ? credit & (STRIPES - 1) : debitStripe;
+        synchronized (stripes[Math.min(debitStripe, creditStripe)]) {
+            synchronized (stripes[Math.max(debitStripe, creditStripe)]) {
+                if ((debit >= 0 && !currency.equals(currencies[debit]))
+                        || (credit >= 0 && !currency.equals(currencies[credit]))) {
+                    return SettlementError.CURRENCY_MISMATCH;
+                }
+                long debitBalance;
+                long creditBalance;
+                try {
+                    debitBalance = debit >= 0 ? Math.subtractExact(balances[debit], amount) : 0;
+                    creditBalance = credit >= 0 ? Math.addExact(balances[credit], amount) : 0;
+                } catch (ArithmeticException e) {
+                    return SettlementError.BALANCE_OVERFLOW;
+                }
+                if (checkFunds && debit >= 0 && debitBalance < 0) {
+                    return SettlementError.INSUFFICIENT_FUNDS;
+                }
+                if (debit >= 0) {
+                    balances[debit] = debitBalance;
+                }
+                if (credit >= 0) {
+                    balances[credit] = creditBalance;
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Get an account's balance in minor units, or null if it has never been used
+     */
+    public Long getBalance(String account) {
+        Integer id = index.get(account);
+        if (id == null) {
+            return null;
+        }
+        synchronized (stripeOf(id)) {
+            return balances[id];
+        }
+    }
+
+    /**
+     * Get an account's currency, or null if it has never been used
+     */
+    public String getCurrency(String account) {
+        Integer id = index.get(account);
+        return id == null ? null : currencies[id];
+    }
+
+    /**
+     * Number of accounts
+     */
+    public int size() {
+        synchronized (registrationLock) {
+            return size;
+        }
+    }
+
+    /**
+     * Copy every account. Callers must make sure no postings are being applied.
+     */
+    public State copyState() {
+        synchronized (registrationLock) {
+            return new State(Arrays.copyOf(names, size), Arrays.copyOf(currencies, size),
+                Arrays.copyOf(balances, size));
+        }
+    }
+
+    /**
+     * Load accounts from a snapshot into an empty ledger
+     */
+    public void restore(State state) {
+        synchronized (registrationLock) {
+            if (size != 0) {
+                throw new IllegalStateException("Ledger is not empty");
+            }
+            if (state.names.length > capacity) {
+                throw new IllegalStateException("Snapshot has " + state.names.length
+                    + " accounts, capacity is " + capacity);
+            }
+            for (int i = 0; i < state.names.length; i++) {
+                names[i] = state.names[i];
+                currencies[i] = state.currencies[i];
+                balances[i] = state.balances[i];
+                index.put(state.names[i], i);
+            }
+            size = state.names.length;
+        }
+    }
+
+    /**
+     * Compact ID of an account, registering it on first use
+     *
+     * @return the ID, or -2 if the ledger is full
+     */
+    private int idOf(String account, String currency) {
+        Integer id = index.get(account);
+        if (id != null) {
+            return id;
+        }
+        synchronized (registrationLock) {
+            id = index.get(account);
+            if (id != null) {
+                return id;
+            }
+            if (size == capacity) {
+                return -2;
+            }
+            int newId = size;
+            names[newId] = account;
+            currencies[newId] = currency;
+            balances[newId] = openingBalanceUnits == 0 ? 0
+                : Money.majorToMinorUnits(openingBalanceUnits, currency);
+            size++;
+            // Published after the arrays are written; readers find the ID through the map
+            index.put(account, newId);
+            return newId;
+        }
+    }
+
+    private Object stripeOf(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    /**
+     * Point-in-time copy of the ledger's accounts, index-aligned
+     */
+    public static final class State {
+
+        private final String[] names;
+        private final String[] currencies;
+        private final long[] balances;
+
+        public State(String[] names, String[] currencies, long[] balances) {
+            this.names = names;
+            this.currencies = currencies;
+            this.balances = balances;
+        }
+
+        public String[] getNames() {
+            return names;
+        }
+
+        public String[] getCurrencies() {
+            return currencies;
+        }
+
+        public long[] getBalances() {
+            return balances;
+        }
+    }
+}
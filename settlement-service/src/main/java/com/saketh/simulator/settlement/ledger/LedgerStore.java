@@ -0,0 +1,466 @@
+package com.saketh.simulator.settlement.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durability for an {@link AccountLedger}: a journal of settled batches
+ * plus periodic snapshots.
+ * <p>
+ * Each settled batch is appended to the journal as one CRC-checked frame
+ * holding its postings and the next consumer offset of every partition it
+ * covered, and fsynced before the batch's offsets are committed. A snapshot
+ * of generation {@code g} holds the full ledger and offsets as of the start
+ * of journal {@code g}. Recovery loads the newest valid snapshot and replays
+ * every journal from its generation on in order, stopping at the first torn
+ * frame, so a restart costs one snapshot read plus at most one snapshot
+ * interval of journal.
+ * <p>
+ * The previous snapshot and the journals since it are kept, so a corrupt
+ * newest snapshot falls back to the one before. If snapshots exist but none
+ * is readable, or a journal in the replay range is missing, recovery fails
+ * rather than starting from an empty or partial ledger.
+ * <p>
+ * Offsets are keyed by partition of the one topic the ledger consumes. The
+ * directory is locked for the life of the store, so only one process can
+ * own a ledger.
+ * <p>
+ * Batches hold {@link #batchLock()} in shared mode from their first posting
+ * until their frame is journaled; a snapshot takes it exclusively, so it
+ * never sees a batch applied in memory but missing from the journal.
+ */
+@Slf4j
+public class LedgerStore implements Closeable {
+
+    private static final int SNAPSHOT_MAGIC = 0x4C534E50; // "LSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String LOCK_FILE = "lock";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final AccountLedger ledger;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FileChannel lockChannel;
+
+    // Next offset per partition of everything journaled so far
+    private final Map<Integer, Long> offsets = new HashMap<>();
+
+    // Guarded by this
+    private long generation;
+    private FileChannel journal;
+    private long journaledBatches;
+    private String failure;
+
+    private LedgerStore(Path directory, AccountLedger ledger, FileChannel lockChannel) {
+        this.directory = directory;
+        this.ledger = ledger;
+        this.lockChannel = lockChannel;
+    }
+
+    /**
+     * Lock the directory, recover the ledger from it and start a new generation
+     *
+     * @throws IOException if another process owns the directory or the ledger cannot be recovered
+     */
+    public static LedgerStore open(Path directory, AccountLedger ledger) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock fileLock;
+            try {
+                fileLock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                throw new IOException("Ledger directory " + directory.toAbsolutePath()
+                    + " is in use by another settlement-service instance");
+            }
+            LedgerStore store = new LedgerStore(directory, ledger, lockChannel);
+            store.recover();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lock held shared while a batch is applied and journaled
+     */
+    public ReadWriteLock batchLock() {
+        return lock;
+    }
+
+    /**
+     * Append a settled batch and fsync it
+     *
+     * @param batchOffsets next offset per partition once this batch is done
+     */
+    public void append(List<Posting> postings, Map<Integer, Long> batchOffsets) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(64 + postings.size() * 48);
+        DataOutputStream out = new DataOutputStream(frame);
+        out.writeInt(postings.size());
+        for (Posting posting : postings) {
+            writeNullable(out, posting.getDebitAccount());
+            writeNullable(out, posting.getCreditAccount());
+            out.writeUTF(posting.getCurrency());
+            out.writeLong(posting.getAmountMinorUnits());
+        }
+        writeOffsets(out, batchOffsets);
+        out.flush();
+
+        byte[] payload = frame.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+
+        synchronized (this) {
+            if (failure != null) {
+                throw new IOException("Ledger journal unusable until restart: " + failure);
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                journal.force(false);
+            } catch (IOException e) {
+                markFailed(e.getMessage());
+                throw e;
+            }
+            offsets.putAll(batchOffsets);
+            journaledBatches++;
+        }
+    }
+
+    /**
+     * Refuse further appends because the in-memory ledger may have diverged
+     * from the journal; a restart recovers from disk
+     */
+    public synchronized void markFailed(String reason) {
+        if (failure == null) {
+            failure = reason;
+            log.error("Ledger journal disabled: {}", reason);
+        }
+    }
+
+    public synchronized boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Why the journal was disabled, or null while it is healthy
+     */
+    public synchronized String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Next offset to consume per partition, as far as the ledger has journaled
+     */
+    public synchronized Map<Integer, Long> getOffsets() {
+        return new HashMap<>(offsets);
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized long getJournaledBatches() {
+        return journaledBatches;
+    }
+
+    /**
+     * Snapshot the ledger and start a new journal. Once the snapshot is on
+     * disk, files older than the previous snapshot are deleted.
+     */
+    public void snapshot() throws IOException {
+        if (isFailed()) {
+            return;
+        }
+        AccountLedger.State state;
+        Map<Integer, Long> snapshotOffsets;
+        long snapshotGeneration;
+
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                state = ledger.copyState();
+                snapshotOffsets = new HashMap<>(offsets);
+                snapshotGeneration = generation + 1;
+                openJournal(snapshotGeneration);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startNanos = System.nanoTime();
+        writeSnapshot(snapshotGeneration, state, snapshotOffsets);
+        long[] snapshots = generations(SNAPSHOT_PREFIX);
+        if (snapshots.length > 1) {
+            deleteBefore(snapshots[1]);
+        }
+        log.info("Wrote ledger snapshot {} with {} accounts in {}ms", snapshotGeneration,
+            state.getNames().length, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        // Releases the directory lock
+        lockChannel.close();
+    }
+
+    private void recover() throws IOException {
+        long startNanos = System.nanoTime();
+        long[] snapshots = generations(SNAPSHOT_PREFIX);
+        long snapshotGeneration = -1;
+        for (long candidate : snapshots) {
+            if (loadSnapshot(candidate)) {
+                snapshotGeneration = candidate;
+                break;
+            }
+            // Set aside so it is neither retried nor counted as one of the kept snapshots
+            Path path = directory.resolve(fileName(SNAPSHOT_PREFIX, candidate));
+            Files.move(path, path.resolveSibling(path.getFileName() + CORRUPT_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING);
+            log.error("Ledger snapshot {} is unreadable, falling back to an older one", candidate);
+        }
+        if (snapshots.length > 0 && snapshotGeneration < 0) {
+            throw new IOException("None of the " + snapshots.length + " ledger snapshots in "
+                + directory.toAbsolutePath() + " is readable; refusing to start from an empty ledger");
+        }
+
+        long[] journals = generations(JOURNAL_PREFIX);
+        long lastGeneration = Math.max(snapshotGeneration, journals.length > 0 ? journals[0] : 0);
+        long firstGeneration = snapshotGeneration >= 0 ? snapshotGeneration
+            : journals.length > 0 ? journals[journals.length - 1] : lastGeneration + 1;
+        long replayed = 0;
+        // Oldest first, so each journal's offsets overwrite those of the one before
+        for (long journalGeneration = firstGeneration; journalGeneration <= lastGeneration; journalGeneration++) {
+            Path path = directory.resolve(fileName(JOURNAL_PREFIX, journalGeneration));
+            if (!Files.exists(path)) {
+                throw new IOException("Ledger journal " + path + " is missing; refusing to recover a partial ledger");
+            }
+            replayed += replay(journalGeneration);
+        }
+
+        // Continue in a fresh generation so nothing is appended after a torn frame
+        generation = lastGeneration;
+        if (snapshotGeneration >= 0 || replayed > 0) {
+            log.info("Recovered ledger with {} accounts from snapshot {} and {} journaled batches in {}ms",
+                ledger.size(), snapshotGeneration, replayed, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        snapshot();
+    }
+
+    private boolean loadSnapshot(long snapshotGeneration) throws IOException {
+        Path path = directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotGeneration));
+        byte[] data = Files.readAllBytes(path);
+        if (data.length < 4 || crc(data, data.length - 4) != ByteBuffer.wrap(data, data.length - 4, 4).getInt()) {
+            log.warn("Ignoring corrupt ledger snapshot {}", path);
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            log.warn("Ignoring ledger snapshot {} with unknown format", path);
+            return false;
+        }
+        in.readLong(); // generation, implied by the file name
+        int count = in.readInt();
+        String[] names = new String[count];
+        String[] currencies = new String[count];
+        long[] balances = new long[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = in.readUTF();
+            currencies[i] = in.readUTF();
+            balances[i] = in.readLong();
+        }
+        ledger.restore(new AccountLedger.State(names, currencies, balances));
+        offsets.putAll(readOffsets(in));
+        return true;
+    }
+
+    private long replay(long journalGeneration) throws IOException {
+        Path path = directory.resolve(fileName(JOURNAL_PREFIX, journalGeneration));
+        long frames = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length < 0 || length > MAX_FRAME_BYTES) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length != length || crc(payload) != expectedCrc) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+                int count = frame.readInt();
+                for (int i = 0; i < count; i++) {
+                    String debit = readNullable(frame);
+                    String credit = readNullable(frame);
+                    String currency = frame.readUTF();
+                    long amount = frame.readLong();
+                    // Checks already passed when the batch was settled
+                    ledger.apply(new Posting(debit, credit, currency, amount), false);
+                }
+                offsets.putAll(readOffsets(frame));
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    private void writeSnapshot(long snapshotGeneration, AccountLedger.State state,
+                               Map<Integer, Long> snapshotOffsets) throws IOException {
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, snapshotGeneration));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32C crc = new CRC32C();
+            OutputStream raw = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    crc.update(b);
+                    raw.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    crc.update(b, off, len);
+                    raw.write(b, off, len);
+                }
+            }, 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotGeneration);
+            out.writeInt(state.getNames().length);
+            for (int i = 0; i < state.getNames().length; i++) {
+                out.writeUTF(state.getNames()[i]);
+                out.writeUTF(state.getCurrencies()[i]);
+                out.writeLong(state.getBalances()[i]);
+            }
+            writeOffsets(out, snapshotOffsets);
+            out.flush();
+            raw.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void openJournal(long journalGeneration) throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = FileChannel.open(directory.resolve(fileName(JOURNAL_PREFIX, journalGeneration)),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        generation = journalGeneration;
+    }
+
+    private void deleteBefore(long keepGeneration) throws IOException {
+        for (String prefix : new String[] {SNAPSHOT_PREFIX, JOURNAL_PREFIX}) {
+            for (long old : generations(prefix)) {
+                if (old < keepGeneration) {
+                    Files.deleteIfExists(directory.resolve(fileName(prefix, old)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generations of files with a prefix, newest first
+     */
+    private long[] generations(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(prefix) && (name.endsWith(".bin") || name.endsWith(".log")))
+                .mapToLong(name -> Long.parseLong(name.substring(prefix.length(), name.indexOf('.'))))
+                .map(generation -> -generation)
+                .sorted()
+                .map(generation -> -generation)
+                .toArray();
+        }
+    }
+
+    private static String fileName(String prefix, long fileGeneration) {
+        return String.format("%s%012d.%s", prefix, fileGeneration, prefix.equals(SNAPSHOT_PREFIX) ? "bin" : "log");
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOffsets(DataOutputStream out, Map<Integer, Long> partitionOffsets) throws IOException {
+        out.writeInt(partitionOffsets.size());
+        for (Map.Entry<Integer, Long> entry : partitionOffsets.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static Map<Integer, Long> readOffsets(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<Integer, Long> partitionOffsets = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            partitionOffsets.put(in.readInt(), in.readLong());
+        }
+        return partitionOffsets;
+    }
+
+    private static int crc(byte[] data) {
+        return crc(data, data.length);
+    }
+
+    private static int crc(byte[] data, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+}
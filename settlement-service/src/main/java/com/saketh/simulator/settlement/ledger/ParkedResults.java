@@ -0,0 +1,209 @@
+package com.saketh.simulator.settlement.ledger;
+
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.TransactionCodec;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Settlement results that could not be published, kept on disk next to the
+ * journal until they are.
+ * <p>
+ * A batch's offsets are journaled before its results are sent, so a result
+ * that is never delivered cannot be rebuilt from Kafka. Undelivered results
+ * are appended here as CRC-checked frames and fsynced. {@link #take} moves
+ * the file aside and returns its results; once they are resent (or parked
+ * again) {@link #release} deletes it. A crash in between leaves the file
+ * aside, and the next {@link #take} returns it again, so results are
+ * published at least once.
+ */
+public class ParkedResults implements Closeable {
+
+    private static final String FILE = "parked-results.log";
+    private static final String RETRYING_FILE = "parked-results.retrying";
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final Path retryingFile;
+    private FileChannel channel;
+    private long count;
+
+    public ParkedResults(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE);
+        this.retryingFile = directory.resolve(RETRYING_FILE);
+        this.count = read(file).size() + read(retryingFile).size();
+    }
+
+    /**
+     * Append results and fsync them
+     */
+    public synchronized void park(List<Result> results) throws IOException {
+        if (results.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Result result : results) {
+            byte[] payload = encode(result);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        count += results.size();
+    }
+
+    /**
+     * Results left aside by an unfinished retry, or else everything parked
+     * so far, which is moved aside. Call {@link #release} once they are
+     * resent or parked again.
+     */
+    public synchronized List<Result> take() throws IOException {
+        if (!Files.exists(retryingFile)) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (!Files.exists(file)) {
+                return List.of();
+            }
+            Files.move(file, retryingFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return read(retryingFile);
+    }
+
+    /**
+     * Forget the results returned by the last {@link #take}
+     */
+    public synchronized void release(int taken) throws IOException {
+        Files.deleteIfExists(retryingFile);
+        count = Math.max(0, count - taken);
+    }
+
+    /**
+     * Results parked and not yet released
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Valid frames of a file, up to the first torn one
+     */
+    private static List<Result> read(Path path) throws IOException {
+        List<Result> results = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return results;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length < 0 || length > MAX_FRAME_BYTES) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    CRC32C crc = new CRC32C();
+                    crc.update(payload);
+                    if (payload.length != length || (int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                results.add(decode(payload));
+            }
+        }
+        return results;
+    }
+
+    private static byte[] encode(Result result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(result.getTopic());
+        byte[] trace = result.getTrace();
+        out.writeInt(trace == null ? -1 : trace.length);
+        if (trace != null) {
+            out.write(trace);
+        }
+        byte[] transaction = TransactionCodec.encode(result.getTransaction());
+        out.writeInt(transaction.length);
+        out.write(transaction);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Result decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String topic = in.readUTF();
+        int traceLength = in.readInt();
+        byte[] trace = traceLength < 0 ? null : in.readNBytes(traceLength);
+        byte[] transaction = in.readNBytes(in.readInt());
+        return new Result(topic, TransactionCodec.decode(transaction), trace);
+    }
+
+    /**
+     * A result record to send: its topic, value and the consumed record's trace header
+     */
+    public static final class Result {
+
+        private final String topic;
+        private final Transaction transaction;
+        private final byte[] trace;
+
+        public Result(String topic, Transaction transaction, byte[] trace) {
+            this.topic = topic;
+            this.transaction = transaction;
+            this.trace = trace;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public Transaction getTransaction() {
+            return transaction;
+        }
+
+        public byte[] getTrace() {
+            return trace;
+        }
+    }
+}
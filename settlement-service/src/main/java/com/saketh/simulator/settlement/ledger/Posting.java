@@ -0,0 +1,37 @@
+package com.saketh.simulator.settlement.ledger;
+
+/**
+ * Balance movement applied to the ledger: {@code amount} minor units out of
+ * the debit account and into the credit account. Either side may be null
+ * for money entering or leaving the system.
+ */
+public final class Posting {
+
+    private final String debitAccount;
+    private final String creditAccount;
+    private final String currency;
+    private final long amountMinorUnits;
+
+    public Posting(String debitAccount, String creditAccount, String currency, long amountMinorUnits) {
+        this.debitAccount = debitAccount;
+        this.creditAccount = creditAccount;
+        this.currency = currency;
+        this.amountMinorUnits = amountMinorUnits;
+    }
+
+    public String getDebitAccount() {
+        return debitAccount;
+    }
+
+    public String getCreditAccount() {
+        return creditAccount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long getAmountMinorUnits() {
+        return amountMinorUnits;
+    }
+}
@@ -0,0 +1,27 @@
+package com.saketh.simulator.settlement.ledger;
+
+/**
+ * Reasons a transaction cannot be settled against the ledger.
+ */
+public enum SettlementError {
+
+    INSUFFICIENT_FUNDS("Insufficient funds"),
+    CURRENCY_MISMATCH("Account currency differs from transaction currency"),
+    TARGET_ACCOUNT_REQUIRED("Transfer requires a target account"),
+    SAME_ACCOUNT("Cannot transfer to the same account"),
+    AMOUNT_OUT_OF_RANGE("Transaction amount is out of range"),
+    AMOUNT_PRECISION("Amount has more decimal places than its currency allows"),
+    CURRENCY_UNSUPPORTED("Currency is not a supported ISO 4217 code"),
+    BALANCE_OVERFLOW("Account balance would overflow"),
+    LEDGER_FULL("Ledger account capacity exhausted");
+
+    private final String message;
+
+    SettlementError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
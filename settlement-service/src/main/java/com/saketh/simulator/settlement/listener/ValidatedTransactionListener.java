@@ -0,0 +1,56 @@
+package com.saketh.simulator.settlement.listener;
+
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.settlement.ledger.LedgerStore;
+import com.saketh.simulator.settlement.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch listener for validated-transactions.
+ * The single settlement instance is assigned every partition of the topic
+ * rather than sharing them through the consumer group, since its ledger
+ * holds every account. On assignment each partition is positioned at the
+ * offset the ledger journal has recorded for it, so consumption resumes
+ * exactly where the recovered ledger left off, whatever the group's
+ * committed offset is.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ValidatedTransactionListener implements ConsumerSeekAware {
+
+    private final SettlementService settlementService;
+    private final LedgerStore ledgerStore;
+
+    @KafkaListener(
+        id = "validated-transactions-settler",
+        topicPartitions = @org.springframework.kafka.annotation.TopicPartition(topic = KafkaTopics.VALIDATED_TRANSACTIONS,
+            partitions = "0-#{T(com.saketh.simulator.common.constants.AppConstants).KAFKA_PARTITION_COUNT - 1}"),
+        containerFactory = "batchListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, Transaction>> records) {
+        settlementService.processBatch(records);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> checkpoint = ledgerStore.getOffsets();
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = checkpoint.get(partition.partition());
+            if (offset != null) {
+                log.info("Resuming {} at ledger offset {}", partition, offset);
+                callback.seek(partition.topic(), partition.partition(), offset);
+            }
+        }
+    }
+}
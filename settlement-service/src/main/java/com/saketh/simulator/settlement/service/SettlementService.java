@@ -0,0 +1,450 @@
+package com.saketh.simulator.settlement.service;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor.BatchResult;
+import com.saketh.simulator.common.trace.TraceClock;
+import com.saketh.simulator.common.trace.TraceHeaders;
+import com.saketh.simulator.common.trace.TraceStage;
+import com.saketh.simulator.settlement.ledger.AccountLedger;
+import com.saketh.simulator.settlement.ledger.LedgerStore;
+import com.saketh.simulator.settlement.ledger.ParkedResults;
+import com.saketh.simulator.settlement.ledger.ParkedResults.Result;
+import com.saketh.simulator.settlement.ledger.Posting;
+import com.saketh.simulator.settlement.ledger.SettlementError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Settles batches of validated transactions against the {@link AccountLedger}.
+ * <p>
+ * Records are applied on {@link KeyOrderedExecutor} lanes keyed by userId,
+ * so each user's postings keep offset order. Once the batch is applied its
+ * postings and next offsets are journaled in one fsynced frame, and only
+ * then are the results sent to settled-transactions and
+ * settlement-failures and flushed together, each with the input's trace
+ * header and a settlement hop.
+ * <p>
+ * The journal, not the consumer group, records which offsets the ledger
+ * has seen: records below the journaled offset of their partition are
+ * replays and are skipped, so a balance never moves twice for one record.
+ * Result sends are at least once; results still undelivered after
+ * {@link AppConstants#MAX_RETRY_ATTEMPTS} are parked in
+ * {@link ParkedResults} and resent on a schedule.
+ * <p>
+ * Once the journal is disabled no further batch is applied: the batch
+ * throws, the listener container stops and health reports DOWN until a
+ * restart recovers the ledger from disk.
+ * <p>
+ * Settlement runs as a single instance. The ledger holds every account and
+ * its offsets are keyed by partition of validated-transactions, so the
+ * listener is assigned all partitions of that one topic rather than
+ * sharing them through the consumer group.
+ */
+@Service
+@Slf4j
+public class SettlementService {
+
+    private final KafkaTemplate<String, Transaction> kafkaTemplate;
+    private final AccountLedger ledger;
+    private final LedgerStore store;
+    private final ParkedResults parked;
+    private final KeyOrderedExecutor workers;
+    private final long sendTimeoutMs;
+
+    // Metrics
+    private final Counter settledCount;
+    private final Counter failedCount;
+    private final Counter skippedCount;
+    private final Counter replayedCount;
+    private final Counter publishFailureCount;
+    private final Counter parkedCount;
+    private final Timer batchTimer;
+    private final Timer journalTimer;
+
+    public SettlementService(KafkaTemplate<String, Transaction> kafkaTemplate,
+                             AccountLedger accountLedger,
+                             LedgerStore ledgerStore,
+                             ParkedResults parkedResults,
+                             KeyOrderedExecutor settlementWorkers,
+                             @Value("${settlement.publish.send-timeout-ms:"
+                                 + AppConstants.BATCH_TIMEOUT_MS + "}") long sendTimeoutMs,
+                             MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.ledger = accountLedger;
+        this.store = ledgerStore;
+        this.parked = parkedResults;
+        this.workers = settlementWorkers;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.settledCount = outcomeCounter(meterRegistry, "settled");
+        this.failedCount = outcomeCounter(meterRegistry, "failed");
+        this.skippedCount = outcomeCounter(meterRegistry, "skipped");
+        this.replayedCount = outcomeCounter(meterRegistry, "replayed");
+        this.publishFailureCount = Counter.builder("settlement.publish.failures")
+            .description("Settlement results that could not be published or parked")
+            .register(meterRegistry);
+        this.parkedCount = Counter.builder("settlement.publish.parked")
+            .description("Settlement results parked on disk after failed sends")
+            .register(meterRegistry);
+        Gauge.builder("settlement.publish.parked.pending", parkedResults, ParkedResults::getCount)
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("settlement.batch.duration")
+            .description("Time to settle, journal and publish one poll batch")
+            .register(meterRegistry);
+        this.journalTimer = Timer.builder("settlement.journal.duration")
+            .description("Time to append and fsync one batch to the ledger journal")
+            .register(meterRegistry);
+        Gauge.builder("settlement.ledger.accounts", accountLedger, AccountLedger::size)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Settle a poll batch, journal it, then publish its results
+     *
+     * @throws IllegalStateException if the journal is disabled, before any posting is applied
+     */
+    public void processBatch(List<ConsumerRecord<String, Transaction>> records) {
+        if (store.isFailed()) {
+            throw new IllegalStateException("Ledger journal is disabled: " + store.getFailure());
+        }
+        long startNanos = System.nanoTime();
+        Map<Integer, Long> journaled = store.getOffsets();
+        Map<Integer, Long> nextOffsets = new HashMap<>();
+        List<ConsumerRecord<String, Transaction>> fresh = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Transaction> record : records) {
+            Long checkpoint = journaled.get(record.partition());
+            if (checkpoint != null && record.offset() < checkpoint) {
+                replayedCount.increment();
+                continue;
+            }
+            fresh.add(record);
+            nextOffsets.merge(record.partition(), record.offset() + 1, Math::max);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        List<Outcome> outcomes = settle(fresh, nextOffsets);
+        List<Result> results = new ArrayList<>(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            outcome.counter.increment();
+            if (outcome.result != null) {
+                results.add(outcome.result);
+            }
+        }
+        park(publish(results));
+
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        log.debug("Settled batch of {} records", fresh.size());
+    }
+
+    /**
+     * Apply the batch on the worker lanes and journal it, holding the
+     * snapshot lock shared so a snapshot never splits a batch.
+     * <p>
+     * Applying is in-memory work, so the lanes are waited for without a
+     * deadline: a slow batch or a GC pause only delays it. The journal is
+     * disabled only when a posting or the journal write actually fails.
+     */
+    private List<Outcome> settle(List<ConsumerRecord<String, Transaction>> records,
+                                 Map<Integer, Long> nextOffsets) {
+        Lock lock = store.batchLock().readLock();
+        lock.lock();
+        try {
+            BatchResult<Outcome> batch = workers.processBatch(records, SettlementService::keyOf,
+                this::settleRecord);
+            if (!batch.isComplete()) {
+                throw new IllegalStateException("Settlement batch failed", batch.getFirstFailure());
+            }
+
+            List<Posting> postings = new ArrayList<>(records.size());
+            for (Outcome outcome : batch.getResults()) {
+                if (outcome.posting != null) {
+                    postings.add(outcome.posting);
+                }
+            }
+            long journalStart = System.nanoTime();
+            try {
+                store.append(postings, nextOffsets);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal settlement batch", e);
+            }
+            journalTimer.record(System.nanoTime() - journalStart, TimeUnit.NANOSECONDS);
+            return batch.getResults();
+        } catch (RuntimeException e) {
+            // Postings may be applied but not journaled; only a restart from the journal is safe
+            store.markFailed("settlement batch failed: " + e);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Settle one record; runs on a worker lane
+     */
+    private Outcome settleRecord(ConsumerRecord<String, Transaction> record) {
+        Transaction transaction = record.value();
+        // Undecodable records were dead-lettered upstream; reviews wait for a decision
+        if (transaction == null || transaction.getStatus() != TransactionStatus.VALIDATED) {
+            return new Outcome(null, null, skippedCount);
+        }
+        transaction.transitionTo(TransactionStatus.SETTLING);
+
+        SettlementError error;
+        Posting posting = null;
+        try {
+            if (!Money.isExactInMinorUnits(transaction.getAmount(), transaction.getCurrency())) {
+                error = SettlementError.AMOUNT_PRECISION;
+            } else {
+                posting = postingOf(transaction);
+                error = posting == null ? SettlementError.TARGET_ACCOUNT_REQUIRED : ledger.apply(posting, true);
+            }
+        } catch (ArithmeticException e) {
+            error = SettlementError.AMOUNT_OUT_OF_RANGE;
+        } catch (IllegalArgumentException e) {
+            error = SettlementError.CURRENCY_UNSUPPORTED;
+        }
+        transaction.setSettledAt(LocalDateTime.now());
+
+        if (error != null) {
+            transaction.transitionTo(TransactionStatus.SETTLEMENT_FAILED);
+            transaction.setNotes(error.getMessage());
+            return new Outcome(new Result(KafkaTopics.SETTLEMENT_FAILURES, transaction,
+                TraceHeaders.read(record.headers())), null, failedCount);
+        }
+        transaction.transitionTo(TransactionStatus.SETTLED);
+        return new Outcome(new Result(KafkaTopics.SETTLED_TRANSACTIONS, transaction,
+            TraceHeaders.read(record.headers())), posting, settledCount);
+    }
+
+    /**
+     * Balance movement of a transaction, or null for a transfer without a target
+     *
+     * @throws ArithmeticException if the amount does not fit in minor units
+     * @throws IllegalArgumentException if the currency is not supported
+     */
+    private static Posting postingOf(Transaction transaction) {
+        String currency = transaction.getCurrency();
+        long amount = Money.toMinorUnitsExact(transaction.getAmount(), currency);
+        if (amount <= 0) {
+            throw new ArithmeticException("Non-positive amount");
+        }
+        String account = transaction.getUserId();
+        switch (transaction.getTransactionType()) {
+            case TRANSFER:
+                String target = transaction.getTargetAccountId();
+                return target == null || target.isBlank() ? null : new Posting(account, target, currency, amount);
+            case WITHDRAWAL:
+            case PAYMENT:
+            case FEE:
+                return new Posting(account, null, currency, amount);
+            default:
+                return new Posting(null, account, currency, amount);
+        }
+    }
+
+    /**
+     * Send results and wait for all of them, retrying failed sends up to
+     * {@link AppConstants#MAX_RETRY_ATTEMPTS} times
+     *
+     * @return the results that were still not delivered
+     */
+    private List<Result> publish(List<Result> results) {
+        List<Result> pending = results;
+        long hopMicros = TraceClock.nowMicros();
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            List<CompletableFuture<SendResult<String, Transaction>>> sends = new ArrayList<>(pending.size());
+            for (Result pendingResult : pending) {
+                // A sent record's headers turn read-only, so a retry needs a fresh record
+                ProducerRecord<String, Transaction> record = new ProducerRecord<>(pendingResult.getTopic(),
+                    pendingResult.getTransaction().getTransactionId(), pendingResult.getTransaction());
+                TraceHeaders.write(record.headers(),
+                    TraceHeaders.appendHop(pendingResult.getTrace(), TraceStage.SETTLEMENT, hopMicros));
+                sends.add(kafkaTemplate.send(record));
+            }
+            kafkaTemplate.flush();
+
+            List<Result> failed = new ArrayList<>();
+            Throwable lastFailure = null;
+            for (int i = 0; i < sends.size(); i++) {
+                try {
+                    sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.add(pending.get(i));
+                    lastFailure = e;
+                } catch (ExecutionException | TimeoutException e) {
+                    failed.add(pending.get(i));
+                    lastFailure = e;
+                }
+            }
+            pending = failed;
+
+            if (!pending.isEmpty()) {
+                if (attempt >= AppConstants.MAX_RETRY_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    log.warn("{} settlement results undelivered after {} attempts: {}",
+                        pending.size(), attempt, lastFailure.getMessage());
+                    return pending;
+                }
+                log.warn("Retrying {} settlement results: {}", pending.size(), lastFailure.getMessage());
+                sleep(AppConstants.RETRY_BACKOFF_MS);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Keep undelivered results on disk for {@link #republishParked}. If they
+     * cannot be written either they are lost, and the journal is disabled so
+     * the loss stops consumption and shows in health.
+     */
+    private void park(List<Result> undelivered) {
+        if (undelivered.isEmpty()) {
+            return;
+        }
+        // An interrupted thread would close the file channel mid-write
+        boolean interrupted = Thread.interrupted();
+        try {
+            parked.park(undelivered);
+            parkedCount.increment(undelivered.size());
+        } catch (IOException e) {
+            publishFailureCount.increment(undelivered.size());
+            log.error("Dropped {} settlement results that could not be parked: {}",
+                undelivered.size(), e.getMessage(), e);
+            store.markFailed("settlement results could not be parked: " + e.getMessage());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Resend parked results; those still undelivered are parked again
+     */
+    @Scheduled(initialDelayString = "${settlement.publish.parked-retry-ms:10000}",
+        fixedDelayString = "${settlement.publish.parked-retry-ms:10000}")
+    public void republishParked() {
+        try {
+            List<Result> taken = parked.take();
+            if (taken.isEmpty()) {
+                return;
+            }
+            List<Result> undelivered = publish(taken);
+            parked.park(undelivered);
+            parked.release(taken.size());
+            log.info("Republished {} of {} parked settlement results",
+                taken.size() - undelivered.size(), taken.size());
+        } catch (IOException e) {
+            // The taken results stay aside and are retried on the next run
+            log.error("Failed to republish parked settlement results: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Snapshot the ledger so restarts replay at most one interval of journal
+     */
+    @Scheduled(initialDelayString = "${settlement.ledger.snapshot-interval-ms:60000}",
+        fixedDelayString = "${settlement.ledger.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        try {
+            store.snapshot();
+        } catch (IOException e) {
+            log.error("Failed to snapshot ledger: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records of a user share a worker lane, so they settle in offset order
+     */
+    private static String keyOf(ConsumerRecord<String, Transaction> record) {
+        Transaction transaction = record.value();
+        return transaction != null && transaction.getUserId() != null ? transaction.getUserId() : record.key();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get settlement statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("settled", (long) settledCount.count());
+        stats.put("failed", (long) failedCount.count());
+        stats.put("skipped", (long) skippedCount.count());
+        stats.put("replayed", (long) replayedCount.count());
+        stats.put("publishFailures", (long) publishFailureCount.count());
+        stats.put("parkedResults", parked.getCount());
+        stats.put("accounts", ledger.size());
+        stats.put("workerLanes", workers.getLaneCount());
+        stats.put("batches", batchTimer.count());
+        stats.put("meanBatchMs", batchTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("meanJournalMs", journalTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("ledgerGeneration", store.getGeneration());
+        stats.put("journaledBatches", store.getJournaledBatches());
+        stats.put("ledgerHealthy", !store.isFailed());
+        if (store.isFailed()) {
+            stats.put("ledgerFailure", store.getFailure());
+        }
+        stats.put("timestamp", LocalDateTime.now().toString());
+        return stats;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("settlement.records")
+            .description("Consumed records by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Result of settling a record, computed on a worker and sent on the listener thread
+     */
+    private static final class Outcome {
+
+        // Record to publish, or null for a skipped record
+        private final Result result;
+        private final Posting posting;
+        private final Counter counter;
+
+        Outcome(Result result, Posting posting, Counter counter) {
+            this.result = result;
+            this.posting = posting;
+            this.counter = counter;
+        }
+    }
+}
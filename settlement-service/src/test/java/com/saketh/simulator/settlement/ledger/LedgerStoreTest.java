@@ -0,0 +1,133 @@
+package com.saketh.simulator.settlement.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of an {@link AccountLedger} from its {@link LedgerStore}: the
+ * newest snapshot plus its journal, the previous snapshot when the newest
+ * is corrupt, and a torn journal tail. Three batches are settled across
+ * three generations, so the directory holds snapshots 2 and 3 with their
+ * journals.
+ */
+class LedgerStoreTest {
+
+    private static final Path SNAPSHOT_3 = Path.of("snapshot-000000000003.bin");
+    private static final Path JOURNAL_2 = Path.of("journal-000000000002.log");
+    private static final Path JOURNAL_3 = Path.of("journal-000000000003.log");
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void settleThreeGenerations() throws IOException {
+        AccountLedger ledger = new AccountLedger(100, 0);
+        try (LedgerStore store = LedgerStore.open(directory, ledger)) {
+            settle(ledger, store, Map.of(0, 10L), new Posting(null, "alice", "USD", 100));
+            store.snapshot();
+            settle(ledger, store, Map.of(0, 20L),
+                new Posting(null, "alice", "USD", 50), new Posting(null, "bob", "USD", 7));
+            store.snapshot();
+            settle(ledger, store, Map.of(0, 30L, 1, 5L), new Posting("alice", "bob", "USD", 30));
+        }
+    }
+
+    @Test
+    void recoversFromTheNewestSnapshotAndItsJournal() throws IOException {
+        AccountLedger ledger = new AccountLedger(100, 0);
+        try (LedgerStore store = LedgerStore.open(directory, ledger)) {
+            assertEquals(120L, ledger.getBalance("alice"));
+            assertEquals(37L, ledger.getBalance("bob"));
+            assertEquals(Map.of(0, 30L, 1, 5L), store.getOffsets());
+            // Recovery continues in a fresh generation
+            assertEquals(4, store.getGeneration());
+        }
+    }
+
+    @Test
+    void fallsBackToThePreviousSnapshotAndReplaysJournalsOldestFirst() throws IOException {
+        flipByte(directory.resolve(SNAPSHOT_3), 12);
+
+        AccountLedger ledger = new AccountLedger(100, 0);
+        try (LedgerStore store = LedgerStore.open(directory, ledger)) {
+            assertEquals(120L, ledger.getBalance("alice"));
+            assertEquals(37L, ledger.getBalance("bob"));
+            // Journal 3 replayed after journal 2, so its offsets win
+            assertEquals(Map.of(0, 30L, 1, 5L), store.getOffsets());
+        }
+        assertTrue(Files.exists(directory.resolve(SNAPSHOT_3 + ".corrupt")));
+    }
+
+    @Test
+    void stopsReplayAtATornFrame() throws IOException {
+        try (FileChannel journal = FileChannel.open(directory.resolve(JOURNAL_3), StandardOpenOption.WRITE)) {
+            journal.truncate(journal.size() - 3);
+        }
+
+        AccountLedger ledger = new AccountLedger(100, 0);
+        try (LedgerStore store = LedgerStore.open(directory, ledger)) {
+            assertEquals(150L, ledger.getBalance("alice"));
+            assertEquals(7L, ledger.getBalance("bob"));
+            assertEquals(Map.of(0, 20L), store.getOffsets());
+        }
+    }
+
+    @Test
+    void refusesToRecoverWithAMissingJournal() throws IOException {
+        flipByte(directory.resolve(SNAPSHOT_3), 12);
+        Files.delete(directory.resolve(JOURNAL_2));
+
+        assertThrows(IOException.class, () -> LedgerStore.open(directory, new AccountLedger(100, 0)));
+    }
+
+    @Test
+    void refusesToStartEmptyWhenNoSnapshotIsReadable() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().startsWith("snapshot-")).toList()) {
+                flipByte(file, 12);
+            }
+        }
+
+        assertThrows(IOException.class, () -> LedgerStore.open(directory, new AccountLedger(100, 0)));
+    }
+
+    @Test
+    void locksTheDirectory() throws IOException {
+        try (LedgerStore store = LedgerStore.open(directory, new AccountLedger(100, 0))) {
+            assertThrows(IOException.class, () -> LedgerStore.open(directory, new AccountLedger(100, 0)));
+        }
+    }
+
+    private static void settle(AccountLedger ledger, LedgerStore store, Map<Integer, Long> offsets,
+                               Posting... postings) throws IOException {
+        for (Posting posting : postings) {
+            assertNull(ledger.apply(posting, true));
+        }
+        store.append(List.of(postings), offsets);
+    }
+
+    private static void flipByte(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            b.rewind();
+            channel.write(b, position);
+        }
+    }
+}
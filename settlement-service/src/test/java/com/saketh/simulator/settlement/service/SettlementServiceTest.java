@@ -0,0 +1,115 @@
+package com.saketh.simulator.settlement.service;
+
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.settlement.ledger.AccountLedger;
+import com.saketh.simulator.settlement.ledger.LedgerStore;
+import com.saketh.simulator.settlement.ledger.ParkedResults;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch settlement against a real ledger store, with sends to a mocked
+ * {@link KafkaTemplate} that always succeed.
+ */
+class SettlementServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private AccountLedger ledger;
+    private LedgerStore store;
+    private ParkedResults parked;
+    private KeyOrderedExecutor workers;
+    private SettlementService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        KafkaTemplate<String, Transaction> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ledger = new AccountLedger(1000, 100);
+        store = LedgerStore.open(directory, ledger);
+        parked = new ParkedResults(directory);
+        workers = new KeyOrderedExecutor(1, "settlement-test-");
+        service = new SettlementService(kafkaTemplate, ledger, store, parked, workers, 50,
+            new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        workers.close();
+        parked.close();
+        store.close();
+    }
+
+    @Test
+    void slowBatchIsWaitedForWithoutDisablingTheLedger() throws Exception {
+        // Hold the only lane for ten times the send timeout, as a long GC pause would
+        CountDownLatch laneHeld = new CountDownLatch(1);
+        workers.submit("user-1", () -> {
+            laneHeld.countDown();
+            sleep(500);
+            return null;
+        });
+        assertTrue(laneHeld.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        service.processBatch(List.of(record(0, "user-1", "25.00"), record(1, "user-1", "5.00")));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+        assertFalse(store.isFailed());
+        assertEquals(1L, store.getJournaledBatches());
+        assertEquals(2L, store.getOffsets().get(0));
+        assertEquals(13_000L, ledger.getBalance("user-1"));
+        assertEquals(2L, service.getStatistics().get("settled"));
+
+        // The ledger keeps accepting batches afterwards
+        service.processBatch(List.of(record(2, "user-1", "1.00")));
+        assertEquals(13_100L, ledger.getBalance("user-1"));
+    }
+
+    private static ConsumerRecord<String, Transaction> record(long offset, String userId, String amount) {
+        Transaction transaction = Transaction.builder()
+            .userId(userId)
+            .amount(new BigDecimal(amount))
+            .currency("USD")
+            .transactionType(TransactionType.DEPOSIT)
+            .status(TransactionStatus.VALIDATED)
+            .build();
+        return new ConsumerRecord<>(KafkaTopics.VALIDATED_TRANSACTIONS, 0, offset,
+            transaction.getTransactionId(), transaction);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
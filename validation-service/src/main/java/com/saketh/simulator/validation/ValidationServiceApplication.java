@@ -0,0 +1,24 @@
+package com.saketh.simulator.validation;
+
+import com.saketh.simulator.common.id.TransactionIds;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Validation Service - Validates and fraud-scores raw transactions.
+ * Consumes raw-transactions in batches and publishes validated, failed and
+ * fraud-alert records transactionally with the consumed offsets.
+ */
+@SpringBootApplication
+@EnableKafka
+@EnableScheduling
+public class ValidationServiceApplication {
+
+    public static void main(String[] args) {
+        // Fail on a bad node ID before anything mints a transaction ID
+        TransactionIds.initialize();
+        SpringApplication.run(ValidationServiceApplication.class, args);
+    }
+}
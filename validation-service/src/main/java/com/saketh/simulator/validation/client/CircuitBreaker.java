@@ -0,0 +1,83 @@
+package com.saketh.simulator.validation.client;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * After {@code failureThreshold} failed calls in a row the breaker opens
+ * and rejects calls for {@code openMillis}; then a single probe call is let
+ * through (half open), which closes the breaker on success or reopens it
+ * on failure. A probe that never reports back is replaced after another
+ * {@code openMillis}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private long probeStartedAt;
+    private long openCount;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Whether a call may go out now
+     */
+    public boolean tryAcquire(long nowMillis) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && nowMillis - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                probing = false;
+            }
+            if (state == State.HALF_OPEN && (!probing || nowMillis - probeStartedAt >= openMillis)) {
+                probing = true;
+                probeStartedAt = nowMillis;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure(long nowMillis) {
+        probing = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                openCount++;
+            }
+            state = State.OPEN;
+            openedAt = nowMillis;
+            consecutiveFailures = 0;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Number of times the breaker has opened
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+}
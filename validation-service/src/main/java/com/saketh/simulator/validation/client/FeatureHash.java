@@ -0,0 +1,53 @@
+package com.saketh.simulator.validation.client;
+
+/**
+ * Allocation-free 64-bit hashing of feature vectors (MurmurHash3 mixing).
+ * Two calls with different seeds give the halves of a 128-bit key, so
+ * distinct vectors practically never share a cached score.
+ */
+public final class FeatureHash {
+
+    public static final long SEED_HI = 0x9E3779B97F4A7C15L;
+    public static final long SEED_LO = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private FeatureHash() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Hash the bit patterns of a vector, two features per 64-bit block
+     */
+    public static long hash(float[] features, long seed) {
+        int length = features.length;
+        long h = seed ^ (length * C1);
+
+        int i = 0;
+        for (; i + 2 <= length; i += 2) {
+            long k = (Float.floatToIntBits(features[i]) & 0xFFFFFFFFL)
+                | ((long) Float.floatToIntBits(features[i + 1]) << 32);
+            h ^= mixKey(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+        if (i < length) {
+            h ^= mixKey(Float.floatToIntBits(features[i]) & 0xFFFFFFFFL);
+        }
+        return fmix(h);
+    }
+
+    private static long mixKey(long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        return k * C2;
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
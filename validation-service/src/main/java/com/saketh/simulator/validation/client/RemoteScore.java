@@ -0,0 +1,24 @@
+package com.saketh.simulator.validation.client;
+
+/**
+ * Anomaly score returned by the remote scoring service, with the version
+ * of the model that computed it
+ */
+public final class RemoteScore {
+
+    private final double score;
+    private final String modelVersion;
+
+    public RemoteScore(double score, String modelVersion) {
+        this.score = score;
+        this.modelVersion = modelVersion;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+}
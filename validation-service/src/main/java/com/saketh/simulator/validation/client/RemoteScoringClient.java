@@ -0,0 +1,309 @@
+package com.saketh.simulator.validation.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.ml.TransactionFeatures;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client of the external ML scoring service ({@code python-ml}).
+ * <p>
+ * Concurrent {@link #score} calls are queued and coalesced into one
+ * {@code POST /score/batch} per micro-batch, sent once
+ * {@code batch-size} requests are waiting or the oldest has waited
+ * {@code max-delay-ms}. Scores are cached by feature hash for repeated
+ * vectors. Every returned future completes within {@code timeout-ms}: with
+ * the score, or with null when the service is slow, failing or behind an
+ * open {@link CircuitBreaker}, in which case callers fall back to the
+ * rule-based score.
+ */
+@Component
+@Slf4j
+public class RemoteScoringClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URI batchUri;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long timeoutMillis;
+    private final Semaphore inFlight;
+    private final BlockingQueue<PendingScore> queue;
+    private final ScoreCache cache;
+    private final CircuitBreaker breaker;
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean running;
+    private Thread batcher;
+
+    // Metrics
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public RemoteScoringClient(
+            @Value("${validation.ml.remote.url:}") String url,
+            @Value("${validation.ml.remote.batch-size:64}") int batchSize,
+            @Value("${validation.ml.remote.max-delay-ms:5}") long maxDelayMs,
+            @Value("${validation.ml.remote.timeout-ms:250}") long timeoutMs,
+            @Value("${validation.ml.remote.max-in-flight:4}") int maxInFlight,
+            @Value("${validation.ml.remote.queue-capacity:10000}") int queueCapacity,
+            @Value("${validation.ml.remote.cache-size:65536}") int cacheSize,
+            @Value("${validation.ml.remote.cache-ttl-ms:300000}") long cacheTtlMs,
+            @Value("${validation.ml.remote.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${validation.ml.remote.breaker.open-ms:10000}") long openMs,
+            MeterRegistry meterRegistry) {
+        this.batchUri = url.isBlank() ? null : URI.create(url.replaceAll("/+$", "") + "/score/batch");
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.timeoutMillis = Math.min(timeoutMs, AppConstants.ML_API_TIMEOUT);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.cache = new ScoreCache(cacheSize, cacheTtlMs);
+        this.breaker = new CircuitBreaker(failureThreshold, openMs);
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(timeoutMillis))
+            .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        FunctionCounter.builder("validation.ml.remote.requests", requests, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("validation.ml.remote.cache.hits", cacheHits, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("validation.ml.remote.batches", batches, LongAdder::sum)
+            .description("Micro-batches sent to the scoring service")
+            .register(meterRegistry);
+        FunctionCounter.builder("validation.ml.remote.fallbacks", fallbacks, LongAdder::sum)
+            .description("Requests answered without a score")
+            .register(meterRegistry);
+        Gauge.builder("validation.ml.remote.breaker.open", breaker,
+                b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+            .register(meterRegistry);
+
+        running = true;
+        batcher = new Thread(this::batchLoop, "ml-score-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+        log.info("Remote ML scoring enabled at {}", batchUri);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!isEnabled()) {
+            return;
+        }
+        running = false;
+        batcher.join(AppConstants.BATCH_TIMEOUT_MS);
+    }
+
+    public boolean isEnabled() {
+        return batchUri != null;
+    }
+
+    /**
+     * Score a feature vector. The vector must not be modified afterwards.
+     *
+     * @return future completed with the score, or with null if none arrived in time
+     */
+    public CompletableFuture<RemoteScore> score(float[] features) {
+        requests.increment();
+        long now = System.currentTimeMillis();
+        long hashHi = FeatureHash.hash(features, FeatureHash.SEED_HI);
+        long hashLo = FeatureHash.hash(features, FeatureHash.SEED_LO);
+        RemoteScore cached = cache.get(hashHi, hashLo, now);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (!breaker.tryAcquire(now)) {
+            fallbacks.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        PendingScore pending = new PendingScore(features, hashHi, hashLo);
+        if (!queue.offer(pending)) {
+            fallbacks.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        return pending.future.completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS)
+            .whenComplete((score, ex) -> {
+                if (score == null) {
+                    fallbacks.increment();
+                }
+            });
+    }
+
+    /**
+     * Collect queued requests into micro-batches, by size or by the oldest request's deadline
+     */
+    private void batchLoop() {
+        List<PendingScore> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingScore first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    long waitNanos = deadline - System.nanoTime();
+                    PendingScore next = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        queue.drainTo(batch, batchSize - batch.size());
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // Requests that already timed out are not worth sending
+                batch.removeIf(pending -> pending.future.isDone());
+                if (!batch.isEmpty()) {
+                    inFlight.acquire();
+                    send(new ArrayList<>(batch));
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("ML score batching failed: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.future.complete(null));
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingScore> batch) {
+        float[][] instances = new float[batch.size()][];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = batch.get(i).features;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("features", TransactionFeatures.NAMES);
+        body.put("instances", instances);
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(batchUri)
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)))
+                .build();
+        } catch (IOException e) {
+            inFlight.release();
+            throw new IllegalStateException("Failed to encode score batch", e);
+        }
+        batches.increment();
+        batchedRequests.add(batch.size());
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .whenComplete((response, ex) -> {
+                inFlight.release();
+                try {
+                    complete(batch, response, ex);
+                } catch (IOException | RuntimeException e) {
+                    fail(batch, e);
+                }
+            });
+    }
+
+    private void complete(List<PendingScore> batch, HttpResponse<byte[]> response, Throwable ex)
+            throws IOException {
+        if (ex != null) {
+            fail(batch, ex);
+            return;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        JsonNode root = MAPPER.readTree(response.body());
+        String modelVersion = root.path("modelVersion").asText(null);
+        JsonNode scores = root.path("scores");
+        if (modelVersion == null || scores.size() != batch.size()) {
+            throw new IOException("Expected " + batch.size() + " scores, got " + scores.size());
+        }
+        breaker.onSuccess();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingScore pending = batch.get(i);
+            double score = scores.get(i).asDouble();
+            cache.put(pending.hashHi, pending.hashLo, score, modelVersion, now);
+            pending.future.complete(new RemoteScore(score, modelVersion));
+        }
+    }
+
+    private void fail(List<PendingScore> batch, Throwable cause) {
+        failedBatches.increment();
+        breaker.onFailure(System.currentTimeMillis());
+        log.warn("ML score batch of {} failed: {}", batch.size(), cause.toString());
+        batch.forEach(pending -> pending.future.complete(null));
+    }
+
+    /**
+     * Get client statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long sent = batches.sum();
+        stats.put("requests", requests.sum());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("batches", sent);
+        stats.put("meanBatchSize", sent == 0 ? 0.0 : (double) batchedRequests.sum() / sent);
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("breakerState", breaker.getState().name());
+        stats.put("breakerOpened", breaker.getOpenCount());
+        return stats;
+    }
+
+    /**
+     * A queued score request
+     */
+    private static final class PendingScore {
+
+        private final float[] features;
+        private final long hashHi;
+        private final long hashLo;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<RemoteScore> future = new CompletableFuture<>();
+
+        PendingScore(float[] features, long hashHi, long hashLo) {
+            this.features = features;
+            this.hashHi = hashHi;
+            this.hashLo = hashLo;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.saketh.simulator.validation.client;
+
+/**
+ * Bounded, time-expiring map from 128-bit feature hashes to remote scores.
+ * Laid out like the ingestion dedup index: primitive open-addressing
+ * tables split into lock stripes, where a key may only occupy one of
+ * {@link #PROBE_WINDOW} slots after its home slot and the entry closest to
+ * expiry is evicted when they are all live. Entries scored by another
+ * model version than the latest one seen count as misses.
+ */
+public class ScoreCache {
+
+    private static final int PROBE_WINDOW = 8;
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final long ttlMillis;
+
+    private volatile String currentVersion;
+
+    /**
+     * Create a cache holding up to {@code capacity} scores for {@code ttlMillis} each
+     */
+    public ScoreCache(int capacity, long ttlMillis) {
+        int stripeCapacity = Math.max(PROBE_WINDOW, nextPowerOfTwo(capacity / STRIPES));
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Cached score of a vector, or null when missing, expired or from an older model
+     */
+    public RemoteScore get(long hashHi, long hashLo, long nowMillis) {
+        if (hashHi == 0 && hashLo == 0) {
+            hashLo = 1; // (0, 0) marks an empty slot
+        }
+        return stripeFor(hashHi).get(hashHi, hashLo, nowMillis, currentVersion);
+    }
+
+    public void put(long hashHi, long hashLo, double score, String modelVersion, long nowMillis) {
+        if (hashHi == 0 && hashLo == 0) {
+            hashLo = 1;
+        }
+        currentVersion = modelVersion;
+        stripeFor(hashHi).put(hashHi, hashLo, score, modelVersion, nowMillis, nowMillis + ttlMillis);
+    }
+
+    private Stripe stripeFor(long hashHi) {
+        return stripes[(int) (hashHi >>> 58) & (STRIPES - 1)];
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * One lock stripe: parallel arrays indexed by slot
+     */
+    private static final class Stripe {
+
+        private final long[] hashHi;
+        private final long[] hashLo;
+        private final long[] expiresAt;
+        private final double[] scores;
+        private final String[] versions;
+        private final int mask;
+
+        Stripe(int capacity) {
+            this.hashHi = new long[capacity];
+            this.hashLo = new long[capacity];
+            this.expiresAt = new long[capacity];
+            this.scores = new double[capacity];
+            this.versions = new String[capacity];
+            this.mask = capacity - 1;
+        }
+
+        synchronized RemoteScore get(long hi, long lo, long now, String version) {
+            int home = (int) lo & mask;
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int slot = (home + i) & mask;
+                if (hashHi[slot] == hi && hashLo[slot] == lo && expiresAt[slot] > now) {
+                    return versions[slot].equals(version) ? new RemoteScore(scores[slot], version) : null;
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(long hi, long lo, double score, String version, long now, long expiry) {
+            int home = (int) lo & mask;
+            int slot = -1;
+            int oldestSlot = home;
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int candidate = (home + i) & mask;
+                if (hashHi[candidate] == hi && hashLo[candidate] == lo) {
+                    slot = candidate;
+                    break;
+                }
+                if (slot < 0 && expiresAt[candidate] <= now) {
+                    slot = candidate;
+                }
+                if (expiresAt[candidate] < expiresAt[oldestSlot]) {
+                    oldestSlot = candidate;
+                }
+            }
+            if (slot < 0) {
+                slot = oldestSlot;
+            }
+            hashHi[slot] = hi;
+            hashLo[slot] = lo;
+            expiresAt[slot] = expiry;
+            scores[slot] = score;
+            versions[slot] = version;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.saketh.simulator.validation.config;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.FraudScore;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.serialization.FraudScoreSerializer;
+import com.saketh.simulator.common.serialization.TransactionSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transactional Kafka producer configuration for validation results.
+ * Values are Transactions, FraudScores, or raw bytes for the dead letter topic.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${validation.kafka.wire-format:json}")
+    private String wireFormat;
+
+    @Value("${validation.kafka.transaction-id-prefix:validation-tx-}")
+    private String transactionIdPrefix;
+
+    /**
+     * Configure Kafka producer properties
+     */
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = new HashMap<>();
+        
+        // Basic configuration
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        
+        // Performance tuning: a whole poll batch is sent per transaction
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536); // 64KB batch size
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
+        
+        // Idempotence is required for transactions
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        
+        boolean binary = "binary".equalsIgnoreCase(wireFormat);
+        Map<Class<?>, Serializer<?>> serializers = new HashMap<>();
+        serializers.put(Transaction.class, binary ? new TransactionSerializer() : new JsonSerializer<Transaction>());
+        serializers.put(FraudScore.class, binary ? new FraudScoreSerializer() : new JsonSerializer<FraudScore>());
+        serializers.put(byte[].class, new ByteArraySerializer());
+        
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(
+            configProps, new StringSerializer(), new DelegatingByTypeSerializer(serializers));
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * KafkaTemplate for publishing validation results
+     */
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * Transaction manager that commits consumed offsets with the produced results
+     */
+    @Bean
+    public KafkaTransactionManager<String, Object> kafkaTransactionManager(
+            ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTransactionManager<>(producerFactory);
+    }
+
+    /**
+     * Create validated-transactions topic if it doesn't exist
+     */
+    @Bean
+    public NewTopic validatedTransactionsTopic() {
+        return new NewTopic(KafkaTopics.VALIDATED_TRANSACTIONS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+
+    /**
+     * Create failed-transactions topic if it doesn't exist
+     */
+    @Bean
+    public NewTopic failedTransactionsTopic() {
+        return new NewTopic(KafkaTopics.FAILED_TRANSACTIONS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+
+    /**
+     * Create fraud-alerts topic if it doesn't exist
+     */
+    @Bean
+    public NewTopic fraudAlertsTopic() {
+        return new NewTopic(KafkaTopics.FRAUD_ALERTS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+
+    /**
+     * Create dlq-transactions topic for records that cannot be decoded
+     */
+    @Bean
+    public NewTopic dlqTransactionsTopic() {
+        return new NewTopic(KafkaTopics.DLQ_TRANSACTIONS, AppConstants.KAFKA_PARTITION_COUNT,
+            AppConstants.KAFKA_REPLICATION_FACTOR);
+    }
+}
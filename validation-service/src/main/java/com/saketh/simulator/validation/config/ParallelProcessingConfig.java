@@ -0,0 +1,22 @@
+package com.saketh.simulator.validation.config;
+
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Worker lanes shared by all consumer threads for CPU-bound record processing.
+ */
+@Configuration
+public class ParallelProcessingConfig {
+
+    /**
+     * One lane per core unless {@code validation.parallel.workers} is set
+     */
+    @Bean(destroyMethod = "close")
+    public KeyOrderedExecutor validationWorkers(@Value("${validation.parallel.workers:0}") int workers) {
+        int lanes = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new KeyOrderedExecutor(lanes, "validation-worker-");
+    }
+}
@@ -0,0 +1,54 @@
+package com.saketh.simulator.validation.controller;
+
+import com.saketh.simulator.common.rules.RuleStats;
+import com.saketh.simulator.validation.service.FraudScoringService;
+import com.saketh.simulator.validation.service.TransactionValidationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller exposing validation statistics.
+ */
+@RestController
+@RequestMapping("/api/v1/validation")
+@RequiredArgsConstructor
+public class ValidationController {
+
+    private final TransactionValidationService validationService;
+    private final FraudScoringService scoringService;
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "UP");
+        response.put("service", "validation-service");
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get validation statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(validationService.getStatistics());
+    }
+
+    /**
+     * Get per-rule hit counts and timings of the active fraud rules
+     */
+    @GetMapping("/rules")
+    public ResponseEntity<List<RuleStats>> getRules() {
+        return ResponseEntity.ok(scoringService.getRuleStats());
+    }
+}
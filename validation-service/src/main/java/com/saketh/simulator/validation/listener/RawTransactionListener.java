@@ -0,0 +1,74 @@
+package com.saketh.simulator.validation.listener;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.validation.service.TransactionValidationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch listener for raw-transactions.
+ * Each poll runs in a Kafka transaction started by the container. Offsets
+ * are committed per partition, only up to the partition's last contiguously
+ * processed record; a partition with a record that timed out is sought back
+ * to it and redelivered from there, while the other partitions move on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RawTransactionListener {
+
+    private final TransactionValidationService validationService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @KafkaListener(
+        id = "raw-transactions-validator",
+        topics = KafkaTopics.RAW_TRANSACTIONS,
+        containerFactory = "batchListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, Transaction>> records, Acknowledgment acknowledgment,
+                        Consumer<?, ?> consumer) {
+        Map<TopicPartition, Long> unhandled = validationService.processBatch(records);
+        if (unhandled.isEmpty()) {
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        // Not acknowledged, so the container commits nothing; commit each partition's handled prefix here
+        kafkaTemplate.sendOffsetsToTransaction(commitOffsets(records, unhandled), consumer.groupMetadata());
+        unhandled.forEach(consumer::seek);
+        try {
+            Thread.sleep(AppConstants.RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Offset to commit for every partition of a batch: its first unhandled
+     * record, or the one after its last record
+     */
+    static Map<TopicPartition, OffsetAndMetadata> commitOffsets(List<? extends ConsumerRecord<?, ?>> records,
+                                                                Map<TopicPartition, Long> unhandled) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            Long next = unhandled.get(partition);
+            offsets.put(partition, new OffsetAndMetadata(next != null ? next : record.offset() + 1));
+        }
+        return offsets;
+    }
+}
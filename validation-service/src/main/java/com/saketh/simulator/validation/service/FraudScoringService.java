@@ -0,0 +1,265 @@
+package com.saketh.simulator.validation.service;
+
+import com.saketh.simulator.common.ml.AnomalyScore;
+import com.saketh.simulator.common.ml.AnomalyScorer;
+import com.saketh.simulator.common.ml.IsolationForest;
+import com.saketh.simulator.common.ml.IsolationForestReader;
+import com.saketh.simulator.common.ml.TransactionFeatures;
+import com.saketh.simulator.common.model.Money;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.rules.RuleContext;
+import com.saketh.simulator.common.rules.RuleDefinition;
+import com.saketh.simulator.common.rules.RuleDefinitions;
+import com.saketh.simulator.common.rules.RuleEngine;
+import com.saketh.simulator.common.rules.RuleResult;
+import com.saketh.simulator.common.rules.RuleStats;
+import com.saketh.simulator.common.velocity.VelocityLimits;
+import com.saketh.simulator.common.velocity.VelocityStats;
+import com.saketh.simulator.common.velocity.VelocityTracker;
+import com.saketh.simulator.validation.client.RemoteScore;
+import com.saketh.simulator.validation.client.RemoteScoringClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rule-based fraud scoring of validated transactions.
+ * Rules come from {@code validation.rules.file} when set, otherwise the
+ * built-in defaults, and are reloaded when the file changes. Each scored
+ * transaction is counted in a per-user {@link VelocityTracker} whose
+ * windows feed the velocity rules.
+ * <p>
+ * When {@code validation.ml.model-file} points at an exported Isolation
+ * Forest, transactions are also scored in-process by an
+ * {@link AnomalyScorer}; the model is swapped when the file changes.
+ * Without a local model, the external scoring service is asked through
+ * {@link RemoteScoringClient} when {@code validation.ml.remote.url} is set.
+ * The distance to the nearest earlier transactions comes from
+ * {@link NeighborIndexService}.
+ * <p>
+ * Recording velocity and adding to the neighbour index are side effects, so
+ * they are applied once per transactionId: a record redelivered after a
+ * nack or an aborted Kafka transaction reads its user's velocity instead of
+ * counting it again, and reuses its first neighbour distance instead of
+ * matching itself. The last {@code validation.scoring.recent-ids} ids are
+ * remembered, far more than are redelivered at once.
+ */
+@Service
+@Slf4j
+public class FraudScoringService {
+
+    // Velocity is only observed here; ingestion enforces the limits
+    private static final VelocityLimits NO_LIMITS = new VelocityLimits();
+
+    private final Path rulesFile;
+    private final RuleEngine ruleEngine;
+    private final VelocityTracker velocityTracker;
+    private final ThreadLocal<VelocityStats> velocity = ThreadLocal.withInitial(VelocityStats::new);
+    private final ThreadLocal<RuleContext> context = ThreadLocal.withInitial(RuleContext::new);
+    private final Path modelFile;
+    private final AnomalyScorer anomalyScorer = new AnomalyScorer();
+    private final RemoteScoringClient remoteClient;
+    private final NeighborIndexService neighborIndex;
+    private final ThreadLocal<float[]> features = ThreadLocal.withInitial(() -> new float[TransactionFeatures.COUNT]);
+    // Neighbour distance of recently scored transactions by id, guarded by itself
+    private final Map<String, Double> recentlyScored;
+
+    private long rulesModifiedMillis;
+    private long modelModifiedMillis;
+
+    public FraudScoringService(
+            @Value("${validation.rules.file:}") String rulesFile,
+            @Value("${validation.velocity.max-users:100000}") int maxUsers,
+            @Value("${validation.ml.model-file:}") String modelFile,
+            @Value("${validation.scoring.recent-ids:65536}") int recentIds,
+            RemoteScoringClient remoteClient,
+            NeighborIndexService neighborIndex) throws IOException {
+        this.rulesFile = rulesFile.isBlank() ? null : Path.of(rulesFile);
+        this.ruleEngine = new RuleEngine(loadRules());
+        this.velocityTracker = new VelocityTracker(maxUsers);
+        this.recentlyScored = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+                return size() > recentIds;
+            }
+        };
+        log.info("Loaded {} fraud rules from {}", ruleEngine.getRuleStats().size(),
+            this.rulesFile == null ? "built-in defaults" : this.rulesFile);
+        this.modelFile = modelFile.isBlank() ? null : Path.of(modelFile);
+        this.remoteClient = remoteClient;
+        this.neighborIndex = neighborIndex;
+        if (this.modelFile != null) {
+            IsolationForest model = loadModel();
+            log.info("Loaded anomaly model {} ({} trees) from {}", model.getVersion(), model.getTreeCount(),
+                this.modelFile);
+        }
+    }
+
+    /**
+     * Count a transaction against its user's velocity and score it into
+     * caller-owned results. The anomaly score is left unscored when no
+     * local model is loaded. Scoring the same transactionId again has no
+     * further side effects.
+     *
+     * @return the pending remote score when the external service scores
+     *         this transaction instead, otherwise null
+     */
+    public CompletableFuture<RemoteScore> score(Transaction transaction, RuleResult out, AnomalyScore anomaly) {
+        String transactionId = transaction.getTransactionId();
+        Double firstDistance = previousDistance(transactionId);
+        VelocityStats stats = velocity.get();
+        long nowMillis = System.currentTimeMillis();
+        if (firstDistance == null) {
+            velocityTracker.tryRecord(transaction.getUserId(),
+                Money.toMinorUnits(transaction.getAmount(), transaction.getCurrency()),
+                nowMillis, NO_LIMITS, stats);
+        } else {
+            // Already counted when it was first scored
+            velocityTracker.peek(transaction.getUserId(), nowMillis, stats);
+        }
+        ruleEngine.evaluate(transaction, context.get().clear().velocity(stats), out);
+
+        float[] vector = features.get();
+        TransactionFeatures.extract(transaction, stats, vector, 0);
+        anomalyScorer.score(vector, anomaly);
+        if (firstDistance == null) {
+            double distance = neighborIndex.score(transaction);
+            remember(transactionId, distance);
+            anomaly.setNeighborDistance(distance);
+        } else {
+            anomaly.setNeighborDistance(firstDistance);
+        }
+        if (anomaly.isScored() || !remoteClient.isEnabled()) {
+            return null;
+        }
+        return remoteClient.score(vector.clone());
+    }
+
+    /**
+     * Neighbour distance from when a transaction was first scored, or null
+     * if it was not scored recently
+     */
+    private Double previousDistance(String transactionId) {
+        if (transactionId == null) {
+            return null;
+        }
+        synchronized (recentlyScored) {
+            return recentlyScored.get(transactionId);
+        }
+    }
+
+    private void remember(String transactionId, double distance) {
+        if (transactionId != null) {
+            synchronized (recentlyScored) {
+                recentlyScored.put(transactionId, distance);
+            }
+        }
+    }
+
+    /**
+     * Reload the rules file if it changed since it was last read. Invalid
+     * rules are logged and the current rules stay active.
+     */
+    @Scheduled(fixedDelayString = "${validation.rules.reload-interval-ms:10000}")
+    public synchronized void reloadIfChanged() {
+        if (rulesFile == null) {
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(rulesFile).toMillis();
+            if (modified == rulesModifiedMillis) {
+                return;
+            }
+            long version = ruleEngine.reload(RuleDefinitions.read(rulesFile));
+            rulesModifiedMillis = modified;
+            log.info("Reloaded fraud rules from {} as version {}", rulesFile, version);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload fraud rules from {}: {}", rulesFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Swap in the anomaly model file if it changed since it was last read.
+     * An unreadable or incompatible model is logged and the current one
+     * stays active.
+     */
+    @Scheduled(fixedDelayString = "${validation.ml.reload-interval-ms:10000}")
+    public synchronized void reloadModelIfChanged() {
+        if (modelFile == null) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(modelFile).toMillis() == modelModifiedMillis) {
+                return;
+            }
+            IsolationForest model = loadModel();
+            log.info("Swapped in anomaly model {} from {}", model.getVersion(), modelFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload anomaly model from {}: {}", modelFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Version of the active anomaly model, null when none is loaded
+     */
+    public String getModelVersion() {
+        IsolationForest model = anomalyScorer.getModel();
+        return model == null ? null : model.getVersion();
+    }
+
+    /**
+     * Statistics of the remote scoring client, null when it is disabled
+     */
+    public Map<String, Object> getRemoteStatistics() {
+        return remoteClient.isEnabled() ? remoteClient.getStatistics() : null;
+    }
+
+    public long getModelEvaluationCount() {
+        return anomalyScorer.getEvaluationCount();
+    }
+
+    public double getAverageModelEvaluationNanos() {
+        return anomalyScorer.getAverageEvaluationNanos();
+    }
+
+    public long getRulesVersion() {
+        return ruleEngine.getVersion();
+    }
+
+    public List<RuleStats> getRuleStats() {
+        return ruleEngine.getRuleStats();
+    }
+
+    public long getEvaluationCount() {
+        return ruleEngine.getEvaluationCount();
+    }
+
+    public double getAverageEvaluationNanos() {
+        return ruleEngine.getAverageEvaluationNanos();
+    }
+
+    private synchronized List<RuleDefinition> loadRules() throws IOException {
+        if (rulesFile == null) {
+            return RuleDefinitions.defaults();
+        }
+        rulesModifiedMillis = Files.getLastModifiedTime(rulesFile).toMillis();
+        return RuleDefinitions.read(rulesFile);
+    }
+
+    private synchronized IsolationForest loadModel() throws IOException {
+        long modified = Files.getLastModifiedTime(modelFile).toMillis();
+        IsolationForest model = IsolationForestReader.read(modelFile);
+        anomalyScorer.swap(model);
+        modelModifiedMillis = modified;
+        return model;
+    }
+}
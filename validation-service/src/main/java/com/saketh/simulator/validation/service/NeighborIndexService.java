@@ -0,0 +1,196 @@
+package com.saketh.simulator.validation.service;
+
+import com.saketh.simulator.common.ann.IvfIndex;
+import com.saketh.simulator.common.ann.TransactionEmbedding;
+import com.saketh.simulator.common.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distance of each transaction to its nearest historical neighbours, as an
+ * anomaly indicator.
+ * <p>
+ * Transactions are embedded with {@link TransactionEmbedding} and looked up
+ * in an in-process {@link IvfIndex}, then added to it, so the index follows
+ * live traffic. Without a snapshot to start from, the first
+ * {@code training-size} transactions are buffered and the centroids are
+ * trained on them in the background; until then no distance is reported.
+ * The index is snapshotted to {@code validation.ann.snapshot-file} when set
+ * and reloaded from it on startup, under the configured
+ * {@code max-vectors} rather than the limit it was written with.
+ */
+@Service
+@Slf4j
+public class NeighborIndexService {
+
+    private final boolean enabled;
+    private final int listCount;
+    private final int nprobe;
+    private final int neighbors;
+    private final long maxVectors;
+    private final int trainingSize;
+    private final Path snapshotFile;
+    private final ThreadLocal<float[]> embedding = ThreadLocal.withInitial(() -> new float[TransactionEmbedding.DIMENSION]);
+    private final ThreadLocal<float[]> distances;
+
+    private volatile IvfIndex index;
+
+    // Guarded by this, until the index is trained
+    private float[] trainingSample;
+    private int trainingCount;
+
+    // Metrics
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    public NeighborIndexService(
+            @Value("${validation.ann.enabled:true}") boolean enabled,
+            @Value("${validation.ann.lists:256}") int listCount,
+            @Value("${validation.ann.nprobe:8}") int nprobe,
+            @Value("${validation.ann.neighbors:10}") int neighbors,
+            @Value("${validation.ann.max-vectors:1000000}") long maxVectors,
+            @Value("${validation.ann.training-size:20000}") int trainingSize,
+            @Value("${validation.ann.snapshot-file:}") String snapshotFile) {
+        this.enabled = enabled;
+        this.listCount = listCount;
+        this.nprobe = nprobe;
+        this.neighbors = neighbors;
+        this.maxVectors = maxVectors;
+        this.trainingSize = Math.max(trainingSize, listCount);
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.distances = ThreadLocal.withInitial(() -> new float[neighbors]);
+        if (!enabled) {
+            return;
+        }
+        if (this.snapshotFile != null && Files.exists(this.snapshotFile)) {
+            try {
+                index = IvfIndex.readSnapshot(this.snapshotFile, maxVectors);
+                log.info("Loaded neighbour index of {} vectors from {}", index.size(), this.snapshotFile);
+                if (index.size() > maxVectors) {
+                    // Inserts replace vectors from here on, so the index keeps this size
+                    log.warn("Neighbour index snapshot holds {} vectors, more than max-vectors {}",
+                        index.size(), maxVectors);
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Ignoring unreadable neighbour index {}: {}", this.snapshotFile, e.getMessage());
+            }
+        }
+        trainingSample = new float[this.trainingSize * TransactionEmbedding.DIMENSION];
+    }
+
+    /**
+     * Mean distance from a transaction to its nearest stored neighbours,
+     * then remember the transaction
+     *
+     * @return the distance, or NaN while the index is not trained or holds too few vectors
+     */
+    public double score(Transaction transaction) {
+        if (!enabled) {
+            return Double.NaN;
+        }
+        float[] vector = embedding.get();
+        TransactionEmbedding.embed(transaction, vector);
+        IvfIndex current = index;
+        if (current == null) {
+            collectTrainingVector(vector);
+            return Double.NaN;
+        }
+
+        long startNanos = System.nanoTime();
+        float[] nearest = distances.get();
+        int found = current.search(vector, neighbors, nprobe, nearest);
+        current.add(vector);
+        searchNanos.add(System.nanoTime() - startNanos);
+        searches.increment();
+        if (found < neighbors) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int i = 0; i < found; i++) {
+            sum += nearest[i];
+        }
+        return sum / found;
+    }
+
+    private synchronized void collectTrainingVector(float[] vector) {
+        if (trainingSample == null || trainingCount == trainingSize) {
+            return; // training in progress; these transactions are not indexed
+        }
+        System.arraycopy(vector, 0, trainingSample, trainingCount * TransactionEmbedding.DIMENSION,
+            TransactionEmbedding.DIMENSION);
+        if (++trainingCount == trainingSize) {
+            float[] sample = trainingSample;
+            CompletableFuture.runAsync(() -> train(sample));
+        }
+    }
+
+    private void train(float[] sample) {
+        long startMillis = System.currentTimeMillis();
+        try {
+            IvfIndex trained = IvfIndex.train(TransactionEmbedding.DIMENSION, sample, trainingSize, listCount, 10,
+                maxVectors, 42L);
+            float[] vector = new float[TransactionEmbedding.DIMENSION];
+            for (int i = 0; i < trainingSize; i++) {
+                System.arraycopy(sample, i * vector.length, vector, 0, vector.length);
+                trained.add(vector);
+            }
+            index = trained;
+            log.info("Trained neighbour index with {} lists on {} transactions in {} ms", listCount, trainingSize,
+                System.currentTimeMillis() - startMillis);
+        } catch (RuntimeException e) {
+            log.error("Failed to train neighbour index: {}", e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                trainingSample = null;
+            }
+        }
+    }
+
+    /**
+     * Write the index to the snapshot file, if one is configured
+     */
+    @Scheduled(fixedDelayString = "${validation.ann.snapshot-interval-ms:300000}")
+    @PreDestroy
+    public void snapshot() {
+        IvfIndex current = index;
+        if (snapshotFile == null || current == null) {
+            return;
+        }
+        try {
+            long startMillis = System.currentTimeMillis();
+            current.writeSnapshot(snapshotFile);
+            log.info("Snapshotted neighbour index of {} vectors in {} ms", current.size(),
+                System.currentTimeMillis() - startMillis);
+        } catch (IOException e) {
+            log.error("Failed to snapshot neighbour index to {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public long getIndexSize() {
+        IvfIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    public double getAverageSearchNanos() {
+        long count = searches.sum();
+        return count == 0 ? 0.0 : (double) searchNanos.sum() / count;
+    }
+}
@@ -0,0 +1,472 @@
+package com.saketh.simulator.validation.service;
+
+import com.saketh.simulator.common.constants.AppConstants;
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.ml.AnomalyScore;
+import com.saketh.simulator.common.model.FraudScore;
+import com.saketh.simulator.common.model.Transaction;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor;
+import com.saketh.simulator.common.parallel.KeyOrderedExecutor.BatchResult;
+import com.saketh.simulator.common.rules.RuleEngine;
+import com.saketh.simulator.common.rules.RuleResult;
+import com.saketh.simulator.common.trace.TraceClock;
+import com.saketh.simulator.common.trace.TraceHeaders;
+import com.saketh.simulator.common.trace.TraceStage;
+import com.saketh.simulator.common.validation.TransactionValidator;
+import com.saketh.simulator.common.validation.ValidationError;
+import com.saketh.simulator.validation.client.RemoteScore;
+import com.saketh.simulator.validation.client.RemoteScoringClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates and fraud-scores batches of raw transactions.
+ * <p>
+ * Records of a poll batch are fanned out to {@link KeyOrderedExecutor}
+ * lanes keyed by userId, so scoring uses more cores than there are
+ * partitions while each user's records stay in offset order.
+ * <p>
+ * Every record of a poll batch ends up on exactly one output topic:
+ * valid transactions (VALIDATED, or FRAUD_REVIEW when high risk or high
+ * value) go to validated-transactions, invalid and critical-risk ones to
+ * failed-transactions, and undecodable records to the dead letter topic.
+ * A record whose processing throws is sent to failed-transactions with a
+ * processing error as its reason, so a deterministic failure cannot stall
+ * its partition; only records that time out are redelivered, per partition.
+ * High and critical risk also raise a {@link FraudScore} on fraud-alerts.
+ * Records scored by the external ML service are decided once their
+ * micro-batched scores arrive; all of a batch's requests are in flight
+ * together, and a missing score falls back to the rule-based score.
+ * Sends join the listener's Kafka transaction, so they become visible
+ * atomically with the batch's offset commit. The result record carries
+ * the input's trace header with a validation hop appended.
+ */
+@Service
+@Slf4j
+public class TransactionValidationService {
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(TransactionValidationService.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final FraudScoringService scoringService;
+    private final KeyOrderedExecutor workers;
+    private final long batchTimeoutMs;
+    private final double anomalyThreshold;
+    private final int anomalyMaxPoints;
+    private final double outlierDistance;
+    private final NeighborIndexService neighborIndex;
+    private final ThreadLocal<RuleResult> ruleResult = ThreadLocal.withInitial(RuleResult::new);
+    private final ThreadLocal<AnomalyScore> anomalyScore = ThreadLocal.withInitial(AnomalyScore::new);
+
+    // Metrics
+    private final Counter validatedCount;
+    private final Counter reviewCount;
+    private final Counter rejectedCount;
+    private final Counter failedCount;
+    private final Counter errorCount;
+    private final Counter undecodableCount;
+    private final Counter fraudAlertCount;
+    private final Counter mlFallbackCount;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+    private final Timer recordLag;
+
+    public TransactionValidationService(KafkaTemplate<String, Object> kafkaTemplate,
+                                        FraudScoringService scoringService,
+                                        KeyOrderedExecutor validationWorkers,
+                                        @Value("${validation.parallel.batch-timeout-ms:"
+                                            + AppConstants.BATCH_TIMEOUT_MS + "}") long batchTimeoutMs,
+                                        @Value("${validation.ml.anomaly-threshold:0.5}") double anomalyThreshold,
+                                        @Value("${validation.ml.max-points:40}") int anomalyMaxPoints,
+                                        @Value("${validation.ann.outlier-distance:0.5}") double outlierDistance,
+                                        NeighborIndexService neighborIndex,
+                                        MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.scoringService = scoringService;
+        this.workers = validationWorkers;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.anomalyThreshold = anomalyThreshold;
+        this.anomalyMaxPoints = anomalyMaxPoints;
+        this.outlierDistance = outlierDistance;
+        this.neighborIndex = neighborIndex;
+        this.validatedCount = outcomeCounter(meterRegistry, "validated");
+        this.reviewCount = outcomeCounter(meterRegistry, "review");
+        this.rejectedCount = outcomeCounter(meterRegistry, "rejected");
+        this.failedCount = outcomeCounter(meterRegistry, "failed");
+        this.errorCount = outcomeCounter(meterRegistry, "error");
+        this.undecodableCount = outcomeCounter(meterRegistry, "undecodable");
+        this.fraudAlertCount = Counter.builder("validation.fraud.alerts")
+            .register(meterRegistry);
+        this.mlFallbackCount = Counter.builder("validation.ml.fallbacks")
+            .description("Records decided on the rule score alone because no ML score arrived")
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("validation.batch.size")
+            .description("Records per consumed poll batch")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("validation.batch.duration")
+            .description("Time to validate, score and send one poll batch")
+            .register(meterRegistry);
+        this.recordLag = Timer.builder("validation.record.lag")
+            .description("Age of a record when it is consumed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Validate and score the records of a poll batch in parallel, ordered
+     * per user, then send the results in record order.
+     * <p>
+     * Each partition is handled up to its first record that did not finish
+     * in time; records of other partitions are not held back by it.
+     *
+     * @return offset of the first unhandled record of each partition that
+     *         must be redelivered, empty if the whole batch was handled
+     */
+    public Map<TopicPartition, Long> processBatch(List<ConsumerRecord<String, Transaction>> records) {
+        long startNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+
+        BatchResult<Outcome> batch = workers.processBatch(records, TransactionValidationService::keyOf,
+            this::evaluateOrFail, batchTimeoutMs);
+
+        // Sends must stay on the listener thread to join its Kafka transaction
+        Map<TopicPartition, Long> unhandled = batch.isComplete() ? Map.of() : new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Transaction> record = records.get(i);
+            if (!batch.isComplete()) {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                if (unhandled.containsKey(partition)) {
+                    continue;
+                }
+                if (!batch.isCompleted(i)) {
+                    unhandled.put(partition, record.offset());
+                    continue;
+                }
+            }
+            if (record.timestamp() > 0) {
+                recordLag.record(nowMillis - record.timestamp(), TimeUnit.MILLISECONDS);
+            }
+            Outcome outcome = batch.getResults().get(i);
+            if (outcome.remoteScore != null) {
+                try {
+                    outcome = resolve(outcome);
+                } catch (RuntimeException e) {
+                    outcome = processingError(record, e);
+                }
+            }
+            publish(record, outcome);
+        }
+        if (!batch.isComplete()) {
+            log.warn("Batch of {} records not fully validated, redelivering from {}: {}",
+                records.size(), unhandled, batch.getFirstFailure().getMessage());
+        }
+
+        batchSize.record(records.size());
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        log.debug("Processed batch of {} records", records.size());
+        return unhandled;
+    }
+
+    /**
+     * Evaluate one record, turning an unexpected exception into a failed
+     * outcome; runs on a worker lane
+     */
+    private Outcome evaluateOrFail(ConsumerRecord<String, Transaction> record) {
+        try {
+            return evaluate(record);
+        } catch (RuntimeException e) {
+            return processingError(record, e);
+        }
+    }
+
+    /**
+     * Validate and score one record
+     */
+    private Outcome evaluate(ConsumerRecord<String, Transaction> record) {
+        Transaction transaction = record.value();
+        if (transaction == null) {
+            return new Outcome(KafkaTopics.DLQ_TRANSACTIONS, null, null, undecodableCount);
+        }
+        transaction.setProcessedAt(LocalDateTime.now());
+
+        ValidationError error = TransactionValidator.validate(transaction);
+        if (error != null) {
+            // Records replayed with a later status keep it; the reason explains the failure
+            if (transaction.getStatus() != null
+                    && transaction.getStatus().canTransitionTo(TransactionStatus.VALIDATION_FAILED)) {
+                transaction.transitionTo(TransactionStatus.VALIDATION_FAILED);
+            }
+            transaction.setFraudReason(error.getMessage());
+            return new Outcome(KafkaTopics.FAILED_TRANSACTIONS, transaction, null, failedCount);
+        }
+
+        transaction.transitionTo(TransactionStatus.VALIDATING);
+        RuleResult result = ruleResult.get();
+        AnomalyScore anomaly = anomalyScore.get();
+        CompletableFuture<RemoteScore> remote = scoringService.score(transaction, result, anomaly);
+        // The rule result is reused by this lane, so only allocate the triggered rules when there are any
+        List<String> triggeredRules = result.getTriggeredCount() == 0 ? List.of() : result.getTriggeredRules();
+        if (remote != null) {
+            return new Outcome(transaction, result.getScore(), result.getRuleSetVersion(), triggeredRules,
+                anomaly.getNeighborDistance(), remote);
+        }
+        return decide(transaction, result.getScore(), result.getRuleSetVersion(), triggeredRules,
+            anomaly.isScored() ? anomaly.getScore() : Double.NaN, anomaly.getModelVersion(),
+            anomaly.getNeighborDistance());
+    }
+
+    /**
+     * Failed outcome for a record whose processing threw. Retrying would
+     * most likely throw again, so it is not redelivered.
+     */
+    private Outcome processingError(ConsumerRecord<String, Transaction> record, RuntimeException e) {
+        log.error("Failed to process record {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+            e.getMessage(), e);
+        Transaction transaction = record.value();
+        if (transaction.getStatus() != null
+                && transaction.getStatus().canTransitionTo(TransactionStatus.VALIDATION_FAILED)) {
+            transaction.transitionTo(TransactionStatus.VALIDATION_FAILED);
+        }
+        transaction.setFraudReason("Processing error");
+        return new Outcome(KafkaTopics.FAILED_TRANSACTIONS, transaction, null, errorCount);
+    }
+
+    /**
+     * Decide a record once its remote score arrived or timed out
+     */
+    private Outcome resolve(Outcome pending) {
+        RemoteScore remote = pending.remoteScore.join();
+        if (remote == null) {
+            mlFallbackCount.increment();
+        }
+        return decide(pending.transaction, pending.ruleScore, pending.ruleSetVersion, pending.triggeredRules,
+            remote == null ? Double.NaN : remote.getScore(), remote == null ? null : remote.getModelVersion(),
+            pending.neighborDistance);
+    }
+
+    /**
+     * Route a scored transaction by its combined rule and anomaly score
+     *
+     * @param mlScore          anomaly score, NaN when unscored
+     * @param modelVersion     version of the anomaly model, null when unscored
+     * @param neighborDistance distance to the nearest earlier transactions, NaN when unknown
+     */
+    private Outcome decide(Transaction transaction, int ruleScore, long ruleSetVersion, List<String> triggeredRules,
+                           double mlScore, String modelVersion, double neighborDistance) {
+        int score = Math.min(100, ruleScore + anomalyPoints(mlScore));
+        String riskLevel = RuleEngine.riskLevelOf(score);
+        transaction.setFraudScore(score / 100.0);
+
+        if (AppConstants.RISK_CRITICAL.equals(riskLevel)) {
+            FraudScore alert = flag(transaction, ruleScore, ruleSetVersion, triggeredRules, mlScore, modelVersion,
+                neighborDistance, riskLevel);
+            transaction.transitionTo(TransactionStatus.REJECTED);
+            return new Outcome(KafkaTopics.FAILED_TRANSACTIONS, transaction, alert, rejectedCount);
+        }
+        if (AppConstants.RISK_HIGH.equals(riskLevel)) {
+            FraudScore alert = flag(transaction, ruleScore, ruleSetVersion, triggeredRules, mlScore, modelVersion,
+                neighborDistance, riskLevel);
+            transaction.transitionTo(TransactionStatus.FRAUD_REVIEW);
+            return new Outcome(KafkaTopics.VALIDATED_TRANSACTIONS, transaction, alert, reviewCount);
+        }
+        if (TransactionValidator.isHighValue(transaction)) {
+            transaction.setFraudReason("High-value transaction");
+            transaction.transitionTo(TransactionStatus.FRAUD_REVIEW);
+            return new Outcome(KafkaTopics.VALIDATED_TRANSACTIONS, transaction, null, reviewCount);
+        }
+        transaction.transitionTo(TransactionStatus.VALIDATED);
+        return new Outcome(KafkaTopics.VALIDATED_TRANSACTIONS, transaction, null, validatedCount);
+    }
+
+    /**
+     * Points an anomaly score adds to the rule score: none up to the
+     * threshold, rising linearly to the configured maximum at 1.0
+     */
+    private int anomalyPoints(double mlScore) {
+        if (Double.isNaN(mlScore) || mlScore <= anomalyThreshold) {
+            return 0;
+        }
+        return (int) Math.round(anomalyMaxPoints * (mlScore - anomalyThreshold) / (1.0 - anomalyThreshold));
+    }
+
+    private FraudScore flag(Transaction transaction, int ruleScore, long ruleSetVersion, List<String> triggeredRules,
+                            double mlScore, String modelVersion, double neighborDistance, String riskLevel) {
+        FraudScore fraudScore = FraudScore.builder()
+            .transactionId(transaction.getTransactionId())
+            .fraudProbability(transaction.getFraudScore())
+            .ruleBasedScore(ruleScore)
+            .triggeredRules(triggeredRules)
+            .riskLevel(riskLevel)
+            .recommendation(RuleEngine.recommendationOf(riskLevel))
+            .requiresManualReview(AppConstants.RISK_HIGH.equals(riskLevel))
+            .modelVersion("rules-v" + ruleSetVersion)
+            .build();
+        List<String> reasons = new ArrayList<>(triggeredRules);
+        List<String> anomalies = new ArrayList<>();
+        if (modelVersion != null) {
+            fraudScore.setMlScore(mlScore);
+            fraudScore.setModelVersion(fraudScore.getModelVersion() + "+iforest-" + modelVersion);
+            if (mlScore > anomalyThreshold) {
+                anomalies.add("ISOLATION_FOREST");
+                reasons.add("ISOLATION_FOREST");
+            }
+        }
+        if (!Double.isNaN(neighborDistance)) {
+            anomalies.add(String.format("KNN_DISTANCE=%.4f", neighborDistance));
+            if (neighborDistance > outlierDistance) {
+                anomalies.add("KNN_OUTLIER");
+                reasons.add("KNN_OUTLIER");
+            }
+        }
+        if (!anomalies.isEmpty()) {
+            fraudScore.setAnomalies(anomalies);
+        }
+        transaction.setFraudFlag(true);
+        transaction.setFraudReason(String.join(",", reasons));
+        return fraudScore;
+    }
+
+    private void publish(ConsumerRecord<String, Transaction> record, Outcome outcome) {
+        outcome.counter.increment();
+        if (outcome.transaction == null) {
+            sendToDeadLetter(record);
+            return;
+        }
+        ProducerRecord<String, Object> result = new ProducerRecord<>(
+            outcome.topic, outcome.transaction.getTransactionId(), outcome.transaction);
+        TraceHeaders.write(result.headers(),
+            TraceHeaders.appendHop(TraceHeaders.read(record.headers()), TraceStage.VALIDATION, TraceClock.nowMicros()));
+        kafkaTemplate.send(result);
+        if (outcome.alert != null) {
+            kafkaTemplate.send(KafkaTopics.FRAUD_ALERTS, outcome.transaction.getTransactionId(), outcome.alert);
+            fraudAlertCount.increment();
+        }
+    }
+
+    private void sendToDeadLetter(ConsumerRecord<String, Transaction> record) {
+        DeserializationException exception = SerializationUtils.getExceptionFromHeader(
+            record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        log.warn("Undecodable record at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+            exception == null ? "null value" : exception.getMessage());
+        if (exception != null && exception.getData() != null) {
+            kafkaTemplate.send(KafkaTopics.DLQ_TRANSACTIONS, record.key(), exception.getData());
+        }
+    }
+
+    /**
+     * Records of a user share a worker lane, so they are scored in offset order
+     */
+    private static String keyOf(ConsumerRecord<String, Transaction> record) {
+        Transaction transaction = record.value();
+        return transaction != null && transaction.getUserId() != null ? transaction.getUserId() : record.key();
+    }
+
+    /**
+     * Get validation statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("validated", (long) validatedCount.count());
+        stats.put("fraudReview", (long) reviewCount.count());
+        stats.put("rejected", (long) rejectedCount.count());
+        stats.put("failed", (long) failedCount.count());
+        stats.put("errors", (long) errorCount.count());
+        stats.put("undecodable", (long) undecodableCount.count());
+        stats.put("fraudAlerts", (long) fraudAlertCount.count());
+        stats.put("workerLanes", workers.getLaneCount());
+        stats.put("batches", batchTimer.count());
+        stats.put("meanBatchSize", batchSize.mean());
+        stats.put("meanBatchMs", batchTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("meanRecordLagMs", recordLag.mean(TimeUnit.MILLISECONDS));
+        stats.put("rulesVersion", scoringService.getRulesVersion());
+        stats.put("ruleEvaluations", scoringService.getEvaluationCount());
+        stats.put("avgRuleEvaluationNanos", scoringService.getAverageEvaluationNanos());
+        String modelVersion = scoringService.getModelVersion();
+        if (modelVersion != null) {
+            stats.put("modelVersion", modelVersion);
+            stats.put("modelEvaluations", scoringService.getModelEvaluationCount());
+            stats.put("avgModelEvaluationNanos", scoringService.getAverageModelEvaluationNanos());
+        }
+        if (scoringService.getRemoteStatistics() != null) {
+            stats.put("remoteMl", scoringService.getRemoteStatistics());
+            stats.put("mlFallbacks", (long) mlFallbackCount.count());
+        }
+        if (neighborIndex.isReady()) {
+            stats.put("neighborIndexSize", neighborIndex.getIndexSize());
+            stats.put("neighborSearches", neighborIndex.getSearchCount());
+            stats.put("avgNeighborSearchNanos", neighborIndex.getAverageSearchNanos());
+        }
+        stats.put("timestamp", LocalDateTime.now().toString());
+        return stats;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("validation.records")
+            .description("Consumed records by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Where a validated record goes, computed on a worker and sent on the listener thread
+     */
+    private static final class Outcome {
+
+        private final String topic;
+        private final Transaction transaction;
+        private final FraudScore alert;
+        private final Counter counter;
+
+        // Set while the record waits for its remote score
+        private final int ruleScore;
+        private final long ruleSetVersion;
+        private final List<String> triggeredRules;
+        private final double neighborDistance;
+        private final CompletableFuture<RemoteScore> remoteScore;
+
+        Outcome(String topic, Transaction transaction, FraudScore alert, Counter counter) {
+            this.topic = topic;
+            this.transaction = transaction;
+            this.alert = alert;
+            this.counter = counter;
+            this.ruleScore = 0;
+            this.ruleSetVersion = 0;
+            this.triggeredRules = null;
+            this.neighborDistance = Double.NaN;
+            this.remoteScore = null;
+        }
+
+        Outcome(Transaction transaction, int ruleScore, long ruleSetVersion, List<String> triggeredRules,
+                double neighborDistance, CompletableFuture<RemoteScore> remoteScore) {
+            this.topic = null;
+            this.transaction = transaction;
+            this.alert = null;
+            this.counter = null;
+            this.ruleScore = ruleScore;
+            this.ruleSetVersion = ruleSetVersion;
+            this.triggeredRules = triggeredRules;
+            this.neighborDistance = neighborDistance;
+            this.remoteScore = remoteScore;
+        }
+    }
+}
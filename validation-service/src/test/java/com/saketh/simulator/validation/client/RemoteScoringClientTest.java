@@ -0,0 +1,159 @@
+package com.saketh.simulator.validation.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saketh.simulator.common.ml.TransactionFeatures;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Micro-batching, timeout fallback and circuit breaking of the remote
+ * scoring client against an in-JVM stand-in for {@code python-ml/ml_stub_server.py}
+ * that scores each instance with its first feature.
+ */
+class RemoteScoringClientTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private enum Mode { OK, SLOW, ERROR }
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private volatile Mode mode = Mode.OK;
+    private RemoteScoringClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/score/batch", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        if (client != null) {
+            client.stop();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void coalescesConcurrentRequestsIntoOneBatch() throws Exception {
+        client = client(8, 1000, 1000, 5);
+
+        List<CompletableFuture<RemoteScore>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(client.score(features(i)));
+        }
+        for (int i = 0; i < 8; i++) {
+            RemoteScore score = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertNotNull(score);
+            assertEquals(i, score.getScore(), 1e-9);
+            assertEquals("stub", score.getModelVersion());
+        }
+        assertEquals(List.of(8), batchSizes);
+
+        // A repeated vector is answered from the cache without another request
+        assertEquals(3, client.score(features(3)).get(5, TimeUnit.SECONDS).getScore(), 1e-9);
+        assertEquals(1, batchSizes.size());
+        assertEquals(1L, client.getStatistics().get("cacheHits"));
+    }
+
+    @Test
+    void fallsBackToNullWhenTheServiceIsSlow() throws Exception {
+        mode = Mode.SLOW;
+        client = client(1, 0, 100, 5);
+
+        long start = System.nanoTime();
+        assertNull(client.score(features(1)).get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1L, client.getStatistics().get("fallbacks"));
+    }
+
+    @Test
+    void opensTheBreakerAfterConsecutiveFailures() throws Exception {
+        mode = Mode.ERROR;
+        client = client(1, 0, 1000, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(client.score(features(i)).get(5, TimeUnit.SECONDS));
+        }
+        Map<String, Object> stats = client.getStatistics();
+        assertEquals("OPEN", stats.get("breakerState"));
+        assertEquals(3L, stats.get("failedBatches"));
+
+        // While open, requests fall back at once without reaching the service
+        CompletableFuture<RemoteScore> rejected = client.score(features(10));
+        assertTrue(rejected.isDone());
+        assertNull(rejected.get());
+        assertEquals(3, batchSizes.size());
+    }
+
+    private RemoteScoringClient client(int batchSize, long maxDelayMs, long timeoutMs, int failureThreshold) {
+        RemoteScoringClient scoringClient = new RemoteScoringClient(
+            "http://127.0.0.1:" + server.getAddress().getPort(), batchSize, maxDelayMs, timeoutMs, 4,
+            1000, 1024, 60_000, failureThreshold, 60_000, new SimpleMeterRegistry());
+        scoringClient.start();
+        return scoringClient;
+    }
+
+    private static float[] features(int first) {
+        float[] features = new float[TransactionFeatures.COUNT];
+        features[0] = first;
+        return features;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode instances = MAPPER.readTree(exchange.getRequestBody()).path("instances");
+        batchSizes.add(instances.size());
+        try {
+            if (mode == Mode.SLOW) {
+                Thread.sleep(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (mode == Mode.ERROR) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        List<Double> scores = new ArrayList<>();
+        for (JsonNode instance : instances) {
+            scores.add(instance.get(0).asDouble());
+        }
+        byte[] body = MAPPER.writeValueAsString(Map.of("modelVersion", "stub", "scores", scores))
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.saketh.simulator.validation.listener;
+
+import com.saketh.simulator.common.constants.KafkaTopics;
+import com.saketh.simulator.common.enums.TransactionStatus;
+import com.saketh.simulator.common.enums.TransactionType;
+import com.saketh.simulator.common.model.Transaction;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Raw transactions on an embedded broker are routed to validated-transactions,
+ * failed-transactions or the dead letter topic, through the transactional
+ * batch listener, and a partly handled batch commits per partition.
+ */
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@EmbeddedKafka(
+    partitions = 1,
+    topics = KafkaTopics.RAW_TRANSACTIONS,
+    brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"}
+)
+class RawTransactionListenerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void routesEachRecordByOutcome() {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        KafkaTemplate<String, Transaction> json = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            producerProps, new StringSerializer(), new JsonSerializer<>()));
+        KafkaTemplate<String, byte[]> raw = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            producerProps, new StringSerializer(), new ByteArraySerializer()));
+
+        json.send(KafkaTopics.RAW_TRANSACTIONS, "tx-valid", transaction("tx-valid", "25.00"));
+        json.send(KafkaTopics.RAW_TRANSACTIONS, "tx-invalid", transaction("tx-invalid", "-5.00"));
+        raw.send(KafkaTopics.RAW_TRANSACTIONS, "tx-corrupt", "not a transaction".getBytes(StandardCharsets.UTF_8));
+        json.flush();
+        raw.flush();
+
+        Map<String, String> topicByKey = new HashMap<>();
+        try (Consumer<String, byte[]> consumer = resultConsumer()) {
+            consumer.subscribe(List.of(KafkaTopics.VALIDATED_TRANSACTIONS, KafkaTopics.FAILED_TRANSACTIONS,
+                KafkaTopics.DLQ_TRANSACTIONS));
+            long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+            while (topicByKey.size() < 3 && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1))) {
+                    topicByKey.put(record.key(), record.topic());
+                }
+            }
+        }
+
+        assertEquals(KafkaTopics.VALIDATED_TRANSACTIONS, topicByKey.get("tx-valid"));
+        assertEquals(KafkaTopics.FAILED_TRANSACTIONS, topicByKey.get("tx-invalid"));
+        assertEquals(KafkaTopics.DLQ_TRANSACTIONS, topicByKey.get("tx-corrupt"));
+    }
+
+    @Test
+    void commitsEachPartitionUpToItsOwnGap() {
+        List<ConsumerRecord<String, String>> records = List.of(
+            new ConsumerRecord<>(KafkaTopics.RAW_TRANSACTIONS, 0, 10, "a", "a"),
+            new ConsumerRecord<>(KafkaTopics.RAW_TRANSACTIONS, 0, 11, "b", "b"),
+            new ConsumerRecord<>(KafkaTopics.RAW_TRANSACTIONS, 0, 12, "c", "c"),
+            new ConsumerRecord<>(KafkaTopics.RAW_TRANSACTIONS, 1, 40, "d", "d"),
+            new ConsumerRecord<>(KafkaTopics.RAW_TRANSACTIONS, 1, 41, "e", "e"));
+        TopicPartition first = new TopicPartition(KafkaTopics.RAW_TRANSACTIONS, 0);
+        TopicPartition second = new TopicPartition(KafkaTopics.RAW_TRANSACTIONS, 1);
+
+        // A gap at offset 11 of the first partition does not hold back the second
+        Map<TopicPartition, OffsetAndMetadata> offsets =
+            RawTransactionListener.commitOffsets(records, Map.of(first, 11L));
+        assertEquals(11L, offsets.get(first).offset());
+        assertEquals(42L, offsets.get(second).offset());
+    }
+
+    private Consumer<String, byte[]> resultConsumer() {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("results", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Results are only visible once the listener's transaction commits
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        return new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new ByteArrayDeserializer())
+            .createConsumer();
+    }
+
+    private static Transaction transaction(String transactionId, String amount) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .userId("user_1")
+            .amount(new BigDecimal(amount))
+            .currency("USD")
+            .transactionType(TransactionType.DEPOSIT)
+            .status(TransactionStatus.PENDING)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+}